@@ -0,0 +1,153 @@
+package com.busbooking.benchmark;
+
+import com.busbooking.BusBookingApplication;
+import com.busbooking.entity.Booking;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.User;
+import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.UserRepository;
+import com.busbooking.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link BookingService#createBooking} against an in-memory H2 database, with every thread either
+ * contending on one schedule or booking its own.
+ *
+ * Each operation books a seat and cancels it again, which hands back both the seat and the user's
+ * booking quota, so the measurement can run for as long as JMH likes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookingBenchmark {
+
+    private static final int MAX_THREADS = 64;
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        @Param({"contended", "spread"})
+        public String layout;
+
+        private ConfigurableApplicationContext context;
+        private BookingService bookingService;
+        private Long[] scheduleIds;
+        private Long[] userIds;
+        private final AtomicInteger nextThread = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = new SpringApplicationBuilder(BusBookingApplication.class)
+                    .run(
+                            "--server.port=0",
+                            "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                            "--spring.datasource.username=sa",
+                            "--spring.datasource.password=",
+                            "--spring.datasource.driver-class-name=org.h2.Driver",
+                            "--spring.jpa.hibernate.ddl-auto=create",
+                            "--spring.jpa.show-sql=false",
+                            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                            "--app.data-loader.enabled=false",
+                            "--logging.level.root=WARN");
+            bookingService = context.getBean(BookingService.class);
+
+            Bus bus = new Bus();
+            bus.setBusNumber("KA-01-0001");
+            bus.setBusName("Benchmark Express");
+            bus.setTotalSeats(MAX_THREADS * 2);
+            bus.setBusType("AC");
+            bus = context.getBean(BusRepository.class).save(bus);
+
+            int schedules = "contended".equals(layout) ? 1 : MAX_THREADS;
+            scheduleIds = new Long[schedules];
+            LocalDateTime departure = LocalDateTime.now().plusDays(2);
+            for (int i = 0; i < schedules; i++) {
+                Schedule schedule = new Schedule();
+                schedule.setBus(bus);
+                schedule.setSource("Bangalore");
+                schedule.setDestination("Chennai");
+                schedule.setDepartureTime(departure.plusMinutes(i));
+                schedule.setArrivalTime(departure.plusMinutes(i).plusHours(6));
+                schedule.setFare(500.0);
+                schedule.setAvailableSeats(bus.getTotalSeats());
+                scheduleIds[i] = context.getBean(ScheduleRepository.class).save(schedule).getId();
+            }
+
+            userIds = new Long[MAX_THREADS];
+            for (int i = 0; i < MAX_THREADS; i++) {
+                User user = new User();
+                user.setEmail("bench" + i + "@example.com");
+                user.setPassword("password");
+                user.setFullName("Bench User " + i);
+                user.setPhoneNumber("9000000" + String.format("%03d", i));
+                userIds[i] = context.getBean(UserRepository.class).save(user).getId();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        private Long userId;
+        private Long scheduleId;
+
+        @Setup(Level.Trial)
+        public void pick(Application application) {
+            int thread = application.nextThread.getAndIncrement() % MAX_THREADS;
+            userId = application.userIds[thread];
+            scheduleId = application.scheduleIds[thread % application.scheduleIds.length];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Booking createBooking_1Thread(Application application, Caller caller) {
+        return bookAndCancel(application, caller);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Booking createBooking_8Threads(Application application, Caller caller) {
+        return bookAndCancel(application, caller);
+    }
+
+    @Benchmark
+    @Threads(MAX_THREADS)
+    public Booking createBooking_64Threads(Application application, Caller caller) {
+        return bookAndCancel(application, caller);
+    }
+
+    private Booking bookAndCancel(Application application, Caller caller) {
+        Booking booking = application.bookingService.createBooking(caller.scheduleId, caller.userId, 1);
+        application.bookingService.cancelBooking(booking.getId());
+        return booking;
+    }
+}
@@ -0,0 +1,100 @@
+package com.busbooking.benchmark;
+
+import com.busbooking.entity.Booking;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing the entity graphs the controllers return, with an ObjectMapper configured the way
+ * Spring Boot configures the application's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"1", "100"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Schedule> schedules;
+    private List<Booking> bookings;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Bus bus = new Bus();
+        bus.setId(1L);
+        bus.setBusNumber("KA-01-0001");
+        bus.setBusName("Benchmark Express");
+        bus.setTotalSeats(40);
+        bus.setBusType("AC");
+
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("bench@example.com");
+        user.setFullName("Bench User");
+        user.setPhoneNumber("9000000000");
+
+        schedules = new ArrayList<>(size);
+        bookings = new ArrayList<>(size);
+        LocalDateTime departure = LocalDateTime.of(2030, 1, 1, 6, 0);
+        for (int i = 0; i < size; i++) {
+            Schedule schedule = new Schedule();
+            schedule.setId((long) i + 1);
+            schedule.setBus(bus);
+            schedule.setSource("Bangalore");
+            schedule.setDestination("Chennai");
+            schedule.setDepartureTime(departure.plusHours(i));
+            schedule.setArrivalTime(departure.plusHours(i + 6));
+            schedule.setFare(500.0);
+            schedule.setAvailableSeats(38);
+            schedules.add(schedule);
+
+            Booking booking = new Booking();
+            booking.setId((long) i + 1);
+            booking.setUser(user);
+            booking.setSchedule(schedule);
+            booking.setNumberOfSeats(2);
+            booking.setSeatNumbers("1,2");
+            booking.setTotalAmount(1000.0);
+            booking.setBookingDate(departure.minusDays(1));
+            booking.setStatus("CONFIRMED");
+            bookings.add(booking);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeSchedules() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(schedules);
+    }
+
+    @Benchmark
+    public byte[] serializeBookings() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookings);
+    }
+}
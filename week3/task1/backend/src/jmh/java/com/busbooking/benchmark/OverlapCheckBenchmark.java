@@ -0,0 +1,103 @@
+package com.busbooking.benchmark;
+
+import com.busbooking.entity.Booking;
+import com.busbooking.entity.Schedule;
+import com.busbooking.util.IntervalTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The "does this trip overlap one of the user's bookings" check, done the original way by
+ * scanning the booking list and comparing schedule times, and against the interval tree that
+ * {@code UserBookingIndex} now keeps.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OverlapCheckBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int bookings;
+
+    private List<Booking> bookingList;
+    private IntervalTree trips;
+    private Schedule[] probes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        bookingList = new ArrayList<>(bookings);
+        trips = new IntervalTree();
+        for (int i = 0; i < bookings; i++) {
+            // Trips of up to 12 hours, spaced so that roughly half the probes hit one
+            Schedule schedule = schedule(base.plusMinutes(i * 1440L), random.nextInt(720) + 1);
+            Booking booking = new Booking();
+            booking.setSchedule(schedule);
+            bookingList.add(booking);
+            trips.insert(epochSeconds(schedule.getDepartureTime()), epochSeconds(schedule.getArrivalTime()), i);
+        }
+        probes = new Schedule[1024];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = schedule(base.plusMinutes(random.nextInt(bookings) * 1440L + random.nextInt(1440)), 60);
+        }
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        Schedule schedule = nextProbe();
+        for (Booking booking : bookingList) {
+            if (isOverlapping(schedule, booking.getSchedule())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean intervalTree() {
+        Schedule schedule = nextProbe();
+        return trips.overlaps(epochSeconds(schedule.getDepartureTime()), epochSeconds(schedule.getArrivalTime()));
+    }
+
+    private Schedule nextProbe() {
+        next = (next + 1) & (probes.length - 1);
+        return probes[next];
+    }
+
+    private static boolean isOverlapping(Schedule newSchedule, Schedule existingSchedule) {
+        return !(newSchedule.getArrivalTime().isBefore(existingSchedule.getDepartureTime())
+                || newSchedule.getDepartureTime().isAfter(existingSchedule.getArrivalTime()));
+    }
+
+    private static Schedule schedule(LocalDateTime departure, int minutes) {
+        Schedule schedule = new Schedule();
+        schedule.setDepartureTime(departure);
+        schedule.setArrivalTime(departure.plusMinutes(minutes));
+        return schedule;
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,57 @@
+package com.busbooking.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Groups failed responses by why they failed, using the error message the application returns.
+ */
+final class ErrorCause {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private ErrorCause() {
+    }
+
+    static String classify(int status, String body) {
+        if (status == 401 || status == 403) {
+            return "unauthorized (" + status + ")";
+        }
+        String message = message(body);
+        String lower = message.toLowerCase(Locale.ROOT);
+        if (lower.contains("not enough seats")) {
+            return "seat exhaustion";
+        }
+        if (lower.contains("already taken")) {
+            return "seat already taken";
+        }
+        if (lower.contains("lock")) {
+            return "lock rejection";
+        }
+        if (lower.contains("overlapping booking")) {
+            return "overlapping booking";
+        }
+        if (lower.contains("maximum number of active bookings")) {
+            return "active booking limit";
+        }
+        if (message.isEmpty()) {
+            return "HTTP " + status;
+        }
+        return "HTTP " + status + ": " + (message.length() > 60 ? message.substring(0, 60) + "..." : message);
+    }
+
+    private static String message(String body) {
+        if (body == null || body.isBlank()) {
+            return "";
+        }
+        try {
+            JsonNode json = JSON.readTree(body);
+            return json.path("message").asText("");
+        } catch (IOException e) {
+            return body.trim();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.busbooking.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint latency histograms, in microseconds, and counts of failed requests by cause.
+ */
+class LatencyReport {
+
+    private final Map<String, Histogram> latencies = new ConcurrentSkipListMap<>();
+    private final Map<String, Map<String, LongAdder>> errors = new ConcurrentSkipListMap<>();
+    private volatile long measuredNanos;
+
+    void record(String endpoint, long nanos, String errorCause) {
+        latencies.computeIfAbsent(endpoint, name -> new ConcurrentHistogram(3))
+                .recordValue(Math.max(1, nanos / 1000));
+        if (errorCause != null) {
+            errors.computeIfAbsent(endpoint, name -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(errorCause, cause -> new LongAdder())
+                    .increment();
+        }
+    }
+
+    void setMeasuredNanos(long measuredNanos) {
+        this.measuredNanos = measuredNanos;
+    }
+
+    String format(Settings settings) {
+        double seconds = Math.max(measuredNanos, 1) / 1e9;
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Load test: %d users, %d buses x %d schedules, %d seats per bus, mix search/book/cancel %d/%d/%d%n",
+                settings.users, settings.buses, settings.schedulesPerBus, settings.seatsPerBus,
+                settings.searchWeight, settings.bookWeight, settings.cancelWeight));
+        out.append(String.format("Measured for %.1f s after a %d s warmup (login is measured from the start)%n%n",
+                seconds, settings.warmupSeconds));
+
+        out.append(String.format("%-8s %10s %10s %8s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        latencies.forEach((endpoint, histogram) -> {
+            long failed = errors.getOrDefault(endpoint, Map.of()).values().stream().mapToLong(LongAdder::sum).sum();
+            out.append(String.format("%-8s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+                    endpoint,
+                    histogram.getTotalCount(),
+                    histogram.getTotalCount() / seconds,
+                    failed,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+        });
+
+        if (!errors.isEmpty()) {
+            out.append(String.format("%nErrors by cause%n"));
+            errors.forEach((endpoint, causes) -> {
+                Map<String, Long> sorted = new TreeMap<>();
+                causes.forEach((cause, count) -> sorted.put(cause, count.sum()));
+                sorted.forEach((cause, count) -> out.append(String.format("%-8s %10d  %s%n", endpoint, count, cause)));
+            });
+        }
+        return out.toString();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
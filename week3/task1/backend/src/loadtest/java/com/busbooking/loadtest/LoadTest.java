@@ -0,0 +1,157 @@
+package com.busbooking.loadtest;
+
+import com.busbooking.BusBookingApplication;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.User;
+import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Closed-loop load test: boots the application against an in-memory H2 database, seeds a fleet,
+ * then lets each virtual user log in and loop over search, book and cancel requests until the
+ * run ends. Latencies recorded after the warmup go into the report.
+ *
+ * Settings are read from system properties, see {@link Settings}.
+ */
+public class LoadTest {
+
+    static final String PASSWORD = "loadtest-password";
+    static final String[] CITIES = {"Bangalore", "Chennai", "Hyderabad", "Mumbai", "Pune", "Kochi", "Mysore", "Goa"};
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        ConfigurableApplicationContext context = start(settings);
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<String> emails = seed(context, settings);
+
+            LatencyReport report = new LatencyReport();
+            run(settings, "http://localhost:" + port, emails, report);
+
+            String text = report.format(settings);
+            System.out.println(text);
+            Path output = Path.of(settings.reportFile);
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            Files.writeString(output, text);
+            System.out.println("Report written to " + output.toAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Settings settings) {
+        return new SpringApplicationBuilder(BusBookingApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--server.error.include-message=always",
+                        "--server.tomcat.threads.max=" + settings.serverThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=" + settings.lockTimeoutMs,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.hikari.maximum-pool-size=" + settings.poolSize,
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--app.data-loader.enabled=false",
+                        "--logging.level.root=WARN");
+    }
+
+    private static List<String> seed(ConfigurableApplicationContext context, Settings settings) {
+        BusRepository busRepository = context.getBean(BusRepository.class);
+        ScheduleRepository scheduleRepository = context.getBean(ScheduleRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+
+        LocalDateTime firstDeparture = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0).withNano(0);
+        for (int b = 0; b < settings.buses; b++) {
+            Bus bus = new Bus();
+            bus.setBusNumber(String.format("LT-%04d", b));
+            bus.setBusName("Load Test " + b);
+            bus.setTotalSeats(settings.seatsPerBus);
+            bus.setBusType(b % 2 == 0 ? "AC" : "Non-AC");
+            bus = busRepository.save(bus);
+
+            List<Schedule> schedules = new ArrayList<>();
+            for (int s = 0; s < settings.schedulesPerBus; s++) {
+                Schedule schedule = new Schedule();
+                schedule.setBus(bus);
+                schedule.setSource(CITIES[(b + s) % CITIES.length]);
+                schedule.setDestination(CITIES[(b + s + 1) % CITIES.length]);
+                schedule.setDepartureTime(firstDeparture.plusHours(s * 8L));
+                schedule.setArrivalTime(firstDeparture.plusHours(s * 8L + 6));
+                schedule.setFare(300.0 + 50 * ((b + s) % 10));
+                schedule.setAvailableSeats(settings.seatsPerBus);
+                schedules.add(schedule);
+            }
+            scheduleRepository.saveAll(schedules);
+        }
+
+        // Every user shares one password, so it is hashed once
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<String> emails = new ArrayList<>(settings.users);
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < settings.users; i++) {
+            User user = new User();
+            user.setEmail("loadtest" + i + "@example.com");
+            user.setPassword(passwordHash);
+            user.setFullName("Load Test User " + i);
+            user.setPhoneNumber(String.format("9%09d", i));
+            batch.add(user);
+            emails.add(user.getEmail());
+            if (batch.size() == 500) {
+                userRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        userRepository.saveAll(batch);
+        return emails;
+    }
+
+    private static void run(Settings settings, String baseUrl, List<String> emails, LatencyReport report)
+            throws InterruptedException {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        long start = System.nanoTime();
+        long warmupEnd = start + Duration.ofSeconds(settings.warmupSeconds).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(settings.durationSeconds).toNanos();
+
+        CountDownLatch finished = new CountDownLatch(emails.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < emails.size(); i++) {
+                VirtualUser user = new VirtualUser(httpClient, baseUrl, emails.get(i), settings, report,
+                        warmupEnd, end, settings.seed + i);
+                executor.submit(() -> {
+                    try {
+                        user.run();
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }
+            finished.await();
+        }
+        report.setMeasuredNanos(System.nanoTime() - warmupEnd);
+    }
+}
@@ -0,0 +1,54 @@
+package com.busbooking.loadtest;
+
+/**
+ * Load test settings, each read from a {@code loadtest.*} system property.
+ */
+class Settings {
+
+    int users;
+    int buses;
+    int schedulesPerBus;
+    int seatsPerBus;
+    int warmupSeconds;
+    int durationSeconds;
+    int thinkTimeMs;
+    int searchWeight;
+    int bookWeight;
+    int cancelWeight;
+    int serverThreads;
+    int poolSize;
+    int lockTimeoutMs;
+    long seed;
+    String reportFile;
+
+    static Settings fromSystemProperties() {
+        Settings settings = new Settings();
+        settings.users = intProperty("loadtest.users", 1000);
+        settings.buses = intProperty("loadtest.buses", 20);
+        settings.schedulesPerBus = intProperty("loadtest.schedules-per-bus", 10);
+        settings.seatsPerBus = intProperty("loadtest.seats-per-bus", 40);
+        settings.warmupSeconds = intProperty("loadtest.warmup-seconds", 10);
+        settings.durationSeconds = intProperty("loadtest.duration-seconds", 60);
+        settings.thinkTimeMs = intProperty("loadtest.think-time-ms", 0);
+        settings.searchWeight = intProperty("loadtest.mix.search", 70);
+        settings.bookWeight = intProperty("loadtest.mix.book", 20);
+        settings.cancelWeight = intProperty("loadtest.mix.cancel", 10);
+        settings.serverThreads = intProperty("loadtest.server-threads", 200);
+        settings.poolSize = intProperty("loadtest.pool-size", 20);
+        settings.lockTimeoutMs = intProperty("loadtest.lock-timeout-ms", 2000);
+        settings.seed = Long.getLong("loadtest.seed", 42L);
+        settings.reportFile = System.getProperty("loadtest.report", "target/loadtest-report.txt");
+        if (settings.users <= 0 || settings.buses <= 0 || settings.schedulesPerBus <= 0) {
+            throw new IllegalArgumentException("Users, buses and schedules per bus must be greater than 0");
+        }
+        if (settings.searchWeight + settings.bookWeight + settings.cancelWeight <= 0) {
+            throw new IllegalArgumentException("At least one request type must have a positive weight");
+        }
+        return settings;
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+}
@@ -0,0 +1,158 @@
+package com.busbooking.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * One simulated user: logs in, then issues requests back to back (plus any think time) until
+ * the run ends, so the offered load adapts to how fast the server answers.
+ */
+class VirtualUser implements Runnable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String email;
+    private final Settings settings;
+    private final LatencyReport report;
+    private final long warmupEnd;
+    private final long end;
+    private final Random random;
+    private final Deque<Long> bookingIds = new ArrayDeque<>();
+
+    private String token;
+    private long userId;
+
+    VirtualUser(HttpClient httpClient, String baseUrl, String email, Settings settings, LatencyReport report,
+                long warmupEnd, long end, long seed) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.email = email;
+        this.settings = settings;
+        this.report = report;
+        this.warmupEnd = warmupEnd;
+        this.end = end;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (!login()) {
+                return;
+            }
+            int totalWeight = settings.searchWeight + settings.bookWeight + settings.cancelWeight;
+            while (System.nanoTime() < end) {
+                int pick = random.nextInt(totalWeight);
+                if (pick < settings.searchWeight) {
+                    search();
+                } else if (pick < settings.searchWeight + settings.bookWeight || bookingIds.isEmpty()) {
+                    book();
+                } else {
+                    cancel();
+                }
+                if (settings.thinkTimeMs > 0) {
+                    Thread.sleep(settings.thinkTimeMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean login() throws InterruptedException {
+        String body = "{\"email\":\"" + email + "\",\"password\":\"" + LoadTest.PASSWORD + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        JsonNode response = send("login", request);
+        if (response == null) {
+            return false;
+        }
+        token = response.path("token").asText();
+        userId = response.path("userId").asLong();
+        return true;
+    }
+
+    private void search() throws InterruptedException {
+        int from = random.nextInt(LoadTest.CITIES.length);
+        int to = (from + 1 + random.nextInt(LoadTest.CITIES.length - 1)) % LoadTest.CITIES.length;
+        send("search", authorized("/api/schedules/search?source=" + encode(LoadTest.CITIES[from])
+                + "&destination=" + encode(LoadTest.CITIES[to])).GET().build());
+    }
+
+    private void book() throws InterruptedException {
+        // The seeded schedules are the first rows of a fresh database, so their ids start at 1
+        long scheduleId = 1 + random.nextInt(settings.buses * settings.schedulesPerBus);
+        int seats = 1 + random.nextInt(2);
+        JsonNode booking = send("book", authorized("/api/bookings?scheduleId=" + scheduleId + "&userId=" + userId
+                + "&numberOfSeats=" + seats).POST(HttpRequest.BodyPublishers.noBody()).build());
+        if (booking != null && booking.hasNonNull("id")) {
+            bookingIds.addLast(booking.get("id").asLong());
+        }
+    }
+
+    private void cancel() throws InterruptedException {
+        Long bookingId = bookingIds.pollFirst();
+        send("cancel", authorized("/api/bookings/" + bookingId + "/cancel")
+                .POST(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token);
+    }
+
+    /**
+     * @return the parsed response body if the request succeeded, otherwise null
+     */
+    private JsonNode send(String endpoint, HttpRequest request) throws InterruptedException {
+        long started = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            record(endpoint, started, e.getClass().getSimpleName());
+            return null;
+        }
+        if (response.statusCode() / 100 != 2) {
+            record(endpoint, started, ErrorCause.classify(response.statusCode(), response.body()));
+            return null;
+        }
+        record(endpoint, started, null);
+        try {
+            return response.body().isEmpty() ? JSON.createObjectNode() : JSON.readTree(response.body());
+        } catch (IOException e) {
+            return JSON.createObjectNode();
+        }
+    }
+
+    private void record(String endpoint, long started, String errorCause) {
+        long finished = System.nanoTime();
+        // The login happens before the warmup ends for most users; record it regardless
+        if (started >= warmupEnd || "login".equals(endpoint)) {
+            report.record(endpoint, finished - started, errorCause);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -2,7 +2,10 @@ package com.busbooking.config;
 
 import com.busbooking.security.JwtAuthenticationFilter;
 import com.busbooking.service.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -22,6 +25,8 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -32,6 +37,13 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    // Unset or equal to the server port, the actuator endpoints are served on the public port
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
@@ -46,7 +58,12 @@ public class SecurityConfig {
             .cors().and()
             .csrf().disable()
             .authorizeHttpRequests()
-            .requestMatchers("/api/auth/**").permitAll()
+            // Streamed responses finish on an async dispatch; the original request was already authorized
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+            // Path matchers rather than MVC ones, which cannot resolve the management port's servlet
+            .requestMatchers(antMatcher("/api/auth/**")).permitAll()
+            .requestMatchers(antMatcher("/actuator/health")).permitAll()
+            .requestMatchers(this::isScrapeOnManagementPort).permitAll()
             .anyRequest().authenticated()
             .and()
             .sessionManagement()
@@ -58,6 +75,15 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Prometheus scrapes without a token only on a separate management port, which is bound to the
+     * monitoring network. On the public port the endpoint needs a token like any other.
+     */
+    private boolean isScrapeOnManagementPort(HttpServletRequest request) {
+        return managementPort > 0 && managementPort != serverPort && request.getLocalPort() == managementPort
+                && "/actuator/prometheus".equals(request.getRequestURI());
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -73,8 +99,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:3000"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "Accept", "Origin", "X-Requested-With"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "Accept", "Origin", "X-Requested-With", "If-None-Match", "Last-Event-ID"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "ETag"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
@@ -1,10 +1,18 @@
 package com.busbooking.controller;
 
+import com.busbooking.dto.BookingResponse;
+import com.busbooking.dto.CursorPage;
+import com.busbooking.dto.WaitlistResponse;
 import com.busbooking.entity.Booking;
 import com.busbooking.service.BookingService;
+import com.busbooking.service.WaitlistService;
+import com.busbooking.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 
 @RestController
@@ -14,22 +22,42 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<List<Booking>> getAllBookings() {
+    public ResponseEntity<List<BookingResponse>> getAllBookings() {
         return ResponseEntity.ok(bookingService.getAllBookings());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<BookingResponse>> getBookingPage(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(bookingService.getBookingPage(afterId, limit));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBookings() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> bookingService.streamBookings(NdjsonWriter.lines(out, objectMapper)));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Booking> getBookingById(@PathVariable Long id) {
+    public ResponseEntity<BookingResponse> getBookingById(@PathVariable Long id) {
         try {
-            return ResponseEntity.ok(bookingService.getBookingById(id));
+            return ResponseEntity.ok(bookingService.getBookingResponse(id));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Booking>> getUserBookings(@PathVariable Long userId) {
+    public ResponseEntity<List<BookingResponse>> getUserBookings(@PathVariable Long userId) {
         return ResponseEntity.ok(bookingService.getUserBookings(userId));
     }
 
@@ -41,9 +69,59 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.createBooking(scheduleId, userId, numberOfSeats));
     }
 
+    @PostMapping("/seats")
+    public ResponseEntity<Booking> createSeatBooking(
+            @RequestParam Long scheduleId,
+            @RequestParam Long userId,
+            @RequestParam List<Integer> seatNumbers) {
+        return ResponseEntity.ok(bookingService.createBooking(scheduleId, userId, seatNumbers));
+    }
+
+    @PostMapping("/hold")
+    public ResponseEntity<Booking> holdSeats(
+            @RequestParam Long scheduleId,
+            @RequestParam Long userId,
+            @RequestParam(required = false) Integer numberOfSeats,
+            @RequestParam(required = false) List<Integer> seatNumbers) {
+        return ResponseEntity.ok(bookingService.holdSeats(scheduleId, userId, numberOfSeats, seatNumbers));
+    }
+
+    @PostMapping("/{bookingId}/confirm")
+    public ResponseEntity<Booking> confirmHold(@PathVariable Long bookingId) {
+        return ResponseEntity.ok(bookingService.confirmHold(bookingId));
+    }
+
     @PostMapping("/{bookingId}/cancel")
     public ResponseEntity<Void> cancelBooking(@PathVariable Long bookingId) {
         bookingService.cancelBooking(bookingId);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Queues for seats on a sold-out schedule instead of retrying. When a booking on the schedule
+     * is cancelled, the seats are held for the first waiting user they fit.
+     */
+    @PostMapping("/waitlist")
+    public ResponseEntity<WaitlistResponse> joinWaitlist(
+            @RequestParam Long scheduleId,
+            @RequestParam Long userId,
+            @RequestParam Integer numberOfSeats) {
+        return ResponseEntity.ok(waitlistService.join(scheduleId, userId, numberOfSeats));
+    }
+
+    @GetMapping("/waitlist/{entryId}")
+    public ResponseEntity<WaitlistResponse> getWaitlistEntry(@PathVariable Long entryId) {
+        return ResponseEntity.ok(waitlistService.getWaitlistEntry(entryId));
+    }
+
+    @GetMapping("/waitlist/user/{userId}")
+    public ResponseEntity<List<WaitlistResponse>> getUserWaitlist(@PathVariable Long userId) {
+        return ResponseEntity.ok(waitlistService.getUserWaitlist(userId));
+    }
+
+    @PostMapping("/waitlist/{entryId}/cancel")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable Long entryId) {
+        waitlistService.leave(entryId);
+        return ResponseEntity.ok().build();
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.busbooking.controller;
+
+import com.busbooking.dto.BookingTicketResponse;
+import com.busbooking.service.BookingPipeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Queued variants of the booking endpoints, answered with 202 and a ticket to poll or subscribe
+ * to. Only registered when {@code app.booking.pipeline.enabled} is set.
+ */
+@RestController
+@RequestMapping("/api/bookings")
+@CrossOrigin(origins = "http://localhost:3000")
+@ConditionalOnProperty(name = "app.booking.pipeline.enabled", havingValue = "true")
+public class BookingPipelineController {
+    @Autowired
+    private BookingPipeline bookingPipeline;
+
+    @Value("${app.booking.pipeline.sse-timeout-ms:60000}")
+    private long sseTimeoutMs = 60000;
+
+    @PostMapping("/async")
+    public ResponseEntity<BookingTicketResponse> submitBooking(
+            @RequestParam Long scheduleId,
+            @RequestParam Long userId,
+            @RequestParam(required = false) Integer numberOfSeats,
+            @RequestParam(required = false) List<Integer> seatNumbers) {
+        return accepted(bookingPipeline.submitBooking(scheduleId, userId, numberOfSeats, seatNumbers));
+    }
+
+    @PostMapping("/{bookingId}/cancel/async")
+    public ResponseEntity<BookingTicketResponse> submitCancellation(@PathVariable Long bookingId) {
+        return accepted(bookingPipeline.submitCancellation(bookingId));
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<BookingTicketResponse> getTicket(@PathVariable String ticketId) {
+        try {
+            return ResponseEntity.ok(bookingPipeline.getTicket(ticketId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Sends the ticket's current state as a {@code status} event, then its final state as a
+     * {@code result} event once the command has been applied.
+     */
+    @GetMapping(value = "/tickets/{ticketId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter ticketEvents(@PathVariable String ticketId) throws IOException {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.send(SseEmitter.event().name("status").data(bookingPipeline.getTicket(ticketId)));
+        bookingPipeline.whenDone(ticketId).thenAccept(result -> {
+            try {
+                emitter.send(SseEmitter.event().name("result").data(result));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the emitter timed out; the ticket can still be polled
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    private static ResponseEntity<BookingTicketResponse> accepted(BookingTicketResponse ticket) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/bookings/tickets/" + ticket.getId()))
+                .body(ticket);
+    }
+}
@@ -1,11 +1,24 @@
 package com.busbooking.controller;
 
+import com.busbooking.dto.BusResponse;
+import com.busbooking.dto.CursorPage;
+import com.busbooking.dto.ImportResult;
 import com.busbooking.entity.Bus;
+import com.busbooking.service.BulkImportService;
 import com.busbooking.service.BusService;
+import com.busbooking.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -16,14 +29,48 @@ public class BusController {
     @Autowired
     private BusService busService;
 
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<List<Bus>> getAllBuses() {
+    public ResponseEntity<List<BusResponse>> getAllBuses() {
         return ResponseEntity.ok(busService.getAllBuses());
     }
 
+    @GetMapping("/available")
+    public ResponseEntity<List<BusResponse>> getAvailableBuses(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(busService.getAvailableBuses(from, to));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<BusResponse>> getBusPage(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(busService.getBusPage(afterId, limit));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBuses() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> busService.streamBuses(NdjsonWriter.lines(out, objectMapper)));
+    }
+
+    @PostMapping(value = "/import", consumes = {BulkImportService.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportResult> importBuses(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(bulkImportService.importBuses(body, contentType));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Bus> getBusById(@PathVariable Long id) {
-        return ResponseEntity.ok(busService.getBusById(id));
+    public ResponseEntity<BusResponse> getBusById(@PathVariable Long id) {
+        return ResponseEntity.ok(busService.getBusResponse(id));
     }
 
     @PostMapping
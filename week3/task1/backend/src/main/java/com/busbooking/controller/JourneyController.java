@@ -0,0 +1,29 @@
+package com.busbooking.controller;
+
+import com.busbooking.dto.JourneyPlanResponse;
+import com.busbooking.service.JourneyPlanner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/journeys")
+@CrossOrigin(origins = "http://localhost:3000")
+public class JourneyController {
+
+    @Autowired
+    private JourneyPlanner journeyPlanner;
+
+    @GetMapping
+    public ResponseEntity<JourneyPlanResponse> planJourney(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime departAfter,
+            @RequestParam(defaultValue = "1") int seats,
+            @RequestParam(required = false) Integer minTransferMinutes) {
+        return ResponseEntity.ok(journeyPlanner.plan(source, destination, departAfter, seats, minTransferMinutes));
+    }
+}
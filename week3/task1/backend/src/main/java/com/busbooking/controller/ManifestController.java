@@ -0,0 +1,60 @@
+package com.busbooking.controller;
+
+import com.busbooking.dto.ManifestExportResponse;
+import com.busbooking.service.BulkImportService;
+import com.busbooking.service.ManifestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+/**
+ * Passenger manifests for the departures in a window, by default the next 24 hours.
+ */
+@RestController
+@RequestMapping("/api/manifests")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ManifestController {
+    @Autowired
+    private ManifestService manifestService;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> streamManifests(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = ManifestService.CSV) String format) {
+        LocalDateTime windowStart = from != null ? from : LocalDateTime.now();
+        LocalDateTime windowEnd = to != null ? to : windowStart.plusHours(24);
+        // Checked before streaming starts, while an error can still change the status
+        if (!windowEnd.isAfter(windowStart)) {
+            throw new IllegalArgumentException("The window must end after it starts");
+        }
+        MediaType contentType = ManifestService.NDJSON.equals(ManifestService.checkFormat(format))
+                ? MediaType.APPLICATION_NDJSON
+                : MediaType.parseMediaType(BulkImportService.TEXT_CSV_VALUE);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("manifest." + format).build().toString())
+                .body(out -> manifestService.write(windowStart, windowEnd, format, out));
+    }
+
+    /**
+     * Writes the manifests to a file on the server instead, for a depot printer or another job to pick up.
+     */
+    @PostMapping("/export")
+    public ResponseEntity<ManifestExportResponse> exportManifests(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = ManifestService.CSV) String format) {
+        LocalDateTime windowStart = from != null ? from : LocalDateTime.now();
+        LocalDateTime windowEnd = to != null ? to : windowStart.plusHours(24);
+        return ResponseEntity.ok(manifestService.export(windowStart, windowEnd, format));
+    }
+}
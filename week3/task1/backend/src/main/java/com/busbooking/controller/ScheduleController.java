@@ -1,12 +1,37 @@
 package com.busbooking.controller;
 
+import com.busbooking.dto.CursorPage;
+import com.busbooking.dto.FareCalendarDayResponse;
+import com.busbooking.dto.ImportResult;
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.dto.SeatChangeFeedResponse;
+import com.busbooking.dto.SeatChangeResponse;
+import com.busbooking.dto.SeatMapResponse;
 import com.busbooking.entity.Schedule;
+import com.busbooking.service.BulkImportService;
 import com.busbooking.service.ScheduleService;
+import com.busbooking.service.SearchHeatTracker;
+import com.busbooking.service.SeatChangeFeed;
+import com.busbooking.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/schedules")
@@ -16,21 +41,126 @@ public class ScheduleController {
     @Autowired
     private ScheduleService scheduleService;
 
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private SeatChangeFeed seatChangeFeed;
+
+    @Autowired
+    private SearchHeatTracker searchHeatTracker;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.seat-feed.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs = 1800000;
+
     @GetMapping
-    public ResponseEntity<List<Schedule>> getAllSchedules() {
+    public ResponseEntity<List<ScheduleResponse>> getAllSchedules() {
         return ResponseEntity.ok(scheduleService.getAllSchedules());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<ScheduleResponse>> getSchedulePage(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(scheduleService.getSchedulePage(afterId, limit));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSchedules() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> scheduleService.streamSchedules(NdjsonWriter.lines(out, objectMapper)));
+    }
+
+    @PostMapping(value = "/import", consumes = {BulkImportService.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportResult> importSchedules(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(bulkImportService.importSchedules(body, contentType));
+    }
+
+    /**
+     * Seat counts of schedules that changed after {@code since}, the version returned by the
+     * previous call. Start with {@code since=0}, which only returns the current version.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<SeatChangeFeedResponse> getSeatChanges(@RequestParam long since) {
+        return ResponseEntity.ok(seatChangeFeed.changesSince(since));
+    }
+
+    /**
+     * Server-sent {@code seats} events carrying the changed seat counts of {@code scheduleIds}, or
+     * of every schedule when none are given. A reconnecting client's Last-Event-ID is honoured.
+     */
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatChanges(
+            @RequestParam(required = false) Set<Long> scheduleIds,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        SeatChangeFeed.Subscription subscription = seatChangeFeed.subscribe(scheduleIds, lastEventId, changes -> {
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(changes.get(changes.size() - 1).getVersion()))
+                        .name("seats")
+                        .data(changes));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Schedule> getScheduleById(@PathVariable Long id) {
-        return ResponseEntity.ok(scheduleService.getScheduleById(id));
+    public ResponseEntity<ScheduleResponse> getScheduleById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Read before the body, so a change in between can only make the ETag older than the body
+        String etag = etagOf(scheduleService.getScheduleRevision(id));
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(scheduleService.getScheduleResponse(id));
+    }
+
+    @GetMapping("/{id}/seats")
+    public ResponseEntity<SeatMapResponse> getSeatMap(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = etagOf(scheduleService.getScheduleRevision(id));
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(scheduleService.getSeatMap(id));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Schedule>> searchSchedules(
+    public ResponseEntity<List<ScheduleResponse>> searchSchedules(
             @RequestParam String source,
-            @RequestParam String destination) {
-        return ResponseEntity.ok(scheduleService.searchSchedules(source, destination));
+            @RequestParam String destination,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Double maxFare,
+            @RequestParam(defaultValue = "departure") String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        List<ScheduleResponse> schedules = scheduleService.searchSchedules(source, destination, from, to, maxFare, sort, page, size);
+        searchHeatTracker.record(source, destination, from);
+        return ResponseEntity.ok(schedules);
+    }
+
+    @GetMapping("/calendar")
+    public ResponseEntity<List<FareCalendarDayResponse>> getFareCalendar(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "90") int days) {
+        return ResponseEntity.ok(scheduleService.getFareCalendar(source, destination, from, days));
     }
 
     @PostMapping
@@ -48,4 +178,21 @@ public class ScheduleController {
         scheduleService.deleteSchedule(id);
         return ResponseEntity.ok().build();
     }
+
+    private static String etagOf(long revision) {
+        return "\"" + revision + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 } 
\ No newline at end of file
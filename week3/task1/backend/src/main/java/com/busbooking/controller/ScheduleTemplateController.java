@@ -0,0 +1,53 @@
+package com.busbooking.controller;
+
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.ScheduleTemplate;
+import com.busbooking.service.ScheduleTemplateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/schedule-templates")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ScheduleTemplateController {
+
+    @Autowired
+    private ScheduleTemplateService scheduleTemplateService;
+
+    @GetMapping
+    public ResponseEntity<List<ScheduleTemplate>> getAllTemplates() {
+        return ResponseEntity.ok(scheduleTemplateService.getAllTemplates());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ScheduleTemplate> getTemplateById(@PathVariable Long id) {
+        return ResponseEntity.ok(scheduleTemplateService.getTemplateById(id));
+    }
+
+    @PostMapping
+    public ResponseEntity<ScheduleTemplate> createTemplate(@RequestBody ScheduleTemplate template) {
+        return ResponseEntity.ok(scheduleTemplateService.createTemplate(template));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteTemplate(@PathVariable Long id) {
+        scheduleTemplateService.deleteTemplate(id);
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Turns one date of the template into a bookable schedule, returning the existing one if the
+     * date has been booked before.
+     */
+    @PostMapping("/{id}/departures")
+    public ResponseEntity<Schedule> materialize(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(scheduleTemplateService.materialize(id, date));
+    }
+}
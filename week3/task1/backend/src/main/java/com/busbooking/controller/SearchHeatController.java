@@ -0,0 +1,26 @@
+package com.busbooking.controller;
+
+import com.busbooking.dto.HotSearchResponse;
+import com.busbooking.service.SearchHeatTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/search-heat")
+@CrossOrigin(origins = "http://localhost:3000")
+public class SearchHeatController {
+
+    @Autowired
+    private SearchHeatTracker searchHeatTracker;
+
+    /**
+     * The most searched routes and travel dates, with approximate search counts.
+     */
+    @GetMapping
+    public ResponseEntity<List<HotSearchResponse>> getTopRoutes(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(searchHeatTracker.topRoutes(limit));
+    }
+}
@@ -0,0 +1,46 @@
+package com.busbooking.controller;
+
+import com.busbooking.dto.WithdrawalJobResponse;
+import com.busbooking.service.WithdrawalService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+/**
+ * Withdrawing schedules and buses, answered with 202 and a job to follow.
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "http://localhost:3000")
+public class WithdrawalController {
+    @Autowired
+    private WithdrawalService withdrawalService;
+
+    @PostMapping("/schedules/{id}/withdraw")
+    public ResponseEntity<WithdrawalJobResponse> withdrawSchedule(@PathVariable Long id) {
+        return accepted(withdrawalService.withdrawSchedule(id));
+    }
+
+    @PostMapping("/buses/{id}/withdraw")
+    public ResponseEntity<WithdrawalJobResponse> withdrawBus(@PathVariable Long id) {
+        return accepted(withdrawalService.withdrawBus(id));
+    }
+
+    @GetMapping("/withdrawals/{jobId}")
+    public ResponseEntity<WithdrawalJobResponse> getJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(withdrawalService.getJob(jobId));
+    }
+
+    @PostMapping("/withdrawals/{jobId}/resume")
+    public ResponseEntity<WithdrawalJobResponse> resume(@PathVariable Long jobId) {
+        return accepted(withdrawalService.resume(jobId));
+    }
+
+    private static ResponseEntity<WithdrawalJobResponse> accepted(WithdrawalJobResponse job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/withdrawals/" + job.getId()))
+                .body(job);
+    }
+}
@@ -1,20 +1,51 @@
 package com.busbooking.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class BookingResponse {
     private Long id;
     private Long scheduleId;
+    private Long userId;
+    private Integer numberOfSeats;
     private String seatNumber;
     private String passengerName;
     private String passengerPhone;
+    private String passengerEmail;
     private String status;
     private LocalDateTime bookingTime;
     private Double fare;
     private String busNumber;
     private String routeName;
+    private String source;
+    private String destination;
     private LocalDateTime departureTime;
     private LocalDateTime arrivalTime;
-} 
\ No newline at end of file
+
+    // Filled straight from the query by BookingRepository's constructor expressions
+    public BookingResponse(Long id, Long scheduleId, Long userId, Integer numberOfSeats, String seatNumber,
+                           String passengerName, String passengerPhone, String passengerEmail, String status,
+                           LocalDateTime bookingTime, Double fare, String busNumber, String source,
+                           String destination, LocalDateTime departureTime, LocalDateTime arrivalTime) {
+        this.id = id;
+        this.scheduleId = scheduleId;
+        this.userId = userId;
+        this.numberOfSeats = numberOfSeats;
+        this.seatNumber = seatNumber;
+        this.passengerName = passengerName;
+        this.passengerPhone = passengerPhone;
+        this.passengerEmail = passengerEmail;
+        this.status = status;
+        this.bookingTime = bookingTime;
+        this.fare = fare;
+        this.busNumber = busNumber;
+        this.routeName = source + " - " + destination;
+        this.source = source;
+        this.destination = destination;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+    }
+}
@@ -0,0 +1,18 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class BookingTicketResponse {
+    private String id;
+    private String type; // BOOK or CANCEL
+    private Long scheduleId;
+    private Long bookingId;
+    private String status; // QUEUED, SUCCEEDED, FAILED or ERROR
+    // success, or the reason it failed, as in the booking.create metric
+    private String outcome;
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -1,8 +1,10 @@
 package com.busbooking.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 public class BusResponse {
     private Long id;
     private String busNumber;
@@ -10,4 +12,13 @@ public class BusResponse {
     private Integer totalSeats;
     private String busType;
     private Integer availableSeats;
-} 
\ No newline at end of file
+
+    // Filled straight from the query by BusRepository's constructor expressions
+    public BusResponse(Long id, String busNumber, String busName, Integer totalSeats, String busType) {
+        this.id = id;
+        this.busNumber = busNumber;
+        this.busName = busName;
+        this.totalSeats = totalSeats;
+        this.busType = busType;
+    }
+}
@@ -0,0 +1,11 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class CursorPage<T> {
+    private List<T> items;
+    // Pass as afterId to fetch the next page; null on the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.busbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareCalendarDayResponse {
+    private LocalDate date;
+    // Cheapest departure that still has a free seat, or null when there is none
+    private Double minFare;
+    private int availableSeats;
+    private int departures;
+}
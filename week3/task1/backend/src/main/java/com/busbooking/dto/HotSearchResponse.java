@@ -0,0 +1,18 @@
+package com.busbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotSearchResponse {
+    private String source;
+    private String destination;
+    private LocalDate date;
+    // Never below the true number of searches since the last decays, and usually close to it
+    private long estimatedCount;
+}
@@ -0,0 +1,17 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Only the first {@code app.import.max-reported-errors} rejected rows
+ * are listed; {@code errorsTruncated} says whether there were more.
+ */
+@Data
+public class ImportResult {
+    private int imported;
+    private int rejected;
+    private List<ImportError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,10 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+
+@Data
+public class JourneyPlanResponse {
+    // Either may be null when no itinerary reaches the destination within the search horizon
+    private JourneyResponse earliestArrival;
+    private JourneyResponse cheapest;
+}
@@ -0,0 +1,15 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class JourneyResponse {
+    private List<ScheduleResponse> legs;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private Integer transfers;
+    // Sum of the leg fares for all requested seats
+    private Double totalFare;
+}
@@ -0,0 +1,14 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class ManifestExportResponse {
+    private String file;
+    private String format; // csv or ndjson
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long departures;
+    private long bookings;
+}
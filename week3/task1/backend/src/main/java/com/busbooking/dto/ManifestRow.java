@@ -0,0 +1,42 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * One passenger booking on a departure's manifest. A departure nobody has booked appears once
+ * with the booking columns left null.
+ */
+@Data
+@NoArgsConstructor
+public class ManifestRow {
+    private Long scheduleId;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private String busNumber;
+    private String source;
+    private String destination;
+    private Long bookingId;
+    private String seatNumbers;
+    private Integer numberOfSeats;
+    private String passengerName;
+    private String passengerPhone;
+
+    // Filled straight from the query by ScheduleRepository's constructor expression
+    public ManifestRow(Long scheduleId, LocalDateTime departureTime, LocalDateTime arrivalTime, String busNumber,
+                       String source, String destination, Long bookingId, String seatNumbers,
+                       Integer numberOfSeats, String passengerName, String passengerPhone) {
+        this.scheduleId = scheduleId;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.busNumber = busNumber;
+        this.source = source;
+        this.destination = destination;
+        this.bookingId = bookingId;
+        this.seatNumbers = seatNumbers;
+        this.numberOfSeats = numberOfSeats;
+        this.passengerName = passengerName;
+        this.passengerPhone = passengerPhone;
+    }
+}
@@ -0,0 +1,32 @@
+package com.busbooking.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * One schedule in a bulk import. Every imported schedule starts with all of its bus's seats free.
+ */
+@Data
+public class ScheduleImportRow {
+    @NotNull(message = "Bus ID is required")
+    private Long busId;
+
+    @NotBlank(message = "Source is required")
+    private String source;
+
+    @NotBlank(message = "Destination is required")
+    private String destination;
+
+    @NotNull(message = "Departure time is required")
+    private LocalDateTime departureTime;
+
+    @NotNull(message = "Arrival time is required")
+    private LocalDateTime arrivalTime;
+
+    @NotNull(message = "Fare is required")
+    @Positive(message = "Fare must be positive")
+    private Double fare;
+}
@@ -1,9 +1,11 @@
 package com.busbooking.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class ScheduleResponse {
     private Long id;
     private Long busId;
@@ -14,7 +16,28 @@ public class ScheduleResponse {
     private Integer availableSeats;
     private String busNumber;
     private String busName;
+    private String busType;
     private String routeName;
     private String source;
     private String destination;
-} 
\ No newline at end of file
+    // Set for departures of a schedule template; id stays null until the date is materialized
+    private Long templateId;
+
+    // Filled straight from the query by ScheduleRepository's constructor expressions
+    public ScheduleResponse(Long id, Long busId, String busNumber, String busName, String busType,
+                            String source, String destination, LocalDateTime departureTime,
+                            LocalDateTime arrivalTime, Double fare, Integer availableSeats, Long templateId) {
+        this.id = id;
+        this.busId = busId;
+        this.busNumber = busNumber;
+        this.busName = busName;
+        this.busType = busType;
+        this.source = source;
+        this.destination = destination;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.fare = fare;
+        this.availableSeats = availableSeats;
+        this.templateId = templateId;
+    }
+}
@@ -0,0 +1,13 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class SeatChangeFeedResponse {
+    // The feed's current version, to pass as since on the next call
+    private long version;
+    // True when since is too old or unknown to this instance; reload the schedules before polling again
+    private boolean reset;
+    private List<SeatChangeResponse> changes;
+}
@@ -0,0 +1,15 @@
+package com.busbooking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatChangeResponse {
+    private Long scheduleId;
+    private Integer availableSeats;
+    // Position in the change feed; pass the highest one seen as since to get only later changes
+    private long version;
+}
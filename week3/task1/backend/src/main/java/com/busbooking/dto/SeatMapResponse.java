@@ -0,0 +1,12 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+
+@Data
+public class SeatMapResponse {
+    private Long scheduleId;
+    private Integer totalSeats;
+    private Integer availableSeats;
+    // Base64 of the seat bitmap: bit n - 1 is set when seat n is taken, seat 1 in the lowest bit of the first byte
+    private String seatMap;
+}
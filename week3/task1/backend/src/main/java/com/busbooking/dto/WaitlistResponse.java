@@ -0,0 +1,18 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class WaitlistResponse {
+    private Long id;
+    private Long scheduleId;
+    private Long userId;
+    private Integer numberOfSeats;
+    private String status;
+    // 1 for the next in line; null once the entry has left the queue
+    private Long position;
+    private Long bookingId;
+    private String message;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,22 @@
+package com.busbooking.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class WithdrawalJobResponse {
+    private Long id;
+    private Long busId;
+    private Long scheduleId;
+    private String status; // RUNNING, COMPLETED, FAILED
+    private Long currentScheduleId;
+    private Integer schedulesDone;
+    private Long bookingsTotal;
+    private Long bookingsCancelled;
+    private Long seatsReleased;
+    private Double refundTotal;
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+}
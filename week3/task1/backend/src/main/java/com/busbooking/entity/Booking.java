@@ -2,6 +2,7 @@ package com.busbooking.entity;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import jakarta.persistence.Index;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -13,7 +14,8 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings",
+       indexes = @Index(name = "idx_bookings_schedule", columnList = "schedule_id, id"))
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,6 +34,9 @@ public class Booking {
     @Column(nullable = false)
     private Integer numberOfSeats;
 
+    @Column(name = "seat_numbers")
+    private String seatNumbers; // e.g. "12,13"; null for bookings made before seat selection
+
     @Column(nullable = false)
     private Double totalAmount;
 
@@ -39,7 +44,10 @@ public class Booking {
     private LocalDateTime bookingDate;
 
     @Column(nullable = false)
-    private String status; // PENDING, CONFIRMED, CANCELLED
+    private String status; // PENDING, CONFIRMED, CANCELLED, EXPIRED
+
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt; // set while PENDING
 
     public Long getId() {
         return id;
@@ -73,6 +81,14 @@ public class Booking {
         this.numberOfSeats = numberOfSeats;
     }
 
+    public String getSeatNumbers() {
+        return seatNumbers;
+    }
+
+    public void setSeatNumbers(String seatNumbers) {
+        this.seatNumbers = seatNumbers;
+    }
+
     public Double getTotalAmount() {
         return totalAmount;
     }
@@ -96,4 +112,12 @@ public class Booking {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public LocalDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }
 } 
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.busbooking.entity;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import jakarta.persistence.Index;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -14,10 +16,23 @@ import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
+// Cached for its route, times and fare. Seat and withdrawal changes bypass the entity and the cache
+// is per instance, so anything that reads the seats or the withdrawn flag loads the schedule with
+// ScheduleRepository.findCurrentById, which goes to the table
 @Entity
-@Table(name = "schedules")
+@Table(name = "schedules",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"template_id", "departure_time"}),
+       indexes = {
+           @Index(name = "idx_schedules_departure", columnList = "departure_time, id"),
+           @Index(name = "idx_schedules_arrival", columnList = "arrival_time")
+       })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "schedule")
 public class Schedule {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -43,9 +58,31 @@ public class Schedule {
     @Column(nullable = false)
     private Double fare;
 
-    @Column(nullable = false)
+    // Seat columns are only written on insert here; afterwards ScheduleRepository's seat updates
+    // change them under the row lock, so saving a schedule read earlier cannot overwrite a booking
+    @Column(nullable = false, updatable = false)
     private Integer availableSeats;
 
+    // One bit per seat, see SeatMap; null until the schedule's first seat-level booking
+    @JsonIgnore
+    @Column(name = "seat_map", length = 128, updatable = false)
+    private byte[] seatMap;
+
+    // Set when the schedule is a materialized date of a ScheduleTemplate
+    @Column(name = "template_id")
+    private Long templateId;
+
+    // Bumped by every change to the schedule or its seats; only ScheduleRepository's updates write it
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Long revision;
+
+    // Set by a withdrawal, after which the schedule can no longer be booked; only ScheduleRepository writes it
+    @ColumnDefault("false")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private boolean withdrawn;
+
     @JsonBackReference
     @OneToMany(mappedBy = "schedule", cascade = CascadeType.ALL)
     private Set<Booking> bookings = new HashSet<>();
@@ -114,6 +151,14 @@ public class Schedule {
         this.availableSeats = availableSeats;
     }
 
+    public byte[] getSeatMap() {
+        return seatMap;
+    }
+
+    public void setSeatMap(byte[] seatMap) {
+        this.seatMap = seatMap;
+    }
+
     public Set<Booking> getBookings() {
         return bookings;
     }
@@ -121,4 +166,28 @@ public class Schedule {
     public void setBookings(Set<Booking> bookings) {
         this.bookings = bookings;
     }
+
+    public Long getTemplateId() {
+        return templateId;
+    }
+
+    public void setTemplateId(Long templateId) {
+        this.templateId = templateId;
+    }
+
+    public Long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Long revision) {
+        this.revision = revision;
+    }
+
+    public boolean isWithdrawn() {
+        return withdrawn;
+    }
+
+    public void setWithdrawn(boolean withdrawn) {
+        this.withdrawn = withdrawn;
+    }
 } 
\ No newline at end of file
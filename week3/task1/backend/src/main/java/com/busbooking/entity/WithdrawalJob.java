@@ -0,0 +1,184 @@
+package com.busbooking.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Id;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Column;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of withdrawing a schedule, or every upcoming schedule of a bus. The cursor is saved
+ * in the same transaction as each batch of cancellations, so a job picks up where it stopped.
+ */
+@Entity
+@Table(name = "withdrawal_jobs")
+public class WithdrawalJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Exactly one of busId and scheduleId is set
+    @Column(name = "bus_id")
+    private Long busId;
+
+    @Column(name = "schedule_id")
+    private Long scheduleId;
+
+    @Column(nullable = false)
+    private String status; // RUNNING, COMPLETED, FAILED
+
+    // The schedule being worked through and its last cancelled booking; null once all are done
+    @Column(name = "current_schedule_id")
+    private Long currentScheduleId;
+
+    @Column(nullable = false)
+    private Long lastBookingId;
+
+    @Column(nullable = false)
+    private Integer schedulesDone;
+
+    // Live bookings on the withdrawn schedules when the job started
+    @Column(nullable = false)
+    private Long bookingsTotal;
+
+    @Column(nullable = false)
+    private Long bookingsCancelled;
+
+    @Column(nullable = false)
+    private Long seatsReleased;
+
+    @Column(nullable = false)
+    private Double refundTotal;
+
+    private String message; // why the job FAILED
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getBusId() {
+        return busId;
+    }
+
+    public void setBusId(Long busId) {
+        this.busId = busId;
+    }
+
+    public Long getScheduleId() {
+        return scheduleId;
+    }
+
+    public void setScheduleId(Long scheduleId) {
+        this.scheduleId = scheduleId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getCurrentScheduleId() {
+        return currentScheduleId;
+    }
+
+    public void setCurrentScheduleId(Long currentScheduleId) {
+        this.currentScheduleId = currentScheduleId;
+    }
+
+    public Long getLastBookingId() {
+        return lastBookingId;
+    }
+
+    public void setLastBookingId(Long lastBookingId) {
+        this.lastBookingId = lastBookingId;
+    }
+
+    public Integer getSchedulesDone() {
+        return schedulesDone;
+    }
+
+    public void setSchedulesDone(Integer schedulesDone) {
+        this.schedulesDone = schedulesDone;
+    }
+
+    public Long getBookingsTotal() {
+        return bookingsTotal;
+    }
+
+    public void setBookingsTotal(Long bookingsTotal) {
+        this.bookingsTotal = bookingsTotal;
+    }
+
+    public Long getBookingsCancelled() {
+        return bookingsCancelled;
+    }
+
+    public void setBookingsCancelled(Long bookingsCancelled) {
+        this.bookingsCancelled = bookingsCancelled;
+    }
+
+    public Long getSeatsReleased() {
+        return seatsReleased;
+    }
+
+    public void setSeatsReleased(Long seatsReleased) {
+        this.seatsReleased = seatsReleased;
+    }
+
+    public Double getRefundTotal() {
+        return refundTotal;
+    }
+
+    public void setRefundTotal(Double refundTotal) {
+        this.refundTotal = refundTotal;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
\ No newline at end of file
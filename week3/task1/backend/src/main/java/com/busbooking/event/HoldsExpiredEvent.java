@@ -0,0 +1,18 @@
+package com.busbooking.event;
+
+import java.util.List;
+
+/**
+ * Published by the hold expiry wheel with the bookings whose seat hold ran out on one tick.
+ */
+public class HoldsExpiredEvent {
+    private final List<Long> bookingIds;
+
+    public HoldsExpiredEvent(List<Long> bookingIds) {
+        this.bookingIds = bookingIds;
+    }
+
+    public List<Long> getBookingIds() {
+        return bookingIds;
+    }
+}
@@ -0,0 +1,22 @@
+package com.busbooking.event;
+
+/**
+ * Published when a schedule is created, updated or deleted.
+ */
+public class ScheduleChangedEvent {
+    private final Long scheduleId;
+    private final boolean deleted;
+
+    public ScheduleChangedEvent(Long scheduleId, boolean deleted) {
+        this.scheduleId = scheduleId;
+        this.deleted = deleted;
+    }
+
+    public Long getScheduleId() {
+        return scheduleId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
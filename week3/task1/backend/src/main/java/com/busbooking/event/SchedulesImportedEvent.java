@@ -0,0 +1,16 @@
+package com.busbooking.event;
+
+/**
+ * Published after a bulk import has inserted schedules without going through JPA.
+ */
+public class SchedulesImportedEvent {
+    private final int count;
+
+    public SchedulesImportedEvent(int count) {
+        this.count = count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,25 @@
+package com.busbooking.event;
+
+/**
+ * Published when bookings, holds or cancellations change a schedule's free seats.
+ */
+public class SeatsChangedEvent {
+    private final Long scheduleId;
+    private final Integer availableSeats;
+
+    /**
+     * @param availableSeats the new free count, or null if only the database knows it
+     */
+    public SeatsChangedEvent(Long scheduleId, Integer availableSeats) {
+        this.scheduleId = scheduleId;
+        this.availableSeats = availableSeats;
+    }
+
+    public Long getScheduleId() {
+        return scheduleId;
+    }
+
+    public Integer getAvailableSeats() {
+        return availableSeats;
+    }
+}
@@ -0,0 +1,16 @@
+package com.busbooking.event;
+
+/**
+ * Published when a user's account is updated or deleted.
+ */
+public class UserChangedEvent {
+    private final String email;
+
+    public UserChangedEvent(String email) {
+        this.email = email;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
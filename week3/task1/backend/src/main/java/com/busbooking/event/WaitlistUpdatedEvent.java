@@ -0,0 +1,40 @@
+package com.busbooking.event;
+
+/**
+ * Published when a waitlist entry is given seats or declined.
+ */
+public class WaitlistUpdatedEvent {
+    private final Long entryId;
+    private final Long userId;
+    private final Long scheduleId;
+    private final String status;
+    private final Long bookingId;
+
+    public WaitlistUpdatedEvent(Long entryId, Long userId, Long scheduleId, String status, Long bookingId) {
+        this.entryId = entryId;
+        this.userId = userId;
+        this.scheduleId = scheduleId;
+        this.status = status;
+        this.bookingId = bookingId;
+    }
+
+    public Long getEntryId() {
+        return entryId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getScheduleId() {
+        return scheduleId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+}
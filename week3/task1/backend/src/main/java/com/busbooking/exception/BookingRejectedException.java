@@ -0,0 +1,43 @@
+package com.busbooking.exception;
+
+/**
+ * A booking or cancellation turned down by a business rule, as opposed to a failure. The
+ * {@link Reason} says which rule, so callers and metrics can tell them apart without parsing
+ * the message.
+ */
+public class BookingRejectedException extends IllegalStateException {
+
+    public enum Reason {
+        SEATS_EXHAUSTED("seats_exhausted"),
+        SEAT_TAKEN("seat_taken"),
+        DEPARTED("departed"),
+        WITHDRAWN("withdrawn"),
+        BOOKING_LIMIT("booking_limit"),
+        OVERLAPPING_BOOKING("overlapping_booking"),
+        ALREADY_CANCELLED("already_cancelled"),
+        HOLD_EXPIRED("hold_expired"),
+        NOT_ON_HOLD("not_on_hold"),
+        QUEUE_FULL("queue_full");
+
+        private final String tag;
+
+        Reason(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private final Reason reason;
+
+    public BookingRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
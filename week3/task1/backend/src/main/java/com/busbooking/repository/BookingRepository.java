@@ -1,9 +1,100 @@
 package com.busbooking.repository;
 
+import com.busbooking.dto.BookingResponse;
 import com.busbooking.entity.Booking;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    // Read endpoints select just the response columns of the booking, its user, schedule and bus in one query
+    String SELECT_RESPONSE = "SELECT new com.busbooking.dto.BookingResponse(bk.id, s.id, u.id, bk.numberOfSeats, bk.seatNumbers, " +
+                             "u.fullName, u.phoneNumber, u.email, bk.status, bk.bookingDate, bk.totalAmount, b.busNumber, " +
+                             "s.source, s.destination, s.departureTime, s.arrivalTime) " +
+                             "FROM Booking bk JOIN bk.user u JOIN bk.schedule s JOIN s.bus b ";
+
     List<Booking> findByUserId(Long userId);
-} 
\ No newline at end of file
+
+    @Query(SELECT_RESPONSE + "ORDER BY bk.id")
+    List<BookingResponse> findAllResponses();
+
+    @Query(SELECT_RESPONSE + "WHERE bk.id = :id")
+    Optional<BookingResponse> findResponseById(@Param("id") Long id);
+
+    @Query(SELECT_RESPONSE + "WHERE u.id = :userId ORDER BY bk.id")
+    List<BookingResponse> findResponsesByUserId(@Param("userId") Long userId);
+
+    @Query(SELECT_RESPONSE + "WHERE bk.id > :afterId ORDER BY bk.id")
+    List<BookingResponse> findResponsesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    List<Booking> findByScheduleIdAndStatusNot(Long scheduleId, String status);
+
+    // Trips that still count against the user's booking limit, fetched with their schedules in one query
+    @Query("SELECT b FROM Booking b JOIN FETCH b.user JOIN FETCH b.schedule s JOIN FETCH s.bus " +
+           "WHERE b.user.id = :userId AND b.status IN ('CONFIRMED', 'PENDING') AND s.arrivalTime > :now")
+    List<Booking> findActiveByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.user.id = :userId AND b.status IN ('CONFIRMED', 'PENDING') " +
+           "AND b.schedule.arrivalTime > :now")
+    long countActiveByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Active trips sharing at least one instant with [departure, arrival]
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.user.id = :userId AND b.status IN ('CONFIRMED', 'PENDING') " +
+           "AND b.schedule.arrivalTime > :now AND b.schedule.departureTime <= :arrival " +
+           "AND b.schedule.arrivalTime >= :departure")
+    long countActiveOverlapping(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                @Param("departure") LocalDateTime departure, @Param("arrival") LocalDateTime arrival);
+
+    @Query("SELECT b.id, b.holdExpiresAt FROM Booking b WHERE b.status = 'PENDING'")
+    List<Object[]> findPendingHolds();
+
+    // Moves the booking to CANCELLED only if nobody else changed its status first
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = 'CANCELLED', b.totalAmount = :refundAmount " +
+           "WHERE b.id = :id AND b.status = :expectedStatus")
+    int cancelIfStatus(@Param("id") Long id,
+                       @Param("expectedStatus") String expectedStatus,
+                       @Param("refundAmount") Double refundAmount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = 'CONFIRMED', b.holdExpiresAt = null " +
+           "WHERE b.id = :id AND b.status = 'PENDING' AND b.holdExpiresAt > :now")
+    int confirmIfHeld(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = 'EXPIRED', b.holdExpiresAt = null " +
+           "WHERE b.id = :id AND b.status = 'PENDING'")
+    int expireIfPending(@Param("id") Long id);
+
+    // The next live bookings of a schedule as (id, user_id, number_of_seats, seat_numbers, total_amount),
+    // locked so that a concurrent cancellation of one of them waits and then finds it cancelled
+    @Query(value = "SELECT id, user_id, number_of_seats, seat_numbers, total_amount FROM bookings " +
+                   "WHERE schedule_id = :scheduleId AND id > :afterId AND status IN ('PENDING', 'CONFIRMED') " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<Object[]> findLiveForUpdate(@Param("scheduleId") Long scheduleId,
+                                     @Param("afterId") Long afterId,
+                                     @Param("limit") int limit);
+
+    // Cancels bookings already locked by findLiveForUpdate, keeping refundRate of what was paid. Native so the
+    // rate is bound as a plain double: in JPQL Hibernate wraps it in a cast H2 cannot parse
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "UPDATE bookings SET status = 'CANCELLED', total_amount = total_amount * :refundRate " +
+                   "WHERE id IN (:ids) AND status IN ('PENDING', 'CONFIRMED')", nativeQuery = true)
+    int cancelAllWithRefund(@Param("ids") List<Long> ids, @Param("refundRate") double refundRate);
+
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.schedule.id = :scheduleId AND b.status IN ('PENDING', 'CONFIRMED')")
+    long countLiveBySchedule(@Param("scheduleId") Long scheduleId);
+
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.schedule.bus.id = :busId AND b.schedule.withdrawn = true " +
+           "AND b.status IN ('PENDING', 'CONFIRMED')")
+    long countLiveOnWithdrawnSchedulesOfBus(@Param("busId") Long busId);
+}
@@ -1,7 +1,32 @@
 package com.busbooking.repository;
 
+import com.busbooking.dto.BusResponse;
 import com.busbooking.entity.Bus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+import java.util.Optional;
 
 public interface BusRepository extends JpaRepository<Bus, Long> {
+    // Read endpoints select just the response columns, without the bus's schedules
+    String SELECT_RESPONSE = "SELECT new com.busbooking.dto.BusResponse(b.id, b.busNumber, b.busName, b.totalSeats, b.busType) " +
+                             "FROM Bus b ";
+
+    // Only the buses table is read, so Hibernate drops these results whenever a bus is written
+    // through JPA; JDBC imports evict them through SecondLevelCache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(SELECT_RESPONSE + "ORDER BY b.id")
+    List<BusResponse> findAllResponses();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(SELECT_RESPONSE + "WHERE b.id = :id")
+    Optional<BusResponse> findResponseById(@Param("id") Long id);
+
+    @Query(SELECT_RESPONSE + "WHERE b.id > :afterId ORDER BY b.id")
+    List<BusResponse> findResponsesAfter(@Param("afterId") Long afterId, Pageable pageable);
 } 
\ No newline at end of file
@@ -1,9 +1,126 @@
 package com.busbooking.repository;
 
+import com.busbooking.dto.ManifestRow;
+import com.busbooking.dto.ScheduleResponse;
 import com.busbooking.entity.Schedule;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
-    List<Schedule> findBySourceAndDestination(String source, String destination);
-} 
\ No newline at end of file
+    // Read endpoints select just the response columns, joining the bus instead of loading it
+    String SELECT_RESPONSE = "SELECT new com.busbooking.dto.ScheduleResponse(s.id, b.id, b.busNumber, b.busName, b.busType, " +
+                             "s.source, s.destination, s.departureTime, s.arrivalTime, s.fare, s.availableSeats, s.templateId) " +
+                             "FROM Schedule s JOIN s.bus b ";
+
+    // Declared by the seat updates in place of the schedules table, so Hibernate does not drop the
+    // whole schedule cache region on every booking; SecondLevelCache evicts just the one schedule
+    String SEAT_SPACE = "schedule_seats";
+
+    @Query(SELECT_RESPONSE + "ORDER BY s.id")
+    List<ScheduleResponse> findAllResponses();
+
+    @Query(SELECT_RESPONSE + "WHERE s.id = :id")
+    Optional<ScheduleResponse> findResponseById(@Param("id") Long id);
+
+    @Query(SELECT_RESPONSE + "WHERE s.id > :afterId ORDER BY s.id")
+    List<ScheduleResponse> findResponsesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Loads the in-memory schedule views; departed and withdrawn schedules are left out
+    @Query(SELECT_RESPONSE + "WHERE s.arrivalTime >= :since AND s.withdrawn = false ORDER BY s.departureTime, s.id")
+    List<ScheduleResponse> findUpcomingResponses(@Param("since") LocalDateTime since);
+
+    // Skips the second-level cache, for callers that read the schedule's seats
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    @Query("SELECT s FROM Schedule s JOIN FETCH s.bus WHERE s.id = :id")
+    Optional<Schedule> findCurrentById(@Param("id") Long id);
+
+    // Answered from the table, never from the second-level cache
+    boolean existsByIdAndWithdrawnTrue(Long id);
+
+    Optional<Schedule> findByTemplateIdAndDepartureTime(Long templateId, LocalDateTime departureTime);
+
+    // Locks the schedule row until commit, so concurrent bookings on any instance take turns on the map
+    @Query(value = "SELECT seat_map FROM schedules WHERE id = :id FOR UPDATE", nativeQuery = true)
+    byte[] findSeatMapForUpdate(@Param("id") Long id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SEAT_SPACE))
+    @Query(value = "UPDATE schedules SET seat_map = :seatMap, available_seats = :availableSeats, revision = revision + 1 " +
+                   "WHERE id = :id", nativeQuery = true)
+    int updateSeatMap(@Param("id") Long id,
+                      @Param("seatMap") byte[] seatMap,
+                      @Param("availableSeats") int availableSeats);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SEAT_SPACE))
+    @Query(value = "UPDATE schedules SET available_seats = available_seats + :seats, revision = revision + 1 " +
+                   "WHERE id = :id", nativeQuery = true)
+    int releaseSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    // Sets the free count of a schedule not booked by seat number, provided it is still {@code expected}
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = SEAT_SPACE))
+    @Query(value = "UPDATE schedules SET available_seats = :availableSeats, revision = revision + 1 " +
+                   "WHERE id = :id AND seat_map IS NULL AND available_seats = :expected", nativeQuery = true)
+    int replaceAvailableSeats(@Param("id") Long id,
+                              @Param("expected") int expected,
+                              @Param("availableSeats") int availableSeats);
+
+    // Lets a conditional GET be answered without reading the schedule itself
+    @Query("SELECT s.revision FROM Schedule s WHERE s.id = :id")
+    Optional<Long> findRevisionById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Schedule s SET s.revision = s.revision + 1 WHERE s.id = :id")
+    int bumpRevision(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Schedule s SET s.revision = s.revision + 1 WHERE s.bus.id = :busId")
+    int bumpRevisionsOfBus(@Param("busId") Long busId);
+
+    @Query("SELECT s.id FROM Schedule s WHERE s.bus.id = :busId AND s.departureTime > :now AND s.withdrawn = false")
+    List<Long> findIdsToWithdraw(@Param("busId") Long busId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Schedule s SET s.withdrawn = true, s.revision = s.revision + 1 WHERE s.id = :id")
+    int markWithdrawn(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Schedule s SET s.withdrawn = true, s.revision = s.revision + 1 " +
+           "WHERE s.bus.id = :busId AND s.departureTime > :now AND s.withdrawn = false")
+    int markWithdrawnByBus(@Param("busId") Long busId, @Param("now") LocalDateTime now);
+
+    // Departures in [from, to) with their confirmed bookings, ordered by departure, schedule and booking and
+    // resumed after the last row seen; COALESCE places a departure without bookings at booking id 0
+    @Query("SELECT new com.busbooking.dto.ManifestRow(s.id, s.departureTime, s.arrivalTime, b.busNumber, " +
+           "s.source, s.destination, bk.id, bk.seatNumbers, bk.numberOfSeats, u.fullName, u.phoneNumber) " +
+           "FROM Schedule s JOIN s.bus b LEFT JOIN s.bookings bk ON bk.status = 'CONFIRMED' LEFT JOIN bk.user u " +
+           "WHERE s.departureTime >= :from AND s.departureTime < :to AND s.withdrawn = false " +
+           "AND (s.departureTime > :afterDeparture OR (s.departureTime = :afterDeparture " +
+           "AND (s.id > :afterScheduleId OR (s.id = :afterScheduleId AND COALESCE(bk.id, 0) > :afterBookingId)))) " +
+           "ORDER BY s.departureTime, s.id, COALESCE(bk.id, 0)")
+    List<ManifestRow> findManifestRowsAfter(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("afterDeparture") LocalDateTime afterDeparture,
+                                            @Param("afterScheduleId") Long afterScheduleId,
+                                            @Param("afterBookingId") Long afterBookingId,
+                                            Pageable pageable);
+
+    // Keyset walk over a bus's withdrawn schedules, for WithdrawalService
+    @Query("SELECT s.id FROM Schedule s WHERE s.bus.id = :busId AND s.withdrawn = true AND s.id > :afterId ORDER BY s.id")
+    List<Long> findWithdrawnIdsAfter(@Param("busId") Long busId, @Param("afterId") Long afterId, Pageable pageable);
+}
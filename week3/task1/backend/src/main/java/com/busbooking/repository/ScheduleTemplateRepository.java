@@ -0,0 +1,11 @@
+package com.busbooking.repository;
+
+import com.busbooking.entity.ScheduleTemplate;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+public interface ScheduleTemplateRepository extends JpaRepository<ScheduleTemplate, Long> {
+    @EntityGraph(attributePaths = "bus")
+    List<ScheduleTemplate> findAllByOrderByIdAsc();
+}
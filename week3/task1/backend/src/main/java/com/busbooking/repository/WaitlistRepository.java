@@ -0,0 +1,29 @@
+package com.busbooking.repository;
+
+import com.busbooking.entity.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+import java.util.Optional;
+
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    // Queue order; read while holding the schedule's seat map lock
+    List<WaitlistEntry> findByScheduleIdAndStatusOrderByIdAsc(Long scheduleId, String status);
+
+    Optional<WaitlistEntry> findFirstByScheduleIdAndUserIdAndStatus(Long scheduleId, Long userId, String status);
+
+    List<WaitlistEntry> findByUserIdOrderByIdDesc(Long userId);
+
+    long countByScheduleIdAndStatusAndIdLessThan(Long scheduleId, String status, Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = 'CANCELLED' WHERE w.id = :id AND w.status = 'WAITING'")
+    int cancelIfWaiting(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = 'DECLINED', w.message = :message " +
+           "WHERE w.schedule.id = :scheduleId AND w.status = 'WAITING'")
+    int declineAllWaiting(@Param("scheduleId") Long scheduleId, @Param("message") String message);
+}
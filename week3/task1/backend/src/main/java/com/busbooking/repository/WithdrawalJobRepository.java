@@ -0,0 +1,19 @@
+package com.busbooking.repository;
+
+import com.busbooking.entity.WithdrawalJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+import java.util.Optional;
+
+public interface WithdrawalJobRepository extends JpaRepository<WithdrawalJob, Long> {
+    List<WithdrawalJob> findByStatusOrderByIdAsc(String status);
+
+    // Held for a whole batch, so two instances resuming the same job take turns
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM WithdrawalJob j WHERE j.id = :id")
+    Optional<WithdrawalJob> findForUpdate(@Param("id") Long id);
+}
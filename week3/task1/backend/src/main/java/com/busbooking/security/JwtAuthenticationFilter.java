@@ -1,6 +1,7 @@
 package com.busbooking.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -18,6 +19,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import javax.crypto.SecretKey;
 
 @Component
@@ -27,9 +29,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private String jwtSecret;
 
     private final UserDetailsService userDetailsService;
+    private final VerifiedTokenCache tokenCache;
 
-    public JwtAuthenticationFilter(UserDetailsService userDetailsService) {
+    // Built on first use, once the secret has been injected
+    private volatile JwtParser parser;
+
+    public JwtAuthenticationFilter(UserDetailsService userDetailsService, VerifiedTokenCache tokenCache) {
         this.userDetailsService = userDetailsService;
+        this.tokenCache = tokenCache;
     }
 
     @Override
@@ -38,18 +45,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            username = extractUsername(jwt);
-        }
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authorizationHeader.substring(7);
+            UserDetails userDetails = authenticate(jwt);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            if (validateToken(jwt, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -59,31 +60,44 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         chain.doFilter(request, response);
     }
 
-    private String extractUsername(String token) {
+    private UserDetails authenticate(String token) {
+        UserDetails cached = tokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = verify(token);
+        if (claims == null || claims.getSubject() == null) {
+            return null;
+        }
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(claims.getSubject());
+        if (!claims.getSubject().equals(userDetails.getUsername())) {
+            return null;
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            tokenCache.put(token, userDetails, expiration.getTime());
+        }
+        return userDetails;
+    }
+
+    private Claims verify(String token) {
         try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-            Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-            return claims.getSubject();
+            return parser().parseClaimsJws(token).getBody();
         } catch (Exception e) {
             return null;
         }
     }
 
-    private boolean validateToken(String token, UserDetails userDetails) {
-        try {
+    private JwtParser parser() {
+        JwtParser current = parser;
+        if (current == null) {
             SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-            Claims claims = Jwts.parserBuilder()
+            current = Jwts.parserBuilder()
                 .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-            return claims.getSubject().equals(userDetails.getUsername());
-        } catch (Exception e) {
-            return false;
+                .build();
+            parser = current;
         }
+        return current;
     }
 } 
\ No newline at end of file
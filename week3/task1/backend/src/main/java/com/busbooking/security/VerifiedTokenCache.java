@@ -0,0 +1,126 @@
+package com.busbooking.security;
+
+import com.busbooking.event.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens whose signature and expiry have already been checked, mapped to the user they
+ * authenticate. Entries are keyed by a SHA-256 hash of the token, live for at most
+ * {@code app.security.token-cache.ttl-seconds} and never past the token's own expiry.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Value("${app.security.token-cache.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    @Value("${app.security.token-cache.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> keysByUsername = new ConcurrentHashMap<>();
+
+    /**
+     * @return the user the token was verified for, or null if it is not cached or has expired
+     */
+    public UserDetails get(String token) {
+        String key = hash(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            remove(key, entry);
+            return null;
+        }
+        return entry.userDetails;
+    }
+
+    public void put(String token, UserDetails userDetails, long tokenExpiresAt) {
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(tokenExpiresAt, now + ttlSeconds * 1000);
+        if (expiresAt <= now) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom(now);
+        }
+        String key = hash(token);
+        Entry entry = new Entry(userDetails, expiresAt);
+        keysByUsername.computeIfAbsent(userDetails.getUsername(), username -> ConcurrentHashMap.newKeySet()).add(key);
+        entries.put(key, entry);
+    }
+
+    /**
+     * Drops every cached token for the user, so the next request reloads their details.
+     */
+    public void evict(String username) {
+        Set<String> keys = keysByUsername.remove(username);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.getEmail());
+    }
+
+    private void makeRoom(long now) {
+        entries.forEach((key, entry) -> {
+            if (entry.expiresAt <= now) {
+                remove(key, entry);
+            }
+        });
+        // Still full of live tokens: drop arbitrary ones, they will simply be verified again
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() >= maxEntries && iterator.hasNext()) {
+            Map.Entry<String, Entry> next = iterator.next();
+            remove(next.getKey(), next.getValue());
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            Set<String> keys = keysByUsername.get(entry.userDetails.getUsername());
+            if (keys != null) {
+                keys.remove(key);
+            }
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Entry {
+        private final UserDetails userDetails;
+        private final long expiresAt;
+
+        private Entry(UserDetails userDetails, long expiresAt) {
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cheapest fare and free seats per route and departure date, for the next
+ * {@code app.availability.horizon-days} days.
+ *
+ * Each (route, date) cell keeps its departures along with a summary that is worked out when they
+ * change, so reading a calendar day is a single lookup. A seat change only adjusts the free seat
+ * total, unless the departure sold out or reopened, which is when the cheapest fare can move.
+ * Changes made through this instance are applied as they commit; {@link ScheduleViewRefresher}
+ * picks up other instances' changes and moves the window along.
+ */
+@Component
+public class AvailabilityCube extends ScheduleView {
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Value("${app.availability.horizon-days:90}")
+    private int horizonDays = 90;
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<LocalDate, Cell>> routes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Placement> byId = new ConcurrentHashMap<>();
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    // Departures earlier today still count towards today's cell
+    @Override
+    LocalDateTime loadSince(LocalDateTime now) {
+        return now.toLocalDate().atStartOfDay();
+    }
+
+    @Override
+    void replace(List<ScheduleResponse> upcoming, Set<Long> changed, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        Set<Long> seen = new HashSet<>();
+        for (ScheduleResponse summary : upcoming) {
+            if (place(summary.getId(), summary.getSource(), summary.getDestination(), summary.getDepartureTime(),
+                    summary.getFare(), summary.getAvailableSeats(), summary.getTemplateId(), today)) {
+                seen.add(summary.getId());
+            }
+        }
+        for (Long id : byId.keySet()) {
+            if (!seen.contains(id) && !changed.contains(id)) {
+                unplace(id);
+            }
+        }
+        // Days that have passed
+        for (ConcurrentHashMap<LocalDate, Cell> cells : routes.values()) {
+            cells.keySet().removeIf(date -> date.isBefore(today));
+        }
+    }
+
+    /**
+     * The route's summary for {@code date}, or null if nothing departs that day.
+     */
+    public Day day(String source, String destination, LocalDate date) {
+        Map<LocalDate, Cell> cells = routes.get(routeKey(source, destination));
+        if (cells == null) {
+            return null;
+        }
+        Cell cell = cells.get(date);
+        return cell != null ? cell.summary : null;
+    }
+
+    public synchronized void put(Schedule schedule) {
+        changed(schedule.getId());
+        if (schedule.isWithdrawn()) {
+            unplace(schedule.getId());
+            return;
+        }
+        place(schedule.getId(), schedule.getSource(), schedule.getDestination(), schedule.getDepartureTime(),
+                schedule.getFare(), schedule.getAvailableSeats(), schedule.getTemplateId(), LocalDate.now());
+    }
+
+    public synchronized void remove(Long scheduleId) {
+        changed(scheduleId);
+        unplace(scheduleId);
+    }
+
+    public synchronized void updateAvailableSeats(Long scheduleId, int availableSeats) {
+        changed(scheduleId);
+        Placement placement = byId.get(scheduleId);
+        if (placement == null) {
+            return;
+        }
+        Cell cell = cellAt(placement);
+        if (cell != null) {
+            cell.updateAvailableSeats(scheduleId, availableSeats);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getScheduleId());
+            return;
+        }
+        scheduleRepository.findCurrentById(event.getScheduleId()).ifPresent(this::put);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatsChanged(SeatsChangedEvent event) {
+        if (event.getAvailableSeats() != null) {
+            updateAvailableSeats(event.getScheduleId(), event.getAvailableSeats());
+        } else {
+            scheduleRepository.findCurrentById(event.getScheduleId()).ifPresent(this::put);
+        }
+    }
+
+    /**
+     * @return whether the departure falls inside the window and was placed
+     */
+    private boolean place(Long scheduleId, String source, String destination, LocalDateTime departureTime,
+                          Double fare, Integer availableSeats, Long templateId, LocalDate today) {
+        LocalDate date = departureTime.toLocalDate();
+        if (date.isBefore(today) || !date.isBefore(today.plusDays(horizonDays))) {
+            unplace(scheduleId);
+            return false;
+        }
+        Placement placement = new Placement(routeKey(source, destination), date);
+        Placement previous = byId.put(scheduleId, placement);
+        if (previous != null && !previous.equals(placement)) {
+            removeFromCell(previous, scheduleId);
+        }
+        Departure departure = new Departure(fare, availableSeats != null ? availableSeats : 0, templateId);
+        routes.computeIfAbsent(placement.routeKey, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(date, key -> new Cell())
+                .put(scheduleId, departure);
+        return true;
+    }
+
+    private void unplace(Long scheduleId) {
+        Placement previous = byId.remove(scheduleId);
+        if (previous != null) {
+            removeFromCell(previous, scheduleId);
+        }
+    }
+
+    private void removeFromCell(Placement placement, Long scheduleId) {
+        Cell cell = cellAt(placement);
+        if (cell != null) {
+            cell.remove(scheduleId);
+        }
+    }
+
+    private Cell cellAt(Placement placement) {
+        Map<LocalDate, Cell> cells = routes.get(placement.routeKey);
+        return cells != null ? cells.get(placement.date) : null;
+    }
+
+    // Route names match case-insensitively, like the schedule search
+    private static String routeKey(String source, String destination) {
+        return source.trim().toLowerCase(Locale.ROOT) + '\u0000' + destination.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A calendar cell's summary. Never modified once published.
+     */
+    static final class Day {
+        private final Double minFare;
+        private final int availableSeats;
+        private final int departures;
+        private final Set<Long> templateIds;
+
+        private Day(Double minFare, int availableSeats, int departures, Set<Long> templateIds) {
+            this.minFare = minFare;
+            this.availableSeats = availableSeats;
+            this.departures = departures;
+            this.templateIds = templateIds;
+        }
+
+        Double getMinFare() {
+            return minFare;
+        }
+
+        int getAvailableSeats() {
+            return availableSeats;
+        }
+
+        int getDepartures() {
+            return departures;
+        }
+
+        /**
+         * Templates with a stored schedule on this day.
+         */
+        Set<Long> getTemplateIds() {
+            return templateIds;
+        }
+    }
+
+    private static final class Cell {
+        private final Map<Long, Departure> departures = new HashMap<>();
+        private volatile Day summary = new Day(null, 0, 0, Set.of());
+
+        private synchronized void put(Long scheduleId, Departure departure) {
+            departures.put(scheduleId, departure);
+            summarize();
+        }
+
+        private synchronized void remove(Long scheduleId) {
+            if (departures.remove(scheduleId) != null) {
+                summarize();
+            }
+        }
+
+        private synchronized void updateAvailableSeats(Long scheduleId, int availableSeats) {
+            Departure previous = departures.get(scheduleId);
+            if (previous == null || previous.availableSeats == availableSeats) {
+                return;
+            }
+            departures.put(scheduleId, new Departure(previous.fare, availableSeats, previous.templateId));
+            if ((previous.availableSeats > 0) != (availableSeats > 0)) {
+                summarize();
+                return;
+            }
+            Day current = summary;
+            summary = new Day(current.minFare, current.availableSeats - previous.availableSeats + availableSeats,
+                    current.departures, current.templateIds);
+        }
+
+        private void summarize() {
+            Double minFare = null;
+            int availableSeats = 0;
+            Set<Long> templateIds = new HashSet<>();
+            for (Departure departure : departures.values()) {
+                availableSeats += departure.availableSeats;
+                if (departure.availableSeats > 0 && (minFare == null || departure.fare < minFare)) {
+                    minFare = departure.fare;
+                }
+                if (departure.templateId != null) {
+                    templateIds.add(departure.templateId);
+                }
+            }
+            summary = new Day(minFare, availableSeats, departures.size(), Set.copyOf(templateIds));
+        }
+    }
+
+    private static final class Departure {
+        private final double fare;
+        private final int availableSeats;
+        private final Long templateId;
+
+        private Departure(double fare, int availableSeats, Long templateId) {
+            this.fare = fare;
+            this.availableSeats = availableSeats;
+            this.templateId = templateId;
+        }
+    }
+
+    private static final class Placement {
+        private final String routeKey;
+        private final LocalDate date;
+
+        private Placement(String routeKey, LocalDate date) {
+            this.routeKey = routeKey;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Placement placement
+                    && routeKey.equals(placement.routeKey) && date.equals(placement.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(routeKey, date);
+        }
+    }
+}
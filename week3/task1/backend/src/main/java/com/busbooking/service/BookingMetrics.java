@@ -0,0 +1,166 @@
+package com.busbooking.service;
+
+import com.busbooking.exception.BookingRejectedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation for bookings and cancellations.
+ *
+ * <ul>
+ *   <li>{@code booking.create} and {@code booking.cancel}: timers tagged with the outcome, which
+ *   is {@code success}, a {@link BookingRejectedException.Reason} tag, {@code lock_timeout},
+ *   {@code invalid} or {@code error}</li>
+ *   <li>{@code booking.seat.lock.wait}: time spent waiting for a schedule's seat map row lock</li>
+ *   <li>{@code booking.contention.hot.wait} and {@code booking.contention.hot.schedule}: the
+ *   lock wait and schedule id of the K schedules that waited longest in the last window, tagged
+ *   by rank rather than schedule id so the number of series stays at K</li>
+ * </ul>
+ */
+@Component
+public class BookingMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer lockWait;
+    private final int topK;
+    private final long windowNanos;
+
+    private final ConcurrentHashMap<Long, LongAdder> waitByScheduleMicros = new ConcurrentHashMap<>();
+    private volatile long windowStart = System.nanoTime();
+    private volatile long[][] hottest = new long[0][];
+
+    public BookingMetrics(MeterRegistry registry,
+                          @Value("${app.metrics.hot-schedules.top-k:10}") int topK,
+                          @Value("${app.metrics.hot-schedules.window-seconds:60}") long windowSeconds) {
+        this.registry = registry;
+        this.topK = topK;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+        this.lockWait = Timer.builder("booking.seat.lock.wait")
+                .description("Time spent waiting for a schedule's seat map row lock")
+                .register(registry);
+        for (int rank = 1; rank <= topK; rank++) {
+            int index = rank - 1;
+            Gauge.builder("booking.contention.hot.wait", this, metrics -> metrics.hottest(index, 1) / 1000.0)
+                    .description("Seat map lock wait of the rank-th most contended schedule in the last window")
+                    .baseUnit("milliseconds")
+                    .tag("rank", String.valueOf(rank))
+                    .register(registry);
+            Gauge.builder("booking.contention.hot.schedule", this, metrics -> metrics.hottest(index, 0))
+                    .description("Id of the rank-th most contended schedule in the last window")
+                    .tag("rank", String.valueOf(rank))
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Times a booking or hold, tagging the timer with how it ended.
+     */
+    public <T> T recordBooking(String type, Supplier<T> booking) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return booking.get();
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            timer("booking.create", outcome).tag("type", type).register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordCancellation(Runnable cancellation) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            cancellation.run();
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            timer("booking.cancel", outcome).register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Times taking a schedule's row lock and charges the wait to that schedule.
+     */
+    public <T> T recordLockWait(Long scheduleId, Supplier<T> lock) {
+        long start = System.nanoTime();
+        try {
+            return lock.get();
+        } finally {
+            long waited = System.nanoTime() - start;
+            lockWait.record(waited, TimeUnit.NANOSECONDS);
+            rotateIfDue();
+            waitByScheduleMicros.computeIfAbsent(scheduleId, id -> new LongAdder()).add(waited / 1000);
+        }
+    }
+
+    static String outcomeOf(RuntimeException e) {
+        if (e instanceof BookingRejectedException rejected) {
+            return rejected.getReason().getTag();
+        }
+        if (e instanceof PessimisticLockingFailureException) {
+            return "lock_timeout";
+        }
+        if (e instanceof IllegalArgumentException) {
+            return "invalid";
+        }
+        return "error";
+    }
+
+    private Timer.Builder timer(String name, String outcome) {
+        return Timer.builder(name).tag("outcome", outcome);
+    }
+
+    /**
+     * @param field 0 for the schedule id, 1 for its lock wait in microseconds
+     */
+    private double hottest(int index, int field) {
+        rotateIfDue();
+        long[][] current = hottest;
+        return index < current.length ? current[index][field] : Double.NaN;
+    }
+
+    private void rotateIfDue() {
+        if (System.nanoTime() - windowStart < windowNanos) {
+            return;
+        }
+        synchronized (this) {
+            if (System.nanoTime() - windowStart >= windowNanos) {
+                rotate();
+            }
+        }
+    }
+
+    // The finished window's top K is kept for the gauges and the per-schedule totals start over
+    synchronized void rotate() {
+        PriorityQueue<long[]> top = new PriorityQueue<>((a, b) -> Long.compare(a[1], b[1]));
+        for (Map.Entry<Long, LongAdder> entry : waitByScheduleMicros.entrySet()) {
+            top.add(new long[] {entry.getKey(), entry.getValue().sum()});
+            if (top.size() > topK) {
+                top.poll();
+            }
+        }
+        long[][] ranked = new long[top.size()][];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = top.poll();
+        }
+        hottest = ranked;
+        waitByScheduleMicros.clear();
+        windowStart = System.nanoTime();
+    }
+}
@@ -0,0 +1,338 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.BookingTicketResponse;
+import com.busbooking.exception.BookingRejectedException;
+import com.busbooking.exception.BookingRejectedException.Reason;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Optional single-writer booking mode, enabled with {@code app.booking.pipeline.enabled}.
+ *
+ * Booking and cancel commands are put in their schedule's mailbox and answered with a ticket.
+ * Every schedule maps to one thread of a small partitioned executor, which drains the mailbox up
+ * to {@code app.booking.pipeline.batch-size} commands at a time and applies them in one
+ * transaction. Requests for a busy schedule then wait their turn in the queue instead of piling
+ * up on its seat map row lock. {@link BookingService} raises every rejection before it writes
+ * anything, so a rejected command fails its ticket and the batch carries on. Any other error rolls
+ * the batch back, and its commands are applied again one transaction each, so only the command
+ * that caused it is marked {@link #ERROR}. Commands still queued at shutdown are marked ERROR too.
+ *
+ * Tickets are held in memory by the instance that issued them until
+ * {@code app.booking.pipeline.ticket-ttl-seconds} after they complete.
+ */
+@Component
+@ConditionalOnProperty(name = "app.booking.pipeline.enabled", havingValue = "true")
+public class BookingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingPipeline.class);
+
+    public static final String QUEUED = "QUEUED";
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String FAILED = "FAILED";
+    public static final String ERROR = "ERROR";
+
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.booking.pipeline.partitions:4}")
+    private int partitions = 4;
+
+    @Value("${app.booking.pipeline.batch-size:64}")
+    private int batchSize = 64;
+
+    @Value("${app.booking.pipeline.max-queued-per-schedule:1000}")
+    private int maxQueuedPerSchedule = 1000;
+
+    @Value("${app.booking.pipeline.ticket-ttl-seconds:600}")
+    private long ticketTtlSeconds = 600;
+
+    private final ConcurrentHashMap<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private ExecutorService[] workers;
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        workers = new ExecutorService[partitions];
+        for (int i = 0; i < partitions; i++) {
+            String name = "booking-pipeline-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, name));
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "booking-ticket-sweep"));
+        sweeper.scheduleWithFixedDelay(this::removeExpiredTickets, 60, 60, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        if (workers == null) {
+            return;
+        }
+        // Batches already handed to a worker are applied; whatever is left is failed
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_WAIT_SECONDS);
+            for (ExecutorService worker : workers) {
+                worker.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ExecutorService worker : workers) {
+            worker.shutdownNow();
+        }
+        mailboxes.values().forEach(this::failQueued);
+    }
+
+    /**
+     * Queues a booking of either {@code seatNumbers} or {@code numberOfSeats} seats.
+     */
+    public BookingTicketResponse submitBooking(Long scheduleId, Long userId, Integer numberOfSeats,
+                                               List<Integer> seatNumbers) {
+        return submit("BOOK", scheduleId,
+                () -> bookingService.bookInTransaction(scheduleId, userId, numberOfSeats, seatNumbers).getId());
+    }
+
+    public BookingTicketResponse submitCancellation(Long bookingId) {
+        Long scheduleId = bookingService.getBookingById(bookingId).getSchedule().getId();
+        return submit("CANCEL", scheduleId, () -> {
+            bookingService.cancelInTransaction(bookingId);
+            return bookingId;
+        });
+    }
+
+    public BookingTicketResponse getTicket(String ticketId) {
+        return findTicket(ticketId).snapshot();
+    }
+
+    /**
+     * @return a future that completes with the ticket's final state
+     */
+    public CompletableFuture<BookingTicketResponse> whenDone(String ticketId) {
+        return findTicket(ticketId).done;
+    }
+
+    private BookingTicketResponse submit(String type, Long scheduleId, Supplier<Long> command) {
+        Mailbox mailbox = mailboxes.computeIfAbsent(scheduleId, Mailbox::new);
+        if (mailbox.queued.incrementAndGet() > maxQueuedPerSchedule) {
+            mailbox.queued.decrementAndGet();
+            throw new BookingRejectedException(Reason.QUEUE_FULL, "Too many requests are queued for this schedule");
+        }
+        Ticket ticket = new Ticket(type, scheduleId, command);
+        BookingTicketResponse queued = ticket.snapshot();
+        tickets.put(ticket.id, ticket);
+        mailbox.commands.add(ticket);
+        scheduleDrain(mailbox);
+        return queued;
+    }
+
+    private void scheduleDrain(Mailbox mailbox) {
+        if (mailbox.draining.compareAndSet(false, true)) {
+            // A schedule always lands on the same thread, so its commands are applied one at a time, in order
+            try {
+                workers[Math.floorMod(Long.hashCode(mailbox.scheduleId), workers.length)].execute(() -> drain(mailbox));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                mailbox.draining.set(false);
+                failQueued(mailbox);
+            }
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        List<Ticket> batch = new ArrayList<>();
+        Ticket next;
+        while (batch.size() < batchSize && (next = mailbox.commands.poll()) != null) {
+            batch.add(next);
+        }
+        mailbox.queued.addAndGet(-batch.size());
+        try {
+            if (!batch.isEmpty()) {
+                apply(batch);
+            }
+        } finally {
+            mailbox.draining.set(false);
+            if (!mailbox.commands.isEmpty()) {
+                scheduleDrain(mailbox);
+            } else {
+                mailboxes.remove(mailbox.scheduleId, mailbox);
+            }
+        }
+    }
+
+    private void apply(List<Ticket> batch) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                for (Ticket ticket : batch) {
+                    try {
+                        ticket.bookingId = ticket.command.get();
+                        ticket.outcome = "success";
+                    } catch (RuntimeException e) {
+                        if (!isRejection(e)) {
+                            throw e;
+                        }
+                        ticket.outcome = BookingMetrics.outcomeOf(e);
+                        ticket.message = e.getMessage();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // None of the batch was committed; one transaction per command confines the failure to its command
+            logger.warn("Rolled back a batch of {} booking commands, applying them one at a time", batch.size(), e);
+            for (Ticket ticket : batch) {
+                applyAlone(ticket);
+            }
+        }
+        for (Ticket ticket : batch) {
+            ticket.complete();
+        }
+    }
+
+    private void applyAlone(Ticket ticket) {
+        ticket.bookingId = null;
+        ticket.message = null;
+        try {
+            ticket.bookingId = new TransactionTemplate(transactionManager).execute(status -> ticket.command.get());
+            ticket.outcome = "success";
+        } catch (RuntimeException e) {
+            ticket.outcome = BookingMetrics.outcomeOf(e);
+            if (isRejection(e)) {
+                ticket.message = e.getMessage();
+                return;
+            }
+            // Not an answer to the request, so the caller is not told it was turned down
+            logger.error("Failed to apply {} ticket {} for schedule {}", ticket.type, ticket.id, ticket.scheduleId, e);
+            ticket.failedToApply = true;
+            ticket.message = "The request could not be applied; try again";
+        }
+    }
+
+    // Raised by BookingService's checks before it writes anything: a rejection, an invalid request,
+    // or a plain RuntimeException for a booking, schedule or user that does not exist
+    private static boolean isRejection(RuntimeException e) {
+        return e instanceof BookingRejectedException || e instanceof IllegalArgumentException
+                || e.getClass() == RuntimeException.class;
+    }
+
+    private void failQueued(Mailbox mailbox) {
+        Ticket ticket;
+        while ((ticket = mailbox.commands.poll()) != null) {
+            mailbox.queued.decrementAndGet();
+            ticket.outcome = "error";
+            ticket.failedToApply = true;
+            ticket.message = "The booking service stopped before the request was applied; try again";
+            ticket.complete();
+        }
+    }
+
+    private Ticket findTicket(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null) {
+            throw new RuntimeException("Ticket not found");
+        }
+        return ticket;
+    }
+
+    private void removeExpiredTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(ticketTtlSeconds);
+        tickets.values().removeIf(ticket -> ticket.completedAt != null && ticket.completedAt.isBefore(cutoff));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Mailbox {
+        private final Long scheduleId;
+        private final Queue<Ticket> commands = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Mailbox(Long scheduleId) {
+            this.scheduleId = scheduleId;
+        }
+    }
+
+    private static final class Ticket {
+        private final String id = UUID.randomUUID().toString();
+        private final String type;
+        private final Long scheduleId;
+        private final Supplier<Long> command;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final CompletableFuture<BookingTicketResponse> done = new CompletableFuture<>();
+
+        // Written by the pipeline thread before complete(), read by others only after it
+        private Long bookingId;
+        private String outcome;
+        private String message;
+        private boolean failedToApply;
+        private volatile LocalDateTime completedAt;
+
+        private Ticket(String type, Long scheduleId, Supplier<Long> command) {
+            this.type = type;
+            this.scheduleId = scheduleId;
+            this.command = command;
+        }
+
+        private void complete() {
+            completedAt = LocalDateTime.now();
+            done.complete(snapshot());
+        }
+
+        private BookingTicketResponse snapshot() {
+            BookingTicketResponse response = new BookingTicketResponse();
+            response.setId(id);
+            response.setType(type);
+            response.setScheduleId(scheduleId);
+            response.setCreatedAt(createdAt);
+            LocalDateTime finishedAt = completedAt;
+            if (finishedAt == null) {
+                response.setStatus(QUEUED);
+                return response;
+            }
+            response.setStatus(failedToApply ? ERROR : "success".equals(outcome) ? SUCCEEDED : FAILED);
+            response.setBookingId(bookingId);
+            response.setOutcome(outcome);
+            response.setMessage(message);
+            response.setCompletedAt(finishedAt);
+            return response;
+        }
+    }
+}
@@ -1,21 +1,42 @@
 package com.busbooking.service;
 
+import com.busbooking.dto.BookingResponse;
+import com.busbooking.dto.CursorPage;
 import com.busbooking.entity.Booking;
 import com.busbooking.entity.Schedule;
 import com.busbooking.entity.User;
+import com.busbooking.entity.WaitlistEntry;
+import com.busbooking.exception.BookingRejectedException;
+import com.busbooking.exception.BookingRejectedException.Reason;
+import com.busbooking.event.HoldsExpiredEvent;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.event.WaitlistUpdatedEvent;
 import com.busbooking.repository.BookingRepository;
 import com.busbooking.repository.ScheduleRepository;
 import com.busbooking.repository.UserRepository;
+import com.busbooking.repository.WaitlistRepository;
+import com.busbooking.util.KeysetPages;
+import com.busbooking.util.SeatMap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
 @Service
 public class BookingService {
+    private static final int STREAM_PAGE_SIZE = 500;
+
     @Autowired
     private BookingRepository bookingRepository;
 
@@ -25,14 +46,44 @@ public class BookingService {
     @Autowired
     private UserRepository userRepository;
 
-    private final ConcurrentHashMap<Long, ReentrantLock> scheduleLocks = new ConcurrentHashMap<>();
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private HoldExpiryWheel holdExpiryWheel;
+
+    @Autowired
+    private UserBookingIndex userBookingIndex;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.booking.hold-ttl-seconds:600}")
+    private long holdTtlSeconds = 600;
+
+    public List<BookingResponse> getAllBookings() {
+        return bookingRepository.findAllResponses();
+    }
+
+    public CursorPage<BookingResponse> getBookingPage(Long afterId, int limit) {
+        return KeysetPages.page(bookingRepository::findResponsesAfter, BookingResponse::getId,
+                Function.identity(), afterId, limit);
+    }
 
-    private ReentrantLock getLockForSchedule(Long scheduleId) {
-        return scheduleLocks.computeIfAbsent(scheduleId, k -> new ReentrantLock());
+    public void streamBookings(Consumer<BookingResponse> sink) {
+        KeysetPages.forEachPage(bookingRepository::findResponsesAfter, BookingResponse::getId, STREAM_PAGE_SIZE,
+                page -> page.forEach(sink));
     }
 
-    public List<Booking> getAllBookings() {
-        return bookingRepository.findAll();
+    public BookingResponse getBookingResponse(Long id) {
+        return bookingRepository.findResponseById(id)
+                .orElseThrow(() -> new RuntimeException("Booking not found"));
     }
 
     public Booking getBookingById(Long id) {
@@ -40,17 +91,129 @@ public class BookingService {
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
     }
 
-    public List<Booking> getUserBookings(Long userId) {
-        return bookingRepository.findByUserId(userId);
+    public List<BookingResponse> getUserBookings(Long userId) {
+        return bookingRepository.findResponsesByUserId(userId);
     }
 
     @Transactional
     public Booking createBooking(Long scheduleId, Long userId, Integer numberOfSeats) {
-        if (numberOfSeats <= 0) {
-            throw new IllegalArgumentException("Number of seats must be greater than 0");
+        return bookingMetrics.recordBooking("book", () -> {
+            if (numberOfSeats <= 0) {
+                throw new IllegalArgumentException("Number of seats must be greater than 0");
+            }
+            return book(scheduleId, userId, numberOfSeats, null, false);
+        });
+    }
+
+    /**
+     * Books the given seat numbers, failing if any of them is already taken.
+     */
+    @Transactional
+    public Booking createBooking(Long scheduleId, Long userId, List<Integer> seatNumbers) {
+        return bookingMetrics.recordBooking("book", () -> {
+            if (seatNumbers == null || seatNumbers.isEmpty()) {
+                throw new IllegalArgumentException("At least one seat must be selected");
+            }
+            int[] requestedSeats = distinctSeats(seatNumbers);
+            return book(scheduleId, userId, requestedSeats.length, requestedSeats, false);
+        });
+    }
+
+    /**
+     * Holds seats as a PENDING booking while the user pays. The hold expires after the configured
+     * TTL unless {@link #confirmHold} is called first. Repeating the request while the hold is live
+     * returns the same hold, so a double-submitted checkout does not take seats twice.
+     *
+     * @param seatNumbers the seats to hold, or null to pick {@code numberOfSeats} seats
+     */
+    @Transactional
+    public Booking holdSeats(Long scheduleId, Long userId, Integer numberOfSeats, List<Integer> seatNumbers) {
+        return bookingMetrics.recordBooking("hold", () -> {
+            if (seatNumbers != null && !seatNumbers.isEmpty()) {
+                int[] requestedSeats = distinctSeats(seatNumbers);
+                return book(scheduleId, userId, requestedSeats.length, requestedSeats, true);
+            }
+            if (numberOfSeats == null || numberOfSeats <= 0) {
+                throw new IllegalArgumentException("Number of seats must be greater than 0");
+            }
+            return book(scheduleId, userId, numberOfSeats, null, true);
+        });
+    }
+
+    /**
+     * Books seats like {@link #createBooking} but in the caller's transaction, for
+     * {@link BookingPipeline}'s batches. A rejection leaves the transaction as it found it. Pass either {@code seatNumbers} or {@code numberOfSeats}.
+     */
+    public Booking bookInTransaction(Long scheduleId, Long userId, Integer numberOfSeats, List<Integer> seatNumbers) {
+        return bookingMetrics.recordBooking("queued", () -> {
+            if (seatNumbers != null && !seatNumbers.isEmpty()) {
+                int[] requestedSeats = distinctSeats(seatNumbers);
+                return book(scheduleId, userId, requestedSeats.length, requestedSeats, false);
+            }
+            if (numberOfSeats == null || numberOfSeats <= 0) {
+                throw new IllegalArgumentException("Number of seats must be greater than 0");
+            }
+            return book(scheduleId, userId, numberOfSeats, null, false);
+        });
+    }
+
+    /**
+     * {@link #cancelBooking} in the caller's transaction.
+     */
+    public void cancelInTransaction(Long bookingId) {
+        bookingMetrics.recordCancellation(() -> cancel(bookingId));
+    }
+
+    private static int[] distinctSeats(List<Integer> seatNumbers) {
+        int[] requestedSeats = seatNumbers.stream().mapToInt(Integer::intValue).distinct().toArray();
+        if (requestedSeats.length != seatNumbers.size()) {
+            throw new IllegalArgumentException("Seat numbers must not repeat");
+        }
+        return requestedSeats;
+    }
+
+    @Transactional
+    public Booking confirmHold(Long bookingId) {
+        if (bookingRepository.confirmIfHeld(bookingId, LocalDateTime.now()) == 0) {
+            Booking booking = getBookingById(bookingId);
+            if ("PENDING".equals(booking.getStatus())) {
+                throw new BookingRejectedException(Reason.HOLD_EXPIRED, "Seat hold has expired");
+            }
+            throw new BookingRejectedException(Reason.NOT_ON_HOLD, "Booking is not on hold");
+        }
+        Booking confirmed = getBookingById(bookingId);
+        Long userId = confirmed.getUser().getId();
+        afterCompletion(() -> userBookingIndex.confirm(userId, bookingId), () -> { });
+        return confirmed;
+    }
+
+    /**
+     * Releases the seats of holds that ran out. Holds confirmed or cancelled in the meantime no
+     * longer match the conditional status update and are skipped.
+     */
+    @EventListener
+    @Transactional
+    public void onHoldsExpired(HoldsExpiredEvent event) {
+        for (Booking hold : bookingRepository.findAllById(event.getBookingIds())) {
+            if (bookingRepository.expireIfPending(hold.getId()) == 1) {
+                releaseSeats(hold);
+                forgetBooking(hold);
+            }
+        }
+    }
+
+    // Holds outlive a restart in the database; put them back on the wheel
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleOutstandingHolds() {
+        for (Object[] hold : bookingRepository.findPendingHolds()) {
+            LocalDateTime expiresAt = hold[1] != null ? (LocalDateTime) hold[1] : LocalDateTime.now();
+            holdExpiryWheel.schedule((Long) hold[0], expiresAt);
         }
+    }
 
-        Schedule schedule = scheduleRepository.findById(scheduleId)
+    private Booking book(Long scheduleId, Long userId, int numberOfSeats, int[] requestedSeats, boolean hold) {
+        // Read past the second-level cache: another instance may have sold seats or withdrawn it since
+        Schedule schedule = scheduleRepository.findCurrentById(scheduleId)
                 .orElseThrow(() -> new RuntimeException("Schedule not found"));
 
         User user = userRepository.findById(userId)
@@ -58,115 +221,343 @@ public class BookingService {
 
         // Check if schedule is in the past or about to depart
         if (schedule.getDepartureTime().isBefore(LocalDateTime.now().plusMinutes(30))) {
-            throw new IllegalStateException("Cannot book a schedule that is in the past or about to depart");
+            throw new BookingRejectedException(Reason.DEPARTED,
+                    "Cannot book a schedule that is in the past or about to depart");
         }
-
-        // Check if user has too many active bookings
-        List<Booking> userActiveBookings = bookingRepository.findByUserId(userId);
-        if (userActiveBookings.size() >= 5) {
-            throw new IllegalStateException("User has reached maximum number of active bookings");
+        if (schedule.isWithdrawn()) {
+            throw new BookingRejectedException(Reason.WITHDRAWN, "Schedule has been withdrawn");
         }
 
-        // Check for overlapping bookings
-        for (Booking existingBooking : userActiveBookings) {
-            if ("CONFIRMED".equals(existingBooking.getStatus())) {
-                Schedule existingSchedule = existingBooking.getSchedule();
-                if (isOverlapping(schedule, existingSchedule)) {
-                    throw new IllegalStateException("User has an overlapping booking");
-                }
+        // The user's index turns away most requests over the booking limit or overlapping another
+        // trip without a query; placeBooking makes the final check against the database
+        Supplier<List<Booking>> activeBookings = () -> bookingRepository.findActiveByUserId(userId, LocalDateTime.now());
+        if (hold) {
+            Long liveHold = userBookingIndex.findLiveHold(userId, scheduleId, activeBookings);
+            if (liveHold != null) {
+                return getBookingById(liveHold);
             }
         }
+        UserBookingIndex.Reservation reservation = userBookingIndex.reserve(userId, schedule, hold, activeBookings);
 
-        ReentrantLock lock = getLockForSchedule(scheduleId);
+        Booking saved;
         try {
-            if (!lock.tryLock()) {
-                throw new RuntimeException("Schedule is currently being booked by another user");
-            }
+            saved = placeBooking(schedule, user, numberOfSeats, requestedSeats, hold);
+        } catch (RuntimeException e) {
+            reservation.cancel();
+            throw e;
+        }
+        reservation.assign(saved.getId(), saved.getHoldExpiresAt());
+        afterCompletion(reservation::commit, reservation::cancel);
+        return saved;
+    }
 
-            // Recheck available seats after acquiring lock
-            schedule = scheduleRepository.findById(scheduleId)
-                    .orElseThrow(() -> new RuntimeException("Schedule not found"));
-            
-            if (schedule.getAvailableSeats() < numberOfSeats) {
-                throw new RuntimeException("Not enough seats available");
-            }
+    private Booking placeBooking(Schedule schedule, User user, int numberOfSeats, int[] requestedSeats, boolean hold) {
+        Long scheduleId = schedule.getId();
 
-            Booking booking = new Booking();
-            booking.setSchedule(schedule);
-            booking.setUser(user);
-            booking.setNumberOfSeats(numberOfSeats);
-            booking.setTotalAmount(schedule.getFare() * numberOfSeats);
-            booking.setBookingDate(LocalDateTime.now());
-            booking.setStatus("CONFIRMED");
+        // A sold-out schedule is turned away by the local counter without touching the schedules row
+        IntSupplier seatLoader = () -> schedule.getAvailableSeats();
+        if (!seatInventory.tryReserve(scheduleId, numberOfSeats, seatLoader)
+                && !(seatInventory.refreshIfStale(scheduleId, seatLoader)
+                        && seatInventory.tryReserve(scheduleId, numberOfSeats, seatLoader))) {
+            throw new BookingRejectedException(Reason.SEATS_EXHAUSTED, "Not enough seats available");
+        }
 
-            schedule.setAvailableSeats(schedule.getAvailableSeats() - numberOfSeats);
-            scheduleRepository.save(schedule);
+        // The seat map in the schedules row is what actually guards capacity, across all instances
+        int[] seats;
+        try {
+            seats = takeSeats(schedule, user, numberOfSeats, requestedSeats);
+        } catch (RuntimeException e) {
+            seatInventory.evict(scheduleId);
+            throw e;
+        }
+        afterCompletion(() -> { }, () -> seatInventory.release(scheduleId, numberOfSeats));
+        return saveBooking(schedule, user, seats, hold);
+    }
 
-            return bookingRepository.save(booking);
-        } finally {
-            if (lock.isHeldByCurrentThread()) {
-                lock.unlock();
-            }
+    /**
+     * The authoritative booking limit and overlap checks. The user's row stays locked until the
+     * transaction ends, so two bookings by the same user cannot both pass, whichever instance
+     * takes them. Called after the seat map is locked, the order every booking path locks in.
+     */
+    private void checkActiveBookings(Long userId, Schedule schedule) {
+        userRepository.lockById(userId);
+        LocalDateTime now = LocalDateTime.now();
+        if (bookingRepository.countActiveByUserId(userId, now) >= UserBookingIndex.MAX_ACTIVE_BOOKINGS) {
+            // The index let it through, so it is missing bookings made elsewhere
+            userBookingIndex.evict(userId);
+            throw new BookingRejectedException(Reason.BOOKING_LIMIT,
+                    "User has reached maximum number of active bookings");
+        }
+        if (bookingRepository.countActiveOverlapping(userId, now,
+                schedule.getDepartureTime(), schedule.getArrivalTime()) > 0) {
+            userBookingIndex.evict(userId);
+            throw new BookingRejectedException(Reason.OVERLAPPING_BOOKING, "User has an overlapping booking");
         }
     }
 
-    private boolean isOverlapping(Schedule newSchedule, Schedule existingSchedule) {
-        LocalDateTime newDeparture = newSchedule.getDepartureTime();
-        LocalDateTime newArrival = newSchedule.getArrivalTime();
-        LocalDateTime existingDeparture = existingSchedule.getDepartureTime();
-        LocalDateTime existingArrival = existingSchedule.getArrivalTime();
+    private Booking saveBooking(Schedule schedule, User user, int[] seats, boolean hold) {
+        Booking booking = new Booking();
+        booking.setSchedule(schedule);
+        booking.setUser(user);
+        booking.setNumberOfSeats(seats.length);
+        booking.setSeatNumbers(SeatMap.formatSeats(seats));
+        booking.setTotalAmount(schedule.getFare() * seats.length);
+        booking.setBookingDate(LocalDateTime.now());
+        if (!hold) {
+            booking.setStatus("CONFIRMED");
+            return bookingRepository.save(booking);
+        }
 
-        // Check if the new schedule overlaps with the existing schedule
-        return !(newArrival.isBefore(existingDeparture) || newDeparture.isAfter(existingArrival));
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(holdTtlSeconds);
+        booking.setStatus("PENDING");
+        booking.setHoldExpiresAt(expiresAt);
+        Booking savedHold = bookingRepository.save(booking);
+        afterCompletion(() -> holdExpiryWheel.schedule(savedHold.getId(), expiresAt), () -> { });
+        return savedHold;
     }
 
     @Transactional
     public void cancelBooking(Long bookingId) {
+        bookingMetrics.recordCancellation(() -> cancel(bookingId));
+    }
+
+    private void cancel(Long bookingId) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
         if ("CANCELLED".equals(booking.getStatus())) {
-            throw new IllegalStateException("Booking is already cancelled");
+            throw new BookingRejectedException(Reason.ALREADY_CANCELLED, "Booking is already cancelled");
+        }
+        if ("EXPIRED".equals(booking.getStatus())) {
+            throw new BookingRejectedException(Reason.HOLD_EXPIRED, "Seat hold has already expired");
         }
 
         Schedule schedule = booking.getSchedule();
         if (schedule.getDepartureTime().isBefore(LocalDateTime.now())) {
-            throw new IllegalStateException("Cannot cancel a booking for a past schedule");
+            throw new BookingRejectedException(Reason.DEPARTED, "Cannot cancel a booking for a past schedule");
         }
 
-        ReentrantLock lock = getLockForSchedule(schedule.getId());
-        try {
-            if (!lock.tryLock()) {
-                throw new RuntimeException("Schedule is currently being modified by another user");
+        // Calculate refund based on cancellation time
+        double refundAmount = calculateRefundAmount(booking);
+
+        // Only one concurrent cancellation can win the status change, so seats are released once
+        if (bookingRepository.cancelIfStatus(bookingId, booking.getStatus(), refundAmount) == 0) {
+            throw new BookingRejectedException(Reason.ALREADY_CANCELLED, "Booking is already cancelled");
+        }
+
+        releaseSeats(booking);
+        forgetBooking(booking);
+    }
+
+    private void forgetBooking(Booking booking) {
+        Long userId = booking.getUser().getId();
+        Long bookingId = booking.getId();
+        afterCompletion(() -> userBookingIndex.remove(userId, bookingId), () -> { });
+    }
+
+    private void releaseSeats(Booking booking) {
+        Schedule schedule = booking.getSchedule();
+        Long scheduleId = schedule.getId();
+        int releasedSeats = booking.getNumberOfSeats();
+        int handedOver = 0;
+        if (booking.getSeatNumbers() != null) {
+            handedOver = releaseSeatNumbers(schedule, SeatMap.parseSeats(booking.getSeatNumbers()));
+        } else {
+            scheduleRepository.releaseSeats(scheduleId, releasedSeats);
+            eventPublisher.publishEvent(new SeatsChangedEvent(scheduleId, null));
+        }
+        int freedSeats = releasedSeats - handedOver;
+        afterCompletion(() -> seatInventory.release(scheduleId, freedSeats), () -> { });
+    }
+
+    /**
+     * Picks seats on the schedule's seat map and writes the map back. The map is read with a row
+     * lock, so the pick and the write cannot interleave with another booking on any instance.
+     * Every rejection is raised before the write, which lets {@link BookingPipeline} carry on with
+     * the rest of a batch after one.
+     *
+     * @param requestedSeats the passenger's choice, or null to pick adjacent seats where possible
+     */
+    private int[] takeSeats(Schedule schedule, User user, int numberOfSeats, int[] requestedSeats) {
+        SeatMap seatMap = lockSeatMap(schedule);
+
+        int[] seats;
+        if (requestedSeats != null) {
+            for (int seat : requestedSeats) {
+                if (seatMap.isTaken(seat)) {
+                    throw new BookingRejectedException(Reason.SEAT_TAKEN, "Seat " + seat + " is already taken");
+                }
+            }
+            seats = requestedSeats;
+        } else {
+            seats = seatMap.findAdjacentFree(numberOfSeats);
+            if (seats == null) {
+                seats = seatMap.findFree(numberOfSeats);
+            }
+            if (seats == null) {
+                throw new BookingRejectedException(Reason.SEATS_EXHAUSTED, "Not enough seats available");
+            }
+        }
+        checkActiveBookings(user.getId(), schedule);
+
+        seatMap.take(seats);
+        saveSeatMap(schedule, seatMap);
+        return seats;
+    }
+
+    /**
+     * @return how many of the released seats went straight to the waitlist
+     */
+    private int releaseSeatNumbers(Schedule schedule, int[] seats) {
+        SeatMap seatMap = lockSeatMap(schedule);
+        seatMap.release(seats);
+        int handedOver = handOverToWaitlist(schedule, seatMap);
+        saveSeatMap(schedule, seatMap);
+        return handedOver;
+    }
+
+    /**
+     * Offers free seats to the schedule's waitlist in queue order while the seat map is still
+     * locked, so no new booking can take them first. Each entry that fits becomes a hold for the
+     * waiting user, who confirms it like any other hold. An entry that has come to break the
+     * booking limit or overlap rule since joining is declined.
+     *
+     * @return the number of seats handed over
+     */
+    private int handOverToWaitlist(Schedule schedule, SeatMap seatMap) {
+        if (seatMap.getFreeCount() == 0
+                || schedule.getDepartureTime().isBefore(LocalDateTime.now().plusMinutes(30))) {
+            return 0;
+        }
+        // The loaded schedule may come from this instance's cache; with the row locked, the table
+        // shows any withdrawal committed elsewhere, and a later one waits for this transaction
+        if (scheduleRepository.existsByIdAndWithdrawnTrue(schedule.getId())) {
+            return 0;
+        }
+        int handedOver = 0;
+        for (WaitlistEntry entry : waitlistRepository.findByScheduleIdAndStatusOrderByIdAsc(
+                schedule.getId(), WaitlistService.WAITING)) {
+            if (seatMap.getFreeCount() == 0) {
+                break;
+            }
+            int numberOfSeats = entry.getNumberOfSeats();
+            if (numberOfSeats > seatMap.getFreeCount()) {
+                continue;
+            }
+
+            Long userId = entry.getUser().getId();
+            UserBookingIndex.Reservation reservation = null;
+            try {
+                reservation = userBookingIndex.reserve(userId, schedule, true,
+                        () -> bookingRepository.findActiveByUserId(userId, LocalDateTime.now()));
+                checkActiveBookings(userId, schedule);
+            } catch (BookingRejectedException e) {
+                if (reservation != null) {
+                    reservation.cancel();
+                }
+                entry.setStatus(WaitlistService.DECLINED);
+                entry.setMessage(e.getMessage());
+                waitlistRepository.save(entry);
+                eventPublisher.publishEvent(new WaitlistUpdatedEvent(entry.getId(), userId, schedule.getId(),
+                        entry.getStatus(), null));
+                continue;
             }
 
-            // Calculate refund based on cancellation time
-            double refundAmount = calculateRefundAmount(booking);
-            booking.setTotalAmount(refundAmount);
+            int[] seats = seatMap.findAdjacentFree(numberOfSeats);
+            if (seats == null) {
+                seats = seatMap.findFree(numberOfSeats);
+            }
+            seatMap.take(seats);
+            Booking hold = saveBooking(schedule, entry.getUser(), seats, true);
+            reservation.assign(hold.getId(), hold.getHoldExpiresAt());
+            afterCompletion(reservation::commit, reservation::cancel);
+
+            entry.setStatus(WaitlistService.FULFILLED);
+            entry.setBookingId(hold.getId());
+            waitlistRepository.save(entry);
+            eventPublisher.publishEvent(new WaitlistUpdatedEvent(entry.getId(), userId, schedule.getId(),
+                    entry.getStatus(), hold.getId()));
+            handedOver += numberOfSeats;
+        }
+        return handedOver;
+    }
 
-            schedule.setAvailableSeats(schedule.getAvailableSeats() + booking.getNumberOfSeats());
-            scheduleRepository.save(schedule);
+    private SeatMap lockSeatMap(Schedule schedule) {
+        int capacity = schedule.getBus().getTotalSeats();
+        byte[] stored = bookingMetrics.recordLockWait(schedule.getId(),
+                () -> scheduleRepository.findSeatMapForUpdate(schedule.getId()));
+        return stored != null ? SeatMap.fromBytes(stored, capacity) : legacySeatMap(schedule, capacity);
+    }
 
-            booking.setStatus("CANCELLED");
-            bookingRepository.save(booking);
-        } finally {
-            if (lock.isHeldByCurrentThread()) {
-                lock.unlock();
+    /**
+     * Builds the first seat map of a schedule that was booked by seat count only. Its existing
+     * bookings are given seat numbers from the front of the bus, and any further seats the old
+     * counter had marked as sold are blocked, so the free count stays where it was.
+     */
+    private SeatMap legacySeatMap(Schedule schedule, int capacity) {
+        SeatMap seatMap = new SeatMap(capacity);
+        List<Booking> legacyBookings = bookingRepository.findByScheduleIdAndStatusNot(schedule.getId(), "CANCELLED");
+        for (Booking legacyBooking : legacyBookings) {
+            int[] seats = seatMap.findFree(legacyBooking.getNumberOfSeats());
+            if (seats == null) {
+                break;
             }
+            seatMap.take(seats);
+            legacyBooking.setSeatNumbers(SeatMap.formatSeats(seats));
+        }
+        bookingRepository.saveAll(legacyBookings);
+
+        int blockedSeats = seatMap.getFreeCount() - schedule.getAvailableSeats();
+        if (blockedSeats > 0) {
+            seatMap.take(seatMap.findFree(blockedSeats));
         }
+        return seatMap;
+    }
+
+    private void saveSeatMap(Schedule schedule, SeatMap seatMap) {
+        if (scheduleRepository.updateSeatMap(schedule.getId(), seatMap.toBytes(), seatMap.getFreeCount()) == 0) {
+            throw new RuntimeException("Schedule not found");
+        }
+        eventPublisher.publishEvent(new SeatsChangedEvent(schedule.getId(), seatMap.getFreeCount()));
+    }
+
+    /**
+     * Runs {@code onCommit} once the surrounding transaction commits and {@code onRollback} if it
+     * rolls back. Without an active transaction the change is treated as committed immediately.
+     */
+    private void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
     }
 
     private double calculateRefundAmount(Booking booking) {
-        LocalDateTime departureTime = booking.getSchedule().getDepartureTime();
-        LocalDateTime now = LocalDateTime.now();
+        return booking.getTotalAmount() * refundRate(booking.getSchedule().getDepartureTime(), LocalDateTime.now());
+    }
+
+    /**
+     * The share of the amount paid that is refunded on cancelling at {@code now}.
+     */
+    static double refundRate(LocalDateTime departureTime, LocalDateTime now) {
         long hoursUntilDeparture = java.time.Duration.between(now, departureTime).toHours();
 
         if (hoursUntilDeparture >= 24) {
             // Full refund if cancelled 24 hours or more before departure
-            return booking.getTotalAmount();
+            return 1.0;
         } else if (hoursUntilDeparture >= 12) {
             // 50% refund if cancelled between 12-24 hours before departure
-            return booking.getTotalAmount() * 0.5;
+            return 0.5;
         } else {
             // No refund if cancelled less than 12 hours before departure
             return 0.0;
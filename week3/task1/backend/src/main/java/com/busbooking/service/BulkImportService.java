@@ -0,0 +1,219 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.BusRequest;
+import com.busbooking.dto.ImportError;
+import com.busbooking.dto.ImportResult;
+import com.busbooking.dto.ScheduleImportRow;
+import com.busbooking.event.SchedulesImportedEvent;
+import com.busbooking.util.CsvLines;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of buses and schedules from a CSV body with a header row, or from NDJSON.
+ *
+ * The body is read a line at a time and valid rows are inserted with JDBC batch inserts, one
+ * transaction per {@code app.import.batch-size} rows. Schedules are checked against the buses
+ * loaded once at the start rather than with a query per row. A row that fails validation or
+ * insertion is reported by line number and the rest of the import carries on.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final String INSERT_BUS =
+            "INSERT INTO buses (bus_number, bus_name, total_seats, bus_type) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_SCHEDULE =
+            "INSERT INTO schedules (bus_id, source, destination, departure_time, arrival_time, fare, available_seats) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors = 1000;
+
+    public ImportResult importBuses(InputStream body, String contentType) throws IOException {
+        ImportResult result = importRows(body, contentType, BusRequest.class, INSERT_BUS, bus -> new Object[] {
+                bus.getBusNumber().trim(), bus.getBusName().trim(), bus.getTotalSeats(), bus.getBusType().trim()});
+        logger.info("Imported {} buses, rejected {}", result.getImported(), result.getRejected());
+        if (result.getImported() > 0) {
+            // Cached bus lists were built without the rows JDBC just inserted
+            secondLevelCache.evictQueries();
+        }
+        return result;
+    }
+
+    public ImportResult importSchedules(InputStream body, String contentType) throws IOException {
+        Map<Long, Integer> seatsByBus = new HashMap<>();
+        jdbcTemplate.query("SELECT id, total_seats FROM buses", rs -> {
+            seatsByBus.put(rs.getLong(1), rs.getInt(2));
+        });
+
+        ImportResult result = importRows(body, contentType, ScheduleImportRow.class, INSERT_SCHEDULE,
+                row -> toScheduleParams(row, seatsByBus));
+        logger.info("Imported {} schedules, rejected {}", result.getImported(), result.getRejected());
+        if (result.getImported() > 0) {
+            eventPublisher.publishEvent(new SchedulesImportedEvent(result.getImported()));
+        }
+        return result;
+    }
+
+    private <T> ImportResult importRows(InputStream body, String contentType, Class<T> rowType, String sql,
+                                        Function<T, Object[]> toParams) throws IOException {
+        boolean csv = isCsv(contentType);
+        ImportResult result = new ImportResult();
+        List<Object[]> batch = new ArrayList<>();
+        List<Long> batchLines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        String[] header = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (csv && header == null) {
+                header = CsvLines.split(line);
+                continue;
+            }
+            try {
+                T row = csv
+                        ? objectMapper.convertValue(CsvLines.toMap(header, CsvLines.split(line)), rowType)
+                        : objectMapper.readValue(line, rowType);
+                validate(row);
+                batch.add(toParams.apply(row));
+                batchLines.add(lineNumber);
+            } catch (JsonProcessingException e) {
+                reject(result, lineNumber, e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                reject(result, lineNumber, e.getCause() instanceof JsonProcessingException json
+                        ? json.getOriginalMessage() : e.getMessage());
+            }
+            if (batch.size() >= batchSize) {
+                flush(sql, batch, batchLines, result);
+            }
+        }
+        flush(sql, batch, batchLines, result);
+        return result;
+    }
+
+    private void flush(String sql, List<Object[]> batch, List<Long> batchLines, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+            result.setImported(result.getImported() + batch.size());
+        } catch (DataAccessException e) {
+            // The whole batch was rolled back; retry it a row at a time so only the failing rows are lost
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    jdbcTemplate.update(sql, batch.get(i));
+                    result.setImported(result.getImported() + 1);
+                } catch (DataAccessException rowFailure) {
+                    reject(result, batchLines.get(i), rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private <T> void validate(T row) {
+        Set<ConstraintViolation<T>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private static Object[] toScheduleParams(ScheduleImportRow row, Map<Long, Integer> seatsByBus) {
+        Integer totalSeats = seatsByBus.get(row.getBusId());
+        if (totalSeats == null) {
+            throw new IllegalArgumentException("Bus not found: " + row.getBusId());
+        }
+        String source = row.getSource().trim();
+        String destination = row.getDestination().trim();
+        if (source.equalsIgnoreCase(destination)) {
+            throw new IllegalArgumentException("Source and destination must be different");
+        }
+        if (!row.getArrivalTime().isAfter(row.getDepartureTime())) {
+            throw new IllegalArgumentException("Arrival time must be after departure time");
+        }
+        return new Object[] {row.getBusId(), source, destination, Timestamp.valueOf(row.getDepartureTime()),
+                Timestamp.valueOf(row.getArrivalTime()), row.getFare(), totalSeats};
+    }
+
+    private void reject(ImportResult result, long line, String message) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new ImportError(line, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static boolean isCsv(String contentType) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        if (MediaType.parseMediaType(TEXT_CSV_VALUE).includes(mediaType)) {
+            return true;
+        }
+        if (MediaType.APPLICATION_NDJSON.includes(mediaType)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unsupported content type: " + contentType);
+    }
+}
@@ -0,0 +1,223 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.util.IntervalTree;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Each bus's upcoming schedules as an interval tree of the time the bus is taken: from departure
+ * until {@code app.bus-allocation.turnaround-minutes} after arrival. Checking a new or moved
+ * schedule against it, or asking whether a bus is free, is O(log n) in the bus's schedules.
+ *
+ * Changes made through this instance are applied as they are committed; {@link ScheduleViewRefresher}
+ * picks up changes made by other instances and drops schedules that have finished.
+ */
+@Component
+public class BusAllocationIndex extends ScheduleView {
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Value("${app.bus-allocation.turnaround-minutes:30}")
+    private long turnaroundMinutes = 30;
+
+    private final ConcurrentHashMap<Long, IntervalTree> buses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Allocation> byScheduleId = new ConcurrentHashMap<>();
+    // Reservations are kept in the trees under negative ids, so they never collide with a schedule's
+    private final AtomicLong sequence = new AtomicLong();
+
+    // A bus is still taken for the turnaround after its last schedule arrives
+    @Override
+    LocalDateTime loadSince(LocalDateTime now) {
+        return now.minusMinutes(turnaroundMinutes);
+    }
+
+    @Override
+    void replace(List<ScheduleResponse> upcoming, Set<Long> changed, LocalDateTime now) {
+        Set<Long> seen = new HashSet<>();
+        for (ScheduleResponse summary : upcoming) {
+            if (allocate(summary.getId(), summary.getBusId(), summary.getDepartureTime(), summary.getArrivalTime(), now)) {
+                seen.add(summary.getId());
+            }
+        }
+        for (Long id : byScheduleId.keySet()) {
+            if (!seen.contains(id) && !changed.contains(id)) {
+                deallocate(id);
+            }
+        }
+    }
+
+    /**
+     * Checks that the bus is free for a schedule from {@code departure} to {@code arrival} and, if
+     * so, holds that time straight away so a concurrent write for the same bus sees it. The caller
+     * saves the schedule and, once that commits, {@link #put puts} it and then
+     * {@link Reservation#release releases} the hold; on a rollback it only releases the hold.
+     *
+     * @param scheduleId the schedule being moved, whose current slot is not a conflict, or null
+     * @throws IllegalStateException if another schedule has the bus at that time
+     */
+    public Reservation reserve(Long busId, Long scheduleId, LocalDateTime departure, LocalDateTime arrival) {
+        if (!arrival.isAfter(departure)) {
+            throw new IllegalArgumentException("Arrival time must be after departure time");
+        }
+        long start = epochSeconds(departure);
+        long end = takenUntil(arrival);
+        IntervalTree tree = buses.computeIfAbsent(busId, id -> new IntervalTree());
+        synchronized (tree) {
+            Allocation current = scheduleId != null ? byScheduleId.get(scheduleId) : null;
+            boolean moving = current != null && current.busId.equals(busId);
+            if (moving) {
+                tree.remove(current.start, current.end, scheduleId);
+            }
+            Long conflict = tree.findOverlapping(start, end);
+            if (moving) {
+                tree.insert(current.start, current.end, scheduleId);
+            }
+            if (conflict != null) {
+                throw new IllegalStateException(conflict > 0
+                        ? "Bus is already assigned to schedule " + conflict + " at that time"
+                        : "Bus is being assigned to another schedule at that time");
+            }
+            long token = -sequence.incrementAndGet();
+            tree.insert(start, end, token);
+            return new Reservation(tree, start, end, token);
+        }
+    }
+
+    /**
+     * Whether the bus could take a schedule from {@code from} to {@code to}.
+     */
+    public boolean isFree(Long busId, LocalDateTime from, LocalDateTime to) {
+        IntervalTree tree = buses.get(busId);
+        if (tree == null) {
+            return true;
+        }
+        synchronized (tree) {
+            return !tree.overlaps(epochSeconds(from), takenUntil(to));
+        }
+    }
+
+    public synchronized void put(Schedule schedule) {
+        if (schedule.getId() == null) {
+            return;
+        }
+        changed(schedule.getId());
+        if (schedule.isWithdrawn() || schedule.getBus() == null) {
+            deallocate(schedule.getId());
+            return;
+        }
+        allocate(schedule.getId(), schedule.getBus().getId(), schedule.getDepartureTime(), schedule.getArrivalTime(),
+                LocalDateTime.now());
+    }
+
+    public synchronized void remove(Long scheduleId) {
+        changed(scheduleId);
+        deallocate(scheduleId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getScheduleId());
+            return;
+        }
+        scheduleRepository.findCurrentById(event.getScheduleId()).ifPresent(this::put);
+    }
+
+    /**
+     * @return whether the schedule still takes its bus and was added
+     */
+    private boolean allocate(Long scheduleId, Long busId, LocalDateTime departure, LocalDateTime arrival,
+                             LocalDateTime now) {
+        if (busId == null || departure == null || arrival == null || arrival.isBefore(departure)
+                || takenUntil(arrival) < epochSeconds(now)) {
+            deallocate(scheduleId);
+            return false;
+        }
+        Allocation allocation = new Allocation(busId, epochSeconds(departure), takenUntil(arrival));
+        Allocation previous = byScheduleId.put(scheduleId, allocation);
+        if (previous != null) {
+            removeFromTree(previous, scheduleId);
+        }
+        IntervalTree tree = buses.computeIfAbsent(allocation.busId, id -> new IntervalTree());
+        synchronized (tree) {
+            tree.insert(allocation.start, allocation.end, scheduleId);
+        }
+        return true;
+    }
+
+    private void deallocate(Long scheduleId) {
+        Allocation previous = byScheduleId.remove(scheduleId);
+        if (previous != null) {
+            removeFromTree(previous, scheduleId);
+        }
+    }
+
+    private void removeFromTree(Allocation allocation, Long scheduleId) {
+        IntervalTree tree = buses.get(allocation.busId);
+        if (tree != null) {
+            synchronized (tree) {
+                tree.remove(allocation.start, allocation.end, scheduleId);
+            }
+        }
+    }
+
+    // The bus is taken until the turnaround after arrival; intervals are closed, hence the second off
+    private long takenUntil(LocalDateTime arrival) {
+        return epochSeconds(arrival) + TimeUnit.MINUTES.toSeconds(turnaroundMinutes) - 1;
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * A bus's time held by {@link #reserve} for a schedule that has not been saved yet.
+     */
+    public static final class Reservation {
+        private final IntervalTree tree;
+        private final long start;
+        private final long end;
+        private final long token;
+
+        private Reservation(IntervalTree tree, long start, long end, long token) {
+            this.tree = tree;
+            this.start = start;
+            this.end = end;
+            this.token = token;
+        }
+
+        public void release() {
+            synchronized (tree) {
+                tree.remove(start, end, token);
+            }
+        }
+    }
+
+    private static final class Allocation {
+        private final Long busId;
+        private final long start;
+        private final long end;
+
+        private Allocation(Long busId, long start, long end) {
+            this.busId = busId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -1,18 +1,61 @@
 package com.busbooking.service;
 
+import com.busbooking.dto.BusResponse;
+import com.busbooking.dto.CursorPage;
 import com.busbooking.entity.Bus;
 import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.util.KeysetPages;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class BusService {
+    private static final int STREAM_PAGE_SIZE = 500;
+
     @Autowired
     private BusRepository busRepository;
 
-    public List<Bus> getAllBuses() {
-        return busRepository.findAll();
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private BusAllocationIndex busAllocationIndex;
+
+    public List<BusResponse> getAllBuses() {
+        return busRepository.findAllResponses();
+    }
+
+    /**
+     * Buses with no schedule, turnaround included, between {@code from} and {@code to}: one pass
+     * over the fleet with an O(log n) allocation lookup per bus.
+     */
+    public List<BusResponse> getAvailableBuses(LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("The window must end after it starts");
+        }
+        return busRepository.findAllResponses().stream()
+                .filter(bus -> busAllocationIndex.isFree(bus.getId(), from, to))
+                .toList();
+    }
+
+    public CursorPage<BusResponse> getBusPage(Long afterId, int limit) {
+        return KeysetPages.page(busRepository::findResponsesAfter, BusResponse::getId,
+                Function.identity(), afterId, limit);
+    }
+
+    public void streamBuses(Consumer<BusResponse> sink) {
+        KeysetPages.forEachPage(busRepository::findResponsesAfter, BusResponse::getId, STREAM_PAGE_SIZE,
+                page -> page.forEach(sink));
+    }
+
+    public BusResponse getBusResponse(Long id) {
+        return busRepository.findResponseById(id)
+                .orElseThrow(() -> new RuntimeException("Bus not found"));
     }
 
     public Bus getBusById(Long id) {
@@ -30,7 +73,10 @@ public class BusService {
         bus.setBusName(busDetails.getBusName());
         bus.setTotalSeats(busDetails.getTotalSeats());
         bus.setBusType(busDetails.getBusType());
-        return busRepository.save(bus);
+        Bus saved = busRepository.save(bus);
+        // Schedule responses carry the bus's details
+        scheduleRepository.bumpRevisionsOfBus(id);
+        return saved;
     }
 
     public void deleteBus(Long id) {
@@ -0,0 +1,150 @@
+package com.busbooking.service;
+
+import com.busbooking.event.HoldsExpiredEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel for seat hold expiry.
+ *
+ * Each hold sits in the bucket for its expiry tick, so scheduling is O(1) and every tick only looks
+ * at one bucket, however many holds are outstanding. Holds more than one revolution away stay in
+ * their bucket until the wheel comes round to their tick. Expired holds are handed over as a
+ * {@link HoldsExpiredEvent}; a hold that was confirmed or cancelled in the meantime is ignored there.
+ */
+@Component
+public class HoldExpiryWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(HoldExpiryWheel.class);
+
+    private static final int WHEEL_SIZE = 512;
+    private static final long RETRY_DELAY_MS = 1000;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.booking.hold-wheel.tick-ms:100}")
+    private long tickMs = 100;
+
+    private final Object lock = new Object();
+    private final List<ArrayDeque<Hold>> buckets = new ArrayList<>(WHEEL_SIZE);
+    private long currentTick;
+    private int size;
+    private ScheduledExecutorService ticker;
+
+    public HoldExpiryWheel() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        currentTick = System.currentTimeMillis() / tickMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        synchronized (lock) {
+            currentTick = System.currentTimeMillis() / tickMs;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hold-expiry-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    public void schedule(Long bookingId, LocalDateTime expiresAt) {
+        scheduleAt(bookingId, tickOf(expiresAt));
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    long tickOf(LocalDateTime time) {
+        long epochMillis = time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return (epochMillis + tickMs - 1) / tickMs;
+    }
+
+    /**
+     * Moves the wheel up to {@code tick} and returns the holds that expired on the way.
+     */
+    List<Long> advanceTo(long tick) {
+        List<Long> expired = new ArrayList<>();
+        synchronized (lock) {
+            while (currentTick < tick) {
+                currentTick++;
+                Iterator<Hold> holds = buckets.get((int) (currentTick & (WHEEL_SIZE - 1))).iterator();
+                while (holds.hasNext()) {
+                    Hold hold = holds.next();
+                    if (hold.deadlineTick <= currentTick) {
+                        holds.remove();
+                        size--;
+                        expired.add(hold.bookingId);
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void tick() {
+        List<Long> expired = advanceTo(System.currentTimeMillis() / tickMs);
+        if (expired.isEmpty()) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(new HoldsExpiredEvent(expired));
+        } catch (RuntimeException e) {
+            logger.error("Failed to expire {} seat holds, retrying", expired.size(), e);
+            // Keep the holds and try again shortly rather than leaving their seats stuck
+            long retryTick = (System.currentTimeMillis() + RETRY_DELAY_MS) / tickMs;
+            for (Long bookingId : expired) {
+                scheduleAt(bookingId, retryTick);
+            }
+        }
+    }
+
+    private void scheduleAt(Long bookingId, long deadlineTick) {
+        synchronized (lock) {
+            // Already due: fire on the next tick
+            long tick = Math.max(deadlineTick, currentTick + 1);
+            buckets.get((int) (tick & (WHEEL_SIZE - 1))).add(new Hold(bookingId, tick));
+            size++;
+        }
+    }
+
+    private static final class Hold {
+        private final Long bookingId;
+        private final long deadlineTick;
+
+        private Hold(Long bookingId, long deadlineTick) {
+            this.bookingId = bookingId;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.JourneyPlanResponse;
+import com.busbooking.dto.JourneyResponse;
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plans multi-leg journeys with a connection scan over the schedules that have not departed,
+ * held in memory as one array sorted by departure.
+ *
+ * Each schedule is a single connection, so one pass over the departures after the requested
+ * time finds every reachable itinerary. Each stop keeps the Pareto set of (arrival, fare, legs)
+ * labels, which yields both the earliest-arrival and the cheapest journey. The array is patched
+ * as schedules are added, moved or removed, and reloaded by {@link ScheduleViewRefresher} to pick
+ * up changes made by other instances. Seat counts live on the connections themselves, so a seat
+ * change leaves the array alone.
+ */
+@Service
+public class JourneyPlanner extends ScheduleView {
+
+    private static final Connection[] NO_CONNECTIONS = new Connection[0];
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Value("${app.journey.min-transfer-minutes:15}")
+    private int minTransferMinutes = 15;
+
+    @Value("${app.journey.max-legs:3}")
+    private int maxLegs = 3;
+
+    @Value("${app.journey.horizon-hours:24}")
+    private int horizonHours = 24;
+
+    // Stop ids are only ever added, so ids held by older connection arrays stay valid
+    private final ConcurrentHashMap<String, Integer> stopIds = new ConcurrentHashMap<>();
+
+    // Replaced wholesale under the lock; planners read whichever array was current when they started
+    private volatile Connection[] connections = NO_CONNECTIONS;
+    private final Map<Long, Connection> byScheduleId = new HashMap<>();
+
+    @Override
+    void replace(List<ScheduleResponse> upcoming, Set<Long> changed, LocalDateTime now) {
+        List<Connection> loaded = new ArrayList<>();
+        for (ScheduleResponse summary : upcoming) {
+            Connection connection = !summary.getDepartureTime().isBefore(now) ? toConnection(summary) : null;
+            if (connection != null) {
+                loaded.add(connection);
+            }
+        }
+        // Changed while the rows were loading, so the connections held now are the newer ones
+        for (Long scheduleId : changed) {
+            Connection current = byScheduleId.get(scheduleId);
+            if (current != null) {
+                loaded.add(current);
+            }
+        }
+        Connection[] sorted = loaded.toArray(NO_CONNECTIONS);
+        Arrays.sort(sorted);
+
+        byScheduleId.clear();
+        for (Connection connection : sorted) {
+            byScheduleId.put(connection.scheduleId, connection);
+        }
+        connections = sorted;
+    }
+
+    public JourneyPlanResponse plan(String source, String destination, LocalDateTime departAfter,
+                                    int seats, Integer minTransfer) {
+        if (seats < 1) {
+            throw new IllegalArgumentException("Number of seats must be at least 1");
+        }
+        int transferMinutes = minTransfer != null ? minTransfer : minTransferMinutes;
+        if (transferMinutes < 0) {
+            throw new IllegalArgumentException("Minimum transfer time cannot be negative");
+        }
+        Integer origin = stopIds.get(stopKey(source));
+        Integer target = stopIds.get(stopKey(destination));
+        if (origin != null && origin.equals(target)) {
+            throw new IllegalArgumentException("Source and destination must be different");
+        }
+
+        JourneyPlanResponse response = new JourneyPlanResponse();
+        if (origin == null || target == null) {
+            return response;
+        }
+
+        // Read the array before the stop count so every stop it mentions has a slot
+        Connection[] snapshot = connections;
+        List<Label> arrivals = scan(snapshot, stopIds.size(), origin, target,
+                epochSeconds(departAfter != null ? departAfter : LocalDateTime.now()), seats, transferMinutes * 60L);
+
+        Label earliest = null;
+        Label cheapest = null;
+        for (Label label : arrivals) {
+            if (earliest == null || label.arrival < earliest.arrival
+                    || (label.arrival == earliest.arrival && label.fare < earliest.fare)) {
+                earliest = label;
+            }
+            if (cheapest == null || label.fare < cheapest.fare
+                    || (label.fare == cheapest.fare && label.arrival < cheapest.arrival)) {
+                cheapest = label;
+            }
+        }
+        response.setEarliestArrival(toJourney(earliest, seats));
+        response.setCheapest(toJourney(cheapest, seats));
+        return response;
+    }
+
+    /**
+     * One pass over the departures inside the horizon. Returns the non-dominated arrivals at
+     * the target.
+     */
+    private List<Label> scan(Connection[] snapshot, int stopCount, int origin, int target,
+                             long start, int seats, long transferSeconds) {
+        long end = start + horizonHours * 3600L;
+        @SuppressWarnings("unchecked")
+        List<Label>[] bags = new List[stopCount];
+        List<Label> arrivals = new ArrayList<>();
+        Label departure = new Label(start, 0, 0, null, null);
+
+        for (int i = firstDepartingAt(snapshot, start); i < snapshot.length; i++) {
+            Connection connection = snapshot[i];
+            if (connection.departure > end) {
+                break;
+            }
+            if (connection.availableSeats < seats || connection.to == origin) {
+                continue;
+            }
+
+            if (connection.from == origin) {
+                board(connection, departure, target, bags, arrivals);
+                continue;
+            }
+            List<Label> waiting = bags[connection.from];
+            if (waiting == null) {
+                continue;
+            }
+            // Boarding can only add labels at other stops, so this bag is not modified mid-loop
+            for (Label label : waiting) {
+                if (label.legs < maxLegs && label.arrival + transferSeconds <= connection.departure) {
+                    board(connection, label, target, bags, arrivals);
+                }
+            }
+        }
+        return arrivals;
+    }
+
+    private void board(Connection connection, Label from, int target, List<Label>[] bags, List<Label> arrivals) {
+        Label candidate = new Label(connection.arrival, from.fare + connection.fare, from.legs + 1, connection, from);
+
+        // Riding on from here can only arrive later and cost more
+        for (Label arrival : arrivals) {
+            if (arrival.arrival <= candidate.arrival && arrival.fare <= candidate.fare) {
+                return;
+            }
+        }
+        if (connection.to == target) {
+            arrivals.removeIf(arrival -> candidate.arrival <= arrival.arrival && candidate.fare <= arrival.fare);
+            arrivals.add(candidate);
+            return;
+        }
+
+        List<Label> bag = bags[connection.to];
+        if (bag == null) {
+            bag = new ArrayList<>();
+            bags[connection.to] = bag;
+        }
+        for (Label existing : bag) {
+            if (existing.dominates(candidate)) {
+                return;
+            }
+        }
+        bag.removeIf(candidate::dominates);
+        bag.add(candidate);
+    }
+
+    public synchronized void put(Schedule schedule) {
+        changed(schedule.getId());
+        Connection connection = schedule.isWithdrawn() ? null : toConnection(ScheduleIndex.toSummary(schedule));
+        Connection previous = byScheduleId.get(schedule.getId());
+        if (connection == null) {
+            if (previous != null) {
+                remove(schedule.getId());
+            }
+            return;
+        }
+        Connection[] current = connections;
+        int size = current.length - (previous != null ? 1 : 0);
+        Connection[] updated = new Connection[size + 1];
+        int out = 0;
+        boolean inserted = false;
+        for (Connection existing : current) {
+            if (existing == previous) {
+                continue;
+            }
+            if (!inserted && connection.compareTo(existing) < 0) {
+                updated[out++] = connection;
+                inserted = true;
+            }
+            updated[out++] = existing;
+        }
+        if (!inserted) {
+            updated[out] = connection;
+        }
+        byScheduleId.put(schedule.getId(), connection);
+        connections = updated;
+    }
+
+    public synchronized void remove(Long scheduleId) {
+        changed(scheduleId);
+        Connection previous = byScheduleId.remove(scheduleId);
+        if (previous == null) {
+            return;
+        }
+        Connection[] current = connections;
+        int index = Arrays.binarySearch(current, previous);
+        if (index < 0) {
+            return;
+        }
+        Connection[] updated = new Connection[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        connections = updated;
+    }
+
+    public synchronized void updateAvailableSeats(Long scheduleId, int availableSeats) {
+        changed(scheduleId);
+        Connection connection = byScheduleId.get(scheduleId);
+        if (connection != null) {
+            connection.availableSeats = availableSeats;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getScheduleId());
+            return;
+        }
+        scheduleRepository.findCurrentById(event.getScheduleId()).ifPresent(this::put);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatsChanged(SeatsChangedEvent event) {
+        if (event.getAvailableSeats() != null) {
+            updateAvailableSeats(event.getScheduleId(), event.getAvailableSeats());
+        } else {
+            scheduleRepository.findCurrentById(event.getScheduleId()).ifPresent(schedule -> updateAvailableSeats(
+                    schedule.getId(), schedule.getAvailableSeats() != null ? schedule.getAvailableSeats() : 0));
+        }
+    }
+
+    private Connection toConnection(ScheduleResponse summary) {
+        if (summary.getSource() == null || summary.getDestination() == null
+                || summary.getDepartureTime() == null || summary.getArrivalTime() == null) {
+            return null;
+        }
+        int from = stopId(summary.getSource());
+        int to = stopId(summary.getDestination());
+        if (from == to) {
+            return null;
+        }
+        return new Connection(summary.getId(), from, to,
+                epochSeconds(summary.getDepartureTime()), epochSeconds(summary.getArrivalTime()),
+                summary.getFare() != null ? summary.getFare() : 0,
+                summary.getAvailableSeats() != null ? summary.getAvailableSeats() : 0,
+                summary);
+    }
+
+    private int stopId(String stop) {
+        String key = stopKey(stop);
+        Integer id = stopIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (stopIds) {
+            return stopIds.computeIfAbsent(key, unused -> stopIds.size());
+        }
+    }
+
+    private static JourneyResponse toJourney(Label label, int seats) {
+        if (label == null) {
+            return null;
+        }
+        List<ScheduleResponse> legs = new ArrayList<>();
+        for (Label leg = label; leg.via != null; leg = leg.previous) {
+            ScheduleResponse summary = ScheduleIndex.copyOf(leg.via.summary);
+            summary.setAvailableSeats(leg.via.availableSeats);
+            legs.add(summary);
+        }
+        Collections.reverse(legs);
+
+        JourneyResponse journey = new JourneyResponse();
+        journey.setLegs(legs);
+        journey.setDepartureTime(legs.get(0).getDepartureTime());
+        journey.setArrivalTime(legs.get(legs.size() - 1).getArrivalTime());
+        journey.setTransfers(legs.size() - 1);
+        journey.setTotalFare(label.fare * seats);
+        return journey;
+    }
+
+    private static int firstDepartingAt(Connection[] snapshot, long start) {
+        int low = 0;
+        int high = snapshot.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot[mid].departure < start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String stopKey(String stop) {
+        return stop.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Connection implements Comparable<Connection> {
+        private final long scheduleId;
+        private final int from;
+        private final int to;
+        private final long departure;
+        private final long arrival;
+        private final double fare;
+        // Updated in place; the summary keeps the count the connection was built with
+        private volatile int availableSeats;
+        private final ScheduleResponse summary;
+
+        private Connection(long scheduleId, int from, int to, long departure, long arrival,
+                           double fare, int availableSeats, ScheduleResponse summary) {
+            this.scheduleId = scheduleId;
+            this.from = from;
+            this.to = to;
+            this.departure = departure;
+            this.arrival = arrival;
+            this.fare = fare;
+            this.availableSeats = availableSeats;
+            this.summary = summary;
+        }
+
+        @Override
+        public int compareTo(Connection other) {
+            int byDeparture = Long.compare(departure, other.departure);
+            return byDeparture != 0 ? byDeparture : Long.compare(scheduleId, other.scheduleId);
+        }
+    }
+
+    private static final class Label {
+        private final long arrival;
+        private final double fare;
+        private final int legs;
+        private final Connection via;
+        private final Label previous;
+
+        private Label(long arrival, double fare, int legs, Connection via, Label previous) {
+            this.arrival = arrival;
+            this.fare = fare;
+            this.legs = legs;
+            this.via = via;
+            this.previous = previous;
+        }
+
+        private boolean dominates(Label other) {
+            return arrival <= other.arrival && fare <= other.fare && legs <= other.legs;
+        }
+    }
+}
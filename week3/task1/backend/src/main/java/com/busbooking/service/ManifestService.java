@@ -0,0 +1,173 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ManifestExportResponse;
+import com.busbooking.dto.ManifestRow;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.util.CsvLines;
+import com.busbooking.util.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Passenger manifests for every departure in a time window, written in one pass.
+ *
+ * Rows come from a single keyset query per page, ordered by departure time, schedule and booking,
+ * so each departure's passengers arrive together and only {@code app.manifest.page-size} rows are
+ * held at a time. Departures nobody has booked are listed with the passenger columns left empty.
+ * The pages are separate reads, so a booking made while the export runs may or may not be on it.
+ */
+@Service
+public class ManifestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ManifestService.class);
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final String[] CSV_HEADER = {"scheduleId", "departureTime", "arrivalTime", "busNumber", "source",
+            "destination", "bookingId", "seatNumbers", "numberOfSeats", "passengerName", "passengerPhone"};
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmm");
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.manifest.page-size:500}")
+    private int pageSize = 500;
+
+    @Value("${app.manifest.export-dir:manifests}")
+    private String exportDir = "manifests";
+
+    /**
+     * Hands each manifest row for departures in [{@code from}, {@code to}) to {@code sink} in
+     * departure order.
+     */
+    public void forEachRow(LocalDateTime from, LocalDateTime to, Consumer<ManifestRow> sink) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("The window must end after it starts");
+        }
+        LocalDateTime afterDeparture = from;
+        Long afterScheduleId = 0L;
+        Long afterBookingId = 0L;
+        List<ManifestRow> rows;
+        do {
+            rows = scheduleRepository.findManifestRowsAfter(from, to, afterDeparture, afterScheduleId, afterBookingId,
+                    PageRequest.of(0, pageSize));
+            if (rows.isEmpty()) {
+                return;
+            }
+            ManifestRow last = rows.get(rows.size() - 1);
+            afterDeparture = last.getDepartureTime();
+            afterScheduleId = last.getScheduleId();
+            afterBookingId = last.getBookingId() != null ? last.getBookingId() : 0L;
+            rows.forEach(sink);
+        } while (rows.size() == pageSize);
+    }
+
+    /**
+     * Writes the window's manifests to {@code out} as CSV with a header line, or as NDJSON.
+     *
+     * @return the number of departures and bookings written
+     */
+    public ManifestExportResponse write(LocalDateTime from, LocalDateTime to, String format, OutputStream out) {
+        Consumer<ManifestRow> lines = lines(checkFormat(format), out);
+        ManifestExportResponse summary = new ManifestExportResponse();
+        summary.setFormat(format);
+        summary.setFrom(from);
+        summary.setTo(to);
+        Long[] lastScheduleId = {null};
+        forEachRow(from, to, row -> {
+            lines.accept(row);
+            if (!Objects.equals(row.getScheduleId(), lastScheduleId[0])) {
+                lastScheduleId[0] = row.getScheduleId();
+                summary.setDepartures(summary.getDepartures() + 1);
+            }
+            if (row.getBookingId() != null) {
+                summary.setBookings(summary.getBookings() + 1);
+            }
+        });
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return summary;
+    }
+
+    /**
+     * Writes the window's manifests to a file under {@code app.manifest.export-dir}. The file only
+     * appears under its final name once it is complete.
+     */
+    public ManifestExportResponse export(LocalDateTime from, LocalDateTime to, String format) {
+        checkFormat(format);
+        Path directory = Paths.get(exportDir);
+        Path target = directory.resolve("manifest-" + FILE_TIME.format(from) + "-" + FILE_TIME.format(to) + "." + format);
+        try {
+            Files.createDirectories(directory);
+            Path partial = Files.createTempFile(directory, "manifest-", ".part");
+            ManifestExportResponse summary;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                summary = write(from, to, format, out);
+            } catch (RuntimeException | IOException e) {
+                Files.deleteIfExists(partial);
+                throw e;
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            summary.setFile(target.toAbsolutePath().toString());
+            logger.info("Wrote manifest of {} departures and {} bookings to {}",
+                    summary.getDepartures(), summary.getBookings(), summary.getFile());
+            return summary;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Consumer<ManifestRow> lines(String format, OutputStream out) {
+        if (NDJSON.equals(format)) {
+            return NdjsonWriter.lines(out, objectMapper);
+        }
+        writeLine(out, CsvLines.join((Object[]) CSV_HEADER));
+        return row -> writeLine(out, CsvLines.join(row.getScheduleId(), row.getDepartureTime(), row.getArrivalTime(),
+                row.getBusNumber(), row.getSource(), row.getDestination(), row.getBookingId(), row.getSeatNumbers(),
+                row.getNumberOfSeats(), row.getPassengerName(), row.getPassengerPhone()));
+    }
+
+    private static void writeLine(OutputStream out, String line) {
+        try {
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        } catch (IOException e) {
+            // Usually the client hung up; stops the database walk as well
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String checkFormat(String format) {
+        if (!CSV.equals(format) && !NDJSON.equals(format)) {
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+        return format;
+    }
+}
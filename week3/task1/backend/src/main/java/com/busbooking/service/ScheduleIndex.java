@@ -0,0 +1,347 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * In-memory search index of the summaries of schedules that have not departed, one
+ * departure-ordered map per route.
+ *
+ * Changes made through this instance are applied as they commit; {@link ScheduleViewRefresher}
+ * picks up changes made by other instances and drops departed schedules.
+ */
+@Component
+public class ScheduleIndex extends ScheduleView {
+
+    public static final String SORT_BY_DEPARTURE = "departure";
+    public static final String SORT_BY_FARE = "fare";
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final Comparator<ScheduleResponse> BY_FARE = Comparator
+            .comparing(ScheduleResponse::getFare)
+            .thenComparing(ScheduleResponse::getDepartureTime)
+            .thenComparing(ScheduleResponse::getId, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ScheduleResponse::getTemplateId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<DepartureKey, ScheduleResponse>> routes =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Indexed> byId = new ConcurrentHashMap<>();
+
+    @Override
+    void replace(List<ScheduleResponse> upcoming, Set<Long> changed, LocalDateTime now) {
+        Set<Long> seen = new HashSet<>();
+        for (ScheduleResponse summary : upcoming) {
+            if (!summary.getDepartureTime().isBefore(now)) {
+                index(summary);
+                seen.add(summary.getId());
+            }
+        }
+        for (Long id : byId.keySet()) {
+            if (!seen.contains(id) && !changed.contains(id)) {
+                unindex(id);
+            }
+        }
+    }
+
+    /**
+     * Departures on a route between {@code from} and {@code to}, optionally capped at
+     * {@code maxFare}; any bound may be null. Sorted by departure this is a range walk over the
+     * route's map; sorted by fare only the departures inside the window are sorted.
+     */
+    public List<ScheduleResponse> search(String source, String destination, LocalDateTime from, LocalDateTime to,
+                                         Double maxFare, String sort, int page, int size) {
+        return search(source, destination, from, to, maxFare, sort, page, size, List.of());
+    }
+
+    /**
+     * As above, with {@code planned} template departures in the same window, ordered by
+     * departure, merged in. A planned departure whose date is already materialized is dropped in
+     * favour of the stored schedule.
+     */
+    public List<ScheduleResponse> search(String source, String destination, LocalDateTime from, LocalDateTime to,
+                                         Double maxFare, String sort, int page, int size,
+                                         List<ScheduleResponse> planned) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be at least 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (!SORT_BY_DEPARTURE.equals(sort) && !SORT_BY_FARE.equals(sort)) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+
+        NavigableMap<DepartureKey, ScheduleResponse> departures = routes.get(routeKey(source, destination));
+        if (departures == null) {
+            if (planned.isEmpty()) {
+                return List.of();
+            }
+            departures = Collections.emptyNavigableMap();
+        }
+        if (from != null) {
+            departures = departures.tailMap(new DepartureKey(from, Long.MIN_VALUE), true);
+        }
+        if (to != null) {
+            departures = departures.headMap(new DepartureKey(to, Long.MAX_VALUE), true);
+        }
+
+        Stream<ScheduleResponse> matches = planned.isEmpty()
+                ? departures.values().stream()
+                : StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                        new MergedDepartures(departures.values().iterator(), planned.iterator()), Spliterator.ORDERED), false);
+        if (maxFare != null) {
+            matches = matches.filter(summary -> summary.getFare() <= maxFare);
+        }
+        if (SORT_BY_FARE.equals(sort)) {
+            return matches
+                    .sorted(BY_FARE)
+                    .skip((long) page * size)
+                    .limit(size)
+                    .toList();
+        }
+        return matches
+                .skip((long) page * size)
+                .limit(size)
+                .toList();
+    }
+
+    public synchronized void put(Schedule schedule) {
+        changed(schedule.getId());
+        if (schedule.isWithdrawn() || schedule.getDepartureTime().isBefore(LocalDateTime.now())) {
+            unindex(schedule.getId());
+            return;
+        }
+        index(toSummary(schedule));
+    }
+
+    public synchronized void remove(Long scheduleId) {
+        changed(scheduleId);
+        unindex(scheduleId);
+    }
+
+    public synchronized void updateAvailableSeats(Long scheduleId, int availableSeats) {
+        changed(scheduleId);
+        Indexed indexed = byId.get(scheduleId);
+        if (indexed == null) {
+            return;
+        }
+        ConcurrentSkipListMap<DepartureKey, ScheduleResponse> departures = routes.get(indexed.routeKey);
+        if (departures != null) {
+            // Summaries handed out by search are never modified; swap in a copy instead
+            departures.computeIfPresent(indexed.departureKey, (key, summary) -> {
+                ScheduleResponse updated = copyOf(summary);
+                updated.setAvailableSeats(availableSeats);
+                return updated;
+            });
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getScheduleId());
+            return;
+        }
+        scheduleRepository.findCurrentById(event.getScheduleId()).ifPresent(this::put);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatsChanged(SeatsChangedEvent event) {
+        if (event.getAvailableSeats() != null) {
+            updateAvailableSeats(event.getScheduleId(), event.getAvailableSeats());
+        } else {
+            scheduleRepository.findCurrentById(event.getScheduleId()).ifPresent(this::put);
+        }
+    }
+
+    private void index(ScheduleResponse summary) {
+        String routeKey = routeKey(summary.getSource(), summary.getDestination());
+        DepartureKey departureKey = new DepartureKey(summary.getDepartureTime(), summary.getId());
+
+        Indexed previous = byId.put(summary.getId(), new Indexed(routeKey, departureKey));
+        if (previous != null && (!previous.routeKey.equals(routeKey) || !previous.departureKey.equals(departureKey))) {
+            removeFromRoute(previous);
+        }
+        routes.computeIfAbsent(routeKey, key -> new ConcurrentSkipListMap<>()).put(departureKey, summary);
+    }
+
+    private void unindex(Long scheduleId) {
+        Indexed previous = byId.remove(scheduleId);
+        if (previous != null) {
+            removeFromRoute(previous);
+        }
+    }
+
+    private void removeFromRoute(Indexed indexed) {
+        ConcurrentSkipListMap<DepartureKey, ScheduleResponse> departures = routes.get(indexed.routeKey);
+        if (departures != null) {
+            departures.remove(indexed.departureKey);
+        }
+    }
+
+    // Route names match case-insensitively, like the MySQL column comparison did
+    private static String routeKey(String source, String destination) {
+        return source.trim().toLowerCase(Locale.ROOT) + '\u0000' + destination.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static ScheduleResponse toSummary(Schedule schedule) {
+        ScheduleResponse summary = new ScheduleResponse();
+        summary.setId(schedule.getId());
+        summary.setSource(schedule.getSource());
+        summary.setDestination(schedule.getDestination());
+        summary.setDepartureTime(schedule.getDepartureTime());
+        summary.setArrivalTime(schedule.getArrivalTime());
+        summary.setFare(schedule.getFare());
+        summary.setAvailableSeats(schedule.getAvailableSeats());
+        summary.setTemplateId(schedule.getTemplateId());
+        if (schedule.getBus() != null) {
+            summary.setBusId(schedule.getBus().getId());
+            summary.setBusNumber(schedule.getBus().getBusNumber());
+            summary.setBusName(schedule.getBus().getBusName());
+            summary.setBusType(schedule.getBus().getBusType());
+        }
+        return summary;
+    }
+
+    static ScheduleResponse copyOf(ScheduleResponse summary) {
+        ScheduleResponse copy = new ScheduleResponse();
+        copy.setId(summary.getId());
+        copy.setBusId(summary.getBusId());
+        copy.setRouteId(summary.getRouteId());
+        copy.setDepartureTime(summary.getDepartureTime());
+        copy.setArrivalTime(summary.getArrivalTime());
+        copy.setFare(summary.getFare());
+        copy.setAvailableSeats(summary.getAvailableSeats());
+        copy.setBusNumber(summary.getBusNumber());
+        copy.setBusName(summary.getBusName());
+        copy.setBusType(summary.getBusType());
+        copy.setRouteName(summary.getRouteName());
+        copy.setSource(summary.getSource());
+        copy.setDestination(summary.getDestination());
+        copy.setTemplateId(summary.getTemplateId());
+        return copy;
+    }
+
+    private static final class DepartureKey implements Comparable<DepartureKey> {
+        private final LocalDateTime departureTime;
+        private final long scheduleId;
+
+        private DepartureKey(LocalDateTime departureTime, long scheduleId) {
+            this.departureTime = departureTime;
+            this.scheduleId = scheduleId;
+        }
+
+        @Override
+        public int compareTo(DepartureKey other) {
+            int byTime = departureTime.compareTo(other.departureTime);
+            return byTime != 0 ? byTime : Long.compare(scheduleId, other.scheduleId);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof DepartureKey key
+                    && departureTime.equals(key.departureTime) && scheduleId == key.scheduleId;
+        }
+
+        @Override
+        public int hashCode() {
+            return departureTime.hashCode() * 31 + Long.hashCode(scheduleId);
+        }
+    }
+
+    /**
+     * Merges stored and planned departures, both ordered by departure time. Stored schedules
+     * come first at equal times, so a planned departure can be checked against the templates
+     * already materialized at that time.
+     */
+    private static final class MergedDepartures implements Iterator<ScheduleResponse> {
+        private final Iterator<ScheduleResponse> stored;
+        private final Iterator<ScheduleResponse> planned;
+        private ScheduleResponse nextStored;
+        private ScheduleResponse nextPlanned;
+        private ScheduleResponse next;
+        private LocalDateTime materializedAt;
+        private final Set<Long> materializedTemplates = new HashSet<>();
+
+        private MergedDepartures(Iterator<ScheduleResponse> stored, Iterator<ScheduleResponse> planned) {
+            this.stored = stored;
+            this.planned = planned;
+            nextStored = stored.hasNext() ? stored.next() : null;
+            nextPlanned = planned.hasNext() ? planned.next() : null;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ScheduleResponse next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            ScheduleResponse current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && (nextStored != null || nextPlanned != null)) {
+                if (nextStored != null && (nextPlanned == null
+                        || !nextStored.getDepartureTime().isAfter(nextPlanned.getDepartureTime()))) {
+                    next = nextStored;
+                    nextStored = stored.hasNext() ? stored.next() : null;
+                    if (next.getTemplateId() != null) {
+                        if (!next.getDepartureTime().equals(materializedAt)) {
+                            materializedAt = next.getDepartureTime();
+                            materializedTemplates.clear();
+                        }
+                        materializedTemplates.add(next.getTemplateId());
+                    }
+                } else {
+                    ScheduleResponse candidate = nextPlanned;
+                    nextPlanned = planned.hasNext() ? planned.next() : null;
+                    if (!candidate.getDepartureTime().equals(materializedAt)
+                            || !materializedTemplates.contains(candidate.getTemplateId())) {
+                        next = candidate;
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Indexed {
+        private final String routeKey;
+        private final DepartureKey departureKey;
+
+        private Indexed(String routeKey, DepartureKey departureKey) {
+            this.routeKey = routeKey;
+            this.departureKey = departureKey;
+        }
+    }
+}
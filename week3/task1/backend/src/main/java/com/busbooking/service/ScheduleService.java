@@ -1,22 +1,76 @@
 package com.busbooking.service;
 
+import com.busbooking.dto.CursorPage;
+import com.busbooking.dto.FareCalendarDayResponse;
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.dto.SeatMapResponse;
 import com.busbooking.entity.Schedule;
+import com.busbooking.event.ScheduleChangedEvent;
 import com.busbooking.repository.ScheduleRepository;
 import com.busbooking.repository.BusRepository;
+import com.busbooking.util.KeysetPages;
+import com.busbooking.util.SeatMap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class ScheduleService {
+    private static final int STREAM_PAGE_SIZE = 500;
+
     @Autowired
     private ScheduleRepository scheduleRepository;
 
     @Autowired
     private BusRepository busRepository;
 
-    public List<Schedule> getAllSchedules() {
-        return scheduleRepository.findAll();
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+
+    @Autowired
+    private ScheduleTemplateService scheduleTemplateService;
+
+    @Autowired
+    private AvailabilityCube availabilityCube;
+
+    @Autowired
+    private BusAllocationIndex busAllocationIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public List<ScheduleResponse> getAllSchedules() {
+        return scheduleRepository.findAllResponses();
+    }
+
+    public CursorPage<ScheduleResponse> getSchedulePage(Long afterId, int limit) {
+        return KeysetPages.page(scheduleRepository::findResponsesAfter, ScheduleResponse::getId,
+                Function.identity(), afterId, limit);
+    }
+
+    public void streamSchedules(Consumer<ScheduleResponse> sink) {
+        KeysetPages.forEachPage(scheduleRepository::findResponsesAfter, ScheduleResponse::getId, STREAM_PAGE_SIZE,
+                page -> page.forEach(sink));
+    }
+
+    public ScheduleResponse getScheduleResponse(Long id) {
+        return scheduleRepository.findResponseById(id)
+                .orElseThrow(() -> new RuntimeException("Schedule not found"));
     }
 
     public Schedule getScheduleById(Long id) {
@@ -24,8 +78,83 @@ public class ScheduleService {
                 .orElseThrow(() -> new RuntimeException("Schedule not found"));
     }
 
-    public List<Schedule> searchSchedules(String source, String destination) {
-        return scheduleRepository.findBySourceAndDestination(source, destination);
+    /**
+     * The schedule's revision, which changes whenever its response or seat map would.
+     */
+    public long getScheduleRevision(Long id) {
+        return scheduleRepository.findRevisionById(id)
+                .orElseThrow(() -> new RuntimeException("Schedule not found"));
+    }
+
+    public SeatMapResponse getSeatMap(Long id) {
+        Schedule schedule = scheduleRepository.findCurrentById(id)
+                .orElseThrow(() -> new RuntimeException("Schedule not found"));
+        int totalSeats = schedule.getBus().getTotalSeats();
+        SeatMap seatMap = schedule.getSeatMap() != null
+                ? SeatMap.fromBytes(schedule.getSeatMap(), totalSeats)
+                : SeatMap.withFirstSeatsTaken(totalSeats, totalSeats - schedule.getAvailableSeats());
+
+        SeatMapResponse response = new SeatMapResponse();
+        response.setScheduleId(id);
+        response.setTotalSeats(totalSeats);
+        response.setAvailableSeats(seatMap.getFreeCount());
+        response.setSeatMap(Base64.getEncoder().encodeToString(seatMap.toBytes()));
+        return response;
+    }
+
+    /**
+     * Searches the in-memory route index together with the route's schedule templates. Without a
+     * {@code from} bound only departures from now on are returned. Template departures that have
+     * not been booked yet come back with a {@code templateId} and no id.
+     */
+    public List<ScheduleResponse> searchSchedules(String source, String destination, LocalDateTime from,
+                                                  LocalDateTime to, Double maxFare, String sort, int page, int size) {
+        LocalDateTime windowStart = from != null ? from : LocalDateTime.now();
+        List<ScheduleResponse> planned = scheduleTemplateService.departures(source, destination, windowStart, to);
+        return scheduleIndex.search(source, destination, windowStart, to, maxFare, sort, page, size, planned);
+    }
+
+    /**
+     * Cheapest fare and free seats on the route for each of {@code days} days from {@code from},
+     * or from today. Each day is read from the availability cube, with the route's template
+     * departures that have not been booked yet counted as fully free.
+     */
+    public List<FareCalendarDayResponse> getFareCalendar(String source, String destination, LocalDate from, int days) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = from != null ? from : today;
+        if (start.isBefore(today) || days < 1
+                || start.plusDays(days).isAfter(today.plusDays(availabilityCube.getHorizonDays()))) {
+            throw new IllegalArgumentException("The calendar covers the next " + availabilityCube.getHorizonDays()
+                    + " days from today");
+        }
+
+        LocalDateTime windowStart = start.equals(today) ? LocalDateTime.now() : start.atStartOfDay();
+        LocalDateTime windowEnd = start.plusDays(days).atStartOfDay().minusNanos(1);
+        Map<LocalDate, List<ScheduleResponse>> planned = new HashMap<>();
+        for (ScheduleResponse departure : scheduleTemplateService.departures(source, destination, windowStart, windowEnd)) {
+            planned.computeIfAbsent(departure.getDepartureTime().toLocalDate(), date -> new ArrayList<>()).add(departure);
+        }
+
+        List<FareCalendarDayResponse> calendar = new ArrayList<>(days);
+        for (LocalDate date = start; date.isBefore(start.plusDays(days)); date = date.plusDays(1)) {
+            AvailabilityCube.Day day = availabilityCube.day(source, destination, date);
+            FareCalendarDayResponse response = day != null
+                    ? new FareCalendarDayResponse(date, day.getMinFare(), day.getAvailableSeats(), day.getDepartures())
+                    : new FareCalendarDayResponse(date, null, 0, 0);
+            for (ScheduleResponse departure : planned.getOrDefault(date, List.of())) {
+                if (day != null && day.getTemplateIds().contains(departure.getTemplateId())) {
+                    continue;
+                }
+                response.setDepartures(response.getDepartures() + 1);
+                response.setAvailableSeats(response.getAvailableSeats() + departure.getAvailableSeats());
+                if (departure.getAvailableSeats() > 0
+                        && (response.getMinFare() == null || departure.getFare() < response.getMinFare())) {
+                    response.setMinFare(departure.getFare());
+                }
+            }
+            calendar.add(response);
+        }
+        return calendar;
     }
 
     public Schedule createSchedule(Schedule schedule) {
@@ -37,11 +166,16 @@ public class ScheduleService {
             throw new RuntimeException("Bus not found");
         }
         
-        return scheduleRepository.save(schedule);
+        Schedule savedSchedule = saveAllocated(schedule, null);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(savedSchedule.getId(), false));
+        return savedSchedule;
     }
 
+    @Transactional
     public Schedule updateSchedule(Long id, Schedule scheduleDetails) {
-        Schedule schedule = getScheduleById(id);
+        // The free count below is compared against the table, so it must not come from the cache
+        Schedule schedule = scheduleRepository.findCurrentById(id)
+                .orElseThrow(() -> new RuntimeException("Schedule not found"));
         
         if (scheduleDetails.getBus() != null && scheduleDetails.getBus().getId() != null) {
             if (!busRepository.existsById(scheduleDetails.getBus().getId())) {
@@ -55,12 +189,74 @@ public class ScheduleService {
         schedule.setDepartureTime(scheduleDetails.getDepartureTime());
         schedule.setArrivalTime(scheduleDetails.getArrivalTime());
         schedule.setFare(scheduleDetails.getFare());
-        schedule.setAvailableSeats(scheduleDetails.getAvailableSeats());
-        return scheduleRepository.save(schedule);
+        Schedule updatedSchedule = saveAllocated(schedule, id);
+        // Once seats are booked by number, the free count follows the seat map. Otherwise it is only
+        // replaced if no booking has moved it since it was read
+        Integer availableSeats = scheduleDetails.getAvailableSeats();
+        if (schedule.getSeatMap() == null && availableSeats != null
+                && !availableSeats.equals(schedule.getAvailableSeats())) {
+            if (scheduleRepository.replaceAvailableSeats(id, schedule.getAvailableSeats(), availableSeats) == 0) {
+                throw new IllegalStateException("Seats on this schedule changed while it was being updated; try again");
+            }
+            updatedSchedule.setAvailableSeats(availableSeats);
+        }
+        scheduleRepository.bumpRevision(id);
+        seatInventory.evict(id);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(id, false));
+        return updatedSchedule;
     }
 
     public void deleteSchedule(Long id) {
         Schedule schedule = getScheduleById(id);
         scheduleRepository.delete(schedule);
+        seatInventory.evict(id);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(id, true));
+    }
+
+    /**
+     * Saves the schedule once its bus is known to be free for it, holding the bus's time until the
+     * transaction commits. Only then does the allocation index take the saved schedule; if the
+     * transaction rolls back, the index keeps the slot the schedule had before.
+     */
+    private Schedule saveAllocated(Schedule schedule, Long scheduleId) {
+        if (schedule.getBus() == null || schedule.getBus().getId() == null
+                || schedule.getDepartureTime() == null || schedule.getArrivalTime() == null) {
+            return scheduleRepository.save(schedule);
+        }
+        BusAllocationIndex.Reservation reservation = busAllocationIndex.reserve(schedule.getBus().getId(), scheduleId,
+                schedule.getDepartureTime(), schedule.getArrivalTime());
+        Schedule saved;
+        try {
+            saved = scheduleRepository.save(schedule);
+        } catch (RuntimeException e) {
+            reservation.release();
+            throw e;
+        }
+        afterCompletion(() -> {
+            busAllocationIndex.put(saved);
+            reservation.release();
+        }, reservation::release);
+        return saved;
+    }
+
+    /**
+     * Runs {@code onCommit} once the current transaction commits, or {@code onRollback} if it
+     * rolls back. Without an active transaction the change is treated as committed immediately.
+     */
+    private void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else {
+                    onRollback.run();
+                }
+            }
+        });
     }
 } 
\ No newline at end of file
@@ -0,0 +1,281 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.ScheduleTemplate;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.ScheduleTemplateRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recurring schedules. A template's departures are computed for searches and only written to
+ * the {@code schedules} table, through {@link #materialize}, when a date is about to be booked.
+ *
+ * Templates are kept in memory by route. Changes made through this instance apply at once; a
+ * reload every {@code app.schedule-templates.refresh-interval-ms} picks up other instances'.
+ */
+@Service
+public class ScheduleTemplateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleTemplateService.class);
+
+    @Autowired
+    private ScheduleTemplateRepository templateRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private BusRepository busRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.schedule-templates.search-horizon-days:30}")
+    private int searchHorizonDays = 30;
+
+    @Value("${app.schedule-templates.refresh-interval-ms:30000}")
+    private long refreshIntervalMs = 30000;
+
+    private volatile Map<String, List<ScheduleTemplate>> byRoute = Map.of();
+    private ScheduledExecutorService refresher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schedule-template-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                logger.error("Failed to refresh schedule templates", e);
+            }
+        }, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public void reload() {
+        Map<String, List<ScheduleTemplate>> loaded = new HashMap<>();
+        for (ScheduleTemplate template : templateRepository.findAllByOrderByIdAsc()) {
+            loaded.computeIfAbsent(routeKey(template.getSource(), template.getDestination()), key -> new ArrayList<>())
+                    .add(template);
+        }
+        byRoute = loaded;
+    }
+
+    public List<ScheduleTemplate> getAllTemplates() {
+        return templateRepository.findAllByOrderByIdAsc();
+    }
+
+    public ScheduleTemplate getTemplateById(Long id) {
+        return templateRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Schedule template not found"));
+    }
+
+    public ScheduleTemplate createTemplate(ScheduleTemplate template) {
+        if (template.getBus() == null || template.getBus().getId() == null) {
+            throw new RuntimeException("Bus is required");
+        }
+        Bus bus = busRepository.findById(template.getBus().getId())
+                .orElseThrow(() -> new RuntimeException("Bus not found"));
+        if (template.getSource() == null || template.getDestination() == null
+                || template.getSource().trim().equalsIgnoreCase(template.getDestination().trim())) {
+            throw new IllegalArgumentException("Source and destination must be given and different");
+        }
+        if (template.getDepartureTime() == null || template.getValidFrom() == null) {
+            throw new IllegalArgumentException("Departure time and start date are required");
+        }
+        if (template.getDurationMinutes() == null || template.getDurationMinutes() <= 0) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        if (template.getFare() == null || template.getFare() <= 0) {
+            throw new IllegalArgumentException("Fare must be positive");
+        }
+        if (template.getValidUntil() != null && template.getValidUntil().isBefore(template.getValidFrom())) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        template.setDaysOfWeek(formatDays(parseDays(template.getDaysOfWeek())));
+        template.setBus(bus);
+
+        ScheduleTemplate saved = templateRepository.save(template);
+        reload();
+        return saved;
+    }
+
+    /**
+     * Stops the template producing new departures. Dates that were already materialized stay
+     * bookable as ordinary schedules.
+     */
+    public void deleteTemplate(Long id) {
+        templateRepository.delete(getTemplateById(id));
+        reload();
+    }
+
+    /**
+     * The route's template departures between {@code from} and {@code to}, ordered by departure
+     * time. Without {@code to}, the window ends {@code app.schedule-templates.search-horizon-days}
+     * after {@code from}. Nothing is written, and dates already materialized are included too;
+     * the caller drops those in favour of the stored schedule.
+     */
+    public List<ScheduleResponse> departures(String source, String destination, LocalDateTime from, LocalDateTime to) {
+        List<ScheduleTemplate> templates = byRoute.get(routeKey(source, destination));
+        if (templates == null) {
+            return List.of();
+        }
+        LocalDateTime windowEnd = to != null ? to : from.plusDays(searchHorizonDays);
+        List<ScheduleResponse> departures = new ArrayList<>();
+        for (ScheduleTemplate template : templates) {
+            Set<DayOfWeek> days = parseDays(template.getDaysOfWeek());
+            LocalDate first = max(from.toLocalDate(), template.getValidFrom());
+            LocalDate last = template.getValidUntil() != null
+                    ? min(windowEnd.toLocalDate(), template.getValidUntil())
+                    : windowEnd.toLocalDate();
+            for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                LocalDateTime departure = date.atTime(template.getDepartureTime());
+                if (days.contains(date.getDayOfWeek()) && !departure.isBefore(from) && !departure.isAfter(windowEnd)) {
+                    departures.add(toSummary(template, departure));
+                }
+            }
+        }
+        departures.sort(Comparator.comparing(ScheduleResponse::getDepartureTime)
+                .thenComparing(ScheduleResponse::getTemplateId));
+        return departures;
+    }
+
+    /**
+     * The schedule for the template's departure on {@code date}, creating it if this is the
+     * first booking for that date. Safe to call concurrently; every caller gets the same row.
+     */
+    public Schedule materialize(Long templateId, LocalDate date) {
+        ScheduleTemplate template = getTemplateById(templateId);
+        if (date.isBefore(template.getValidFrom())
+                || (template.getValidUntil() != null && date.isAfter(template.getValidUntil()))
+                || !parseDays(template.getDaysOfWeek()).contains(date.getDayOfWeek())) {
+            throw new IllegalArgumentException("Schedule template " + templateId + " does not run on " + date);
+        }
+        LocalDateTime departure = date.atTime(template.getDepartureTime());
+        if (departure.isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Departure on " + date + " has already left");
+        }
+
+        return scheduleRepository.findByTemplateIdAndDepartureTime(templateId, departure).orElseGet(() -> {
+            Schedule schedule = new Schedule();
+            schedule.setTemplateId(templateId);
+            schedule.setBus(template.getBus());
+            schedule.setSource(template.getSource());
+            schedule.setDestination(template.getDestination());
+            schedule.setDepartureTime(departure);
+            schedule.setArrivalTime(departure.plusMinutes(template.getDurationMinutes()));
+            schedule.setFare(template.getFare());
+            schedule.setAvailableSeats(template.getBus().getTotalSeats());
+
+            // Committed on its own so the row exists before, and regardless of, the booking that follows
+            TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+            requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            try {
+                Schedule saved = requiresNew.execute(status -> scheduleRepository.save(schedule));
+                eventPublisher.publishEvent(new ScheduleChangedEvent(saved.getId(), false));
+                return saved;
+            } catch (DataIntegrityViolationException e) {
+                // Another request materialized the same departure first
+                return scheduleRepository.findByTemplateIdAndDepartureTime(templateId, departure).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    static Set<DayOfWeek> parseDays(String daysOfWeek) {
+        if (daysOfWeek == null || daysOfWeek.isBlank()) {
+            throw new IllegalArgumentException("At least one day of the week is required");
+        }
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String name : daysOfWeek.split(",")) {
+            String day = name.trim().toUpperCase(Locale.ROOT);
+            DayOfWeek match = null;
+            for (DayOfWeek candidate : DayOfWeek.values()) {
+                if (day.length() >= 3 && candidate.name().startsWith(day)) {
+                    match = candidate;
+                }
+            }
+            if (match == null) {
+                throw new IllegalArgumentException("Unknown day of the week: " + name.trim());
+            }
+            days.add(match);
+        }
+        return days;
+    }
+
+    private static String formatDays(Set<DayOfWeek> days) {
+        return String.join(",", days.stream().map(day -> day.name().substring(0, 3)).toList());
+    }
+
+    private static ScheduleResponse toSummary(ScheduleTemplate template, LocalDateTime departure) {
+        ScheduleResponse summary = new ScheduleResponse();
+        summary.setTemplateId(template.getId());
+        summary.setSource(template.getSource());
+        summary.setDestination(template.getDestination());
+        summary.setDepartureTime(departure);
+        summary.setArrivalTime(departure.plusMinutes(template.getDurationMinutes()));
+        summary.setFare(template.getFare());
+        summary.setBusId(template.getBus().getId());
+        summary.setBusNumber(template.getBus().getBusNumber());
+        summary.setBusName(template.getBus().getBusName());
+        summary.setBusType(template.getBus().getBusType());
+        summary.setAvailableSeats(template.getBus().getTotalSeats());
+        return summary;
+    }
+
+    private static String routeKey(String source, String destination) {
+        return source.trim().toLowerCase(Locale.ROOT) + '\u0000' + destination.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
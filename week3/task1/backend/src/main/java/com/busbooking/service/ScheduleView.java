@@ -0,0 +1,64 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An in-memory view of upcoming schedules, such as the search index or the journey planner.
+ *
+ * Each view applies this instance's changes as they commit, and is reloaded by
+ * {@link ScheduleViewRefresher} to pick up other instances' changes and drop schedules that have
+ * passed. A change applied while the reload's query runs is newer than the rows it returns, so
+ * the reload leaves those schedules as the change left them. Subclasses make every change while
+ * holding the view's monitor and report it through {@link #changed}.
+ */
+public abstract class ScheduleView {
+
+    // Schedules changed since the current reload's query started, or null outside a reload
+    private Set<Long> changedDuringLoad;
+
+    /**
+     * The earliest arrival time this view needs loaded; schedules that arrived before it are left out.
+     */
+    LocalDateTime loadSince(LocalDateTime now) {
+        return now;
+    }
+
+    final synchronized void beginLoad() {
+        changedDuringLoad = new HashSet<>();
+    }
+
+    final synchronized void cancelLoad() {
+        changedDuringLoad = null;
+    }
+
+    /**
+     * Replaces the view's contents with {@code upcoming}, the schedules arriving from
+     * {@link #loadSince} on that have not been withdrawn, ordered by departure.
+     */
+    public final synchronized void reload(List<ScheduleResponse> upcoming, LocalDateTime now) {
+        Set<Long> changed = changedDuringLoad != null ? changedDuringLoad : Set.of();
+        changedDuringLoad = null;
+        replace(changed.isEmpty() ? upcoming
+                : upcoming.stream().filter(summary -> !changed.contains(summary.getId())).toList(), changed, now);
+    }
+
+    /**
+     * Records a change to a schedule. The caller holds the view's monitor.
+     */
+    protected final void changed(Long scheduleId) {
+        if (changedDuringLoad != null) {
+            changedDuringLoad.add(scheduleId);
+        }
+    }
+
+    /**
+     * Makes {@code upcoming} the view's contents, keeping whatever it holds for the {@code changed}
+     * schedules. Called with the view's monitor held.
+     */
+    abstract void replace(List<ScheduleResponse> upcoming, Set<Long> changed, LocalDateTime now);
+}
@@ -0,0 +1,98 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.event.SchedulesImportedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads every {@link ScheduleView} from one query for the schedules that have not arrived yet,
+ * at startup, after a bulk import and every {@code app.schedule-views.refresh-interval-ms}.
+ * Departed and withdrawn schedules are never loaded, so they drop out of the views on the next
+ * reload.
+ */
+@Component
+public class ScheduleViewRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleViewRefresher.class);
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private List<ScheduleView> views;
+
+    @Value("${app.schedule-views.refresh-interval-ms:30000}")
+    private long refreshIntervalMs = 30000;
+
+    private ScheduledExecutorService refresher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refresh();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schedule-view-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                logger.error("Failed to refresh the schedule views", e);
+            }
+        }, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now;
+        for (ScheduleView view : views) {
+            LocalDateTime viewSince = view.loadSince(now);
+            if (viewSince.isBefore(since)) {
+                since = viewSince;
+            }
+            view.beginLoad();
+        }
+        List<ScheduleResponse> upcoming;
+        try {
+            upcoming = scheduleRepository.findUpcomingResponses(since);
+        } catch (RuntimeException e) {
+            views.forEach(ScheduleView::cancelLoad);
+            throw e;
+        }
+        for (ScheduleView view : views) {
+            try {
+                view.reload(upcoming, now);
+            } catch (RuntimeException e) {
+                logger.error("Failed to reload {}", view.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchedulesImported(SchedulesImportedEvent event) {
+        refresh();
+    }
+}
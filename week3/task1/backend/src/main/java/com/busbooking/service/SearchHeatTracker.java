@@ -0,0 +1,392 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.HotSearchResponse;
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.SchedulesImportedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.util.CountMinSketch;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The most searched (source, destination, date) combinations, tracked in fixed memory.
+ *
+ * Every search is counted in a count-min sketch, and the {@code app.search-heat.top-k}
+ * combinations with the highest estimates are kept by name: a newcomer takes the place of the
+ * lowest of them once its estimate passes it, as in Space-Saving. A search only adds to the
+ * sketch's atomic counters and queues its key; the {@code search-heat} thread folds the queued keys
+ * into the top K every {@code app.search-heat.fold-interval-ms}, so searches never wait on each
+ * other. Counts are halved every
+ * {@code app.search-heat.decay-interval-ms} so the list follows current demand, and the list is
+ * saved to {@code app.search-heat.snapshot-file} so a restart does not start from nothing.
+ *
+ * The hottest routes are searched once the application is ready and after each schedule import,
+ * which loads their schedules into the second-level cache and their seat counters into
+ * {@link SeatInventory} before customers ask for them.
+ */
+@Component
+public class SearchHeatTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchHeatTracker.class);
+
+    // Keys beyond this between two folds are not queued; a hot one is searched again soon enough
+    private static final int MAX_PENDING = 10000;
+
+    private static final Comparator<Candidate> BY_COUNT =
+            Comparator.comparingLong((Candidate candidate) -> candidate.count).thenComparing(candidate -> candidate.key);
+
+    @Autowired
+    private ScheduleService scheduleService;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.search-heat.top-k:50}")
+    private int topK = 50;
+
+    @Value("${app.search-heat.sketch-width:2048}")
+    private int sketchWidth = 2048;
+
+    @Value("${app.search-heat.sketch-depth:4}")
+    private int sketchDepth = 4;
+
+    @Value("${app.search-heat.decay-interval-ms:3600000}")
+    private long decayIntervalMs = 3600000;
+
+    @Value("${app.search-heat.fold-interval-ms:1000}")
+    private long foldIntervalMs = 1000;
+
+    @Value("${app.search-heat.snapshot-file:search-heat.json}")
+    private String snapshotFile = "search-heat.json";
+
+    @Value("${app.search-heat.prewarm-routes:20}")
+    private int prewarmRoutes = 20;
+
+    @Value("${app.search-heat.prewarm-page-size:20}")
+    private int prewarmPageSize = 20;
+
+    private volatile CountMinSketch sketch;
+    // Searched since the last fold, oldest first, each key once
+    private final Queue<Search> pending = new ConcurrentLinkedQueue<>();
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+    private final Map<String, Candidate> candidates = new HashMap<>();
+    private final TreeSet<Candidate> ranked = new TreeSet<>(BY_COUNT);
+    private ScheduledExecutorService worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loadSnapshot();
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-heat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(() -> {
+            try {
+                fold();
+            } catch (RuntimeException e) {
+                logger.error("Failed to fold searches into the search heat list", e);
+            }
+        }, foldIntervalMs, foldIntervalMs, TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(() -> {
+            try {
+                decay();
+                saveSnapshot();
+            } catch (RuntimeException e) {
+                logger.error("Failed to decay the search heat counts", e);
+            }
+        }, decayIntervalMs, decayIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.shutdownNow();
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Counts one search. A search without a {@code from} bound is counted against today.
+     */
+    public void record(String source, String destination, LocalDateTime from) {
+        if (source == null || destination == null || source.isBlank() || destination.isBlank()) {
+            return;
+        }
+        LocalDate date = from != null ? from.toLocalDate() : LocalDate.now();
+        String key = key(source, destination, date);
+        sketch().add(key, 1);
+        if (pendingKeys.size() < MAX_PENDING && pendingKeys.add(key)) {
+            pending.add(new Search(key, source.trim(), destination.trim(), date));
+        }
+    }
+
+    /**
+     * Brings the named top K up to date with the searches counted since the last fold.
+     */
+    public synchronized void fold() {
+        Search search;
+        while ((search = pending.poll()) != null) {
+            // Removed before the estimate is read, so a search counted after the read queues the key again
+            pendingKeys.remove(search.key);
+            offer(search.key, search.source, search.destination, search.date, sketch().estimate(search.key));
+        }
+    }
+
+    /**
+     * The {@code limit} most searched combinations, most searched first.
+     */
+    public synchronized List<HotSearchResponse> topRoutes(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        fold();
+        List<HotSearchResponse> top = new ArrayList<>();
+        for (Candidate candidate : ranked.descendingSet()) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(new HotSearchResponse(candidate.source, candidate.destination, candidate.date, candidate.count));
+        }
+        return top;
+    }
+
+    /**
+     * Halves every count and drops combinations whose date has passed.
+     */
+    public synchronized void decay() {
+        fold();
+        sketch().halve();
+        LocalDate today = LocalDate.now();
+        List<Candidate> kept = new ArrayList<>(ranked);
+        ranked.clear();
+        for (Candidate candidate : kept) {
+            if (candidate.date.isBefore(today)) {
+                candidates.remove(candidate.key);
+                continue;
+            }
+            candidate.count = sketch.estimate(candidate.key);
+            ranked.add(candidate);
+        }
+    }
+
+    /**
+     * Searches the {@code app.search-heat.prewarm-routes} hottest combinations that have not
+     * passed, then loads the schedules found and their seat counters.
+     *
+     * @return the number of schedules loaded
+     */
+    public int prewarm() {
+        LocalDate today = LocalDate.now();
+        Set<Long> scheduleIds = new LinkedHashSet<>();
+        for (HotSearchResponse hot : topRoutes(prewarmRoutes)) {
+            if (hot.getDate().isBefore(today)) {
+                continue;
+            }
+            LocalDateTime from = hot.getDate().equals(today) ? null : hot.getDate().atStartOfDay();
+            LocalDateTime to = hot.getDate().plusDays(1).atStartOfDay().minusNanos(1);
+            for (ScheduleResponse departure : scheduleService.searchSchedules(hot.getSource(), hot.getDestination(),
+                    from, to, null, "departure", 0, prewarmPageSize)) {
+                // Template departures nobody has booked have no schedule row to load yet
+                if (departure.getId() != null) {
+                    scheduleIds.add(departure.getId());
+                }
+            }
+        }
+        if (scheduleIds.isEmpty()) {
+            return 0;
+        }
+        int loaded = 0;
+        for (Schedule schedule : scheduleRepository.findAllById(scheduleIds)) {
+            seatInventory.getAvailableSeats(schedule.getId(), schedule::getAvailableSeats);
+            loaded++;
+        }
+        logger.info("Prewarmed {} schedules of the most searched routes", loaded);
+        return loaded;
+    }
+
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        // Published after every ApplicationReadyEvent listener, so the indexes are built by now
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+            prewarmInBackground();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSchedulesImported(SchedulesImportedEvent event) {
+        prewarmInBackground();
+    }
+
+    private void prewarmInBackground() {
+        if (worker == null) {
+            return;
+        }
+        worker.execute(() -> {
+            try {
+                prewarm();
+            } catch (RuntimeException e) {
+                logger.error("Failed to prewarm the most searched routes", e);
+            }
+        });
+    }
+
+    // Only the named top K is saved; the sketch is rebuilt from it on load
+    void saveSnapshot() {
+        List<HotSearchResponse> top = topRoutes(topK);
+        Path target = Paths.get(snapshotFile);
+        if (top.isEmpty() && !Files.exists(target)) {
+            return;
+        }
+        try {
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path partial = Files.createTempFile(directory, "search-heat-", ".part");
+            try {
+                objectMapper.writeValue(partial.toFile(), top);
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to save the search heat snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    void loadSnapshot() {
+        Path source = Paths.get(snapshotFile);
+        if (!Files.exists(source)) {
+            return;
+        }
+        List<HotSearchResponse> saved;
+        try {
+            saved = objectMapper.readValue(source.toFile(), new TypeReference<List<HotSearchResponse>>() {});
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable search heat snapshot {}", snapshotFile, e);
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        synchronized (this) {
+            for (HotSearchResponse hot : saved) {
+                if (hot.getDate() == null || hot.getDate().isBefore(today)) {
+                    continue;
+                }
+                String key = key(hot.getSource(), hot.getDestination(), hot.getDate());
+                offer(key, hot.getSource(), hot.getDestination(), hot.getDate(), sketch().add(key, hot.getEstimatedCount()));
+            }
+            logger.info("Loaded {} hot searches from {}", candidates.size(), snapshotFile);
+        }
+    }
+
+    // Caller holds the lock
+    private void offer(String key, String source, String destination, LocalDate date, long estimate) {
+        Candidate candidate = candidates.get(key);
+        if (candidate != null) {
+            ranked.remove(candidate);
+            candidate.count = estimate;
+            ranked.add(candidate);
+            return;
+        }
+        if (candidates.size() >= topK) {
+            Candidate lowest = ranked.first();
+            if (estimate <= lowest.count) {
+                return;
+            }
+            ranked.pollFirst();
+            candidates.remove(lowest.key);
+        }
+        candidate = new Candidate(key, source, destination, date, estimate);
+        candidates.put(key, candidate);
+        ranked.add(candidate);
+    }
+
+    // Created on first use so the sizes can come from the properties
+    private CountMinSketch sketch() {
+        CountMinSketch current = sketch;
+        if (current == null) {
+            synchronized (this) {
+                if (sketch == null) {
+                    sketch = new CountMinSketch(sketchWidth, sketchDepth);
+                }
+                current = sketch;
+            }
+        }
+        return current;
+    }
+
+    private static String key(String source, String destination, LocalDate date) {
+        return source.trim().toLowerCase(Locale.ROOT) + '\u0000' + destination.trim().toLowerCase(Locale.ROOT)
+                + '\u0000' + date;
+    }
+
+    private static final class Search {
+        private final String key;
+        private final String source;
+        private final String destination;
+        private final LocalDate date;
+
+        private Search(String key, String source, String destination, LocalDate date) {
+            this.key = key;
+            this.source = source;
+            this.destination = destination;
+            this.date = date;
+        }
+    }
+
+    private static final class Candidate {
+        private final String key;
+        private final String source;
+        private final String destination;
+        private final LocalDate date;
+        private long count;
+
+        private Candidate(String key, String source, String destination, LocalDate date, long count) {
+            this.key = key;
+            this.source = source;
+            this.destination = destination;
+            this.date = date;
+            this.count = count;
+        }
+    }
+}
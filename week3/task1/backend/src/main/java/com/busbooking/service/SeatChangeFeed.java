@@ -0,0 +1,190 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.SeatChangeFeedResponse;
+import com.busbooking.dto.SeatChangeResponse;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Committed seat count changes, for clients that would otherwise poll every schedule they show.
+ *
+ * Only the latest count of each schedule is kept, under a version that rises with every change,
+ * so a client that asks for everything after the last version it saw gets one entry per schedule
+ * however many bookings happened in between. Subscribers are pushed the same thing every
+ * {@code app.seat-feed.coalesce-ms}. The feed covers changes committed through this instance and
+ * starts over when it restarts.
+ */
+@Component
+public class SeatChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatChangeFeed.class);
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Value("${app.seat-feed.retained-schedules:10000}")
+    private int retainedSchedules = 10000;
+
+    @Value("${app.seat-feed.coalesce-ms:250}")
+    private long coalesceMs = 250;
+
+    private final Object lock = new Object();
+    // Starting from the clock makes versions handed out before a restart fall below the floor
+    private long version = System.currentTimeMillis();
+    private long floor = version;
+    private long flushedVersion = version;
+    private final Map<Long, SeatChangeResponse> bySchedule = new HashMap<>();
+    private final TreeMap<Long, SeatChangeResponse> byVersion = new TreeMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-feed-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.error("Failed to push seat changes", e);
+            }
+        }, coalesceMs, coalesceMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatsChanged(SeatsChangedEvent event) {
+        Integer availableSeats = event.getAvailableSeats();
+        if (availableSeats == null) {
+            availableSeats = scheduleRepository.findCurrentById(event.getScheduleId())
+                    .map(Schedule::getAvailableSeats)
+                    .orElse(null);
+        }
+        if (availableSeats != null) {
+            record(event.getScheduleId(), availableSeats);
+        }
+    }
+
+    void record(Long scheduleId, int availableSeats) {
+        synchronized (lock) {
+            SeatChangeResponse previous = bySchedule.get(scheduleId);
+            if (previous != null) {
+                byVersion.remove(previous.getVersion());
+            }
+            SeatChangeResponse change = new SeatChangeResponse(scheduleId, availableSeats, ++version);
+            bySchedule.put(scheduleId, change);
+            byVersion.put(change.getVersion(), change);
+            while (byVersion.size() > retainedSchedules) {
+                SeatChangeResponse evicted = byVersion.pollFirstEntry().getValue();
+                bySchedule.remove(evicted.getScheduleId());
+                floor = evicted.getVersion();
+            }
+        }
+    }
+
+    /**
+     * The latest seat count of every schedule that changed after {@code since}, in version order.
+     */
+    public SeatChangeFeedResponse changesSince(long since) {
+        SeatChangeFeedResponse response = new SeatChangeFeedResponse();
+        synchronized (lock) {
+            response.setVersion(version);
+            if (since < floor || since > version) {
+                response.setReset(true);
+                response.setChanges(List.of());
+            } else {
+                response.setChanges(new ArrayList<>(byVersion.tailMap(since, false).values()));
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Pushes each coalesced batch of changes to {@code scheduleIds}, or to every schedule when
+     * empty, to {@code sink} until the subscription is cancelled. With {@code since}, changes the
+     * subscriber missed after that version are sent first. A sink that throws is unsubscribed.
+     */
+    public Subscription subscribe(Set<Long> scheduleIds, Long since, Consumer<List<SeatChangeResponse>> sink) {
+        Subscription subscription = new Subscription(scheduleIds, sink);
+        subscriptions.add(subscription);
+        if (since != null) {
+            SeatChangeFeedResponse missed = changesSince(since);
+            if (!missed.isReset()) {
+                subscription.deliver(missed.getChanges());
+            }
+        }
+        return subscription;
+    }
+
+    void flush() {
+        List<SeatChangeResponse> batch;
+        synchronized (lock) {
+            batch = new ArrayList<>(byVersion.tailMap(flushedVersion, false).values());
+            flushedVersion = version;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.deliver(batch);
+        }
+    }
+
+    public final class Subscription {
+        private final Set<Long> scheduleIds;
+        private final Consumer<List<SeatChangeResponse>> sink;
+
+        private Subscription(Set<Long> scheduleIds, Consumer<List<SeatChangeResponse>> sink) {
+            this.scheduleIds = scheduleIds == null ? Set.of() : Set.copyOf(scheduleIds);
+            this.sink = sink;
+        }
+
+        public void cancel() {
+            subscriptions.remove(this);
+        }
+
+        private void deliver(List<SeatChangeResponse> changes) {
+            List<SeatChangeResponse> matching = scheduleIds.isEmpty()
+                    ? changes
+                    : changes.stream().filter(change -> scheduleIds.contains(change.getScheduleId())).toList();
+            if (matching.isEmpty()) {
+                return;
+            }
+            try {
+                sink.accept(matching);
+            } catch (RuntimeException e) {
+                cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.busbooking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * In-memory available-seat counters, one per schedule.
+ *
+ * The schedules table stays the source of truth: every reservation is also applied there with a
+ * conditional update. The counters let this instance turn away requests for a sold-out schedule
+ * without touching the schedules row, and are reloaded when they fall out of step with it.
+ */
+@Component
+public class SeatInventory {
+
+    @Value("${app.inventory.refresh-interval-ms:1000}")
+    private long refreshIntervalMs = 1000;
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Takes {@code seats} from the schedule's counter, loading it with {@code loader} on first use.
+     *
+     * @return false if fewer than {@code seats} seats are left
+     */
+    public boolean tryReserve(Long scheduleId, int seats, IntSupplier loader) {
+        AtomicInteger available = counterFor(scheduleId, loader).seats;
+        while (true) {
+            int current = available.get();
+            if (current < seats) {
+                return false;
+            }
+            if (available.compareAndSet(current, current - seats)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns seats to a loaded counter. A counter loaded later reads them from the database.
+     */
+    public void release(Long scheduleId, int seats) {
+        Counter counter = counters.get(scheduleId);
+        if (counter != null) {
+            counter.seats.addAndGet(seats);
+        }
+    }
+
+    public int getAvailableSeats(Long scheduleId, IntSupplier loader) {
+        return counterFor(scheduleId, loader).seats.get();
+    }
+
+    /**
+     * Reloads the counter if it was loaded more than the refresh interval ago. Seats released by
+     * other instances only show up here after a reload.
+     *
+     * @return true if the counter was reloaded
+     */
+    public boolean refreshIfStale(Long scheduleId, IntSupplier loader) {
+        Counter counter = counters.get(scheduleId);
+        if (counter != null && System.currentTimeMillis() - counter.loadedAt < refreshIntervalMs) {
+            return false;
+        }
+        counters.put(scheduleId, new Counter(loader.getAsInt()));
+        return true;
+    }
+
+    /**
+     * Drops the cached counter so the next access reloads it from the database.
+     */
+    public void evict(Long scheduleId) {
+        counters.remove(scheduleId);
+    }
+
+    private Counter counterFor(Long scheduleId, IntSupplier loader) {
+        return counters.computeIfAbsent(scheduleId, id -> new Counter(loader.getAsInt()));
+    }
+
+    private static final class Counter {
+        private final AtomicInteger seats;
+        private final long loadedAt;
+
+        private Counter(int seats) {
+            this.seats = new AtomicInteger(seats);
+            this.loadedAt = System.currentTimeMillis();
+        }
+    }
+}
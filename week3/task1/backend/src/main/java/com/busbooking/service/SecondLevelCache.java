@@ -0,0 +1,121 @@
+package com.busbooking.service;
+
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.SeatsChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps the Hibernate second-level cache in step with writes it cannot see, and reports how well
+ * it is doing.
+ *
+ * Seat updates are native statements that leave the schedule region alone, so each schedule is
+ * evicted here when its seats change: once straight away and again as the transaction commits,
+ * ahead of the other after-commit listeners, so anything they load comes from the database.
+ *
+ * <ul>
+ *   <li>{@code cache.l2.requests}: lookups tagged with the region ({@code bus}, {@code schedule}
+ *   or {@code query}) and the result, {@code hit} or {@code miss}</li>
+ *   <li>{@code cache.l2.hit.ratio}: hits over lookups so far, per region</li>
+ * </ul>
+ *
+ * Set {@code app.cache.l2.enabled=false} to bypass the cache altogether.
+ */
+@Component
+public class SecondLevelCache {
+
+    private static final String[] ENTITY_REGIONS = {"bus", "schedule"};
+
+    private final SessionFactory sessionFactory;
+    private final boolean enabled;
+
+    public SecondLevelCache(EntityManagerFactory entityManagerFactory, MeterRegistry registry,
+                            @Value("${app.cache.l2.enabled:true}") boolean enabled) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.enabled = enabled;
+        if (!enabled) {
+            return;
+        }
+        for (String region : ENTITY_REGIONS) {
+            register(registry, region,
+                    statistics -> regionStatistics(statistics, region, CacheRegionStatistics::getHitCount),
+                    statistics -> regionStatistics(statistics, region, CacheRegionStatistics::getMissCount));
+        }
+        register(registry, "query", Statistics::getQueryCacheHitCount, Statistics::getQueryCacheMissCount);
+    }
+
+    @EventListener
+    public void onSeatsChanged(SeatsChangedEvent event) {
+        evictSchedule(event.getScheduleId());
+    }
+
+    public void evictSchedule(Long scheduleId) {
+        if (!enabled) {
+            return;
+        }
+        sessionFactory.getCache().evictEntityData(Schedule.class, scheduleId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A reader may have cached the old row before the commit made the new one visible
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    sessionFactory.getCache().evictEntityData(Schedule.class, scheduleId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops every cached query result, after rows were written without going through Hibernate.
+     */
+    public void evictQueries() {
+        if (enabled) {
+            sessionFactory.getCache().evictQueryRegions();
+        }
+    }
+
+    private void register(MeterRegistry registry, String region,
+                          ToLongFunction<Statistics> hits, ToLongFunction<Statistics> misses) {
+        Statistics statistics = sessionFactory.getStatistics();
+        FunctionCounter.builder("cache.l2.requests", statistics, hits::applyAsLong)
+                .description("Second-level cache lookups")
+                .tags("region", region, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.l2.requests", statistics, misses::applyAsLong)
+                .description("Second-level cache lookups")
+                .tags("region", region, "result", "miss")
+                .register(registry);
+        Gauge.builder("cache.l2.hit.ratio", statistics, stats -> {
+                    long hit = hits.applyAsLong(stats);
+                    long total = hit + misses.applyAsLong(stats);
+                    return total == 0 ? Double.NaN : (double) hit / total;
+                })
+                .description("Share of second-level cache lookups that were hits")
+                .tag("region", region)
+                .register(registry);
+    }
+
+    private static long regionStatistics(Statistics statistics, String region,
+                                         ToLongFunction<CacheRegionStatistics> count) {
+        CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+        return regionStatistics != null ? count.applyAsLong(regionStatistics) : 0;
+    }
+}
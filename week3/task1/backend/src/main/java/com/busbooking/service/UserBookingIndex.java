@@ -0,0 +1,298 @@
+package com.busbooking.service;
+
+import com.busbooking.entity.Booking;
+import com.busbooking.entity.Schedule;
+import com.busbooking.exception.BookingRejectedException;
+import com.busbooking.exception.BookingRejectedException.Reason;
+import com.busbooking.util.IntervalTree;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Each user's upcoming CONFIRMED and PENDING bookings, kept as an interval tree of travel
+ * windows. The active-booking limit and the overlap check run against it without loading any
+ * bookings or schedules.
+ *
+ * A user's entry is loaded once from the database and then maintained as bookings commit, are
+ * cancelled or expire here. It is reloaded after {@code app.booking.user-index.ttl-seconds} so
+ * bookings made through other instances are picked up, and dropped once it has gone that long
+ * unloaded; at most {@code app.booking.user-index.max-users} users are kept. Since an entry can
+ * miss another instance's recent bookings, the index only turns requests away early: the booking
+ * transaction repeats both checks against the database.
+ */
+@Component
+public class UserBookingIndex {
+
+    public static final int MAX_ACTIVE_BOOKINGS = 5;
+
+    @Value("${app.booking.user-index.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    @Value("${app.booking.user-index.max-users:10000}")
+    private int maxUsers = 10000;
+
+    private final ConcurrentHashMap<Long, UserBookings> users = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    /**
+     * @return the id of the user's unexpired hold on the schedule, or null
+     */
+    public Long findLiveHold(Long userId, Long scheduleId, Supplier<List<Booking>> loader) {
+        UserBookings bookings = load(userId, loader);
+        synchronized (bookings) {
+            LocalDateTime now = LocalDateTime.now();
+            for (Entry entry : bookings.byArrival) {
+                if (entry.pending && entry.bookingId != null && scheduleId.equals(entry.scheduleId)
+                        && entry.holdExpiresAt != null && entry.holdExpiresAt.isAfter(now)) {
+                    return entry.bookingId;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Checks the active-booking limit and the overlap rule and, if both pass, records the trip
+     * straight away so a concurrent request from the same user sees it. The caller must
+     * {@link Reservation#commit commit} or {@link Reservation#cancel cancel} it once the booking
+     * transaction completes.
+     */
+    public Reservation reserve(Long userId, Schedule schedule, boolean hold, Supplier<List<Booking>> loader) {
+        UserBookings bookings = load(userId, loader);
+        long start = epochSeconds(schedule.getDepartureTime());
+        long end = epochSeconds(schedule.getArrivalTime());
+        synchronized (bookings) {
+            bookings.pruneFinished(epochSeconds(LocalDateTime.now()));
+            if (bookings.byArrival.size() >= MAX_ACTIVE_BOOKINGS) {
+                throw new BookingRejectedException(Reason.BOOKING_LIMIT,
+                        "User has reached maximum number of active bookings");
+            }
+            if (bookings.trips.overlaps(start, end)) {
+                throw new BookingRejectedException(Reason.OVERLAPPING_BOOKING, "User has an overlapping booking");
+            }
+            Entry entry = new Entry(sequence.incrementAndGet(), schedule.getId(), start, end, hold);
+            bookings.add(entry);
+            return new Reservation(bookings, entry);
+        }
+    }
+
+    public void confirm(Long userId, Long bookingId) {
+        UserBookings bookings = users.get(userId);
+        if (bookings == null) {
+            return;
+        }
+        synchronized (bookings) {
+            Entry entry = bookings.byBookingId.get(bookingId);
+            if (entry != null) {
+                entry.pending = false;
+                entry.holdExpiresAt = null;
+            }
+        }
+    }
+
+    public void remove(Long userId, Long bookingId) {
+        UserBookings bookings = users.get(userId);
+        if (bookings == null) {
+            return;
+        }
+        synchronized (bookings) {
+            Entry entry = bookings.byBookingId.get(bookingId);
+            if (entry != null) {
+                bookings.remove(entry);
+            }
+        }
+    }
+
+    public void evict(Long userId) {
+        users.remove(userId);
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    private UserBookings load(Long userId, Supplier<List<Booking>> loader) {
+        long now = System.currentTimeMillis();
+        long sweepAt = nextSweepAt.get();
+        if (now >= sweepAt && nextSweepAt.compareAndSet(sweepAt, now + ttlSeconds * 1000)) {
+            sweep(now, false);
+        }
+        if (users.size() >= maxUsers && !users.containsKey(userId)) {
+            sweep(now, true);
+        }
+        UserBookings bookings = users.computeIfAbsent(userId, id -> new UserBookings());
+        synchronized (bookings) {
+            if (now - bookings.loadedAt >= ttlSeconds * 1000) {
+                bookings.reload(loader.get(), this);
+                bookings.loadedAt = now;
+            }
+        }
+        return bookings;
+    }
+
+    /**
+     * Drops the users that are due a reload anyway and, when {@code makeRoom} is set and that is
+     * not enough, any others until there is room for one more. Users with a booking transaction
+     * still in flight are kept, so its reservation stays visible to their next request.
+     */
+    private void sweep(long now, boolean makeRoom) {
+        users.forEach((userId, bookings) -> {
+            synchronized (bookings) {
+                if (now - bookings.loadedAt >= ttlSeconds * 1000 && !bookings.hasReservationsInFlight()) {
+                    users.remove(userId, bookings);
+                }
+            }
+        });
+        Iterator<Map.Entry<Long, UserBookings>> iterator = users.entrySet().iterator();
+        while (makeRoom && users.size() >= maxUsers && iterator.hasNext()) {
+            Map.Entry<Long, UserBookings> next = iterator.next();
+            synchronized (next.getValue()) {
+                if (!next.getValue().hasReservationsInFlight()) {
+                    users.remove(next.getKey(), next.getValue());
+                }
+            }
+        }
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * A trip recorded by {@link #reserve} for a booking whose transaction has not finished yet.
+     */
+    public static final class Reservation {
+        private final UserBookings bookings;
+        private final Entry entry;
+
+        private Reservation(UserBookings bookings, Entry entry) {
+            this.bookings = bookings;
+            this.entry = entry;
+        }
+
+        /**
+         * Ties the trip to the saved booking so it can later be cancelled or expired by id.
+         */
+        public void assign(Long bookingId, LocalDateTime holdExpiresAt) {
+            synchronized (bookings) {
+                entry.bookingId = bookingId;
+                entry.holdExpiresAt = holdExpiresAt;
+                if (bookingId != null) {
+                    bookings.byBookingId.put(bookingId, entry);
+                }
+            }
+        }
+
+        public void commit() {
+            synchronized (bookings) {
+                entry.committed = true;
+            }
+        }
+
+        public void cancel() {
+            synchronized (bookings) {
+                bookings.remove(entry);
+            }
+        }
+    }
+
+    private static final class UserBookings {
+        private final IntervalTree trips = new IntervalTree();
+        private final TreeSet<Entry> byArrival = new TreeSet<>(
+                Comparator.comparingLong((Entry entry) -> entry.end).thenComparingLong(entry -> entry.seq));
+        private final Map<Long, Entry> byBookingId = new HashMap<>();
+        private long loadedAt = Long.MIN_VALUE / 2;
+
+        private void add(Entry entry) {
+            if (byArrival.add(entry)) {
+                trips.insert(entry.start, entry.end, entry.seq);
+                if (entry.bookingId != null) {
+                    byBookingId.put(entry.bookingId, entry);
+                }
+            }
+        }
+
+        private void remove(Entry entry) {
+            if (byArrival.remove(entry)) {
+                trips.remove(entry.start, entry.end, entry.seq);
+                if (entry.bookingId != null && byBookingId.get(entry.bookingId) == entry) {
+                    byBookingId.remove(entry.bookingId);
+                }
+            }
+        }
+
+        private boolean hasReservationsInFlight() {
+            for (Entry entry : byArrival) {
+                if (!entry.committed) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Trips that have ended no longer count towards the limit and cannot overlap a new booking
+        private void pruneFinished(long now) {
+            while (!byArrival.isEmpty() && byArrival.first().end < now) {
+                remove(byArrival.first());
+            }
+        }
+
+        /**
+         * Replaces the committed trips with the database's view. Reservations still in flight are
+         * not in the database yet and are kept.
+         */
+        private void reload(List<Booking> activeBookings, UserBookingIndex index) {
+            for (Entry entry : byArrival.toArray(new Entry[0])) {
+                if (entry.committed) {
+                    remove(entry);
+                }
+            }
+            for (Booking booking : activeBookings) {
+                boolean pending = "PENDING".equals(booking.getStatus());
+                Schedule schedule = booking.getSchedule();
+                if ((!pending && !"CONFIRMED".equals(booking.getStatus())) || schedule == null
+                        || (booking.getId() != null && byBookingId.containsKey(booking.getId()))) {
+                    continue;
+                }
+                Entry entry = new Entry(index.sequence.incrementAndGet(), schedule.getId(),
+                        epochSeconds(schedule.getDepartureTime()), epochSeconds(schedule.getArrivalTime()), pending);
+                entry.bookingId = booking.getId();
+                entry.holdExpiresAt = booking.getHoldExpiresAt();
+                entry.committed = true;
+                add(entry);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long seq;
+        private final Long scheduleId;
+        private final long start;
+        private final long end;
+        private Long bookingId;
+        private boolean pending;
+        private LocalDateTime holdExpiresAt;
+        private boolean committed;
+
+        private Entry(long seq, Long scheduleId, long start, long end, boolean pending) {
+            this.seq = seq;
+            this.scheduleId = scheduleId;
+            this.start = start;
+            this.end = end;
+            this.pending = pending;
+        }
+    }
+}
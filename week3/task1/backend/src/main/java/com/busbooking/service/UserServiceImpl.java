@@ -2,8 +2,10 @@ package com.busbooking.service;
 
 import com.busbooking.dto.UserProfileDTO;
 import com.busbooking.entity.User;
+import com.busbooking.event.UserChangedEvent;
 import com.busbooking.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -12,6 +14,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public UserProfileDTO getUserProfile(Long id) {
         User user = userRepository.findById(id)
@@ -28,6 +33,7 @@ public class UserServiceImpl implements UserService {
         user.setPhoneNumber(userProfileDTO.getPhoneNumber());
         
         User updatedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(updatedUser.getEmail()));
         return convertToDTO(updatedUser);
     }
 
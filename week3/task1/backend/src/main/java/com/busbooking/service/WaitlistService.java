@@ -0,0 +1,148 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.WaitlistResponse;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.User;
+import com.busbooking.entity.WaitlistEntry;
+import com.busbooking.event.WaitlistUpdatedEvent;
+import com.busbooking.exception.BookingRejectedException;
+import com.busbooking.exception.BookingRejectedException.Reason;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.UserRepository;
+import com.busbooking.repository.WaitlistRepository;
+import com.busbooking.util.SeatMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Waitlists for sold-out schedules. Joining takes the schedule's seat map lock, the same lock a
+ * cancellation holds while it hands released seats to the queue, so a user cannot join just after
+ * seats came free and then wait for nothing. The hand-over itself is in {@link BookingService}.
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+
+    public static final String WAITING = "WAITING";
+    public static final String FULFILLED = "FULFILLED";
+    public static final String DECLINED = "DECLINED";
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Queues the user for seats on a sold-out schedule. Joining again while still waiting returns
+     * the existing entry.
+     */
+    @Transactional
+    public WaitlistResponse join(Long scheduleId, Long userId, Integer numberOfSeats) {
+        if (numberOfSeats == null || numberOfSeats <= 0) {
+            throw new IllegalArgumentException("Number of seats must be greater than 0");
+        }
+        byte[] storedSeatMap = scheduleRepository.findSeatMapForUpdate(scheduleId);
+        Schedule schedule = scheduleRepository.findCurrentById(scheduleId)
+                .orElseThrow(() -> new RuntimeException("Schedule not found"));
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (schedule.getDepartureTime().isBefore(LocalDateTime.now().plusMinutes(30))) {
+            throw new BookingRejectedException(Reason.DEPARTED,
+                    "Cannot join the waitlist of a schedule that is in the past or about to depart");
+        }
+        if (schedule.isWithdrawn()) {
+            throw new BookingRejectedException(Reason.WITHDRAWN, "Schedule has been withdrawn");
+        }
+        int capacity = schedule.getBus().getTotalSeats();
+        if (numberOfSeats > capacity) {
+            throw new IllegalArgumentException("The bus only has " + capacity + " seats");
+        }
+
+        WaitlistEntry existing = waitlistRepository
+                .findFirstByScheduleIdAndUserIdAndStatus(scheduleId, userId, WAITING).orElse(null);
+        if (existing != null) {
+            return toResponse(existing);
+        }
+
+        int freeSeats = storedSeatMap != null
+                ? SeatMap.fromBytes(storedSeatMap, capacity).getFreeCount()
+                : schedule.getAvailableSeats();
+        if (freeSeats >= numberOfSeats) {
+            throw new IllegalStateException("Seats are available; book them directly");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setSchedule(schedule);
+        entry.setUser(user);
+        entry.setNumberOfSeats(numberOfSeats);
+        entry.setStatus(WAITING);
+        entry.setCreatedAt(LocalDateTime.now());
+        return toResponse(waitlistRepository.save(entry));
+    }
+
+    @Transactional
+    public void leave(Long entryId) {
+        getEntry(entryId);
+        if (waitlistRepository.cancelIfWaiting(entryId) == 0) {
+            throw new IllegalStateException("Waitlist entry is no longer waiting");
+        }
+    }
+
+    public WaitlistResponse getWaitlistEntry(Long entryId) {
+        return toResponse(getEntry(entryId));
+    }
+
+    public List<WaitlistResponse> getUserWaitlist(Long userId) {
+        return waitlistRepository.findByUserIdOrderByIdDesc(userId).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    // Stands in for a push notification until there is a channel to deliver one on
+    @TransactionalEventListener
+    public void onWaitlistUpdated(WaitlistUpdatedEvent event) {
+        if (FULFILLED.equals(event.getStatus())) {
+            logger.info("Notifying user {}: seats on schedule {} are held for them as booking {}",
+                    event.getUserId(), event.getScheduleId(), event.getBookingId());
+        } else {
+            logger.info("Notifying user {}: waitlist entry {} for schedule {} was {}",
+                    event.getUserId(), event.getEntryId(), event.getScheduleId(), event.getStatus());
+        }
+    }
+
+    private WaitlistEntry getEntry(Long entryId) {
+        return waitlistRepository.findById(entryId)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry not found"));
+    }
+
+    private WaitlistResponse toResponse(WaitlistEntry entry) {
+        Long scheduleId = entry.getSchedule().getId();
+        WaitlistResponse response = new WaitlistResponse();
+        response.setId(entry.getId());
+        response.setScheduleId(scheduleId);
+        response.setUserId(entry.getUser().getId());
+        response.setNumberOfSeats(entry.getNumberOfSeats());
+        response.setStatus(entry.getStatus());
+        response.setBookingId(entry.getBookingId());
+        response.setMessage(entry.getMessage());
+        response.setCreatedAt(entry.getCreatedAt());
+        if (WAITING.equals(entry.getStatus())) {
+            response.setPosition(waitlistRepository.countByScheduleIdAndStatusAndIdLessThan(
+                    scheduleId, WAITING, entry.getId()) + 1);
+        }
+        return response;
+    }
+}
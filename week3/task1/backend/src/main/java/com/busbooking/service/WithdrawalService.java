@@ -0,0 +1,365 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.WithdrawalJobResponse;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.WithdrawalJob;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.repository.BookingRepository;
+import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.WaitlistRepository;
+import com.busbooking.repository.WithdrawalJobRepository;
+import com.busbooking.util.SeatMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Withdraws a schedule, or every upcoming schedule of a bus, without loading its bookings.
+ *
+ * The schedules are marked withdrawn straight away, which stops new bookings and takes them out
+ * of search. A background job then cancels their live bookings {@code app.withdrawal.batch-size}
+ * at a time in booking id order: one statement cancels the batch with the refund
+ * {@link BookingService} would give, and the batch's seats go back with a single seat map write.
+ * The job's cursor is saved with each batch, so a job interrupted by a crash resumes on startup
+ * and a failed one can be resumed by hand.
+ *
+ * A booking that was already under way when its schedule was withdrawn can still be saved after
+ * the job has passed the schedule. Withdrawing it again cancels what is left.
+ */
+@Service
+public class WithdrawalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WithdrawalService.class);
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    // The length of WithdrawalJob's message column
+    private static final int MAX_MESSAGE_LENGTH = 255;
+
+    @Autowired
+    private WithdrawalJobRepository withdrawalJobRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private BusRepository busRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private UserBookingIndex userBookingIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.withdrawal.batch-size:500}")
+    private int batchSize = 500;
+
+    private ExecutorService worker;
+
+    @PostConstruct
+    public void start() {
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "withdrawal-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    // Jobs that were running when the last instance stopped carry on from their cursor
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeRunningJobs() {
+        for (WithdrawalJob job : withdrawalJobRepository.findByStatusOrderByIdAsc(RUNNING)) {
+            submit(job.getId());
+        }
+    }
+
+    @Transactional
+    public WithdrawalJobResponse withdrawSchedule(Long scheduleId) {
+        Schedule schedule = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new RuntimeException("Schedule not found"));
+        if (schedule.getDepartureTime().isBefore(LocalDateTime.now())) {
+            throw new IllegalStateException("Cannot withdraw a schedule that has departed");
+        }
+        scheduleRepository.markWithdrawn(scheduleId);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(scheduleId, false));
+
+        WithdrawalJob job = newJob();
+        job.setScheduleId(scheduleId);
+        job.setCurrentScheduleId(scheduleId);
+        job.setBookingsTotal(bookingRepository.countLiveBySchedule(scheduleId));
+        return launch(job);
+    }
+
+    /**
+     * Withdraws the bus's schedules that have not departed yet. Schedules it departed on keep
+     * their bookings.
+     */
+    @Transactional
+    public WithdrawalJobResponse withdrawBus(Long busId) {
+        if (!busRepository.existsById(busId)) {
+            throw new RuntimeException("Bus not found");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> scheduleIds = scheduleRepository.findIdsToWithdraw(busId, now);
+        scheduleRepository.markWithdrawnByBus(busId, now);
+        for (Long scheduleId : scheduleIds) {
+            eventPublisher.publishEvent(new ScheduleChangedEvent(scheduleId, false));
+        }
+
+        WithdrawalJob job = newJob();
+        job.setBusId(busId);
+        job.setCurrentScheduleId(nextScheduleOfBus(busId, 0L));
+        job.setBookingsTotal(bookingRepository.countLiveOnWithdrawnSchedulesOfBus(busId));
+        return launch(job);
+    }
+
+    public WithdrawalJobResponse getJob(Long jobId) {
+        return toResponse(withdrawalJobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Withdrawal job not found")));
+    }
+
+    /**
+     * Restarts a job from its cursor, typically one that FAILED.
+     */
+    @Transactional
+    public WithdrawalJobResponse resume(Long jobId) {
+        WithdrawalJob job = withdrawalJobRepository.findForUpdate(jobId)
+                .orElseThrow(() -> new RuntimeException("Withdrawal job not found"));
+        if (COMPLETED.equals(job.getStatus())) {
+            throw new IllegalStateException("Withdrawal job has already completed");
+        }
+        job.setStatus(RUNNING);
+        job.setMessage(null);
+        job.setUpdatedAt(LocalDateTime.now());
+        return launch(job);
+    }
+
+    /**
+     * Works through the job's batches, each in its own transaction, until it is done or fails.
+     */
+    void run(Long jobId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            boolean more = true;
+            while (more) {
+                more = Boolean.TRUE.equals(transaction.execute(status -> runBatch(jobId)));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Withdrawal job {} failed", jobId, e);
+            transaction.executeWithoutResult(status -> withdrawalJobRepository.findForUpdate(jobId).ifPresent(job -> {
+                job.setStatus(FAILED);
+                job.setMessage(failureMessage(e));
+                job.setUpdatedAt(LocalDateTime.now());
+                withdrawalJobRepository.save(job);
+            }));
+        }
+    }
+
+    /**
+     * @return whether the job has more to do
+     */
+    private boolean runBatch(Long jobId) {
+        WithdrawalJob job = withdrawalJobRepository.findForUpdate(jobId)
+                .orElseThrow(() -> new RuntimeException("Withdrawal job not found"));
+        if (!RUNNING.equals(job.getStatus())) {
+            return false;
+        }
+        Long scheduleId = job.getCurrentScheduleId();
+        if (scheduleId == null) {
+            complete(job);
+            return false;
+        }
+
+        List<Object[]> page = bookingRepository.findLiveForUpdate(scheduleId, job.getLastBookingId(), batchSize);
+        if (page.isEmpty()) {
+            waitlistRepository.declineAllWaiting(scheduleId, "Schedule has been withdrawn");
+            Long next = job.getBusId() != null ? nextScheduleOfBus(job.getBusId(), scheduleId) : null;
+            job.setSchedulesDone(job.getSchedulesDone() + 1);
+            job.setCurrentScheduleId(next);
+            job.setLastBookingId(0L);
+            if (next == null) {
+                complete(job);
+                return false;
+            }
+            job.setUpdatedAt(LocalDateTime.now());
+            withdrawalJobRepository.save(job);
+            return true;
+        }
+
+        cancelBatch(job, scheduleId, page);
+        return true;
+    }
+
+    private void cancelBatch(WithdrawalJob job, Long scheduleId, List<Object[]> page) {
+        Schedule schedule = scheduleRepository.findCurrentById(scheduleId)
+                .orElseThrow(() -> new RuntimeException("Schedule not found"));
+        double refundRate = BookingService.refundRate(schedule.getDepartureTime(), LocalDateTime.now());
+
+        List<Long> bookingIds = new ArrayList<>(page.size());
+        List<Long> userIds = new ArrayList<>(page.size());
+        List<String> seatNumbers = new ArrayList<>(page.size());
+        int seats = 0;
+        double paid = 0;
+        for (Object[] row : page) {
+            bookingIds.add(((Number) row[0]).longValue());
+            userIds.add(((Number) row[1]).longValue());
+            seats += ((Number) row[2]).intValue();
+            seatNumbers.add((String) row[3]);
+            paid += ((Number) row[4]).doubleValue();
+        }
+        bookingRepository.cancelAllWithRefund(bookingIds, refundRate);
+        releaseSeats(schedule, seats, seatNumbers);
+
+        afterCommit(() -> {
+            seatInventory.evict(scheduleId);
+            for (int i = 0; i < bookingIds.size(); i++) {
+                userBookingIndex.remove(userIds.get(i), bookingIds.get(i));
+            }
+        });
+        job.setLastBookingId(bookingIds.get(bookingIds.size() - 1));
+        job.setBookingsCancelled(job.getBookingsCancelled() + bookingIds.size());
+        job.setSeatsReleased(job.getSeatsReleased() + seats);
+        job.setRefundTotal(job.getRefundTotal() + paid * refundRate);
+        job.setUpdatedAt(LocalDateTime.now());
+        withdrawalJobRepository.save(job);
+    }
+
+    // One write for the whole batch: the seat map if the schedule has one, the counter otherwise
+    private void releaseSeats(Schedule schedule, int seats, List<String> seatNumbers) {
+        Long scheduleId = schedule.getId();
+        byte[] stored = scheduleRepository.findSeatMapForUpdate(scheduleId);
+        if (stored == null) {
+            scheduleRepository.releaseSeats(scheduleId, seats);
+            eventPublisher.publishEvent(new SeatsChangedEvent(scheduleId, null));
+            return;
+        }
+        SeatMap seatMap = SeatMap.fromBytes(stored, schedule.getBus().getTotalSeats());
+        for (String bookingSeats : seatNumbers) {
+            if (bookingSeats != null) {
+                seatMap.release(SeatMap.parseSeats(bookingSeats));
+            }
+        }
+        scheduleRepository.updateSeatMap(scheduleId, seatMap.toBytes(), seatMap.getFreeCount());
+        eventPublisher.publishEvent(new SeatsChangedEvent(scheduleId, seatMap.getFreeCount()));
+    }
+
+    // What the job's message column can hold of the error; a database error's message often runs to the SQL
+    static String failureMessage(RuntimeException e) {
+        String message = e.getMessage() != null ? e.getClass().getSimpleName() + ": " + e.getMessage()
+                : e.getClass().getSimpleName();
+        return message.length() <= MAX_MESSAGE_LENGTH ? message : message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+
+    private Long nextScheduleOfBus(Long busId, Long afterScheduleId) {
+        List<Long> next = scheduleRepository.findWithdrawnIdsAfter(busId, afterScheduleId, PageRequest.of(0, 1));
+        return next.isEmpty() ? null : next.get(0);
+    }
+
+    private void complete(WithdrawalJob job) {
+        LocalDateTime now = LocalDateTime.now();
+        job.setStatus(COMPLETED);
+        job.setUpdatedAt(now);
+        job.setCompletedAt(now);
+        withdrawalJobRepository.save(job);
+        logger.info("Withdrawal job {} cancelled {} bookings and refunded {}",
+                job.getId(), job.getBookingsCancelled(), job.getRefundTotal());
+    }
+
+    private WithdrawalJob newJob() {
+        LocalDateTime now = LocalDateTime.now();
+        WithdrawalJob job = new WithdrawalJob();
+        job.setStatus(RUNNING);
+        job.setLastBookingId(0L);
+        job.setSchedulesDone(0);
+        job.setBookingsCancelled(0L);
+        job.setSeatsReleased(0L);
+        job.setRefundTotal(0.0);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return job;
+    }
+
+    private WithdrawalJobResponse launch(WithdrawalJob job) {
+        WithdrawalJob saved = withdrawalJobRepository.save(job);
+        afterCommit(() -> submit(saved.getId()));
+        return toResponse(saved);
+    }
+
+    private void submit(Long jobId) {
+        worker.submit(() -> run(jobId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private WithdrawalJobResponse toResponse(WithdrawalJob job) {
+        WithdrawalJobResponse response = new WithdrawalJobResponse();
+        response.setId(job.getId());
+        response.setBusId(job.getBusId());
+        response.setScheduleId(job.getScheduleId());
+        response.setStatus(job.getStatus());
+        response.setCurrentScheduleId(job.getCurrentScheduleId());
+        response.setSchedulesDone(job.getSchedulesDone());
+        response.setBookingsTotal(job.getBookingsTotal());
+        response.setBookingsCancelled(job.getBookingsCancelled());
+        response.setSeatsReleased(job.getSeatsReleased());
+        response.setRefundTotal(job.getRefundTotal());
+        response.setMessage(job.getMessage());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setUpdatedAt(job.getUpdatedAt());
+        response.setCompletedAt(job.getCompletedAt());
+        return response;
+    }
+}
@@ -0,0 +1,80 @@
+package com.busbooking.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate counts of string keys in {@code width * depth} counters, however many distinct keys
+ * are added.
+ *
+ * Each key lands in one counter per row and its estimate is the smallest of them, so an estimate
+ * is never below the true count and is above it by at most {@code 2 / width} of the total with
+ * probability {@code 1 - 2^-depth}. Counters are updated atomically, so keys can be added from
+ * many threads without a lock.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counts;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new AtomicLongArray(width * depth);
+    }
+
+    /**
+     * @return the key's estimate after adding {@code count}
+     */
+    public long add(String key, long count) {
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.addAndGet(cell(hash, row), count));
+        }
+        return estimate;
+    }
+
+    public long estimate(String key) {
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.get(cell(hash, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter, so old traffic counts for less than new.
+     */
+    public void halve() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.updateAndGet(i, value -> value >>> 1);
+        }
+    }
+
+    // Row i uses h1 + i * h2 from the two halves of one 64-bit hash, which is as good as i hashes
+    private int cell(long hash, int row) {
+        int combined = (int) hash + row * (int) (hash >>> 32);
+        return row * width + Math.floorMod(combined, width);
+    }
+
+    // FNV-1a over the UTF-8 bytes, finished with the murmur3 mix so the high half is usable too
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,83 @@
+package com.busbooking.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits single CSV lines. Fields may be quoted, with {@code ""} for a quote inside a quoted
+ * field, but a record cannot span lines.
+ */
+public final class CsvLines {
+
+    private CsvLines() {
+    }
+
+    public static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Joins fields into one CSV line, quoting those that need it. Null fields are left empty.
+     */
+    public static String join(Object... fields) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String field = fields[i] != null ? fields[i].toString() : "";
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0
+                    || field.indexOf('\r') >= 0 || !field.equals(field.trim())) {
+                line.append('"').append(field.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(field);
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * Pairs a line's fields with the header's column names, leaving out empty fields.
+     */
+    public static Map<String, String> toMap(String[] header, String[] fields) {
+        if (fields.length != header.length) {
+            throw new IllegalArgumentException("Expected " + header.length + " columns but found " + fields.length);
+        }
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            if (!fields[i].isEmpty()) {
+                row.put(header[i], fields[i]);
+            }
+        }
+        return row;
+    }
+}
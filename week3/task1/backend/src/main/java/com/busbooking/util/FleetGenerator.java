@@ -0,0 +1,394 @@
+package com.busbooking.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a synthetic fleet for capacity testing: buses shuttling back and forth on their route
+ * for {@code app.generator.days} days, users, and bookings whose occupancy follows route
+ * popularity, day of week and time of day.
+ *
+ * Rows are written with plain JDBC batch inserts, one transaction per batch, and ids are assigned
+ * up front so schedules and bookings can be generated by several threads at once. Runs on startup
+ * when the {@code generator} profile is active; {@link FleetGeneratorCli} runs it on its own.
+ *
+ * Generated bookings are history as much as upcoming travel, so they are not held to the
+ * per-user booking limit or overlap rule.
+ */
+@Component
+@Profile("generator")
+public class FleetGenerator implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetGenerator.class);
+
+    private static final String[] CITIES = {
+        "Bangalore", "Chennai", "Hyderabad", "Mumbai", "Pune", "Kochi", "Mysore", "Goa", "Coimbatore",
+        "Madurai", "Trivandrum", "Mangalore", "Vijayawada", "Visakhapatnam", "Tirupati", "Salem",
+        "Hubli", "Belgaum", "Nagpur", "Nashik", "Aurangabad", "Kolhapur", "Pondicherry", "Vellore",
+        "Trichy", "Calicut", "Thrissur", "Warangal", "Nellore", "Udupi"
+    };
+    private static final int[] CAPACITIES = {30, 36, 40, 45, 50};
+    private static final String[] BUS_TYPES = {"AC Sleeper", "AC Seater", "Non-AC Seater", "Non-AC Sleeper", "Volvo Multi-Axle"};
+    private static final int TURNAROUND_MINUTES = 60;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${app.generator.buses:1000}")
+    private int buses = 1000;
+
+    @Value("${app.generator.routes:200}")
+    private int routes = 200;
+
+    @Value("${app.generator.days:365}")
+    private int days = 365;
+
+    @Value("${app.generator.start-date:}")
+    private String startDate = "";
+
+    @Value("${app.generator.users:10000}")
+    private int users = 10000;
+
+    @Value("${app.generator.mean-occupancy:0.6}")
+    private double meanOccupancy = 0.6;
+
+    @Value("${app.generator.cancellation-rate:0.05}")
+    private double cancellationRate = 0.05;
+
+    @Value("${app.generator.batch-size:5000}")
+    private int batchSize = 5000;
+
+    @Value("${app.generator.threads:4}")
+    private int threads = 4;
+
+    @Value("${app.generator.seed:42}")
+    private long seed = 42;
+
+    @Value("${app.generator.exit-when-done:false}")
+    private boolean exitWhenDone;
+
+    @Override
+    public void run(String... args) throws Exception {
+        generate();
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    /**
+     * @return the number of schedules and bookings written
+     */
+    public long[] generate() throws Exception {
+        if (buses <= 0 || routes <= 0 || days <= 0 || users <= 0) {
+            throw new IllegalArgumentException("Buses, routes, days and users must be greater than 0");
+        }
+        long started = System.currentTimeMillis();
+        Random random = new Random(seed);
+        LocalDateTime firstDay = (startDate.isBlank() ? LocalDate.now() : LocalDate.parse(startDate)).atStartOfDay();
+
+        List<Route> routeList = generateRoutes(random);
+        long firstBusId = nextId("buses");
+        long firstUserId = nextId("users");
+        long firstScheduleId = nextId("schedules");
+        AtomicLong nextBookingId = new AtomicLong(nextId("bookings"));
+
+        List<BusPlan> plans = new ArrayList<>(buses);
+        List<Object[]> busRows = new ArrayList<>(buses);
+        long scheduleId = firstScheduleId;
+        for (int i = 0; i < buses; i++) {
+            long busId = firstBusId + i;
+            Route route = routeList.get(i % routeList.size());
+            int capacity = CAPACITIES[random.nextInt(CAPACITIES.length)];
+            int tripsPerDay = Math.max(1, (24 * 60) / (route.minutes + TURNAROUND_MINUTES));
+            int firstDeparture = (5 + random.nextInt(14)) * 60 + 15 * random.nextInt(4);
+            plans.add(new BusPlan(busId, route, capacity, tripsPerDay, firstDeparture, scheduleId, seed + i));
+            scheduleId += (long) tripsPerDay * days;
+            busRows.add(new Object[] {busId, String.format("GN%07d", busId), "Generated Travels " + busId,
+                capacity, BUS_TYPES[random.nextInt(BUS_TYPES.length)]});
+        }
+        insert("INSERT INTO buses (id, bus_number, bus_name, total_seats, bus_type) VALUES (?, ?, ?, ?, ?)", busRows);
+
+        String passwordHash = passwordEncoder.encode("password");
+        List<Object[]> userRows = new ArrayList<>(Math.min(users, batchSize));
+        for (int i = 0; i < users; i++) {
+            long userId = firstUserId + i;
+            userRows.add(new Object[] {userId, "user" + userId + "@generated.busbooking", passwordHash,
+                "Generated User " + userId, String.format("9%09d", userId % 1_000_000_000L)});
+            if (userRows.size() == batchSize) {
+                insert("INSERT INTO users (id, email, password, full_name, phone_number) VALUES (?, ?, ?, ?, ?)", userRows);
+                userRows.clear();
+            }
+        }
+        insert("INSERT INTO users (id, email, password, full_name, phone_number) VALUES (?, ?, ?, ?, ?)", userRows);
+
+        // Each worker takes every n-th bus; schedule ids were laid out per bus above
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int worker = 0; worker < Math.max(1, threads); worker++) {
+            int offset = worker;
+            results.add(executor.submit(() -> {
+                Writer writer = new Writer();
+                for (int i = offset; i < plans.size(); i += Math.max(1, threads)) {
+                    generateTimetable(plans.get(i), firstDay, firstUserId, nextBookingId, writer);
+                }
+                writer.flush();
+                return new long[] {writer.schedules, writer.bookings};
+            }));
+        }
+        long schedules = 0;
+        long bookings = 0;
+        try {
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                schedules += counts[0];
+                bookings += counts[1];
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        restartIdentity("buses", firstBusId + buses);
+        restartIdentity("users", firstUserId + users);
+        restartIdentity("schedules", scheduleId);
+        restartIdentity("bookings", nextBookingId.get());
+
+        logger.info("Generated {} buses on {} routes, {} users, {} schedules and {} bookings in {} ms",
+                buses, routeList.size(), users, schedules, bookings, System.currentTimeMillis() - started);
+        return new long[] {schedules, bookings};
+    }
+
+    private List<Route> generateRoutes(Random random) {
+        int possible = CITIES.length * (CITIES.length - 1);
+        int count = Math.min(routes, possible);
+        Set<String> seen = new HashSet<>();
+        List<Route> routeList = new ArrayList<>(count);
+        while (routeList.size() < count) {
+            String source = CITIES[random.nextInt(CITIES.length)];
+            String destination = CITIES[random.nextInt(CITIES.length)];
+            if (source.equals(destination) || !seen.add(source + "->" + destination)) {
+                continue;
+            }
+            int minutes = 120 + 15 * random.nextInt(49);
+            double fare = Math.round((minutes * 1.6 + random.nextInt(200)) / 10.0) * 10.0;
+            // A few trunk routes carry most of the demand
+            double popularity = 1.6 / Math.pow(routeList.size() + 1, 0.35);
+            routeList.add(new Route(source, destination, minutes, fare, popularity));
+        }
+        return routeList;
+    }
+
+    private void generateTimetable(BusPlan plan, LocalDateTime firstDay, long firstUserId,
+                                   AtomicLong nextBookingId, Writer writer) {
+        Random random = new Random(plan.seed);
+        LocalDateTime now = LocalDateTime.now();
+        long scheduleId = plan.firstScheduleId;
+        boolean outbound = true;
+        for (int day = 0; day < days; day++) {
+            LocalDateTime dayStart = firstDay.plusDays(day);
+            for (int trip = 0; trip < plan.tripsPerDay; trip++) {
+                Route route = plan.route;
+                String source = outbound ? route.source : route.destination;
+                String destination = outbound ? route.destination : route.source;
+                outbound = !outbound;
+                LocalDateTime departure = dayStart.plusMinutes(plan.firstDeparture
+                        + (long) trip * (route.minutes + TURNAROUND_MINUTES));
+                LocalDateTime arrival = departure.plusMinutes(route.minutes);
+
+                int bookedSeats = (int) Math.round(occupancy(route, departure, random) * plan.capacity);
+                writer.schedule(new Object[] {scheduleId, plan.busId, source, destination, Timestamp.valueOf(departure),
+                    Timestamp.valueOf(arrival), route.fare, plan.capacity - bookedSeats,
+                    SeatMap.withFirstSeatsTaken(plan.capacity, bookedSeats).toBytes()});
+
+                // Confirmed bookings fill seats from the front; the odd cancelled one had seats at the back
+                int seat = 1;
+                int freeSeat = plan.capacity;
+                while (seat <= bookedSeats) {
+                    int size = Math.min(partySize(random), bookedSeats - seat + 1);
+                    writer.booking(bookingRow(nextBookingId.getAndIncrement(), firstUserId, scheduleId, route,
+                            departure, now, range(seat, size), false, random));
+                    seat += size;
+                    if (freeSeat > bookedSeats && random.nextDouble() < cancellationRate) {
+                        int cancelledSize = Math.min(partySize(random), freeSeat - bookedSeats);
+                        writer.booking(bookingRow(nextBookingId.getAndIncrement(), firstUserId, scheduleId, route,
+                                departure, now, range(freeSeat - cancelledSize + 1, cancelledSize), true, random));
+                        freeSeat -= cancelledSize;
+                    }
+                }
+                scheduleId++;
+            }
+        }
+    }
+
+    private Object[] bookingRow(long bookingId, long firstUserId, long scheduleId, Route route, LocalDateTime departure,
+                                LocalDateTime now, int[] seats, boolean cancelled, Random random) {
+        // Frequent travellers: a small share of users makes most of the bookings
+        long userId = firstUserId + (long) (users * Math.pow(random.nextDouble(), 2));
+        // Booked on average ten days ahead, at least an hour before departure
+        long leadMinutes = 60 + (long) (-Math.log(1 - random.nextDouble()) * 10 * 24 * 60);
+        LocalDateTime bookedAt = departure.minusMinutes(leadMinutes);
+        double amount = route.fare * seats.length;
+        return new Object[] {bookingId, userId, scheduleId, seats.length, SeatMap.formatSeats(seats),
+            cancelled ? amount * 0.75 : amount, Timestamp.valueOf(bookedAt.isAfter(now) ? now : bookedAt),
+            cancelled ? "CANCELLED" : "CONFIRMED"};
+    }
+
+    // Fuller at weekends and in the evening, with some noise on top
+    private double occupancy(Route route, LocalDateTime departure, Random random) {
+        DayOfWeek dayOfWeek = departure.getDayOfWeek();
+        double dayFactor = dayOfWeek == DayOfWeek.FRIDAY || dayOfWeek == DayOfWeek.SUNDAY ? 1.3
+                : dayOfWeek == DayOfWeek.SATURDAY ? 1.15 : 0.9;
+        int hour = departure.getHour();
+        double hourFactor = hour >= 18 || hour < 2 ? 1.2 : hour >= 10 && hour < 16 ? 0.8 : 1.0;
+        double noise = Math.exp(random.nextGaussian() * 0.3);
+        return Math.max(0, Math.min(1, meanOccupancy * route.popularity * dayFactor * hourFactor * noise));
+    }
+
+    private static int partySize(Random random) {
+        double r = random.nextDouble();
+        return r < 0.55 ? 1 : r < 0.85 ? 2 : r < 0.95 ? 3 : 4;
+    }
+
+    private static int[] range(int first, int count) {
+        int[] seats = new int[count];
+        for (int i = 0; i < count; i++) {
+            seats[i] = first + i;
+        }
+        return seats;
+    }
+
+    private long nextId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows));
+    }
+
+    // Ids were given explicitly, so an identity column that does not track them is moved past the last one
+    private void restartIdentity(String table, long next) throws Exception {
+        String product;
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            product = metaData.getDatabaseProductName();
+        }
+        if ("H2".equals(product)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+        }
+    }
+
+    /**
+     * Buffers one worker's rows. Schedules are always written before the bookings that reference them.
+     */
+    private final class Writer {
+        private final List<Object[]> scheduleRows = new ArrayList<>();
+        private final List<Object[]> bookingRows = new ArrayList<>();
+        private long schedules;
+        private long bookings;
+
+        void schedule(Object[] row) {
+            scheduleRows.add(row);
+            schedules++;
+            if (scheduleRows.size() >= batchSize) {
+                flushSchedules();
+            }
+        }
+
+        void booking(Object[] row) {
+            bookingRows.add(row);
+            bookings++;
+            if (bookingRows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            flushSchedules();
+            insert("INSERT INTO bookings (id, user_id, schedule_id, number_of_seats, seat_numbers, total_amount, booking_date, status) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", bookingRows);
+            bookingRows.clear();
+        }
+
+        private void flushSchedules() {
+            insert("INSERT INTO schedules (id, bus_id, source, destination, departure_time, arrival_time, fare, available_seats, seat_map) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", scheduleRows);
+            scheduleRows.clear();
+        }
+    }
+
+    private static final class Route {
+        private final String source;
+        private final String destination;
+        private final int minutes;
+        private final double fare;
+        private final double popularity;
+
+        private Route(String source, String destination, int minutes, double fare, double popularity) {
+            this.source = source;
+            this.destination = destination;
+            this.minutes = minutes;
+            this.fare = fare;
+            this.popularity = popularity;
+        }
+    }
+
+    private static final class BusPlan {
+        private final long busId;
+        private final Route route;
+        private final int capacity;
+        private final int tripsPerDay;
+        private final int firstDeparture;
+        private final long firstScheduleId;
+        private final long seed;
+
+        private BusPlan(long busId, Route route, int capacity, int tripsPerDay, int firstDeparture,
+                        long firstScheduleId, long seed) {
+            this.busId = busId;
+            this.route = route;
+            this.capacity = capacity;
+            this.tripsPerDay = tripsPerDay;
+            this.firstDeparture = firstDeparture;
+            this.firstScheduleId = firstScheduleId;
+            this.seed = seed;
+        }
+    }
+}
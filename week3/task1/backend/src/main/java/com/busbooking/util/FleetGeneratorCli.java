@@ -0,0 +1,20 @@
+package com.busbooking.util;
+
+import com.busbooking.BusBookingApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * Runs {@link FleetGenerator} against the configured database without starting the web server,
+ * and exits once the data is written. Settings are passed as {@code --app.generator.*=value}.
+ */
+public class FleetGeneratorCli {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(BusBookingApplication.class)
+                .profiles("generator")
+                .web(WebApplicationType.NONE)
+                .properties("app.generator.exit-when-done=true")
+                .run(args);
+    }
+}
@@ -0,0 +1,185 @@
+package com.busbooking.util;
+
+/**
+ * Set of closed intervals {@code [start, end]}, each tagged with an id, that answers "does
+ * anything overlap this interval" in O(log n).
+ *
+ * An AVL tree ordered by (start, id) in which every node also records the largest end in its
+ * subtree, so a query can skip any subtree that ends before the query starts.
+ */
+public class IntervalTree {
+
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void insert(long start, long end, long id) {
+        if (end < start) {
+            throw new IllegalArgumentException("Interval ends before it starts");
+        }
+        root = insert(root, start, end, id);
+    }
+
+    /**
+     * @return whether the interval was present
+     */
+    public boolean remove(long start, long end, long id) {
+        int before = size;
+        root = remove(root, start, end, id);
+        return size < before;
+    }
+
+    public boolean overlaps(long start, long end) {
+        return findOverlapping(start, end) != null;
+    }
+
+    /**
+     * @return the id of some interval sharing at least one point with {@code [start, end]}, or null
+     */
+    public Long findOverlapping(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.start <= end && node.end >= start) {
+                return node.id;
+            }
+            // If the left side reaches the query at all, the right side starts too late to overlap
+            if (node.left != null && node.left.maxEnd >= start) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    private Node insert(Node node, long start, long end, long id) {
+        if (node == null) {
+            size++;
+            return new Node(start, end, id);
+        }
+        int order = compare(start, id, node);
+        if (order < 0) {
+            node.left = insert(node.left, start, end, id);
+        } else if (order > 0) {
+            node.right = insert(node.right, start, end, id);
+        } else {
+            node.end = end;
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, long start, long end, long id) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(start, id, node);
+        if (order < 0) {
+            node.left = remove(node.left, start, end, id);
+        } else if (order > 0) {
+            node.right = remove(node.right, start, end, id);
+        } else {
+            if (node.end != end) {
+                return node;
+            }
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // Replace with the next interval in order, taken out of the right subtree
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            size++;
+            node.right = remove(node.right, successor.start, successor.end, successor.id);
+            node.start = successor.start;
+            node.end = successor.end;
+            node.id = successor.id;
+        }
+        return rebalance(node);
+    }
+
+    private static int compare(long start, long id, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Long.compare(id, node.id);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static final class Node {
+        private long start;
+        private long end;
+        private long id;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long start, long end, long id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+}
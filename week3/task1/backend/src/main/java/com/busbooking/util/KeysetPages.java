@@ -0,0 +1,57 @@
+package com.busbooking.util;
+
+import com.busbooking.dto.CursorPage;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination over id-ordered repository queries of the form
+ * {@code findResponsesAfter(afterId, pageable)}. Each page seeks straight to the
+ * last id seen instead of counting past an offset, so every page costs the same.
+ */
+public final class KeysetPages {
+
+    public static final int MAX_LIMIT = 500;
+
+    private KeysetPages() {
+    }
+
+    public static <E, D> CursorPage<D> page(BiFunction<Long, Pageable, List<E>> query, Function<E, Long> idOf,
+                                            Function<E, D> mapper, Long afterId, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        // One extra row tells us whether there is a next page without a count query
+        List<E> rows = query.apply(afterId != null ? afterId : 0L, PageRequest.of(0, limit + 1));
+        boolean more = rows.size() > limit;
+        List<E> pageRows = more ? rows.subList(0, limit) : rows;
+
+        CursorPage<D> page = new CursorPage<>();
+        page.setItems(pageRows.stream().map(mapper).toList());
+        page.setNextCursor(more ? idOf.apply(pageRows.get(limit - 1)) : null);
+        return page;
+    }
+
+    /**
+     * Hands each page to {@code pageConsumer} in id order until the table is exhausted. Only one
+     * page is held at a time.
+     */
+    public static <E> void forEachPage(BiFunction<Long, Pageable, List<E>> query, Function<E, Long> idOf,
+                                       int pageSize, Consumer<List<E>> pageConsumer) {
+        Long afterId = 0L;
+        List<E> rows;
+        do {
+            rows = query.apply(afterId, PageRequest.of(0, pageSize));
+            if (rows.isEmpty()) {
+                return;
+            }
+            afterId = idOf.apply(rows.get(rows.size() - 1));
+            pageConsumer.accept(rows);
+        } while (rows.size() == pageSize);
+    }
+}
@@ -0,0 +1,29 @@
+package com.busbooking.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes each value as one line of JSON (application/x-ndjson).
+ */
+public final class NdjsonWriter {
+
+    private NdjsonWriter() {
+    }
+
+    public static <T> Consumer<T> lines(OutputStream out, ObjectMapper objectMapper) {
+        return value -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(value));
+                out.write('\n');
+            } catch (IOException e) {
+                // Usually the client hung up; stops the database walk as well
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
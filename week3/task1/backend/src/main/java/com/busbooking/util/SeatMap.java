@@ -0,0 +1,178 @@
+package com.busbooking.util;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Seat occupancy of one schedule as a bitmap: bit {@code n - 1} is set when seat {@code n} is taken.
+ * Seat numbers are 1-based, as printed on the ticket.
+ *
+ * The persisted form is {@link #toBytes()}: one bit per seat, eight seats per byte, seat 1 in the
+ * lowest bit of the first byte.
+ */
+public class SeatMap {
+
+    private final int capacity;
+    private final long[] words;
+
+    public SeatMap(int capacity) {
+        this(capacity, new long[(capacity + 63) >>> 6]);
+    }
+
+    private SeatMap(int capacity, long[] words) {
+        this.capacity = capacity;
+        this.words = words;
+    }
+
+    public static SeatMap fromBytes(byte[] bytes, int capacity) {
+        SeatMap seatMap = new SeatMap(capacity);
+        int length = Math.min(bytes.length, (capacity + 7) >>> 3);
+        for (int i = 0; i < length; i++) {
+            seatMap.words[i >>> 3] |= (bytes[i] & 0xFFL) << ((i & 7) << 3);
+        }
+        // Seats beyond the bus capacity cannot be booked, whatever the stored map says
+        if ((capacity & 63) != 0) {
+            seatMap.words[seatMap.words.length - 1] &= (1L << capacity) - 1;
+        }
+        return seatMap;
+    }
+
+    /**
+     * A map for a schedule booked before seat numbers existed: the first {@code takenSeats} seats
+     * stand in for the seats already sold.
+     */
+    public static SeatMap withFirstSeatsTaken(int capacity, int takenSeats) {
+        SeatMap seatMap = new SeatMap(capacity);
+        int[] seats = seatMap.findFree(Math.max(0, Math.min(takenSeats, capacity)));
+        seatMap.take(seats);
+        return seatMap;
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[(capacity + 7) >>> 3];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (words[i >>> 3] >>> ((i & 7) << 3));
+        }
+        return bytes;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getTakenCount() {
+        int taken = 0;
+        for (long word : words) {
+            taken += Long.bitCount(word);
+        }
+        return taken;
+    }
+
+    public int getFreeCount() {
+        return capacity - getTakenCount();
+    }
+
+    public boolean isTaken(int seat) {
+        checkSeat(seat);
+        return (words[(seat - 1) >>> 6] & (1L << (seat - 1))) != 0;
+    }
+
+    public void take(int[] seats) {
+        for (int seat : seats) {
+            checkSeat(seat);
+            words[(seat - 1) >>> 6] |= 1L << (seat - 1);
+        }
+    }
+
+    public void release(int[] seats) {
+        for (int seat : seats) {
+            checkSeat(seat);
+            words[(seat - 1) >>> 6] &= ~(1L << (seat - 1));
+        }
+    }
+
+    /**
+     * Finds the lowest-numbered run of {@code count} consecutive free seats.
+     *
+     * @return the seat numbers, or null if no run is long enough
+     */
+    public int[] findAdjacentFree(int count) {
+        int start = nextFree(0);
+        while (start >= 0 && start + count <= capacity) {
+            int end = nextTaken(start);
+            if (end - start >= count) {
+                int[] seats = new int[count];
+                for (int i = 0; i < count; i++) {
+                    seats[i] = start + i + 1;
+                }
+                return seats;
+            }
+            start = nextFree(end);
+        }
+        return null;
+    }
+
+    /**
+     * Finds the {@code count} lowest-numbered free seats, adjacent or not.
+     *
+     * @return the seat numbers, or null if fewer seats are free
+     */
+    public int[] findFree(int count) {
+        int[] seats = new int[count];
+        int found = 0;
+        for (int index = nextFree(0); index >= 0 && found < count; index = nextFree(index + 1)) {
+            seats[found++] = index + 1;
+        }
+        return found == count ? seats : null;
+    }
+
+    public static String formatSeats(int[] seats) {
+        return Arrays.stream(seats).mapToObj(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    public static int[] parseSeats(String seats) {
+        if (seats == null || seats.isBlank()) {
+            return new int[0];
+        }
+        return Arrays.stream(seats.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    // Index of the first free seat at or after fromIndex, skipping full words at a time
+    private int nextFree(int fromIndex) {
+        if (fromIndex >= capacity) {
+            return -1;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long free = ~words[wordIndex] & (-1L << fromIndex);
+        while (free == 0) {
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            free = ~words[wordIndex];
+        }
+        int index = (wordIndex << 6) + Long.numberOfTrailingZeros(free);
+        return index < capacity ? index : -1;
+    }
+
+    // Index of the first taken seat at or after fromIndex, or capacity if there is none
+    private int nextTaken(int fromIndex) {
+        if (fromIndex >= capacity) {
+            return capacity;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long taken = words[wordIndex] & (-1L << fromIndex);
+        while (taken == 0) {
+            if (++wordIndex == words.length) {
+                return capacity;
+            }
+            taken = words[wordIndex];
+        }
+        return Math.min(capacity, (wordIndex << 6) + Long.numberOfTrailingZeros(taken));
+    }
+
+    private void checkSeat(int seat) {
+        if (seat < 1 || seat > capacity) {
+            throw new IllegalArgumentException("Seat " + seat + " does not exist");
+        }
+    }
+}
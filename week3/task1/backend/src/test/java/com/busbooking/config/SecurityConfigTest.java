@@ -0,0 +1,71 @@
+package com.busbooking.config;
+
+import com.busbooking.BusBookingApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityConfigTest {
+
+    private ConfigurableApplicationContext context;
+    private int serverPort;
+    private int managementPort;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverPort = freePort();
+        managementPort = freePort();
+        context = new SpringApplicationBuilder(BusBookingApplication.class)
+                .run(
+                        "--server.port=" + serverPort,
+                        "--management.server.port=" + managementPort,
+                        "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--app.data-loader.enabled=false");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void prometheus_OpenOnlyOnTheManagementPort() throws Exception {
+        // Act & Assert
+        assertEquals(200, get(managementPort, "/actuator/prometheus"));
+        assertEquals(403, get(managementPort, "/actuator/metrics"));
+        assertEquals(403, get(serverPort, "/actuator/prometheus"));
+        assertEquals(403, get(serverPort, "/api/schedules"));
+    }
+
+    private int get(int port, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
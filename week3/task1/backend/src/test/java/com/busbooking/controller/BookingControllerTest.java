@@ -1,7 +1,10 @@
 package com.busbooking.controller;
 
+import com.busbooking.dto.BookingResponse;
+import com.busbooking.dto.WaitlistResponse;
 import com.busbooking.entity.Booking;
 import com.busbooking.service.BookingService;
+import com.busbooking.service.WaitlistService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,11 +25,15 @@ class BookingControllerTest {
     @Mock
     private BookingService bookingService;
 
+    @Mock
+    private WaitlistService waitlistService;
+
     @InjectMocks
     private BookingController bookingController;
 
     private Booking booking;
-    private List<Booking> bookings;
+    private BookingResponse bookingResponse;
+    private List<BookingResponse> bookings;
 
     @BeforeEach
     void setUp() {
@@ -36,7 +43,13 @@ class BookingControllerTest {
         booking.setTotalAmount(100.0);
         booking.setStatus("CONFIRMED");
 
-        bookings = Arrays.asList(booking);
+        bookingResponse = new BookingResponse();
+        bookingResponse.setId(1L);
+        bookingResponse.setNumberOfSeats(2);
+        bookingResponse.setFare(100.0);
+        bookingResponse.setStatus("CONFIRMED");
+
+        bookings = Arrays.asList(bookingResponse);
     }
 
     @Test
@@ -70,13 +83,57 @@ class BookingControllerTest {
         verify(bookingService).createBooking(1L, 1L, 2);
     }
 
+    @Test
+    void createSeatBooking_Success() {
+        // Arrange
+        List<Integer> seatNumbers = Arrays.asList(3, 4);
+        when(bookingService.createBooking(1L, 1L, seatNumbers)).thenReturn(booking);
+
+        // Act
+        ResponseEntity<Booking> response = bookingController.createSeatBooking(1L, 1L, seatNumbers);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(booking, response.getBody());
+        verify(bookingService).createBooking(1L, 1L, seatNumbers);
+    }
+
+    @Test
+    void holdSeats_Success() {
+        // Arrange
+        booking.setStatus("PENDING");
+        when(bookingService.holdSeats(1L, 1L, 2, null)).thenReturn(booking);
+
+        // Act
+        ResponseEntity<Booking> response = bookingController.holdSeats(1L, 1L, 2, null);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals("PENDING", response.getBody().getStatus());
+        verify(bookingService).holdSeats(1L, 1L, 2, null);
+    }
+
+    @Test
+    void confirmHold_Success() {
+        // Arrange
+        when(bookingService.confirmHold(1L)).thenReturn(booking);
+
+        // Act
+        ResponseEntity<Booking> response = bookingController.confirmHold(1L);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(booking, response.getBody());
+        verify(bookingService).confirmHold(1L);
+    }
+
     @Test
     void getBooking_Success() {
         // Arrange
-        when(bookingService.getBookingById(anyLong())).thenReturn(booking);
+        when(bookingService.getBookingResponse(anyLong())).thenReturn(bookingResponse);
 
         // Act
-        ResponseEntity<Booking> response = bookingController.getBookingById(1L);
+        ResponseEntity<BookingResponse> response = bookingController.getBookingById(1L);
 
         // Assert
         assertNotNull(response);
@@ -84,27 +141,27 @@ class BookingControllerTest {
         assertNotNull(response.getBody());
         assertEquals(booking.getId(), response.getBody().getId());
         assertEquals(booking.getNumberOfSeats(), response.getBody().getNumberOfSeats());
-        assertEquals(booking.getTotalAmount(), response.getBody().getTotalAmount());
+        assertEquals(booking.getTotalAmount(), response.getBody().getFare());
         assertEquals(booking.getStatus(), response.getBody().getStatus());
 
-        verify(bookingService).getBookingById(1L);
+        verify(bookingService).getBookingResponse(1L);
     }
 
     @Test
     void getBooking_NotFound() {
         // Arrange
-        when(bookingService.getBookingById(anyLong()))
+        when(bookingService.getBookingResponse(anyLong()))
             .thenThrow(new RuntimeException("Booking not found"));
 
         // Act
-        ResponseEntity<Booking> response = bookingController.getBookingById(1L);
+        ResponseEntity<BookingResponse> response = bookingController.getBookingById(1L);
 
         // Assert
         assertNotNull(response);
         assertEquals(404, response.getStatusCodeValue());
         assertNull(response.getBody());
 
-        verify(bookingService).getBookingById(1L);
+        verify(bookingService).getBookingResponse(1L);
     }
 
     @Test
@@ -113,7 +170,7 @@ class BookingControllerTest {
         when(bookingService.getUserBookings(anyLong())).thenReturn(bookings);
 
         // Act
-        ResponseEntity<List<Booking>> response = bookingController.getUserBookings(1L);
+        ResponseEntity<List<BookingResponse>> response = bookingController.getUserBookings(1L);
 
         // Assert
         assertNotNull(response);
@@ -122,7 +179,7 @@ class BookingControllerTest {
         assertEquals(1, response.getBody().size());
         assertEquals(booking.getId(), response.getBody().get(0).getId());
         assertEquals(booking.getNumberOfSeats(), response.getBody().get(0).getNumberOfSeats());
-        assertEquals(booking.getTotalAmount(), response.getBody().get(0).getTotalAmount());
+        assertEquals(booking.getTotalAmount(), response.getBody().get(0).getFare());
         assertEquals(booking.getStatus(), response.getBody().get(0).getStatus());
 
         verify(bookingService).getUserBookings(1L);
@@ -154,4 +211,21 @@ class BookingControllerTest {
         assertThrows(RuntimeException.class, () -> bookingController.cancelBooking(1L));
         verify(bookingService).cancelBooking(1L);
     }
+
+    @Test
+    void joinWaitlist_Success() {
+        // Arrange
+        WaitlistResponse entry = new WaitlistResponse();
+        entry.setId(5L);
+        entry.setStatus("WAITING");
+        entry.setPosition(3L);
+        when(waitlistService.join(1L, 1L, 2)).thenReturn(entry);
+
+        // Act
+        ResponseEntity<WaitlistResponse> response = bookingController.joinWaitlist(1L, 1L, 2);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(3L, response.getBody().getPosition());
+    }
 } 
\ No newline at end of file
@@ -1,16 +1,24 @@
 package com.busbooking.controller;
 
+import com.busbooking.dto.BusResponse;
 import com.busbooking.entity.Bus;
 import com.busbooking.service.BusService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.function.Consumer;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,11 +32,15 @@ class BusControllerTest {
     @Mock
     private BusService busService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private BusController busController;
 
     private Bus bus;
-    private List<Bus> buses;
+    private BusResponse busResponse;
+    private List<BusResponse> buses;
 
     @BeforeEach
     void setUp() {
@@ -39,7 +51,9 @@ class BusControllerTest {
         bus.setTotalSeats(40);
         bus.setBusType("AC");
 
-        buses = Arrays.asList(bus);
+        busResponse = new BusResponse(1L, "BUS001", "Test Bus", 40, "AC");
+
+        buses = Arrays.asList(busResponse);
     }
 
     @Test
@@ -66,10 +80,10 @@ class BusControllerTest {
     @Test
     void getBus_Success() {
         // Arrange
-        when(busService.getBusById(anyLong())).thenReturn(bus);
+        when(busService.getBusResponse(anyLong())).thenReturn(busResponse);
 
         // Act
-        ResponseEntity<Bus> response = busController.getBusById(1L);
+        ResponseEntity<BusResponse> response = busController.getBusById(1L);
 
         // Assert
         assertNotNull(response);
@@ -81,18 +95,34 @@ class BusControllerTest {
         assertEquals(bus.getTotalSeats(), response.getBody().getTotalSeats());
         assertEquals(bus.getBusType(), response.getBody().getBusType());
 
-        verify(busService).getBusById(1L);
+        verify(busService).getBusResponse(1L);
     }
 
     @Test
     void getBus_NotFound() {
         // Arrange
-        when(busService.getBusById(anyLong()))
+        when(busService.getBusResponse(anyLong()))
             .thenThrow(new RuntimeException("Bus not found"));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> busController.getBusById(1L));
-        verify(busService).getBusById(1L);
+        verify(busService).getBusResponse(1L);
+    }
+
+    @Test
+    void getAvailableBuses_Success() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 8, 0);
+        LocalDateTime to = from.plusHours(6);
+        when(busService.getAvailableBuses(from, to)).thenReturn(buses);
+
+        // Act
+        ResponseEntity<List<BusResponse>> response = busController.getAvailableBuses(from, to);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(buses, response.getBody());
+        verify(busService).getAvailableBuses(from, to);
     }
 
     @Test
@@ -101,7 +131,7 @@ class BusControllerTest {
         when(busService.getAllBuses()).thenReturn(buses);
 
         // Act
-        ResponseEntity<List<Bus>> response = busController.getAllBuses();
+        ResponseEntity<List<BusResponse>> response = busController.getAllBuses();
 
         // Assert
         assertNotNull(response);
@@ -182,4 +212,31 @@ class BusControllerTest {
         assertThrows(RuntimeException.class, () -> busController.deleteBus(1L));
         verify(busService).deleteBus(1L);
     }
+
+    @Test
+    void streamBuses_WritesOneJsonObjectPerLine() throws Exception {
+        // Arrange
+        BusResponse first = new BusResponse();
+        first.setId(1L);
+        BusResponse second = new BusResponse();
+        second.setId(2L);
+        doAnswer(invocation -> {
+            Consumer<BusResponse> sink = invocation.getArgument(0);
+            sink.accept(first);
+            sink.accept(second);
+            return null;
+        }).when(busService).streamBuses(any());
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = busController.streamBuses();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        // Assert
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals(2L, objectMapper.readTree(lines[1]).get("id").asLong());
+    }
 } 
\ No newline at end of file
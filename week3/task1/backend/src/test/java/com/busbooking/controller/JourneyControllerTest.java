@@ -0,0 +1,47 @@
+package com.busbooking.controller;
+
+import com.busbooking.dto.JourneyPlanResponse;
+import com.busbooking.dto.JourneyResponse;
+import com.busbooking.service.JourneyPlanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JourneyControllerTest {
+
+    @Mock
+    private JourneyPlanner journeyPlanner;
+
+    @InjectMocks
+    private JourneyController journeyController;
+
+    @Test
+    void planJourney_Success() {
+        // Arrange
+        LocalDateTime departAfter = LocalDateTime.now();
+        JourneyResponse journey = new JourneyResponse();
+        journey.setTransfers(1);
+        JourneyPlanResponse plan = new JourneyPlanResponse();
+        plan.setEarliestArrival(journey);
+        plan.setCheapest(journey);
+        when(journeyPlanner.plan("Chennai", "Hyderabad", departAfter, 2, null)).thenReturn(plan);
+
+        // Act
+        ResponseEntity<JourneyPlanResponse> response =
+            journeyController.planJourney("Chennai", "Hyderabad", departAfter, 2, null);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(1, response.getBody().getEarliestArrival().getTransfers());
+        verify(journeyPlanner).plan("Chennai", "Hyderabad", departAfter, 2, null);
+    }
+}
@@ -1,7 +1,16 @@
 package com.busbooking.controller;
 
+import com.busbooking.dto.FareCalendarDayResponse;
+import com.busbooking.dto.ImportResult;
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.dto.SeatChangeFeedResponse;
+import com.busbooking.dto.SeatChangeResponse;
+import com.busbooking.dto.SeatMapResponse;
 import com.busbooking.entity.Schedule;
+import com.busbooking.service.BulkImportService;
 import com.busbooking.service.ScheduleService;
+import com.busbooking.service.SearchHeatTracker;
+import com.busbooking.service.SeatChangeFeed;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,12 +19,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -26,11 +40,21 @@ class ScheduleControllerTest {
     @Mock
     private ScheduleService scheduleService;
 
+    @Mock
+    private BulkImportService bulkImportService;
+
+    @Mock
+    private SeatChangeFeed seatChangeFeed;
+
+    @Mock
+    private SearchHeatTracker searchHeatTracker;
+
     @InjectMocks
     private ScheduleController scheduleController;
 
     private Schedule schedule;
-    private List<Schedule> schedules;
+    private ScheduleResponse scheduleResponse;
+    private List<ScheduleResponse> schedules;
 
     @BeforeEach
     void setUp() {
@@ -43,7 +67,16 @@ class ScheduleControllerTest {
         schedule.setFare(100.0);
         schedule.setAvailableSeats(40);
 
-        schedules = Arrays.asList(schedule);
+        scheduleResponse = new ScheduleResponse();
+        scheduleResponse.setId(1L);
+        scheduleResponse.setSource(schedule.getSource());
+        scheduleResponse.setDestination(schedule.getDestination());
+        scheduleResponse.setDepartureTime(schedule.getDepartureTime());
+        scheduleResponse.setArrivalTime(schedule.getArrivalTime());
+        scheduleResponse.setFare(schedule.getFare());
+        scheduleResponse.setAvailableSeats(schedule.getAvailableSeats());
+
+        schedules = Arrays.asList(scheduleResponse);
     }
 
     @Test
@@ -72,14 +105,16 @@ class ScheduleControllerTest {
     @Test
     void getSchedule_Success() {
         // Arrange
-        when(scheduleService.getScheduleById(anyLong())).thenReturn(schedule);
+        when(scheduleService.getScheduleRevision(anyLong())).thenReturn(3L);
+        when(scheduleService.getScheduleResponse(anyLong())).thenReturn(scheduleResponse);
 
         // Act
-        ResponseEntity<Schedule> response = scheduleController.getScheduleById(1L);
+        ResponseEntity<ScheduleResponse> response = scheduleController.getScheduleById(1L, null);
 
         // Assert
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
+        assertEquals("\"3\"", response.getHeaders().getETag());
         assertNotNull(response.getBody());
         assertEquals(schedule.getId(), response.getBody().getId());
         assertEquals(schedule.getSource(), response.getBody().getSource());
@@ -89,18 +124,86 @@ class ScheduleControllerTest {
         assertEquals(schedule.getFare(), response.getBody().getFare());
         assertEquals(schedule.getAvailableSeats(), response.getBody().getAvailableSeats());
 
-        verify(scheduleService).getScheduleById(1L);
+        verify(scheduleService).getScheduleResponse(1L);
+    }
+
+    @Test
+    void getSchedule_NotModified() {
+        // Arrange
+        when(scheduleService.getScheduleRevision(anyLong())).thenReturn(3L);
+
+        // Act
+        ResponseEntity<ScheduleResponse> response = scheduleController.getScheduleById(1L, "\"2\", W/\"3\"");
+
+        // Assert
+        assertEquals(304, response.getStatusCodeValue());
+        assertNull(response.getBody());
+        assertEquals("\"3\"", response.getHeaders().getETag());
+        verify(scheduleService, never()).getScheduleResponse(anyLong());
     }
 
     @Test
     void getSchedule_NotFound() {
         // Arrange
-        when(scheduleService.getScheduleById(anyLong()))
+        when(scheduleService.getScheduleRevision(anyLong()))
             .thenThrow(new RuntimeException("Schedule not found"));
 
         // Act & Assert
-        assertThrows(RuntimeException.class, () -> scheduleController.getScheduleById(1L));
-        verify(scheduleService).getScheduleById(1L);
+        assertThrows(RuntimeException.class, () -> scheduleController.getScheduleById(1L, null));
+        verify(scheduleService).getScheduleRevision(1L);
+    }
+
+    @Test
+    void getSeatMap_Success() {
+        // Arrange
+        SeatMapResponse seatMap = new SeatMapResponse();
+        seatMap.setScheduleId(1L);
+        seatMap.setTotalSeats(40);
+        seatMap.setAvailableSeats(40);
+        seatMap.setSeatMap("AAAAAAA=");
+        when(scheduleService.getScheduleRevision(anyLong())).thenReturn(5L);
+        when(scheduleService.getSeatMap(anyLong())).thenReturn(seatMap);
+
+        // Act
+        ResponseEntity<SeatMapResponse> response = scheduleController.getSeatMap(1L, "\"4\"");
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(seatMap, response.getBody());
+        assertEquals("\"5\"", response.getHeaders().getETag());
+        verify(scheduleService).getSeatMap(1L);
+    }
+
+    @Test
+    void getFareCalendar_Success() {
+        // Arrange
+        LocalDate from = LocalDate.now().plusDays(1);
+        List<FareCalendarDayResponse> calendar = List.of(new FareCalendarDayResponse(from, 450.0, 40, 2));
+        when(scheduleService.getFareCalendar("City A", "City B", from, 1)).thenReturn(calendar);
+
+        // Act
+        ResponseEntity<List<FareCalendarDayResponse>> response =
+            scheduleController.getFareCalendar("City A", "City B", from, 1);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(calendar, response.getBody());
+    }
+
+    @Test
+    void getSeatChanges_Success() {
+        // Arrange
+        SeatChangeFeedResponse changes = new SeatChangeFeedResponse();
+        changes.setVersion(12L);
+        changes.setChanges(List.of(new SeatChangeResponse(1L, 39, 12L)));
+        when(seatChangeFeed.changesSince(10L)).thenReturn(changes);
+
+        // Act
+        ResponseEntity<SeatChangeFeedResponse> response = scheduleController.getSeatChanges(10L);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(changes, response.getBody());
     }
 
     @Test
@@ -109,7 +212,7 @@ class ScheduleControllerTest {
         when(scheduleService.getAllSchedules()).thenReturn(schedules);
 
         // Act
-        ResponseEntity<List<Schedule>> response = scheduleController.getAllSchedules();
+        ResponseEntity<List<ScheduleResponse>> response = scheduleController.getAllSchedules();
 
         // Assert
         assertNotNull(response);
@@ -130,10 +233,20 @@ class ScheduleControllerTest {
     @Test
     void searchSchedules_Success() {
         // Arrange
-        when(scheduleService.searchSchedules(anyString(), anyString())).thenReturn(schedules);
+        ScheduleResponse summary = new ScheduleResponse();
+        summary.setId(schedule.getId());
+        summary.setSource(schedule.getSource());
+        summary.setDestination(schedule.getDestination());
+        summary.setDepartureTime(schedule.getDepartureTime());
+        summary.setArrivalTime(schedule.getArrivalTime());
+        summary.setFare(schedule.getFare());
+        summary.setAvailableSeats(schedule.getAvailableSeats());
+        when(scheduleService.searchSchedules(anyString(), anyString(), any(), any(), any(), anyString(), anyInt(), anyInt()))
+            .thenReturn(Arrays.asList(summary));
 
         // Act
-        ResponseEntity<List<Schedule>> response = scheduleController.searchSchedules("City A", "City B");
+        ResponseEntity<List<ScheduleResponse>> response =
+            scheduleController.searchSchedules("City A", "City B", null, null, null, "departure", 0, 20);
 
         // Assert
         assertNotNull(response);
@@ -148,7 +261,8 @@ class ScheduleControllerTest {
         assertEquals(schedule.getFare(), response.getBody().get(0).getFare());
         assertEquals(schedule.getAvailableSeats(), response.getBody().get(0).getAvailableSeats());
 
-        verify(scheduleService).searchSchedules("City A", "City B");
+        verify(scheduleService).searchSchedules("City A", "City B", null, null, null, "departure", 0, 20);
+        verify(searchHeatTracker).record("City A", "City B", null);
     }
 
     @Test
@@ -220,4 +334,20 @@ class ScheduleControllerTest {
         assertThrows(RuntimeException.class, () -> scheduleController.deleteSchedule(1L));
         verify(scheduleService).deleteSchedule(1L);
     }
+
+    @Test
+    void importSchedules_PassesBodyAndContentType() throws Exception {
+        // Arrange
+        InputStream body = new ByteArrayInputStream("busId,source\n".getBytes(StandardCharsets.UTF_8));
+        ImportResult result = new ImportResult();
+        result.setImported(1);
+        when(bulkImportService.importSchedules(body, "text/csv")).thenReturn(result);
+
+        // Act
+        ResponseEntity<ImportResult> response = scheduleController.importSchedules("text/csv", body);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertSame(result, response.getBody());
+    }
 } 
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.busbooking.service.CustomUserDetailsService;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,6 +12,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -20,6 +22,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -29,13 +32,15 @@ class JwtAuthenticationFilterTest {
     @Mock
     private CustomUserDetailsService userDetailsService;
 
+    private VerifiedTokenCache tokenCache;
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     private static final String TEST_SECRET = "testSecretKey1234567890123456789012345678901234567890";
     private static final String TEST_EMAIL = "test@example.com";
 
     @BeforeEach
     void setUp() {
-        jwtAuthenticationFilter = new JwtAuthenticationFilter(userDetailsService);
+        tokenCache = new VerifiedTokenCache();
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(userDetailsService, tokenCache);
         ReflectionTestUtils.setField(jwtAuthenticationFilter, "jwtSecret", TEST_SECRET);
     }
 
@@ -57,6 +62,46 @@ class JwtAuthenticationFilterTest {
         verify(userDetailsService).loadUserByUsername(TEST_EMAIL);
     }
 
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilterInternal_RepeatedTokenServedFromCache() throws Exception {
+        // Arrange
+        String token = generateToken(TEST_EMAIL);
+        UserDetails userDetails = new User(TEST_EMAIL, "password", new ArrayList<>());
+        when(userDetailsService.loadUserByUsername(TEST_EMAIL)).thenReturn(userDetails);
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            SecurityContextHolder.clearContext();
+            jwtAuthenticationFilter.doFilterInternal(bearer(token), new MockHttpServletResponse(), (req, res) -> {});
+        }
+
+        // Assert
+        verify(userDetailsService, times(1)).loadUserByUsername(TEST_EMAIL);
+        assertEquals(TEST_EMAIL, SecurityContextHolder.getContext().getAuthentication().getName());
+    }
+
+    @Test
+    void doFilterInternal_EvictedUserIsReloaded() throws Exception {
+        // Arrange
+        String token = generateToken(TEST_EMAIL);
+        UserDetails userDetails = new User(TEST_EMAIL, "password", new ArrayList<>());
+        when(userDetailsService.loadUserByUsername(TEST_EMAIL)).thenReturn(userDetails);
+        jwtAuthenticationFilter.doFilterInternal(bearer(token), new MockHttpServletResponse(), (req, res) -> {});
+
+        // Act
+        tokenCache.evict(TEST_EMAIL);
+        SecurityContextHolder.clearContext();
+        jwtAuthenticationFilter.doFilterInternal(bearer(token), new MockHttpServletResponse(), (req, res) -> {});
+
+        // Assert
+        verify(userDetailsService, times(2)).loadUserByUsername(TEST_EMAIL);
+    }
+
     @Test
     void doFilterInternal_InvalidToken() throws Exception {
         // Arrange
@@ -113,6 +158,12 @@ class JwtAuthenticationFilterTest {
         verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
 
+    private MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
     private String generateToken(String email) {
         SecretKey key = Keys.hmacShaKeyFor(TEST_SECRET.getBytes(StandardCharsets.UTF_8));
         return Jwts.builder()
@@ -0,0 +1,100 @@
+package com.busbooking.security;
+
+import com.busbooking.event.UserChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache tokenCache;
+    private UserDetails alice;
+    private UserDetails bob;
+
+    @BeforeEach
+    void setUp() {
+        tokenCache = new VerifiedTokenCache();
+        alice = new User("alice@example.com", "password", new ArrayList<>());
+        bob = new User("bob@example.com", "password", new ArrayList<>());
+    }
+
+    @Test
+    void get_ReturnsCachedUser() {
+        // Arrange
+        tokenCache.put("token-a", alice, System.currentTimeMillis() + 60000);
+
+        // Act & Assert
+        assertSame(alice, tokenCache.get("token-a"));
+        assertNull(tokenCache.get("token-b"));
+    }
+
+    @Test
+    void get_EntryNeverOutlivesToken() {
+        // Arrange
+        tokenCache.put("expired", alice, System.currentTimeMillis() - 1);
+        tokenCache.put("expiring", alice, System.currentTimeMillis() + 1);
+
+        // Act & Assert
+        assertNull(tokenCache.get("expired"));
+        await(5);
+        assertNull(tokenCache.get("expiring"));
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void get_EntryExpiresAfterTtl() {
+        // Arrange
+        ReflectionTestUtils.setField(tokenCache, "ttlSeconds", 0L);
+        tokenCache.put("token-a", alice, System.currentTimeMillis() + 60000);
+
+        // Act & Assert
+        assertNull(tokenCache.get("token-a"));
+    }
+
+    @Test
+    void onUserChanged_EvictsOnlyThatUsersTokens() {
+        // Arrange
+        long expiry = System.currentTimeMillis() + 60000;
+        tokenCache.put("alice-1", alice, expiry);
+        tokenCache.put("alice-2", alice, expiry);
+        tokenCache.put("bob-1", bob, expiry);
+
+        // Act
+        tokenCache.onUserChanged(new UserChangedEvent("alice@example.com"));
+
+        // Assert
+        assertNull(tokenCache.get("alice-1"));
+        assertNull(tokenCache.get("alice-2"));
+        assertSame(bob, tokenCache.get("bob-1"));
+    }
+
+    @Test
+    void put_StaysWithinMaxEntries() {
+        // Arrange
+        ReflectionTestUtils.setField(tokenCache, "maxEntries", 10);
+        long expiry = System.currentTimeMillis() + 60000;
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            tokenCache.put("token-" + i, i % 2 == 0 ? alice : bob, expiry);
+        }
+
+        // Assert
+        assertTrue(tokenCache.size() <= 10);
+        assertSame(bob, tokenCache.get("token-99"));
+    }
+
+    private void await(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityCubeTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @InjectMocks
+    private AvailabilityCube availabilityCube;
+
+    private Bus bus;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        bus = new Bus();
+        bus.setId(1L);
+        bus.setTotalSeats(40);
+
+        base = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    @Test
+    void day_SummarizesTheRouteDate() {
+        // Arrange
+        availabilityCube.put(schedule(1L, "Bangalore", "Chennai", base, 500.0, 40));
+        availabilityCube.put(schedule(2L, "Bangalore", "Chennai", base.plusHours(4), 350.0, 12));
+        availabilityCube.put(schedule(3L, "Bangalore", "Chennai", base.plusDays(1), 300.0, 40));
+        availabilityCube.put(schedule(4L, "Bangalore", "Mysore", base, 200.0, 40));
+
+        // Act
+        AvailabilityCube.Day day = availabilityCube.day("bangalore", "CHENNAI", base.toLocalDate());
+
+        // Assert
+        assertEquals(350.0, day.getMinFare());
+        assertEquals(52, day.getAvailableSeats());
+        assertEquals(2, day.getDepartures());
+        assertNull(availabilityCube.day("Bangalore", "Chennai", base.toLocalDate().plusDays(2)));
+    }
+
+    @Test
+    void updateAvailableSeats_SoldOutDepartureNoLongerSetsTheFare() {
+        // Arrange
+        availabilityCube.put(schedule(1L, "Bangalore", "Chennai", base, 500.0, 40));
+        availabilityCube.put(schedule(2L, "Bangalore", "Chennai", base.plusHours(4), 350.0, 2));
+
+        // Act & Assert
+        availabilityCube.updateAvailableSeats(2L, 1);
+        assertEquals(350.0, availabilityCube.day("Bangalore", "Chennai", base.toLocalDate()).getMinFare());
+        assertEquals(41, availabilityCube.day("Bangalore", "Chennai", base.toLocalDate()).getAvailableSeats());
+
+        availabilityCube.onSeatsChanged(new SeatsChangedEvent(2L, 0));
+        assertEquals(500.0, availabilityCube.day("Bangalore", "Chennai", base.toLocalDate()).getMinFare());
+        assertEquals(40, availabilityCube.day("Bangalore", "Chennai", base.toLocalDate()).getAvailableSeats());
+
+        availabilityCube.updateAvailableSeats(1L, 0);
+        assertNull(availabilityCube.day("Bangalore", "Chennai", base.toLocalDate()).getMinFare());
+        verifyNoInteractions(scheduleRepository);
+    }
+
+    @Test
+    void onScheduleChanged_MovesAndRemoves() {
+        // Arrange
+        Schedule schedule = schedule(1L, "Bangalore", "Chennai", base, 500.0, 40);
+        schedule.setTemplateId(7L);
+        availabilityCube.put(schedule);
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(
+            Optional.of(schedule(1L, "Bangalore", "Chennai", base.plusDays(1), 450.0, 40)));
+
+        // Act & Assert
+        assertEquals(Set.of(7L), availabilityCube.day("Bangalore", "Chennai", base.toLocalDate()).getTemplateIds());
+
+        availabilityCube.onScheduleChanged(new ScheduleChangedEvent(1L, false));
+        assertEquals(0, availabilityCube.day("Bangalore", "Chennai", base.toLocalDate()).getDepartures());
+        assertEquals(450.0, availabilityCube.day("Bangalore", "Chennai", base.toLocalDate().plusDays(1)).getMinFare());
+
+        availabilityCube.onScheduleChanged(new ScheduleChangedEvent(1L, true));
+        assertEquals(0, availabilityCube.day("Bangalore", "Chennai", base.toLocalDate().plusDays(1)).getDepartures());
+    }
+
+    @Test
+    void reload_KeepsOnlyTheHorizon() {
+        // Arrange
+        List<ScheduleResponse> upcoming = Arrays.asList(
+            ScheduleIndex.toSummary(schedule(1L, "Bangalore", "Chennai", base, 500.0, 40)),
+            ScheduleIndex.toSummary(schedule(2L, "Bangalore", "Chennai", base.plusDays(120), 300.0, 40)),
+            ScheduleIndex.toSummary(schedule(3L, "Bangalore", "Chennai", base.minusDays(3), 200.0, 40)));
+
+        // Act
+        availabilityCube.reload(upcoming, LocalDateTime.now());
+
+        // Assert
+        assertEquals(500.0, availabilityCube.day("Bangalore", "Chennai", base.toLocalDate()).getMinFare());
+        assertNull(availabilityCube.day("Bangalore", "Chennai", base.toLocalDate().plusDays(120)));
+        assertNull(availabilityCube.day("Bangalore", "Chennai", LocalDate.now().minusDays(2)));
+    }
+
+    private Schedule schedule(Long id, String source, String destination, LocalDateTime departure, double fare,
+                              int availableSeats) {
+        Schedule schedule = new Schedule();
+        schedule.setId(id);
+        schedule.setBus(bus);
+        schedule.setSource(source);
+        schedule.setDestination(destination);
+        schedule.setDepartureTime(departure);
+        schedule.setArrivalTime(departure.plusHours(6));
+        schedule.setFare(fare);
+        schedule.setAvailableSeats(availableSeats);
+        return schedule;
+    }
+}
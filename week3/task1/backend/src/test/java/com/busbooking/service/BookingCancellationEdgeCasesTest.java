@@ -6,19 +6,24 @@ import com.busbooking.entity.User;
 import com.busbooking.repository.BookingRepository;
 import com.busbooking.repository.ScheduleRepository;
 import com.busbooking.repository.UserRepository;
+import com.busbooking.repository.WaitlistRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,14 +38,27 @@ class BookingCancellationEdgeCasesTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    @Spy
+    private SeatInventory seatInventory = new SeatInventory();
+
+    @Spy
+    private UserBookingIndex userBookingIndex = new UserBookingIndex();
+
+    @Spy
+    private BookingMetrics bookingMetrics = new BookingMetrics(new SimpleMeterRegistry(), 3, 60);
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookingService bookingService;
 
     private User user;
     private Schedule schedule;
     private Booking booking;
-    private ArgumentCaptor<Booking> bookingCaptor;
-    private ArgumentCaptor<Schedule> scheduleCaptor;
 
     @BeforeEach
     void setUp() {
@@ -63,160 +81,106 @@ class BookingCancellationEdgeCasesTest {
         booking.setTotalAmount(100.0);
         booking.setBookingDate(LocalDateTime.now());
         booking.setStatus("CONFIRMED");
+    }
 
-        bookingCaptor = ArgumentCaptor.forClass(Booking.class);
-        scheduleCaptor = ArgumentCaptor.forClass(Schedule.class);
+    private void stubCancellation() {
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
+        // The counter this instance already holds, which the released seats go back to
+        seatInventory.getAvailableSeats(1L, () -> 10);
     }
 
     @Test
     void cancelBooking_WithPartialRefund() {
         // Arrange
-        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
-        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(i -> i.getArgument(0));
+        schedule.setDepartureTime(LocalDateTime.now().plusHours(18));
+        stubCancellation();
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(bookingRepository).save(bookingCaptor.capture());
-        verify(scheduleRepository).save(scheduleCaptor.capture());
-
-        Booking savedBooking = bookingCaptor.getValue();
-        Schedule savedSchedule = scheduleCaptor.getValue();
-
-        assertEquals("CANCELLED", savedBooking.getStatus());
-        assertEquals(12, savedSchedule.getAvailableSeats()); // Original 10 + 2 seats returned
+        verify(bookingRepository).cancelIfStatus(1L, "CONFIRMED", 50.0); // Half refund
+        assertEquals(12, seatInventory.getAvailableSeats(1L, () -> 10)); // Original 10 + 2 seats returned
     }
 
     @Test
     void cancelBooking_WithFullRefund() {
         // Arrange
         schedule.setDepartureTime(LocalDateTime.now().plusDays(2));
-        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
-        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(i -> i.getArgument(0));
+        stubCancellation();
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(bookingRepository).save(bookingCaptor.capture());
-        verify(scheduleRepository).save(scheduleCaptor.capture());
-
-        Booking savedBooking = bookingCaptor.getValue();
-        Schedule savedSchedule = scheduleCaptor.getValue();
-
-        assertEquals("CANCELLED", savedBooking.getStatus());
-        assertEquals(100.0, savedBooking.getTotalAmount(), 0.001); // Full refund
-        assertEquals(12, savedSchedule.getAvailableSeats()); // Original 10 + 2 seats returned
+        verify(bookingRepository).cancelIfStatus(1L, "CONFIRMED", 100.0); // Full refund
+        assertEquals(12, seatInventory.getAvailableSeats(1L, () -> 10)); // Original 10 + 2 seats returned
     }
 
     @Test
     void cancelBooking_WithNoRefund() {
         // Arrange
         schedule.setDepartureTime(LocalDateTime.now().plusMinutes(30));
-        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
-        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(i -> i.getArgument(0));
+        stubCancellation();
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(bookingRepository).save(bookingCaptor.capture());
-        verify(scheduleRepository).save(scheduleCaptor.capture());
-
-        Booking savedBooking = bookingCaptor.getValue();
-        Schedule savedSchedule = scheduleCaptor.getValue();
-
-        assertEquals("CANCELLED", savedBooking.getStatus());
-        assertEquals(0.0, savedBooking.getTotalAmount(), 0.001); // No refund
-        assertEquals(12, savedSchedule.getAvailableSeats()); // Original 10 + 2 seats returned
+        verify(bookingRepository).cancelIfStatus(1L, "CONFIRMED", 0.0); // No refund
+        assertEquals(12, seatInventory.getAvailableSeats(1L, () -> 10)); // Original 10 + 2 seats returned
     }
 
     @Test
     void cancelBooking_WithMultipleSeats() {
         // Arrange
         booking.setNumberOfSeats(5);
-        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
-        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(i -> i.getArgument(0));
+        stubCancellation();
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(bookingRepository).save(bookingCaptor.capture());
-        verify(scheduleRepository).save(scheduleCaptor.capture());
-
-        Booking savedBooking = bookingCaptor.getValue();
-        Schedule savedSchedule = scheduleCaptor.getValue();
-
-        assertEquals("CANCELLED", savedBooking.getStatus());
-        assertEquals(15, savedSchedule.getAvailableSeats()); // Original 10 + 5 seats returned
+        assertEquals(15, seatInventory.getAvailableSeats(1L, () -> 10)); // Original 10 + 5 seats returned
+        verify(scheduleRepository).releaseSeats(1L, 5);
     }
 
     @Test
     void cancelBooking_WithScheduleUpdate() {
         // Arrange
-        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
-        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(i -> i.getArgument(0));
+        stubCancellation();
 
         // Act
         bookingService.cancelBooking(1L);
 
-        // Assert
-        verify(bookingRepository).save(bookingCaptor.capture());
-        verify(scheduleRepository).save(scheduleCaptor.capture());
-
-        Booking savedBooking = bookingCaptor.getValue();
-        Schedule savedSchedule = scheduleCaptor.getValue();
-
-        assertEquals("CANCELLED", savedBooking.getStatus());
-        assertEquals(12, savedSchedule.getAvailableSeats()); // Original 10 + 2 seats returned
+        // Assert: seats go back with a relative update, not a save of the loaded schedule
+        verify(scheduleRepository, never()).save(any(Schedule.class));
+        verify(scheduleRepository).releaseSeats(1L, 2);
+        assertEquals(12, seatInventory.getAvailableSeats(1L, () -> 10)); // Original 10 + 2 seats returned
     }
 
     @Test
     void cancelBooking_WithUserNotification() {
         // Arrange
-        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
-        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(i -> i.getArgument(0));
+        stubCancellation();
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(bookingRepository).save(bookingCaptor.capture());
-        verify(scheduleRepository).save(scheduleCaptor.capture());
-
-        Booking savedBooking = bookingCaptor.getValue();
-        Schedule savedSchedule = scheduleCaptor.getValue();
-
-        assertEquals("CANCELLED", savedBooking.getStatus());
-        assertEquals(12, savedSchedule.getAvailableSeats()); // Original 10 + 2 seats returned
+        verify(bookingRepository).cancelIfStatus(eq(1L), eq("CONFIRMED"), anyDouble());
+        assertEquals(12, seatInventory.getAvailableSeats(1L, () -> 10)); // Original 10 + 2 seats returned
     }
 
     @Test
     void cancelBooking_WithConcurrentScheduleUpdate() {
-        // Arrange
+        // Arrange: another request cancelled the booking first
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenAnswer(i -> i.getArgument(0));
-        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(i -> i.getArgument(0));
-
-        // Act
-        bookingService.cancelBooking(1L);
-
-        // Assert
-        verify(bookingRepository).save(bookingCaptor.capture());
-        verify(scheduleRepository).save(scheduleCaptor.capture());
-
-        Booking savedBooking = bookingCaptor.getValue();
-        Schedule savedSchedule = scheduleCaptor.getValue();
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(0);
 
-        assertEquals("CANCELLED", savedBooking.getStatus());
-        assertEquals(12, savedSchedule.getAvailableSeats()); // Original 10 + 2 seats returned
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> bookingService.cancelBooking(1L));
+        verify(scheduleRepository, never()).releaseSeats(anyLong(), anyInt()); // No seats released twice
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package com.busbooking.service;
+
+import com.busbooking.exception.BookingRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingMetrics bookingMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookingMetrics = new BookingMetrics(meterRegistry, 2, 3600);
+    }
+
+    @Test
+    void recordBooking_TagsOutcome() {
+        // Act
+        bookingMetrics.recordBooking("book", () -> "ok");
+        assertThrows(BookingRejectedException.class, () -> bookingMetrics.recordBooking("hold", () -> {
+            throw new BookingRejectedException(BookingRejectedException.Reason.SEATS_EXHAUSTED, "Not enough seats available");
+        }));
+        assertThrows(CannotAcquireLockException.class, () -> bookingMetrics.recordBooking("book", () -> {
+            throw new CannotAcquireLockException("Timeout trying to lock table");
+        }));
+
+        // Assert
+        assertEquals(1, meterRegistry.get("booking.create").tags("type", "book", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("booking.create").tags("type", "hold", "outcome", "seats_exhausted").timer().count());
+        assertEquals(1, meterRegistry.get("booking.create").tags("type", "book", "outcome", "lock_timeout").timer().count());
+    }
+
+    @Test
+    void recordCancellation_TagsOutcome() {
+        // Act
+        bookingMetrics.recordCancellation(() -> { });
+        assertThrows(RuntimeException.class, () -> bookingMetrics.recordCancellation(() -> {
+            throw new RuntimeException("Booking not found");
+        }));
+
+        // Assert
+        assertEquals(1, meterRegistry.get("booking.cancel").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("booking.cancel").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void hotScheduleGauges_RankSchedulesByLockWait() {
+        // Arrange
+        bookingMetrics.recordLockWait(1L, () -> pause(2));
+        bookingMetrics.recordLockWait(2L, () -> pause(30));
+        bookingMetrics.recordLockWait(3L, () -> pause(15));
+        bookingMetrics.recordLockWait(1L, () -> pause(2));
+
+        // Act
+        bookingMetrics.rotate();
+
+        // Assert: only the two hottest are reported, the hottest first
+        assertEquals(2.0, meterRegistry.get("booking.contention.hot.schedule").tag("rank", "1").gauge().value());
+        assertEquals(3.0, meterRegistry.get("booking.contention.hot.schedule").tag("rank", "2").gauge().value());
+        assertTrue(meterRegistry.get("booking.contention.hot.wait").tag("rank", "1").gauge().value() >= 30.0);
+        assertEquals(2, meterRegistry.find("booking.contention.hot.schedule").gauges().size());
+        assertEquals(4, meterRegistry.get("booking.seat.lock.wait").timer().count());
+    }
+
+    @Test
+    void hotScheduleGauges_EmptyWindowReportsNothing() {
+        // Act
+        bookingMetrics.rotate();
+
+        // Assert
+        assertTrue(Double.isNaN(meterRegistry.get("booking.contention.hot.schedule").tag("rank", "1").gauge().value()));
+    }
+
+    private Object pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
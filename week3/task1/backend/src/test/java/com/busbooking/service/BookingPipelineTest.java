@@ -0,0 +1,185 @@
+package com.busbooking.service;
+
+import com.busbooking.BusBookingApplication;
+import com.busbooking.dto.BookingTicketResponse;
+import com.busbooking.entity.Booking;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.User;
+import com.busbooking.repository.BookingRepository;
+import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookingPipelineTest {
+
+    private static final int CAPACITY = 10;
+    private static final int NUMBER_OF_USERS = 15;
+
+    private ConfigurableApplicationContext context;
+    private BookingPipeline bookingPipeline;
+    private Long scheduleId;
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        context = new SpringApplicationBuilder(BusBookingApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--app.data-loader.enabled=false",
+                        "--app.booking.pipeline.enabled=true",
+                        "--app.booking.pipeline.batch-size=4",
+                        "--app.booking.pipeline.max-queued-per-schedule=20");
+        bookingPipeline = context.getBean(BookingPipeline.class);
+
+        Bus bus = new Bus();
+        bus.setBusNumber("KA-01-1234");
+        bus.setBusName("Express");
+        bus.setTotalSeats(CAPACITY);
+        bus.setBusType("AC");
+        bus = context.getBean(BusRepository.class).save(bus);
+
+        Schedule schedule = new Schedule();
+        schedule.setBus(bus);
+        schedule.setSource("Bangalore");
+        schedule.setDestination("Chennai");
+        schedule.setDepartureTime(LocalDateTime.now().plusDays(1));
+        schedule.setArrivalTime(LocalDateTime.now().plusDays(1).plusHours(6));
+        schedule.setFare(500.0);
+        schedule.setAvailableSeats(CAPACITY);
+        scheduleId = context.getBean(ScheduleRepository.class).save(schedule).getId();
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        for (int i = 0; i < NUMBER_OF_USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("password");
+            user.setFullName("User " + i);
+            user.setPhoneNumber("9000000" + String.format("%03d", i));
+            userIds.add(userRepository.save(user).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void submitBooking_RejectionsDoNotUndoTheRestOfTheBatch() throws Exception {
+        // Arrange
+        List<BookingTicketResponse> submitted = new ArrayList<>();
+
+        // Act
+        for (Long userId : userIds) {
+            submitted.add(bookingPipeline.submitBooking(scheduleId, userId, 1, null));
+        }
+        List<BookingTicketResponse> results = new ArrayList<>();
+        for (BookingTicketResponse ticket : submitted) {
+            results.add(bookingPipeline.whenDone(ticket.getId()).get(10, TimeUnit.SECONDS));
+        }
+
+        // Assert
+        assertEquals(BookingPipeline.QUEUED, submitted.get(0).getStatus());
+        assertTrue(results.subList(0, CAPACITY).stream()
+                .allMatch(result -> BookingPipeline.SUCCEEDED.equals(result.getStatus()) && result.getBookingId() != null));
+        assertTrue(results.subList(CAPACITY, NUMBER_OF_USERS).stream()
+                .allMatch(result -> "seats_exhausted".equals(result.getOutcome())));
+        assertEquals(CAPACITY, context.getBean(BookingRepository.class).findAll().stream()
+                .filter(booking -> "CONFIRMED".equals(booking.getStatus()))
+                .count());
+        assertEquals(0, context.getBean(ScheduleRepository.class).findById(scheduleId).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void submitCancellation_ReleasesSeats() throws Exception {
+        // Arrange
+        BookingTicketResponse booked = bookingPipeline.whenDone(
+                bookingPipeline.submitBooking(scheduleId, userIds.get(0), null, List.of(3, 4)).getId())
+                .get(10, TimeUnit.SECONDS);
+
+        // Act
+        BookingTicketResponse cancelled = bookingPipeline.whenDone(
+                bookingPipeline.submitCancellation(booked.getBookingId()).getId())
+                .get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(BookingPipeline.SUCCEEDED, cancelled.getStatus());
+        Booking booking = context.getBean(BookingRepository.class).findById(booked.getBookingId()).orElseThrow();
+        assertEquals("CANCELLED", booking.getStatus());
+        assertEquals(CAPACITY, context.getBean(ScheduleRepository.class).findById(scheduleId).orElseThrow().getAvailableSeats());
+        assertEquals(cancelled, bookingPipeline.getTicket(cancelled.getId()));
+    }
+
+    @Test
+    void submitBooking_DatabaseErrorIsNotARejection() throws Exception {
+        // Arrange: a pipeline whose transactions cannot be started
+        PlatformTransactionManager unavailable = mock(PlatformTransactionManager.class);
+        when(unavailable.getTransaction(any())).thenThrow(new CannotCreateTransactionException("Connection refused"));
+        BookingPipeline pipeline = new BookingPipeline();
+        ReflectionTestUtils.setField(pipeline, "bookingService", context.getBean(BookingService.class));
+        ReflectionTestUtils.setField(pipeline, "transactionManager", unavailable);
+        pipeline.start();
+
+        try {
+            // Act
+            BookingTicketResponse result = pipeline.whenDone(
+                    pipeline.submitBooking(scheduleId, userIds.get(0), 1, null).getId())
+                    .get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(BookingPipeline.ERROR, result.getStatus());
+            assertEquals("error", result.getOutcome());
+            assertNull(result.getBookingId());
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void submitBooking_AfterShutdownIsNotLeftQueued() throws Exception {
+        // Arrange
+        BookingPipeline pipeline = new BookingPipeline();
+        ReflectionTestUtils.setField(pipeline, "bookingService", context.getBean(BookingService.class));
+        ReflectionTestUtils.setField(pipeline, "transactionManager", context.getBean(PlatformTransactionManager.class));
+        pipeline.start();
+        pipeline.stop();
+
+        // Act
+        BookingTicketResponse result = pipeline.whenDone(
+                pipeline.submitBooking(scheduleId, userIds.get(0), 1, null).getId())
+                .get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(BookingPipeline.ERROR, result.getStatus());
+        assertTrue(context.getBean(BookingRepository.class).findAll().isEmpty());
+    }
+}
@@ -7,12 +7,17 @@ import com.busbooking.entity.User;
 import com.busbooking.repository.BookingRepository;
 import com.busbooking.repository.ScheduleRepository;
 import com.busbooking.repository.UserRepository;
+import com.busbooking.repository.WaitlistRepository;
+import com.busbooking.util.SeatMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -25,7 +30,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,9 +45,24 @@ class BookingServiceEdgeCasesTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
     @Mock
     private ScheduleRepository scheduleRepository;
 
+    @Spy
+    private SeatInventory seatInventory = new SeatInventory();
+
+    @Spy
+    private UserBookingIndex userBookingIndex = new UserBookingIndex();
+
+    @Spy
+    private BookingMetrics bookingMetrics = new BookingMetrics(new SimpleMeterRegistry(), 3, 60);
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookingService bookingService;
 
@@ -88,63 +111,88 @@ class BookingServiceEdgeCasesTest {
     @Test
     void createBooking_ConcurrentBookings_SameSchedule() throws InterruptedException {
         // Arrange
+        schedule.setAvailableSeats(5);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(Arrays.asList());
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(Arrays.asList());
+when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(invocation -> {
-            Schedule savedSchedule = invocation.getArgument(0);
-            if (savedSchedule.getAvailableSeats() < 0) {
-                throw new RuntimeException("Not enough seats available");
-            }
-            return savedSchedule;
-        });
 
-        int numberOfThreads = 3;
+        int numberOfThreads = 20;
         ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        CountDownLatch startLatch = new CountDownLatch(1);
         CountDownLatch latch = new CountDownLatch(numberOfThreads);
         AtomicInteger successfulBookings = new AtomicInteger(0);
         AtomicInteger failedBookings = new AtomicInteger(0);
 
         // Act
         for (int i = 0; i < numberOfThreads; i++) {
+            // A different passenger per thread, so only seat contention decides who gets in
+            long userId = i + 1;
             executorService.submit(() -> {
                 try {
-                    bookingService.createBooking(1L, 1L, 1);
+                    startLatch.await();
+                    bookingService.createBooking(1L, userId, 1);
                     successfulBookings.incrementAndGet();
                 } catch (RuntimeException e) {
-                    if (e.getMessage().contains("currently being booked") || 
-                        e.getMessage().contains("Not enough seats available")) {
+                    if (e.getMessage().contains("Not enough seats available")) {
                         failedBookings.incrementAndGet();
                     } else {
                         throw e;
                     }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 } finally {
                     latch.countDown();
                 }
             });
         }
+        startLatch.countDown();
         latch.await();
         executorService.shutdown();
 
-        // Assert
-        verify(scheduleRepository, times(1)).save(any(Schedule.class));
+        // Assert: contention never rejects a booking while seats remain
+        assertEquals(5, successfulBookings.get());
+        assertEquals(15, failedBookings.get());
+        assertEquals(0, seatInventory.getAvailableSeats(1L, () -> 5));
+        verify(scheduleRepository, times(5)).updateSeatMap(eq(1L), any(), anyInt());
+        verify(scheduleRepository, never()).save(any(Schedule.class));
+    }
+
+    @Test
+    void createBooking_SeatsTakenByAnotherInstance() {
+        // Arrange: the local counter still shows seats, but the database row is sold out
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(Arrays.asList());
+        SeatMap soldOut = SeatMap.withFirstSeatsTaken(40, 40);
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(soldOut.toBytes());
+
+        // Act
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            bookingService.createBooking(1L, 1L, 1));
+
+        // Assert: the stale counter is dropped and reloaded on next use
+        assertEquals("Not enough seats available", exception.getMessage());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        assertEquals(0, seatInventory.getAvailableSeats(1L, () -> 0));
     }
 
     @Test
     void createBooking_MaximumSeats() {
         // Arrange
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(Arrays.asList());
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(Arrays.asList());
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
 
         // Act
         bookingService.createBooking(1L, 1L, 40);
 
         // Assert
-        verify(scheduleRepository).save(argThat(s -> s.getAvailableSeats() == 0));
+        assertEquals(0, seatInventory.getAvailableSeats(1L, () -> 40));
+        assertThrows(RuntimeException.class, () -> bookingService.createBooking(1L, 2L, 1));
     }
 
     @Test
@@ -166,7 +214,7 @@ class BookingServiceEdgeCasesTest {
         // Arrange
         schedule.setDepartureTime(LocalDateTime.now().plusMinutes(30));
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
 
         // Act & Assert
         assertThrows(IllegalStateException.class, () -> 
@@ -178,7 +226,7 @@ class BookingServiceEdgeCasesTest {
         // Arrange
         schedule.setDepartureTime(LocalDateTime.now().minusHours(1));
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
 
         // Act & Assert
         assertThrows(IllegalStateException.class, () -> 
@@ -189,8 +237,8 @@ class BookingServiceEdgeCasesTest {
     void createBooking_UserWithMultipleBookings() {
         // Arrange
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(
             Arrays.asList(booking, booking, booking, booking, booking)
         );
 
@@ -205,12 +253,12 @@ class BookingServiceEdgeCasesTest {
         Booking cancelledBooking = new Booking();
         cancelledBooking.setStatus("CANCELLED");
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(
             Arrays.asList(cancelledBooking, cancelledBooking)
         );
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
 
         // Act
         Booking result = bookingService.createBooking(1L, 1L, 1);
@@ -226,12 +274,12 @@ class BookingServiceEdgeCasesTest {
         Booking expiredBooking = new Booking();
         expiredBooking.setStatus("EXPIRED");
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(
             Arrays.asList(expiredBooking, expiredBooking)
         );
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
 
         // Act
         Booking result = bookingService.createBooking(1L, 1L, 1);
@@ -244,18 +292,15 @@ class BookingServiceEdgeCasesTest {
     @Test
     void cancelBooking_WithPartialRefund() {
         // Arrange
-        schedule.setDepartureTime(LocalDateTime.now().plusHours(12));
+        schedule.setDepartureTime(LocalDateTime.now().plusHours(18));
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(bookingRepository).save(argThat(b -> 
-            "CANCELLED".equals(b.getStatus()) && 
-            b.getTotalAmount() == booking.getTotalAmount() * 0.5));
+        verify(bookingRepository).cancelIfStatus(1L, "CONFIRMED", 50.0);
     }
 
     @Test
@@ -263,16 +308,13 @@ class BookingServiceEdgeCasesTest {
         // Arrange
         schedule.setDepartureTime(LocalDateTime.now().plusDays(2));
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(bookingRepository).save(argThat(b -> 
-            "CANCELLED".equals(b.getStatus()) && 
-            b.getTotalAmount() == booking.getTotalAmount()));
+        verify(bookingRepository).cancelIfStatus(1L, "CONFIRMED", 100.0);
     }
 
     @Test
@@ -280,16 +322,13 @@ class BookingServiceEdgeCasesTest {
         // Arrange
         schedule.setDepartureTime(LocalDateTime.now().plusMinutes(30));
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(bookingRepository).save(argThat(b -> 
-            "CANCELLED".equals(b.getStatus()) && 
-            b.getTotalAmount() == 0.0));
+        verify(bookingRepository).cancelIfStatus(1L, "CONFIRMED", 0.0);
     }
 
     @Test
@@ -301,18 +340,15 @@ class BookingServiceEdgeCasesTest {
         booking.setNumberOfSeats(bookedSeats);
 
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(invocation -> {
-            Schedule savedSchedule = invocation.getArgument(0);
-            assertEquals(initialAvailableSeats, savedSchedule.getAvailableSeats());
-            return savedSchedule;
-        });
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
+        seatInventory.getAvailableSeats(1L, schedule::getAvailableSeats);
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(scheduleRepository).save(any(Schedule.class));
+        assertEquals(initialAvailableSeats, seatInventory.getAvailableSeats(1L, () -> 0));
+        verify(scheduleRepository).releaseSeats(1L, bookedSeats);
     }
 
     @Test
@@ -324,26 +360,23 @@ class BookingServiceEdgeCasesTest {
         booking.setNumberOfSeats(bookedSeats);
 
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(invocation -> {
-            Schedule savedSchedule = invocation.getArgument(0);
-            assertEquals(initialAvailableSeats, savedSchedule.getAvailableSeats());
-            return savedSchedule;
-        });
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
+        seatInventory.getAvailableSeats(1L, schedule::getAvailableSeats);
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(scheduleRepository).save(any(Schedule.class));
+        assertEquals(initialAvailableSeats, seatInventory.getAvailableSeats(1L, () -> 0));
+        verify(scheduleRepository, never()).save(any(Schedule.class));
     }
 
     @Test
     void cancelBooking_WithConcurrentScheduleUpdate() throws InterruptedException {
-        // Arrange
+        // Arrange: only the first status change can succeed
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1, 0, 0);
+        seatInventory.getAvailableSeats(1L, schedule::getAvailableSeats);
 
         int numberOfThreads = 3;
         ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
@@ -352,6 +385,8 @@ class BookingServiceEdgeCasesTest {
 
         // Act
         for (int i = 0; i < numberOfThreads; i++) {
+            // A different passenger per thread, so only seat contention decides who gets in
+            long userId = i + 1;
             executorService.submit(() -> {
                 try {
                     bookingService.cancelBooking(1L);
@@ -364,10 +399,12 @@ class BookingServiceEdgeCasesTest {
             });
         }
         latch.await();
+        executorService.shutdown();
 
-        // Assert
+        // Assert: seats are released exactly once
         assertEquals(1, successfulUpdates.get());
-        verify(scheduleRepository, times(1)).save(any(Schedule.class));
+        assertEquals(41, seatInventory.getAvailableSeats(1L, () -> 0));
+        verify(scheduleRepository, times(1)).releaseSeats(1L, 1);
     }
 
     @Test
@@ -406,16 +443,14 @@ class BookingServiceEdgeCasesTest {
     void cancelBooking_WithZeroAmount() {
         // Arrange
         booking.setTotalAmount(0.0);
+        schedule.setDepartureTime(LocalDateTime.now().plusDays(2));
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
-        verify(bookingRepository).save(argThat(b -> 
-            "CANCELLED".equals(b.getStatus()) && 
-            b.getTotalAmount() == 0.0));
+        verify(bookingRepository).cancelIfStatus(1L, "CONFIRMED", 0.0);
     }
 } 
\ No newline at end of file
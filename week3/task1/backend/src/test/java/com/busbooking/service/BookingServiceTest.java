@@ -1,19 +1,31 @@
 package com.busbooking.service;
 
+import com.busbooking.dto.BookingResponse;
 import com.busbooking.entity.Booking;
 import com.busbooking.entity.Bus;
 import com.busbooking.entity.Schedule;
 import com.busbooking.entity.User;
+import com.busbooking.entity.WaitlistEntry;
+import com.busbooking.event.HoldsExpiredEvent;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.event.WaitlistUpdatedEvent;
+import com.busbooking.exception.BookingRejectedException;
 import com.busbooking.repository.BookingRepository;
 import com.busbooking.repository.BusRepository;
 import com.busbooking.repository.ScheduleRepository;
 import com.busbooking.repository.UserRepository;
+import com.busbooking.repository.WaitlistRepository;
+import com.busbooking.util.SeatMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -22,6 +34,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,12 +47,32 @@ class BookingServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
     @Mock
     private BusRepository busRepository;
 
     @Mock
     private ScheduleRepository scheduleRepository;
 
+    @Spy
+    private SeatInventory seatInventory = new SeatInventory();
+
+    @Spy
+    private UserBookingIndex userBookingIndex = new UserBookingIndex();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private BookingMetrics bookingMetrics = new BookingMetrics(meterRegistry, 3, 60);
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private HoldExpiryWheel holdExpiryWheel = new HoldExpiryWheel();
+
     @InjectMocks
     private BookingService bookingService;
 
@@ -87,9 +121,9 @@ class BookingServiceTest {
     void createBooking_Success() {
         // Arrange
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
 
         // Act
         Booking response = bookingService.createBooking(1L, 1L, 1);
@@ -105,18 +139,87 @@ class BookingServiceTest {
 
         verify(userRepository).findById(1L);
         verify(bookingRepository).save(any(Booking.class));
-        verify(scheduleRepository).save(any(Schedule.class));
+        verify(scheduleRepository).updateSeatMap(eq(1L), any(), eq(39));
+        verify(bookingRepository).save(argThat(saved -> "1".equals(saved.getSeatNumbers())));
+        verify(eventPublisher).publishEvent(argThat((SeatsChangedEvent event) -> event.getAvailableSeats() == 39));
+        verify(scheduleRepository, never()).save(any(Schedule.class));
+        assertEquals(39, seatInventory.getAvailableSeats(1L, () -> 40));
+    }
+
+    @Test
+    void createBooking_CancelledBookingFreesOverlapWithoutReloading() {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.cancelIfStatus(eq(1L), eq("CONFIRMED"), anyDouble())).thenReturn(1);
+        bookingService.createBooking(1L, 1L, 1);
+
+        // Act & Assert: the same trip overlaps until the first booking is cancelled
+        assertThrows(IllegalStateException.class, () -> bookingService.createBooking(1L, 1L, 1));
+        bookingService.cancelBooking(1L);
+        assertNotNull(bookingService.createBooking(1L, 1L, 1));
+
+        // The user's bookings were read once, not once per attempt
+        verify(bookingRepository).findActiveByUserId(eq(1L), any(LocalDateTime.class));
+        verify(bookingRepository, never()).findByUserId(anyLong());
+    }
+
+    @Test
+    void createBooking_DatabaseRejectsBookingsMadeElsewhere() {
+        // Arrange: the index has not seen the five bookings made through another instance
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.countActiveByUserId(eq(1L), any(LocalDateTime.class))).thenReturn(5L);
+
+        // Act
+        BookingRejectedException rejected = assertThrows(BookingRejectedException.class, () ->
+            bookingService.createBooking(1L, 1L, 1));
+
+        // Assert
+        assertEquals(BookingRejectedException.Reason.BOOKING_LIMIT, rejected.getReason());
+        verify(userRepository).lockById(1L);
+        // Turned away before anything was written
+        verify(scheduleRepository, never()).updateSeatMap(anyLong(), any(), anyInt());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(userBookingIndex).evict(1L);
+    }
+
+    @Test
+    void createBooking_RecordsOutcomeMetrics() {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.cancelIfStatus(eq(1L), eq("CONFIRMED"), anyDouble())).thenReturn(1);
+
+        // Act
+        bookingService.createBooking(1L, 1L, 1);
+        BookingRejectedException rejected = assertThrows(BookingRejectedException.class, () ->
+            bookingService.createBooking(1L, 1L, 1));
+        bookingService.cancelBooking(1L);
+
+        // Assert
+        assertEquals(BookingRejectedException.Reason.OVERLAPPING_BOOKING, rejected.getReason());
+        assertEquals(1, meterRegistry.get("booking.create").tags("type", "book", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("booking.create").tags("outcome", "overlapping_booking").timer().count());
+        assertEquals(1, meterRegistry.get("booking.cancel").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("booking.seat.lock.wait").timer().count());
     }
 
     @Test
     void createBooking_UserNotFound() {
         // Arrange
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.of(schedule));
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> bookingService.createBooking(1L, 1L, 1));
-        verify(scheduleRepository).findById(1L);
+        verify(scheduleRepository).findCurrentById(1L);
         verify(userRepository).findById(1L);
         verify(bookingRepository, never()).save(any(Booking.class));
     }
@@ -124,11 +227,11 @@ class BookingServiceTest {
     @Test
     void createBooking_ScheduleNotFound() {
         // Arrange
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.empty());
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> bookingService.createBooking(1L, 1L, 1));
-        verify(scheduleRepository).findById(1L);
+        verify(scheduleRepository).findCurrentById(1L);
         verify(userRepository, never()).findById(anyLong());
         verify(bookingRepository, never()).save(any(Booking.class));
     }
@@ -137,15 +240,211 @@ class BookingServiceTest {
     void createBooking_InsufficientSeats() {
         // Arrange
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
         schedule.setAvailableSeats(0);
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> bookingService.createBooking(1L, 1L, 1));
         verify(userRepository).findById(1L);
+        verify(scheduleRepository, never()).updateSeatMap(anyLong(), any(), anyInt());
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
+    @Test
+    void createBooking_SelectedSeats_Success() {
+        // Arrange
+        SeatMap stored = new SeatMap(40);
+        stored.take(new int[] {1, 2});
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(stored.toBytes());
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
+
+        // Act
+        bookingService.createBooking(1L, 1L, Arrays.asList(5, 6));
+
+        // Assert
+        verify(scheduleRepository).updateSeatMap(eq(1L),
+                argThat(bytes -> SeatMap.fromBytes(bytes, 40).isTaken(5) && SeatMap.fromBytes(bytes, 40).isTaken(6)),
+                eq(36));
+        verify(bookingRepository).save(argThat(saved ->
+                "5,6".equals(saved.getSeatNumbers()) && saved.getNumberOfSeats() == 2));
+    }
+
+    @Test
+    void createBooking_SelectedSeatAlreadyTaken() {
+        // Arrange
+        SeatMap stored = new SeatMap(40);
+        stored.take(new int[] {5});
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(stored.toBytes());
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+            bookingService.createBooking(1L, 1L, Arrays.asList(4, 5)));
+        assertEquals("Seat 5 is already taken", exception.getMessage());
+        verify(scheduleRepository, never()).updateSeatMap(anyLong(), any(), anyInt());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void createBooking_RepeatedSeatNumbers() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+            bookingService.createBooking(1L, 1L, Arrays.asList(4, 4)));
+        verify(scheduleRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void createBooking_PrefersAdjacentSeats() {
+        // Arrange: seats 3 and 4 are the only pair before seat 6
+        SeatMap stored = new SeatMap(40);
+        stored.take(new int[] {1, 2, 5});
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(stored.toBytes());
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
+
+        // Act
+        bookingService.createBooking(1L, 1L, 3);
+
+        // Assert
+        verify(bookingRepository).save(argThat(saved -> "6,7,8".equals(saved.getSeatNumbers())));
+    }
+
+    @Test
+    void createBooking_LegacySchedule_NumbersExistingBookings() {
+        // Arrange: 5 seats sold before seat maps, 3 of them by a booking still on record
+        schedule.setAvailableSeats(35);
+        Booking legacyBooking = new Booking();
+        legacyBooking.setNumberOfSeats(3);
+        legacyBooking.setStatus("CONFIRMED");
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findByScheduleIdAndStatusNot(1L, "CANCELLED")).thenReturn(Arrays.asList(legacyBooking));
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
+
+        // Act
+        bookingService.createBooking(1L, 1L, 1);
+
+        // Assert
+        assertEquals("1,2,3", legacyBooking.getSeatNumbers());
+        verify(bookingRepository).saveAll(Arrays.asList(legacyBooking));
+        verify(bookingRepository).save(argThat(saved -> "6".equals(saved.getSeatNumbers())));
+        verify(scheduleRepository).updateSeatMap(eq(1L), any(), eq(34));
+    }
+
+    @Test
+    void holdSeats_Success() {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
+            Booking saved = invocation.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
+
+        // Act
+        Booking hold = bookingService.holdSeats(1L, 1L, 2, null);
+
+        // Assert
+        assertEquals("PENDING", hold.getStatus());
+        assertEquals("1,2", hold.getSeatNumbers());
+        assertNotNull(hold.getHoldExpiresAt());
+        assertTrue(hold.getHoldExpiresAt().isAfter(LocalDateTime.now().plusMinutes(9)));
+        verify(holdExpiryWheel).schedule(7L, hold.getHoldExpiresAt());
+        assertEquals(1, holdExpiryWheel.size());
+    }
+
+    @Test
+    void holdSeats_RepeatedRequestReturnsExistingHold() {
+        // Arrange
+        booking.setStatus("PENDING");
+        booking.setHoldExpiresAt(LocalDateTime.now().plusMinutes(5));
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(eq(1L), any(LocalDateTime.class))).thenReturn(Arrays.asList(booking));
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+
+        // Act
+        Booking hold = bookingService.holdSeats(1L, 1L, 1, null);
+
+        // Assert
+        assertSame(booking, hold);
+        verify(scheduleRepository, never()).updateSeatMap(anyLong(), any(), anyInt());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void confirmHold_Success() {
+        // Arrange
+        when(bookingRepository.confirmIfHeld(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+
+        // Act
+        Booking confirmed = bookingService.confirmHold(1L);
+
+        // Assert
+        assertEquals("CONFIRMED", confirmed.getStatus());
+    }
+
+    @Test
+    void confirmHold_Expired() {
+        // Arrange: the hold ran out but the wheel has not released it yet
+        booking.setStatus("PENDING");
+        booking.setHoldExpiresAt(LocalDateTime.now().minusSeconds(1));
+        when(bookingRepository.confirmIfHeld(eq(1L), any(LocalDateTime.class))).thenReturn(0);
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+            bookingService.confirmHold(1L));
+        assertEquals("Seat hold has expired", exception.getMessage());
+    }
+
+    @Test
+    void onHoldsExpired_ReleasesSeats() {
+        // Arrange
+        booking.setStatus("PENDING");
+        booking.setNumberOfSeats(2);
+        booking.setSeatNumbers("3,4");
+        SeatMap stored = new SeatMap(40);
+        stored.take(new int[] {3, 4});
+        when(bookingRepository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(booking));
+        when(bookingRepository.expireIfPending(1L)).thenReturn(1);
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(stored.toBytes());
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+        // The counter this instance already holds, which the released seats go back to
+        seatInventory.getAvailableSeats(1L, () -> 40);
+
+        // Act
+        bookingService.onHoldsExpired(new HoldsExpiredEvent(Arrays.asList(1L)));
+
+        // Assert
+        verify(scheduleRepository).updateSeatMap(eq(1L), any(), eq(40));
+        assertEquals(42, seatInventory.getAvailableSeats(1L, () -> 40));
+    }
+
+    @Test
+    void onHoldsExpired_SkipsConfirmedHold() {
+        // Arrange: the user paid just before the hold ran out
+        when(bookingRepository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(booking));
+        when(bookingRepository.expireIfPending(1L)).thenReturn(0);
+
+        // Act
+        bookingService.onHoldsExpired(new HoldsExpiredEvent(Arrays.asList(1L)));
+
+        // Assert
+        verify(scheduleRepository, never()).findSeatMapForUpdate(anyLong());
+        verify(scheduleRepository, never()).releaseSeats(anyLong(), anyInt());
+    }
+
     @Test
     void getBookingById_Success() {
         // Arrange
@@ -179,38 +478,172 @@ class BookingServiceTest {
     @Test
     void getUserBookings_Success() {
         // Arrange
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(Arrays.asList(booking));
+        Schedule bookedSchedule = booking.getSchedule();
+        BookingResponse row = new BookingResponse(booking.getId(), bookedSchedule.getId(), booking.getUser().getId(),
+                booking.getNumberOfSeats(), null, "Test User", "1234567890", "test@example.com", booking.getStatus(),
+                booking.getBookingDate(), booking.getTotalAmount(), "BUS001", "Bangalore", "Chennai",
+                bookedSchedule.getDepartureTime(), bookedSchedule.getArrivalTime());
+        when(bookingRepository.findResponsesByUserId(anyLong())).thenReturn(Arrays.asList(row));
 
         // Act
-        List<Booking> responses = bookingService.getUserBookings(1L);
+        List<BookingResponse> responses = bookingService.getUserBookings(1L);
 
         // Assert
         assertNotNull(responses);
         assertEquals(1, responses.size());
         assertEquals(booking.getId(), responses.get(0).getId());
-        assertEquals(booking.getUser().getId(), responses.get(0).getUser().getId());
-        assertEquals(booking.getSchedule().getId(), responses.get(0).getSchedule().getId());
+        assertEquals(booking.getUser().getId(), responses.get(0).getUserId());
+        assertEquals(booking.getSchedule().getId(), responses.get(0).getScheduleId());
         assertEquals(booking.getNumberOfSeats(), responses.get(0).getNumberOfSeats());
-        assertEquals(booking.getTotalAmount(), responses.get(0).getTotalAmount());
+        assertEquals(booking.getTotalAmount(), responses.get(0).getFare());
         assertEquals(booking.getStatus(), responses.get(0).getStatus());
+        assertEquals("Bangalore - Chennai", responses.get(0).getRouteName());
 
-        verify(bookingRepository).findByUserId(1L);
+        verify(bookingRepository).findResponsesByUserId(1L);
     }
 
     @Test
     void cancelBooking_Success() {
         // Arrange
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
+        seatInventory.getAvailableSeats(1L, () -> 40);
 
         // Act
         bookingService.cancelBooking(1L);
 
         // Assert
         verify(bookingRepository).findById(1L);
-        verify(bookingRepository).save(any(Booking.class));
-        verify(scheduleRepository).save(any(Schedule.class));
+        verify(bookingRepository).cancelIfStatus(1L, "CONFIRMED", 0.0);
+        verify(scheduleRepository).releaseSeats(1L, 1);
+        assertEquals(41, seatInventory.getAvailableSeats(1L, () -> 40));
+    }
+
+    @Test
+    void cancelBooking_ReleasesSeatNumbers() {
+        // Arrange
+        booking.setNumberOfSeats(2);
+        booking.setSeatNumbers("7,8");
+        SeatMap stored = new SeatMap(40);
+        stored.take(new int[] {7, 8, 9});
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(stored.toBytes());
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+
+        // Act
+        bookingService.cancelBooking(1L);
+
+        // Assert: only this booking's seats are freed
+        verify(scheduleRepository).updateSeatMap(eq(1L), argThat(bytes -> {
+            SeatMap seatMap = SeatMap.fromBytes(bytes, 40);
+            return !seatMap.isTaken(7) && !seatMap.isTaken(8) && seatMap.isTaken(9);
+        }), eq(39));
+        verify(scheduleRepository, never()).releaseSeats(anyLong(), anyInt());
+    }
+
+    @Test
+    void cancelBooking_HandsReleasedSeatsToWaitlist() {
+        // Arrange
+        booking.setNumberOfSeats(2);
+        booking.setSeatNumbers("7,8");
+        SeatMap stored = new SeatMap(40);
+        stored.take(stored.findFree(40));
+        User waiter = new User();
+        waiter.setId(2L);
+        WaitlistEntry tooLarge = waitlistEntry(10L, waiter, 3);
+        WaitlistEntry fits = waitlistEntry(11L, waiter, 2);
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(stored.toBytes());
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+        when(waitlistRepository.findByScheduleIdAndStatusOrderByIdAsc(1L, "WAITING")).thenReturn(List.of(tooLarge, fits));
+        when(bookingRepository.findActiveByUserId(eq(2L), any())).thenReturn(List.of());
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
+            Booking saved = invocation.getArgument(0);
+            saved.setId(50L);
+            return saved;
+        });
+
+        // Act
+        bookingService.cancelBooking(1L);
+
+        // Assert: the seats go to the first entry they fit, as a hold, and never become free
+        ArgumentCaptor<Booking> hold = ArgumentCaptor.forClass(Booking.class);
+        verify(bookingRepository).save(hold.capture());
+        assertEquals("PENDING", hold.getValue().getStatus());
+        assertEquals("7,8", hold.getValue().getSeatNumbers());
+        assertEquals(2L, hold.getValue().getUser().getId());
+        assertEquals("WAITING", tooLarge.getStatus());
+        assertEquals("FULFILLED", fits.getStatus());
+        assertEquals(50L, fits.getBookingId());
+        verify(scheduleRepository).updateSeatMap(eq(1L), any(), eq(0));
+        verify(eventPublisher).publishEvent(any(WaitlistUpdatedEvent.class));
+    }
+
+    @Test
+    void cancelBooking_KeepsSeatsFromWaitlistOfScheduleWithdrawnElsewhere() {
+        // Arrange: the loaded schedule is not withdrawn, but the locked row is
+        booking.setNumberOfSeats(1);
+        booking.setSeatNumbers("7");
+        SeatMap stored = new SeatMap(40);
+        stored.take(stored.findFree(40));
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(stored.toBytes());
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+        when(scheduleRepository.existsByIdAndWithdrawnTrue(1L)).thenReturn(true);
+
+        // Act
+        bookingService.cancelBooking(1L);
+
+        // Assert
+        verifyNoInteractions(waitlistRepository);
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(scheduleRepository).updateSeatMap(eq(1L), any(), eq(1));
+    }
+
+    @Test
+    void cancelBooking_DeclinesWaitlistEntryThatNowOverlaps() {
+        // Arrange
+        booking.setNumberOfSeats(1);
+        booking.setSeatNumbers("7");
+        SeatMap stored = new SeatMap(40);
+        stored.take(stored.findFree(40));
+        User waiter = new User();
+        waiter.setId(2L);
+        Booking overlapping = new Booking();
+        overlapping.setId(20L);
+        overlapping.setUser(waiter);
+        overlapping.setSchedule(schedule);
+        overlapping.setStatus("CONFIRMED");
+        WaitlistEntry entry = waitlistEntry(10L, waiter, 1);
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.cancelIfStatus(anyLong(), anyString(), anyDouble())).thenReturn(1);
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(stored.toBytes());
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
+        when(waitlistRepository.findByScheduleIdAndStatusOrderByIdAsc(1L, "WAITING")).thenReturn(List.of(entry));
+        when(bookingRepository.findActiveByUserId(eq(2L), any())).thenReturn(List.of(overlapping));
+
+        // Act
+        bookingService.cancelBooking(1L);
+
+        // Assert
+        assertEquals("DECLINED", entry.getStatus());
+        assertEquals("User has an overlapping booking", entry.getMessage());
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(scheduleRepository).updateSeatMap(eq(1L), any(), eq(1));
+    }
+
+    @Test
+    void cancelBooking_ExpiredHold() {
+        // Arrange
+        booking.setStatus("EXPIRED");
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> bookingService.cancelBooking(1L));
+        verify(bookingRepository, never()).cancelIfStatus(anyLong(), anyString(), anyDouble());
     }
 
     @Test
@@ -235,4 +668,14 @@ class BookingServiceTest {
         verify(bookingRepository).findById(1L);
         verify(bookingRepository, never()).save(any(Booking.class));
     }
+
+    private WaitlistEntry waitlistEntry(Long id, User waiter, int numberOfSeats) {
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setId(id);
+        entry.setSchedule(schedule);
+        entry.setUser(waiter);
+        entry.setNumberOfSeats(numberOfSeats);
+        entry.setStatus("WAITING");
+        return entry;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.busbooking.service;
+
+import com.busbooking.BusBookingApplication;
+import com.busbooking.dto.ImportError;
+import com.busbooking.dto.ImportResult;
+import com.busbooking.dto.ScheduleResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkImportServiceTest {
+
+    private ConfigurableApplicationContext context;
+    private BulkImportService bulkImportService;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        context = new SpringApplicationBuilder(BusBookingApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--app.data-loader.enabled=false",
+                        "--app.import.batch-size=2");
+        bulkImportService = context.getBean(BulkImportService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void importBuses_Csv_InsertsValidRowsAndReportsTheRest() throws Exception {
+        // Arrange
+        String csv = "busNumber,busName,totalSeats,busType\n"
+                + "KA-01-0001,\"Express, Deluxe\",40,AC\n"
+                + "KA-01-0002,Night Rider,abc,Sleeper\n"
+                + "\n"
+                + "KA-01-0003,City Link,36,Non-AC\n"
+                + "KA-01-0004,,30,AC\n";
+
+        // Act
+        ImportResult result = bulkImportService.importBuses(body(csv), "text/csv");
+
+        // Assert
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(List.of(3L, 6L), result.getErrors().stream().map(ImportError::getLine).toList());
+        assertEquals("Bus name is required", result.getErrors().get(1).getMessage());
+        assertEquals("Express, Deluxe", jdbcTemplate.queryForObject(
+                "SELECT bus_name FROM buses WHERE bus_number = 'KA-01-0001'", String.class));
+    }
+
+    @Test
+    void importSchedules_Ndjson_ChecksBusesAndRefreshesSearch() throws Exception {
+        // Arrange
+        jdbcTemplate.update("INSERT INTO buses (bus_number, bus_name, total_seats, bus_type) VALUES ('KA-01-0001', 'Express', 40, 'AC')");
+        Long busId = jdbcTemplate.queryForObject("SELECT id FROM buses", Long.class);
+        String ndjson = schedule(busId, "2030-01-01T06:00:00", "2030-01-01T12:00:00") + "\n"
+                + schedule(busId + 100, "2030-01-01T07:00:00", "2030-01-01T13:00:00") + "\n"
+                + "{not json\n"
+                + schedule(busId, "2030-01-01T10:00:00", "2030-01-01T09:00:00") + "\n"
+                + schedule(busId, "2030-01-02T06:00:00", "2030-01-02T12:00:00") + "\n"
+                + schedule(busId, "2030-01-03T06:00:00", "2030-01-03T12:00:00") + "\n";
+
+        // Act
+        ImportResult result = bulkImportService.importSchedules(body(ndjson), "application/x-ndjson");
+
+        // Assert
+        assertEquals(3, result.getImported());
+        assertEquals(List.of(2L, 3L, 4L), result.getErrors().stream().map(ImportError::getLine).toList());
+        assertEquals("Bus not found: " + (busId + 100), result.getErrors().get(0).getMessage());
+        assertEquals("Arrival time must be after departure time", result.getErrors().get(2).getMessage());
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM schedules WHERE available_seats = 40", Integer.class));
+
+        List<ScheduleResponse> found = context.getBean(ScheduleIndex.class)
+                .search("Bangalore", "Chennai", null, null, null, "departure", 0, 10);
+        assertEquals(3, found.size());
+    }
+
+    @Test
+    void importBuses_TooManyErrors_TruncatesReport() throws Exception {
+        // Arrange
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 1005; i++) {
+            ndjson.append("{\"busNumber\":\"X").append(i).append("\"}\n");
+        }
+
+        // Act
+        ImportResult result = bulkImportService.importBuses(body(ndjson.toString()), "application/x-ndjson");
+
+        // Assert
+        assertEquals(0, result.getImported());
+        assertEquals(1005, result.getRejected());
+        assertEquals(1000, result.getErrors().size());
+        assertTrue(result.isErrorsTruncated());
+    }
+
+    @Test
+    void importBuses_UnsupportedContentType_Throws() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> bulkImportService.importBuses(body("{}"), "application/xml"));
+    }
+
+    private static String schedule(Long busId, String departure, String arrival) {
+        return "{\"busId\":" + busId + ",\"source\":\"Bangalore\",\"destination\":\"Chennai\",\"departureTime\":\""
+                + departure + "\",\"arrivalTime\":\"" + arrival + "\",\"fare\":500.0}";
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
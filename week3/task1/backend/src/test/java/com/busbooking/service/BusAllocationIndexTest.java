@@ -0,0 +1,138 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BusAllocationIndexTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @InjectMocks
+    private BusAllocationIndex busAllocationIndex;
+
+    private Bus bus;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        bus = new Bus();
+        bus.setId(1L);
+
+        base = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    @Test
+    void reserve_RejectsOverlapsAndTheTurnaround() {
+        // Arrange
+        busAllocationIndex.put(schedule(1L, base, base.plusHours(4)));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+            () -> busAllocationIndex.reserve(1L, null, base.plusHours(2), base.plusHours(6)));
+        assertThrows(IllegalStateException.class,
+            () -> busAllocationIndex.reserve(1L, null, base.plusHours(4).plusMinutes(20), base.plusHours(8)));
+        assertThrows(IllegalArgumentException.class,
+            () -> busAllocationIndex.reserve(1L, null, base.plusHours(8), base.plusHours(8)));
+        busAllocationIndex.reserve(1L, null, base.plusHours(4).plusMinutes(30), base.plusHours(8)).release();
+        busAllocationIndex.reserve(2L, null, base.plusHours(2), base.plusHours(6)).release();
+    }
+
+    @Test
+    void reserve_HoldsTheTimeUntilReleased() {
+        // Arrange
+        BusAllocationIndex.Reservation reservation = busAllocationIndex.reserve(1L, null, base, base.plusHours(4));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> busAllocationIndex.reserve(1L, null, base.plusHours(1), base.plusHours(2)));
+        assertEquals("Bus is being assigned to another schedule at that time", exception.getMessage());
+        assertFalse(busAllocationIndex.isFree(1L, base, base.plusHours(1)));
+
+        reservation.release();
+        assertTrue(busAllocationIndex.isFree(1L, base, base.plusHours(1)));
+    }
+
+    @Test
+    void reserve_MovingAScheduleIgnoresItsOwnSlot() {
+        // Arrange
+        busAllocationIndex.put(schedule(1L, base, base.plusHours(4)));
+        busAllocationIndex.put(schedule(2L, base.plusHours(10), base.plusHours(14)));
+
+        // Act & Assert
+        busAllocationIndex.reserve(1L, 1L, base.plusHours(1), base.plusHours(5)).release();
+        assertThrows(IllegalStateException.class,
+            () -> busAllocationIndex.reserve(1L, 1L, base.plusHours(8), base.plusHours(11)));
+        assertFalse(busAllocationIndex.isFree(1L, base, base.plusHours(1)));
+    }
+
+    @Test
+    void onScheduleChanged_MovesAndRemoves() {
+        // Arrange
+        busAllocationIndex.put(schedule(1L, base, base.plusHours(4)));
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(
+            Optional.of(schedule(1L, base.plusHours(10), base.plusHours(14))));
+
+        // Act & Assert
+        busAllocationIndex.onScheduleChanged(new ScheduleChangedEvent(1L, false));
+        assertTrue(busAllocationIndex.isFree(1L, base, base.plusHours(4)));
+        assertFalse(busAllocationIndex.isFree(1L, base.plusHours(12), base.plusHours(13)));
+
+        busAllocationIndex.onScheduleChanged(new ScheduleChangedEvent(1L, true));
+        assertTrue(busAllocationIndex.isFree(1L, base.plusHours(12), base.plusHours(13)));
+    }
+
+    @Test
+    void reload_DropsFinishedAndDeletedSchedules() {
+        // Arrange
+        busAllocationIndex.put(schedule(3L, base.plusDays(2), base.plusDays(2).plusHours(4)));
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+        List<ScheduleResponse> upcoming = Arrays.asList(
+            summary(1L, base, base.plusHours(4)),
+            summary(2L, yesterday, yesterday.plusHours(4)));
+
+        // Act
+        busAllocationIndex.reload(upcoming, LocalDateTime.now());
+
+        // Assert
+        assertFalse(busAllocationIndex.isFree(1L, base, base.plusHours(1)));
+        assertTrue(busAllocationIndex.isFree(1L, yesterday, yesterday.plusHours(4)));
+        assertTrue(busAllocationIndex.isFree(1L, base.plusDays(2), base.plusDays(2).plusHours(1)));
+    }
+
+    private ScheduleResponse summary(Long id, LocalDateTime departure, LocalDateTime arrival) {
+        ScheduleResponse summary = new ScheduleResponse();
+        summary.setId(id);
+        summary.setBusId(bus.getId());
+        summary.setDepartureTime(departure);
+        summary.setArrivalTime(arrival);
+        return summary;
+    }
+
+    private Schedule schedule(Long id, LocalDateTime departure, LocalDateTime arrival) {
+        Schedule schedule = new Schedule();
+        schedule.setId(id);
+        schedule.setBus(bus);
+        schedule.setDepartureTime(departure);
+        schedule.setArrivalTime(arrival);
+        return schedule;
+    }
+}
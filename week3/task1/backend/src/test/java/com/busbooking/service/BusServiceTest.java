@@ -1,14 +1,22 @@
 package com.busbooking.service;
 
+import com.busbooking.dto.BusResponse;
+import com.busbooking.dto.CursorPage;
 import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
 import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -23,10 +31,17 @@ class BusServiceTest {
     @Mock
     private BusRepository busRepository;
 
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Spy
+    private BusAllocationIndex busAllocationIndex = new BusAllocationIndex();
+
     @InjectMocks
     private BusService busService;
 
     private Bus bus;
+    private BusResponse busResponse;
 
     @BeforeEach
     void setUp() {
@@ -37,6 +52,30 @@ class BusServiceTest {
         bus.setBusName("Test Bus");
         bus.setTotalSeats(40);
         bus.setBusType("AC");
+
+        busResponse = new BusResponse(1L, "BUS001", "Test Bus", 40, "AC");
+    }
+
+    @Test
+    void getAvailableBuses_SkipsBusesScheduledInTheWindow() {
+        // Arrange
+        LocalDateTime departure = LocalDateTime.now().plusDays(1).withNano(0);
+        Schedule schedule = new Schedule();
+        schedule.setId(10L);
+        schedule.setBus(bus);
+        schedule.setDepartureTime(departure);
+        schedule.setArrivalTime(departure.plusHours(4));
+        busAllocationIndex.put(schedule);
+        BusResponse other = new BusResponse(2L, "BUS002", "Other Bus", 40, "AC");
+        when(busRepository.findAllResponses()).thenReturn(Arrays.asList(busResponse, other));
+
+        // Act
+        List<BusResponse> during = busService.getAvailableBuses(departure.plusHours(4).plusMinutes(10), departure.plusHours(8));
+        List<BusResponse> after = busService.getAvailableBuses(departure.plusHours(5), departure.plusHours(8));
+
+        // Assert
+        assertEquals(List.of(other), during);
+        assertEquals(List.of(busResponse, other), after);
     }
 
     @Test
@@ -90,10 +129,10 @@ class BusServiceTest {
     @Test
     void getAllBuses_Success() {
         // Arrange
-        when(busRepository.findAll()).thenReturn(Arrays.asList(bus));
+        when(busRepository.findAllResponses()).thenReturn(Arrays.asList(busResponse));
 
         // Act
-        List<Bus> responses = busService.getAllBuses();
+        List<BusResponse> responses = busService.getAllBuses();
 
         // Assert
         assertNotNull(responses);
@@ -104,7 +143,7 @@ class BusServiceTest {
         assertEquals(bus.getTotalSeats(), responses.get(0).getTotalSeats());
         assertEquals(bus.getBusType(), responses.get(0).getBusType());
 
-        verify(busRepository).findAll();
+        verify(busRepository).findAllResponses();
     }
 
     @Test
@@ -132,6 +171,7 @@ class BusServiceTest {
 
         verify(busRepository).findById(1L);
         verify(busRepository).save(any(Bus.class));
+        verify(scheduleRepository).bumpRevisionsOfBus(1L);
     }
 
     @Test
@@ -169,4 +209,35 @@ class BusServiceTest {
         verify(busRepository).findById(1L);
         verify(busRepository, never()).delete(any(Bus.class));
     }
+
+    @Test
+    void getBusPage_ReturnsCursorWhenMoreRowsRemain() {
+        // Arrange
+        BusResponse second = new BusResponse(2L, "BUS002", "Second Bus", 40, "AC");
+        when(busRepository.findResponsesAfter(eq(0L), any(Pageable.class)))
+            .thenReturn(Arrays.asList(busResponse, second));
+
+        // Act
+        CursorPage<BusResponse> page = busService.getBusPage(null, 1);
+
+        // Assert
+        assertEquals(1, page.getItems().size());
+        assertEquals("BUS001", page.getItems().get(0).getBusNumber());
+        assertEquals(1L, page.getNextCursor());
+    }
+
+    @Test
+    void streamBuses_WritesEveryRow() {
+        // Arrange
+        when(busRepository.findResponsesAfter(eq(0L), any(Pageable.class)))
+            .thenReturn(Arrays.asList(busResponse));
+        List<BusResponse> written = new ArrayList<>();
+
+        // Act
+        busService.streamBuses(written::add);
+
+        // Assert
+        assertEquals(1, written.size());
+        assertEquals(1L, written.get(0).getId());
+    }
 } 
\ No newline at end of file
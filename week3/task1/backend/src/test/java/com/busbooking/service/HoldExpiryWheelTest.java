@@ -0,0 +1,64 @@
+package com.busbooking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HoldExpiryWheelTest {
+
+    private HoldExpiryWheel holdExpiryWheel;
+    private LocalDateTime now;
+    private long nowTick;
+
+    @BeforeEach
+    void setUp() {
+        holdExpiryWheel = new HoldExpiryWheel();
+        now = LocalDateTime.now();
+        nowTick = holdExpiryWheel.tickOf(now);
+    }
+
+    @Test
+    void advanceTo_ExpiresHoldsOnTheirTick() {
+        holdExpiryWheel.schedule(1L, now.plusSeconds(2));
+        holdExpiryWheel.schedule(2L, now.plusSeconds(5));
+
+        assertTrue(holdExpiryWheel.advanceTo(nowTick + 19).isEmpty());
+        assertEquals(Arrays.asList(1L), holdExpiryWheel.advanceTo(nowTick + 20));
+        assertEquals(Arrays.asList(2L), holdExpiryWheel.advanceTo(nowTick + 50));
+        assertEquals(0, holdExpiryWheel.size());
+    }
+
+    @Test
+    void advanceTo_KeepsHoldsMoreThanOneRevolutionAway() {
+        // 512 ticks of 100 ms is one revolution, about 51 seconds
+        holdExpiryWheel.schedule(1L, now.plusMinutes(10));
+
+        assertTrue(holdExpiryWheel.advanceTo(nowTick + 5999).isEmpty());
+        assertEquals(Arrays.asList(1L), holdExpiryWheel.advanceTo(nowTick + 6000));
+    }
+
+    @Test
+    void schedule_PastDueHoldFiresOnNextTick() {
+        holdExpiryWheel.schedule(1L, now.minusMinutes(1));
+
+        assertEquals(Arrays.asList(1L), holdExpiryWheel.advanceTo(nowTick + 1));
+    }
+
+    @Test
+    void advanceTo_ManyOutstandingHolds() {
+        for (long i = 0; i < 100_000; i++) {
+            holdExpiryWheel.schedule(i, now.plusSeconds(1 + i % 600));
+        }
+
+        List<Long> expired = holdExpiryWheel.advanceTo(nowTick + 10);
+
+        // Only the holds due in the first second, out of 100k
+        assertEquals(100_000 / 600 + 1, expired.size());
+        assertEquals(100_000 - expired.size(), holdExpiryWheel.size());
+    }
+}
@@ -0,0 +1,250 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.JourneyPlanResponse;
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JourneyPlannerTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @InjectMocks
+    private JourneyPlanner journeyPlanner;
+
+    private Bus bus;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        bus = new Bus();
+        bus.setId(1L);
+        bus.setBusNumber("BUS001");
+        bus.setBusName("Test Bus");
+        bus.setTotalSeats(40);
+
+        base = LocalDateTime.of(2030, 1, 15, 6, 0);
+    }
+
+    @Test
+    void plan_TwoLegJourneyWithoutDirectSchedule() {
+        // Arrange
+        journeyPlanner.put(schedule(1L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0));
+        journeyPlanner.put(schedule(2L, "Bangalore", "Hyderabad", base.plusHours(7), base.plusHours(15), 900.0));
+
+        // Act
+        JourneyPlanResponse response = journeyPlanner.plan("chennai", "Hyderabad", base, 2, null);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L), legIds(response.getEarliestArrival().getLegs()));
+        assertEquals(1, response.getEarliestArrival().getTransfers());
+        assertEquals(base.plusHours(15), response.getEarliestArrival().getArrivalTime());
+        assertEquals(3000.0, response.getEarliestArrival().getTotalFare());
+    }
+
+    @Test
+    void plan_RespectsMinimumTransferTime() {
+        // Arrange: the onward bus leaves 10 minutes after the first one arrives
+        journeyPlanner.put(schedule(1L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0));
+        journeyPlanner.put(schedule(2L, "Bangalore", "Hyderabad",
+                base.plusHours(6).plusMinutes(10), base.plusHours(14), 900.0));
+
+        // Act & Assert
+        assertNull(journeyPlanner.plan("Chennai", "Hyderabad", base, 1, null).getEarliestArrival());
+        assertNotNull(journeyPlanner.plan("Chennai", "Hyderabad", base, 1, 5).getEarliestArrival());
+    }
+
+    @Test
+    void plan_EarliestArrivalAndCheapestDiffer() {
+        // Arrange
+        journeyPlanner.put(schedule(1L, "Chennai", "Hyderabad", base.plusHours(1), base.plusHours(13), 2500.0));
+        journeyPlanner.put(schedule(2L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0));
+        journeyPlanner.put(schedule(3L, "Bangalore", "Hyderabad", base.plusHours(8), base.plusHours(16), 900.0));
+
+        // Act
+        JourneyPlanResponse response = journeyPlanner.plan("Chennai", "Hyderabad", base, 1, null);
+
+        // Assert
+        assertEquals(Arrays.asList(1L), legIds(response.getEarliestArrival().getLegs()));
+        assertEquals(Arrays.asList(2L, 3L), legIds(response.getCheapest().getLegs()));
+        assertEquals(1500.0, response.getCheapest().getTotalFare());
+    }
+
+    @Test
+    void plan_SkipsDeparturesBeforeRequestedTimeAndFullBuses() {
+        // Arrange
+        journeyPlanner.put(schedule(1L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0));
+        Schedule full = schedule(2L, "Chennai", "Bangalore", base.plusHours(2), base.plusHours(8), 500.0);
+        full.setAvailableSeats(1);
+        journeyPlanner.put(full);
+        journeyPlanner.put(schedule(3L, "Chennai", "Bangalore", base.plusHours(4), base.plusHours(10), 700.0));
+
+        // Act
+        JourneyPlanResponse response = journeyPlanner.plan("Chennai", "Bangalore", base.plusHours(1), 2, null);
+
+        // Assert
+        assertEquals(Arrays.asList(3L), legIds(response.getEarliestArrival().getLegs()));
+        assertEquals(Arrays.asList(3L), legIds(response.getCheapest().getLegs()));
+    }
+
+    @Test
+    void plan_UnknownStop() {
+        // Arrange
+        journeyPlanner.put(schedule(1L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0));
+
+        // Act
+        JourneyPlanResponse response = journeyPlanner.plan("Chennai", "Goa", base, 1, null);
+
+        // Assert
+        assertNull(response.getEarliestArrival());
+        assertNull(response.getCheapest());
+    }
+
+    @Test
+    void plan_InvalidRequest() {
+        journeyPlanner.put(schedule(1L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0));
+
+        assertThrows(IllegalArgumentException.class, () -> journeyPlanner.plan("Chennai", "Bangalore", base, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> journeyPlanner.plan("Chennai", "chennai", base, 1, null));
+    }
+
+    @Test
+    void put_MovedScheduleReplacesOldConnection() {
+        // Arrange
+        journeyPlanner.put(schedule(1L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0));
+
+        // Act
+        journeyPlanner.put(schedule(1L, "Chennai", "Bangalore", base.plusHours(3), base.plusHours(9), 600.0));
+
+        // Assert
+        JourneyPlanResponse response = journeyPlanner.plan("Chennai", "Bangalore", base, 1, null);
+        assertEquals(base.plusHours(3), response.getEarliestArrival().getDepartureTime());
+        assertEquals(response.getEarliestArrival(), response.getCheapest());
+    }
+
+    @Test
+    void onSeatsChanged_SoldOutLegIsSkipped() {
+        // Arrange
+        journeyPlanner.put(schedule(1L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0));
+
+        // Act
+        journeyPlanner.onSeatsChanged(new SeatsChangedEvent(1L, 0));
+
+        // Assert
+        assertNull(journeyPlanner.plan("Chennai", "Bangalore", base, 1, null).getEarliestArrival());
+        verifyNoInteractions(scheduleRepository);
+    }
+
+    @Test
+    void updateAvailableSeats_LeavesTheConnectionArrayInPlace() {
+        // Arrange
+        journeyPlanner.put(schedule(1L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0));
+        journeyPlanner.put(schedule(2L, "Bangalore", "Hyderabad", base.plusHours(7), base.plusHours(15), 900.0));
+        Object connections = ReflectionTestUtils.getField(journeyPlanner, "connections");
+
+        // Act
+        journeyPlanner.updateAvailableSeats(2L, 3);
+
+        // Assert
+        assertSame(connections, ReflectionTestUtils.getField(journeyPlanner, "connections"));
+        assertNull(journeyPlanner.plan("Chennai", "Hyderabad", base, 4, null).getEarliestArrival());
+        List<ScheduleResponse> legs = journeyPlanner.plan("Chennai", "Hyderabad", base, 3, null)
+            .getEarliestArrival().getLegs();
+        assertEquals(40, legs.get(0).getAvailableSeats());
+        assertEquals(3, legs.get(1).getAvailableSeats());
+    }
+
+    @Test
+    void onScheduleChanged_ReloadsAndRemoves() {
+        // Arrange
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(
+            Optional.of(schedule(1L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0)));
+
+        // Act & Assert
+        journeyPlanner.onScheduleChanged(new ScheduleChangedEvent(1L, false));
+        assertNotNull(journeyPlanner.plan("Chennai", "Bangalore", base, 1, null).getEarliestArrival());
+
+        journeyPlanner.onScheduleChanged(new ScheduleChangedEvent(1L, true));
+        assertNull(journeyPlanner.plan("Chennai", "Bangalore", base, 1, null).getEarliestArrival());
+    }
+
+    @Test
+    void reload_KeepsChangesMadeWhileLoading() {
+        // Arrange: rows read before schedule 1 was withdrawn and schedule 2 sold out
+        Schedule first = schedule(1L, "Chennai", "Bangalore", base, base.plusHours(6), 600.0);
+        Schedule second = schedule(2L, "Chennai", "Bangalore", base.plusHours(1), base.plusHours(7), 500.0);
+        journeyPlanner.put(first);
+        journeyPlanner.put(second);
+        journeyPlanner.beginLoad();
+        journeyPlanner.remove(1L);
+        journeyPlanner.updateAvailableSeats(2L, 0);
+
+        // Act
+        journeyPlanner.reload(Arrays.asList(ScheduleIndex.toSummary(first), ScheduleIndex.toSummary(second)), base);
+
+        // Assert
+        assertNull(journeyPlanner.plan("Chennai", "Bangalore", base, 1, null).getEarliestArrival());
+    }
+
+    @Test
+    void plan_FullDayTimetable() {
+        // Arrange: 50 cities, a departure every 10 minutes between consecutive cities for a day
+        List<ScheduleResponse> timetable = new ArrayList<>();
+        long id = 1;
+        for (int city = 0; city < 50; city++) {
+            for (int slot = 0; slot < 144; slot++) {
+                LocalDateTime departure = base.plusMinutes(slot * 10L);
+                timetable.add(ScheduleIndex.toSummary(schedule(id++, "City" + city, "City" + ((city + 1) % 50),
+                        departure, departure.plusMinutes(50), 100.0 + slot % 7)));
+            }
+        }
+        journeyPlanner.reload(timetable, base);
+
+        // Act
+        JourneyPlanResponse response = journeyPlanner.plan("City0", "City3", base, 1, null);
+
+        // Assert: each 15 minute transfer waits for the departure 20 minutes after arrival
+        assertEquals(3, response.getEarliestArrival().getLegs().size());
+        assertEquals(base.plusMinutes(190), response.getEarliestArrival().getArrivalTime());
+        assertEquals(300.0, response.getCheapest().getTotalFare());
+    }
+
+    private Schedule schedule(Long id, String source, String destination,
+                              LocalDateTime departure, LocalDateTime arrival, double fare) {
+        Schedule schedule = new Schedule();
+        schedule.setId(id);
+        schedule.setBus(bus);
+        schedule.setSource(source);
+        schedule.setDestination(destination);
+        schedule.setDepartureTime(departure);
+        schedule.setArrivalTime(arrival);
+        schedule.setFare(fare);
+        schedule.setAvailableSeats(40);
+        return schedule;
+    }
+
+    private List<Long> legIds(List<ScheduleResponse> legs) {
+        return legs.stream().map(ScheduleResponse::getId).toList();
+    }
+}
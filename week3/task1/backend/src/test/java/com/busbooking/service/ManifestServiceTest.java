@@ -0,0 +1,132 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ManifestExportResponse;
+import com.busbooking.dto.ManifestRow;
+import com.busbooking.repository.ScheduleRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ManifestServiceTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ManifestService manifestService;
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private LocalDateTime departure;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(manifestService, "pageSize", 2);
+        from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        to = from.plusHours(24);
+        departure = from.plusHours(6);
+    }
+
+    @Test
+    void forEachRow_SeeksPastTheLastRowOfEachPage() {
+        // Arrange
+        ManifestRow first = row(1L, departure, 10L, "Asha", "1");
+        ManifestRow second = row(1L, departure, 11L, "Ravi", "2");
+        ManifestRow empty = row(2L, departure.plusHours(1), null, null, null);
+        when(scheduleRepository.findManifestRowsAfter(from, to, from, 0L, 0L, PageRequest.of(0, 2)))
+            .thenReturn(Arrays.asList(first, second));
+        when(scheduleRepository.findManifestRowsAfter(from, to, departure, 1L, 11L, PageRequest.of(0, 2)))
+            .thenReturn(List.of(empty));
+        List<ManifestRow> rows = new ArrayList<>();
+
+        // Act
+        manifestService.forEachRow(from, to, rows::add);
+
+        // Assert
+        assertEquals(List.of(first, second, empty), rows);
+        verify(scheduleRepository, times(2)).findManifestRowsAfter(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void write_CsvGroupsPassengersByDeparture() {
+        // Arrange
+        when(scheduleRepository.findManifestRowsAfter(from, to, from, 0L, 0L, PageRequest.of(0, 2)))
+            .thenReturn(Arrays.asList(row(1L, departure, 10L, "Asha, K", "12,13"),
+                row(2L, departure.plusHours(1), null, null, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        ManifestExportResponse summary = manifestService.write(from, to, ManifestService.CSV, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("scheduleId,departureTime,"));
+        assertEquals("1,2030-01-01T06:00,2030-01-01T12:00,BUS001,Bangalore,Chennai,10,\"12,13\",2,\"Asha, K\",9000000000",
+            lines[1]);
+        assertEquals("2,2030-01-01T07:00,2030-01-01T13:00,BUS001,Bangalore,Chennai,,,,,", lines[2]);
+        assertEquals(2, summary.getDepartures());
+        assertEquals(1, summary.getBookings());
+    }
+
+    @Test
+    void export_WritesTheFileUnderItsFinalName(@TempDir Path exportDir) throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(manifestService, "exportDir", exportDir.toString());
+        when(scheduleRepository.findManifestRowsAfter(from, to, from, 0L, 0L, PageRequest.of(0, 2)))
+            .thenReturn(List.of(row(1L, departure, 10L, "Asha", "1")));
+
+        // Act
+        ManifestExportResponse summary = manifestService.export(from, to, ManifestService.CSV);
+
+        // Assert
+        Path file = exportDir.resolve("manifest-20300101T0000-20300102T0000.csv");
+        assertEquals(file.toAbsolutePath().toString(), summary.getFile());
+        assertEquals(2, Files.readAllLines(file).size());
+        try (var files = Files.list(exportDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void write_RejectsUnknownFormatsAndEmptyWindows() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> manifestService.write(from, to, "pdf", new ByteArrayOutputStream()));
+        assertThrows(IllegalArgumentException.class,
+            () -> manifestService.write(to, from, ManifestService.CSV, new ByteArrayOutputStream()));
+        verifyNoInteractions(scheduleRepository);
+    }
+
+    private ManifestRow row(Long scheduleId, LocalDateTime departureTime, Long bookingId, String passengerName,
+                            String seatNumbers) {
+        return new ManifestRow(scheduleId, departureTime, departureTime.plusHours(6), "BUS001", "Bangalore", "Chennai",
+            bookingId, bookingId != null ? seatNumbers : null,
+            bookingId != null ? seatNumbers.split(",").length : null,
+            passengerName, bookingId != null ? "9000000000" : null);
+    }
+}
@@ -0,0 +1,184 @@
+package com.busbooking.service;
+
+import com.busbooking.BusBookingApplication;
+import com.busbooking.entity.Booking;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.User;
+import com.busbooking.exception.BookingRejectedException;
+import com.busbooking.repository.BookingRepository;
+import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application contexts sharing one H2 database stand in for two instances behind a load balancer.
+ */
+class MultiInstanceBookingTest {
+
+    private static final int CAPACITY = 30;
+    private static final int NUMBER_OF_USERS = 100;
+
+    private ConfigurableApplicationContext firstInstance;
+    private ConfigurableApplicationContext secondInstance;
+    private Long scheduleId;
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+        firstInstance = startInstance(url, "create");
+        secondInstance = startInstance(url, "none");
+
+        Bus bus = new Bus();
+        bus.setBusNumber("KA-01-1234");
+        bus.setBusName("Express");
+        bus.setTotalSeats(CAPACITY);
+        bus.setBusType("AC");
+        bus = firstInstance.getBean(BusRepository.class).save(bus);
+
+        Schedule schedule = new Schedule();
+        schedule.setBus(bus);
+        schedule.setSource("Bangalore");
+        schedule.setDestination("Chennai");
+        schedule.setDepartureTime(LocalDateTime.now().plusDays(1));
+        schedule.setArrivalTime(LocalDateTime.now().plusDays(1).plusHours(6));
+        schedule.setFare(500.0);
+        schedule.setAvailableSeats(CAPACITY);
+        scheduleId = firstInstance.getBean(ScheduleRepository.class).save(schedule).getId();
+
+        UserRepository userRepository = firstInstance.getBean(UserRepository.class);
+        for (int i = 0; i < NUMBER_OF_USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("password");
+            user.setFullName("User " + i);
+            user.setPhoneNumber("9000000" + String.format("%03d", i));
+            userIds.add(userRepository.save(user).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (secondInstance != null) {
+            secondInstance.close();
+        }
+        if (firstInstance != null) {
+            firstInstance.close();
+        }
+    }
+
+    @Test
+    void createBooking_ConcurrentBookingsAcrossInstances_NeverOversell() throws InterruptedException {
+        // Arrange
+        BookingService[] instances = {
+            firstInstance.getBean(BookingService.class),
+            secondInstance.getBean(BookingService.class)
+        };
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(NUMBER_OF_USERS);
+        AtomicInteger successfulBookings = new AtomicInteger(0);
+        AtomicInteger failedBookings = new AtomicInteger(0);
+
+        // Act
+        for (int i = 0; i < NUMBER_OF_USERS; i++) {
+            BookingService bookingService = instances[i % instances.length];
+            Long userId = userIds.get(i);
+            executorService.submit(() -> {
+                try {
+                    startLatch.await();
+                    bookingService.createBooking(scheduleId, userId, 1);
+                    successfulBookings.incrementAndGet();
+                } catch (RuntimeException e) {
+                    if ("Not enough seats available".equals(e.getMessage())) {
+                        failedBookings.incrementAndGet();
+                    } else {
+                        throw e;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        startLatch.countDown();
+        latch.await();
+        executorService.shutdown();
+
+        // Assert
+        Schedule schedule = firstInstance.getBean(ScheduleRepository.class).findCurrentById(scheduleId).orElseThrow();
+        int confirmedSeats = firstInstance.getBean(BookingRepository.class).findAll().stream()
+                .filter(booking -> "CONFIRMED".equals(booking.getStatus()))
+                .mapToInt(Booking::getNumberOfSeats)
+                .sum();
+        assertEquals(CAPACITY, successfulBookings.get());
+        assertEquals(NUMBER_OF_USERS - CAPACITY, failedBookings.get());
+        assertEquals(0, schedule.getAvailableSeats());
+        assertEquals(CAPACITY, confirmedSeats);
+    }
+
+    @Test
+    void cancelBooking_SeatsReleasedOnOneInstanceAreBookableOnTheOther() {
+        // Arrange
+        BookingService firstBookingService = firstInstance.getBean(BookingService.class);
+        BookingService secondBookingService = secondInstance.getBean(BookingService.class);
+        Booking booking = firstBookingService.createBooking(scheduleId, userIds.get(0), CAPACITY);
+        assertThrows(RuntimeException.class, () ->
+            secondBookingService.createBooking(scheduleId, userIds.get(1), 1));
+
+        // Act
+        firstBookingService.cancelBooking(booking.getId());
+
+        // Assert: skip the second instance's refresh interval instead of sleeping through it
+        secondInstance.getBean(SeatInventory.class).evict(scheduleId);
+        assertNotNull(secondBookingService.createBooking(scheduleId, userIds.get(1), CAPACITY));
+        Schedule schedule = firstInstance.getBean(ScheduleRepository.class).findCurrentById(scheduleId).orElseThrow();
+        assertEquals(0, schedule.getAvailableSeats());
+    }
+
+    @Test
+    void createBooking_ScheduleWithdrawnOnTheOtherInstance() {
+        // Arrange: the second instance has the schedule in its second-level cache
+        secondInstance.getBean(ScheduleRepository.class).findById(scheduleId).orElseThrow();
+
+        // Act
+        firstInstance.getBean(WithdrawalService.class).withdrawSchedule(scheduleId);
+
+        // Assert
+        BookingRejectedException rejected = assertThrows(BookingRejectedException.class, () ->
+            secondInstance.getBean(BookingService.class).createBooking(scheduleId, userIds.get(0), 1));
+        assertEquals(BookingRejectedException.Reason.WITHDRAWN, rejected.getReason());
+    }
+
+    private ConfigurableApplicationContext startInstance(String url, String ddlAuto) {
+        return new SpringApplicationBuilder(BusBookingApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--app.data-loader.enabled=false");
+    }
+}
@@ -0,0 +1,213 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduleIndexTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @InjectMocks
+    private ScheduleIndex scheduleIndex;
+
+    private Bus bus;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        bus = new Bus();
+        bus.setId(1L);
+        bus.setBusNumber("BUS001");
+        bus.setBusName("Test Bus");
+        bus.setTotalSeats(40);
+
+        base = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    @Test
+    void search_DepartureWindowSortedByTime() {
+        // Arrange
+        scheduleIndex.put(schedule(1L, "Bangalore", "Chennai", base.plusHours(5), 500.0));
+        scheduleIndex.put(schedule(2L, "Bangalore", "Chennai", base.plusHours(1), 700.0));
+        scheduleIndex.put(schedule(3L, "Bangalore", "Chennai", base.plusHours(9), 300.0));
+        scheduleIndex.put(schedule(4L, "Bangalore", "Mysore", base.plusHours(2), 200.0));
+
+        // Act
+        List<ScheduleResponse> results = scheduleIndex.search("Bangalore", "Chennai",
+                base, base.plusHours(6), null, ScheduleIndex.SORT_BY_DEPARTURE, 0, 20);
+
+        // Assert
+        assertEquals(Arrays.asList(2L, 1L), ids(results));
+    }
+
+    @Test
+    void search_SortedByFareWithPaging() {
+        // Arrange
+        scheduleIndex.put(schedule(1L, "Bangalore", "Chennai", base.plusHours(1), 500.0));
+        scheduleIndex.put(schedule(2L, "Bangalore", "Chennai", base.plusHours(2), 300.0));
+        scheduleIndex.put(schedule(3L, "Bangalore", "Chennai", base.plusHours(3), 400.0));
+
+        // Act
+        List<ScheduleResponse> firstPage = scheduleIndex.search("bangalore", "CHENNAI",
+                null, null, null, ScheduleIndex.SORT_BY_FARE, 0, 2);
+        List<ScheduleResponse> secondPage = scheduleIndex.search("bangalore", "CHENNAI",
+                null, null, null, ScheduleIndex.SORT_BY_FARE, 1, 2);
+
+        // Assert
+        assertEquals(Arrays.asList(2L, 3L), ids(firstPage));
+        assertEquals(Arrays.asList(1L), ids(secondPage));
+    }
+
+    @Test
+    void search_MaxFare() {
+        // Arrange
+        scheduleIndex.put(schedule(1L, "Bangalore", "Chennai", base.plusHours(1), 500.0));
+        scheduleIndex.put(schedule(2L, "Bangalore", "Chennai", base.plusHours(2), 300.0));
+
+        // Act
+        List<ScheduleResponse> results = scheduleIndex.search("Bangalore", "Chennai",
+                null, null, 400.0, ScheduleIndex.SORT_BY_DEPARTURE, 0, 20);
+
+        // Assert
+        assertEquals(Arrays.asList(2L), ids(results));
+    }
+
+    @Test
+    void search_UnknownSort() {
+        assertThrows(IllegalArgumentException.class, () ->
+            scheduleIndex.search("Bangalore", "Chennai", null, null, null, "seats", 0, 20));
+    }
+
+    @Test
+    void put_UpdatedScheduleMovesToNewRouteAndTime() {
+        // Arrange
+        scheduleIndex.put(schedule(1L, "Bangalore", "Chennai", base.plusHours(1), 500.0));
+
+        // Act
+        scheduleIndex.put(schedule(1L, "Bangalore", "Mysore", base.plusHours(4), 500.0));
+
+        // Assert
+        assertTrue(scheduleIndex.search("Bangalore", "Chennai", null, null, null, "departure", 0, 20).isEmpty());
+        List<ScheduleResponse> moved = scheduleIndex.search("Bangalore", "Mysore", null, null, null, "departure", 0, 20);
+        assertEquals(base.plusHours(4), moved.get(0).getDepartureTime());
+    }
+
+    @Test
+    void onSeatsChanged_ReplacesSummary() {
+        // Arrange
+        scheduleIndex.put(schedule(1L, "Bangalore", "Chennai", base.plusHours(1), 500.0));
+        ScheduleResponse before = scheduleIndex.search("Bangalore", "Chennai", null, null, null, "departure", 0, 20).get(0);
+
+        // Act
+        scheduleIndex.onSeatsChanged(new SeatsChangedEvent(1L, 12));
+
+        // Assert: summaries already handed out are left untouched
+        ScheduleResponse after = scheduleIndex.search("Bangalore", "Chennai", null, null, null, "departure", 0, 20).get(0);
+        assertEquals(40, before.getAvailableSeats());
+        assertEquals(12, after.getAvailableSeats());
+        verifyNoInteractions(scheduleRepository);
+    }
+
+    @Test
+    void onScheduleChanged_ReloadsAndRemoves() {
+        // Arrange
+        Schedule schedule = schedule(1L, "Bangalore", "Chennai", base.plusHours(1), 500.0);
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.of(schedule));
+
+        // Act & Assert
+        scheduleIndex.onScheduleChanged(new ScheduleChangedEvent(1L, false));
+        assertEquals(1, scheduleIndex.search("Bangalore", "Chennai", null, null, null, "departure", 0, 20).size());
+
+        scheduleIndex.onScheduleChanged(new ScheduleChangedEvent(1L, true));
+        assertTrue(scheduleIndex.search("Bangalore", "Chennai", null, null, null, "departure", 0, 20).isEmpty());
+    }
+
+    @Test
+    void reload_DropsSchedulesDeletedElsewhere() {
+        // Arrange
+        scheduleIndex.put(schedule(1L, "Bangalore", "Chennai", base.plusHours(1), 500.0));
+
+        // Act
+        scheduleIndex.reload(List.of(ScheduleIndex.toSummary(schedule(2L, "Bangalore", "Chennai", base.plusHours(2), 400.0))),
+            LocalDateTime.now());
+
+        // Assert
+        assertEquals(Arrays.asList(2L),
+            ids(scheduleIndex.search("Bangalore", "Chennai", null, null, null, "departure", 0, 20)));
+    }
+
+    @Test
+    void reload_DropsDepartedSchedules() {
+        // Arrange
+        List<ScheduleResponse> upcoming = Arrays.asList(
+            ScheduleIndex.toSummary(schedule(1L, "Bangalore", "Chennai", base.plusHours(1), 500.0)),
+            ScheduleIndex.toSummary(schedule(2L, "Bangalore", "Chennai", base.plusHours(3), 400.0)));
+        scheduleIndex.reload(upcoming, LocalDateTime.now());
+
+        // Act
+        scheduleIndex.reload(upcoming, base.plusHours(2));
+
+        // Assert
+        assertEquals(Arrays.asList(2L),
+            ids(scheduleIndex.search("Bangalore", "Chennai", base.minusDays(1), null, null, "departure", 0, 20)));
+    }
+
+    @Test
+    void reload_KeepsChangesMadeWhileLoading() {
+        // Arrange
+        scheduleIndex.put(schedule(1L, "Bangalore", "Chennai", base.plusHours(1), 500.0));
+        scheduleIndex.put(schedule(2L, "Bangalore", "Chennai", base.plusHours(2), 400.0));
+        List<ScheduleResponse> loaded = Arrays.asList(
+            ScheduleIndex.toSummary(schedule(1L, "Bangalore", "Chennai", base.plusHours(1), 500.0)),
+            ScheduleIndex.toSummary(schedule(2L, "Bangalore", "Chennai", base.plusHours(2), 400.0)));
+        scheduleIndex.beginLoad();
+        // Committed after the rows were read
+        scheduleIndex.remove(1L);
+        scheduleIndex.updateAvailableSeats(2L, 3);
+
+        // Act
+        scheduleIndex.reload(loaded, LocalDateTime.now());
+
+        // Assert
+        List<ScheduleResponse> results = scheduleIndex.search("Bangalore", "Chennai", null, null, null, "departure", 0, 20);
+        assertEquals(Arrays.asList(2L), ids(results));
+        assertEquals(3, results.get(0).getAvailableSeats());
+    }
+
+    private Schedule schedule(Long id, String source, String destination, LocalDateTime departure, double fare) {
+        Schedule schedule = new Schedule();
+        schedule.setId(id);
+        schedule.setBus(bus);
+        schedule.setSource(source);
+        schedule.setDestination(destination);
+        schedule.setDepartureTime(departure);
+        schedule.setArrivalTime(departure.plusHours(6));
+        schedule.setFare(fare);
+        schedule.setAvailableSeats(40);
+        return schedule;
+    }
+
+    private List<Long> ids(List<ScheduleResponse> results) {
+        return results.stream().map(ScheduleResponse::getId).toList();
+    }
+}
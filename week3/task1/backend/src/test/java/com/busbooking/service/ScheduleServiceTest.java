@@ -1,18 +1,29 @@
 package com.busbooking.service;
 
+import com.busbooking.dto.FareCalendarDayResponse;
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.dto.SeatMapResponse;
 import com.busbooking.entity.Bus;
 import com.busbooking.entity.Schedule;
+import com.busbooking.event.ScheduleChangedEvent;
 import com.busbooking.repository.BusRepository;
 import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.util.SeatMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +40,24 @@ class ScheduleServiceTest {
     @Mock
     private BusRepository busRepository;
 
+    @Spy
+    private SeatInventory seatInventory = new SeatInventory();
+
+    @Spy
+    private ScheduleIndex scheduleIndex = new ScheduleIndex();
+
+    @Mock
+    private ScheduleTemplateService scheduleTemplateService;
+
+    @Spy
+    private AvailabilityCube availabilityCube = new AvailabilityCube();
+
+    @Spy
+    private BusAllocationIndex busAllocationIndex = new BusAllocationIndex();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ScheduleService scheduleService;
 
@@ -84,6 +113,25 @@ class ScheduleServiceTest {
         verify(scheduleRepository, never()).save(any(Schedule.class));
     }
 
+    @Test
+    void createSchedule_BusAlreadyAssigned() {
+        // Arrange
+        Schedule existing = new Schedule();
+        existing.setId(2L);
+        existing.setBus(bus);
+        existing.setDepartureTime(schedule.getDepartureTime().minusHours(3));
+        existing.setArrivalTime(schedule.getDepartureTime().minusMinutes(10));
+        busAllocationIndex.put(existing);
+        schedule.setId(null);
+        when(busRepository.existsById(anyLong())).thenReturn(true);
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> scheduleService.createSchedule(schedule));
+        assertEquals("Bus is already assigned to schedule 2 at that time", exception.getMessage());
+        verify(scheduleRepository, never()).save(any(Schedule.class));
+    }
+
     @Test
     void getScheduleById_Success() {
         // Arrange
@@ -116,19 +164,54 @@ class ScheduleServiceTest {
         verify(scheduleRepository).findById(1L);
     }
 
+    @Test
+    void getSeatMap_FromStoredBitmap() {
+        // Arrange
+        SeatMap seatMap = new SeatMap(40);
+        seatMap.take(new int[] {1, 2, 10});
+        schedule.setSeatMap(seatMap.toBytes());
+        schedule.setAvailableSeats(37);
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+
+        // Act
+        SeatMapResponse response = scheduleService.getSeatMap(1L);
+
+        // Assert
+        assertEquals(1L, response.getScheduleId());
+        assertEquals(40, response.getTotalSeats());
+        assertEquals(37, response.getAvailableSeats());
+        assertArrayEquals(seatMap.toBytes(), Base64.getDecoder().decode(response.getSeatMap()));
+    }
+
+    @Test
+    void getSeatMap_LegacyScheduleShowsSoldSeatsFirst() {
+        // Arrange
+        schedule.setAvailableSeats(35);
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+
+        // Act
+        SeatMapResponse response = scheduleService.getSeatMap(1L);
+
+        // Assert
+        SeatMap seatMap = SeatMap.fromBytes(Base64.getDecoder().decode(response.getSeatMap()), 40);
+        assertEquals(35, response.getAvailableSeats());
+        assertTrue(seatMap.isTaken(5));
+        assertFalse(seatMap.isTaken(6));
+    }
+
     @Test
     void getAllSchedules_Success() {
         // Arrange
-        when(scheduleRepository.findAll()).thenReturn(Arrays.asList(schedule));
+        when(scheduleRepository.findAllResponses()).thenReturn(Arrays.asList(ScheduleIndex.toSummary(schedule)));
 
         // Act
-        List<Schedule> responses = scheduleService.getAllSchedules();
+        List<ScheduleResponse> responses = scheduleService.getAllSchedules();
 
         // Assert
         assertNotNull(responses);
         assertEquals(1, responses.size());
         assertEquals(schedule.getId(), responses.get(0).getId());
-        assertEquals(schedule.getBus(), responses.get(0).getBus());
+        assertEquals(schedule.getBus().getId(), responses.get(0).getBusId());
         assertEquals(schedule.getSource(), responses.get(0).getSource());
         assertEquals(schedule.getDestination(), responses.get(0).getDestination());
         assertEquals(schedule.getDepartureTime(), responses.get(0).getDepartureTime());
@@ -136,7 +219,85 @@ class ScheduleServiceTest {
         assertEquals(schedule.getFare(), responses.get(0).getFare());
         assertEquals(schedule.getAvailableSeats(), responses.get(0).getAvailableSeats());
 
-        verify(scheduleRepository).findAll();
+        verify(scheduleRepository).findAllResponses();
+    }
+
+    @Test
+    void searchSchedules_DefaultsToUpcomingDepartures() {
+        // Arrange
+        Schedule departed = new Schedule();
+        departed.setId(2L);
+        departed.setBus(bus);
+        departed.setSource("Source");
+        departed.setDestination("Destination");
+        departed.setDepartureTime(LocalDateTime.now().minusHours(3));
+        departed.setArrivalTime(LocalDateTime.now().minusHours(1));
+        departed.setFare(400.0);
+        departed.setAvailableSeats(10);
+        schedule.setDepartureTime(LocalDateTime.now().plusHours(2));
+        scheduleIndex.put(departed);
+        scheduleIndex.put(schedule);
+
+        // Act
+        List<ScheduleResponse> results =
+            scheduleService.searchSchedules("source", "destination", null, null, null, "departure", 0, 20);
+
+        // Assert
+        assertEquals(1, results.size());
+        assertEquals(1L, results.get(0).getId());
+        assertEquals("BUS001", results.get(0).getBusNumber());
+    }
+
+    @Test
+    void searchSchedules_MergesTemplateDeparturesNotYetMaterialized() {
+        // Arrange
+        LocalDateTime tomorrow = LocalDateTime.now().plusDays(1).withNano(0);
+        schedule.setTemplateId(7L);
+        schedule.setDepartureTime(tomorrow);
+        scheduleIndex.put(schedule);
+        when(scheduleTemplateService.departures(eq("source"), eq("destination"), any(LocalDateTime.class), isNull()))
+            .thenReturn(List.of(planned(7L, tomorrow), planned(8L, tomorrow), planned(7L, tomorrow.plusDays(1))));
+
+        // Act
+        List<ScheduleResponse> results =
+            scheduleService.searchSchedules("source", "destination", null, null, null, "departure", 0, 20);
+
+        // Assert
+        assertEquals(3, results.size());
+        assertEquals(1L, results.get(0).getId());
+        assertNull(results.get(1).getId());
+        assertEquals(8L, results.get(1).getTemplateId());
+        assertEquals(tomorrow.plusDays(1), results.get(2).getDepartureTime());
+    }
+
+    @Test
+    void getFareCalendar_SkipsSoldOutDeparturesAndCountsUnbookedTemplates() {
+        // Arrange
+        LocalDateTime tomorrow = LocalDateTime.now().plusDays(1).withHour(9).withMinute(0).withSecond(0).withNano(0);
+        schedule.setTemplateId(7L);
+        schedule.setDepartureTime(tomorrow);
+        schedule.setFare(300.0);
+        schedule.setAvailableSeats(0);
+        availabilityCube.put(schedule);
+        when(scheduleTemplateService.departures(eq("source"), eq("destination"), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(List.of(planned(7L, tomorrow), planned(8L, tomorrow), planned(7L, tomorrow.plusDays(1))));
+
+        // Act
+        List<FareCalendarDayResponse> calendar =
+            scheduleService.getFareCalendar("source", "destination", tomorrow.toLocalDate(), 3);
+
+        // Assert
+        assertEquals(3, calendar.size());
+        assertEquals(new FareCalendarDayResponse(tomorrow.toLocalDate(), 450.0, 40, 2), calendar.get(0));
+        assertEquals(new FareCalendarDayResponse(tomorrow.toLocalDate().plusDays(1), 450.0, 40, 1), calendar.get(1));
+        assertEquals(new FareCalendarDayResponse(tomorrow.toLocalDate().plusDays(2), null, 0, 0), calendar.get(2));
+    }
+
+    @Test
+    void getFareCalendar_BeyondHorizon() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> scheduleService.getFareCalendar("source", "destination", LocalDate.now().plusDays(60), 31));
     }
 
     @Test
@@ -160,9 +321,10 @@ class ScheduleServiceTest {
         updatedSchedule.setAvailableSeats(35);
         updatedSchedule.setBus(bus);
 
-        when(scheduleRepository.findById(1L)).thenReturn(Optional.of(existingSchedule));
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.of(existingSchedule));
         when(busRepository.existsById(anyLong())).thenReturn(true);
         when(scheduleRepository.save(any(Schedule.class))).thenReturn(updatedSchedule);
+        when(scheduleRepository.replaceAvailableSeats(1L, 40, 35)).thenReturn(1);
 
         // Act
         Schedule result = scheduleService.updateSchedule(1L, updatedSchedule);
@@ -173,19 +335,89 @@ class ScheduleServiceTest {
         assertEquals(updatedSchedule.getDestination(), result.getDestination());
         assertEquals(updatedSchedule.getFare(), result.getFare());
         assertEquals(updatedSchedule.getAvailableSeats(), result.getAvailableSeats());
-        verify(scheduleRepository).findById(1L);
+        verify(scheduleRepository).findCurrentById(1L);
         verify(busRepository).existsById(updatedSchedule.getBus().getId());
         verify(scheduleRepository).save(any(Schedule.class));
+        verify(scheduleRepository).bumpRevision(1L);
+        verify(eventPublisher).publishEvent(argThat((ScheduleChangedEvent event) ->
+            event.getScheduleId().equals(1L) && !event.isDeleted()));
+    }
+
+    @Test
+    void updateSchedule_SeatsBookedSinceTheRead() {
+        // Arrange
+        Schedule existingSchedule = new Schedule();
+        existingSchedule.setId(1L);
+        existingSchedule.setDepartureTime(LocalDateTime.now().plusHours(1));
+        existingSchedule.setArrivalTime(LocalDateTime.now().plusHours(3));
+        existingSchedule.setAvailableSeats(40);
+
+        Schedule updatedSchedule = new Schedule();
+        updatedSchedule.setSource("New Source");
+        updatedSchedule.setDestination("New Destination");
+        updatedSchedule.setDepartureTime(LocalDateTime.now().plusHours(1));
+        updatedSchedule.setArrivalTime(LocalDateTime.now().plusHours(3));
+        updatedSchedule.setFare(150.0);
+        updatedSchedule.setAvailableSeats(35);
+
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.of(existingSchedule));
+        when(scheduleRepository.save(any(Schedule.class))).thenReturn(existingSchedule);
+        // A booking took a seat after the read, so the count is no longer 40
+        when(scheduleRepository.replaceAvailableSeats(1L, 40, 35)).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> scheduleService.updateSchedule(1L, updatedSchedule));
+        verify(scheduleRepository, never()).bumpRevision(anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void updateSchedule_RolledBackMoveKeepsTheBusSlot() {
+        // Arrange
+        Schedule existingSchedule = new Schedule();
+        existingSchedule.setId(1L);
+        existingSchedule.setBus(bus);
+        existingSchedule.setDepartureTime(LocalDateTime.now().plusHours(1));
+        existingSchedule.setArrivalTime(LocalDateTime.now().plusHours(3));
+        existingSchedule.setAvailableSeats(40);
+        busAllocationIndex.put(existingSchedule);
+
+        Schedule movedSchedule = new Schedule();
+        movedSchedule.setBus(bus);
+        movedSchedule.setDepartureTime(LocalDateTime.now().plusHours(10));
+        movedSchedule.setArrivalTime(LocalDateTime.now().plusHours(12));
+        movedSchedule.setAvailableSeats(35);
+
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.of(existingSchedule));
+        when(busRepository.existsById(anyLong())).thenReturn(true);
+        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(scheduleRepository.replaceAvailableSeats(1L, 40, 35)).thenReturn(0);
+
+        // Act
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThrows(IllegalStateException.class, () -> scheduleService.updateSchedule(1L, movedSchedule));
+            // Until the transaction ends, the new slot is held as well as the old one
+            assertFalse(busAllocationIndex.isFree(1L, movedSchedule.getDepartureTime(), movedSchedule.getArrivalTime()));
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertFalse(busAllocationIndex.isFree(1L, LocalDateTime.now().plusHours(2), LocalDateTime.now().plusHours(2)));
+        assertTrue(busAllocationIndex.isFree(1L, movedSchedule.getDepartureTime(), movedSchedule.getArrivalTime()));
     }
 
     @Test
     void updateSchedule_NotFound() {
         // Arrange
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> scheduleService.updateSchedule(1L, schedule));
-        verify(scheduleRepository).findById(1L);
+        verify(scheduleRepository).findCurrentById(1L);
         verify(scheduleRepository, never()).save(any(Schedule.class));
     }
 
@@ -201,6 +433,7 @@ class ScheduleServiceTest {
         // Assert
         verify(scheduleRepository).findById(1L);
         verify(scheduleRepository).delete(schedule);
+        verify(eventPublisher).publishEvent(argThat((ScheduleChangedEvent event) -> event.isDeleted()));
     }
 
     @Test
@@ -213,4 +446,16 @@ class ScheduleServiceTest {
         verify(scheduleRepository).findById(1L);
         verify(scheduleRepository, never()).delete(any(Schedule.class));
     }
+
+    private static ScheduleResponse planned(Long templateId, LocalDateTime departure) {
+        ScheduleResponse summary = new ScheduleResponse();
+        summary.setTemplateId(templateId);
+        summary.setSource("Source");
+        summary.setDestination("Destination");
+        summary.setDepartureTime(departure);
+        summary.setArrivalTime(departure.plusHours(2));
+        summary.setFare(450.0);
+        summary.setAvailableSeats(40);
+        return summary;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,218 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.ScheduleTemplate;
+import com.busbooking.event.ScheduleChangedEvent;
+import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.ScheduleTemplateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduleTemplateServiceTest {
+
+    @Mock
+    private ScheduleTemplateRepository templateRepository;
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private BusRepository busRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ScheduleTemplateService scheduleTemplateService;
+
+    private Bus bus;
+    private ScheduleTemplate template;
+    private LocalDate nextMonday;
+
+    @BeforeEach
+    void setUp() {
+        bus = new Bus();
+        bus.setId(1L);
+        bus.setBusNumber("BUS001");
+        bus.setBusName("Test Bus");
+        bus.setTotalSeats(40);
+
+        nextMonday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+        template = new ScheduleTemplate();
+        template.setId(5L);
+        template.setBus(bus);
+        template.setSource("Bangalore");
+        template.setDestination("Chennai");
+        template.setDaysOfWeek("MON,WED");
+        template.setDepartureTime(LocalTime.of(6, 30));
+        template.setDurationMinutes(360);
+        template.setFare(500.0);
+        template.setValidFrom(nextMonday);
+    }
+
+    @Test
+    void departures_ExpandsMatchingDaysInWindow() {
+        // Arrange
+        when(templateRepository.findAllByOrderByIdAsc()).thenReturn(List.of(template));
+        scheduleTemplateService.reload();
+
+        // Act
+        List<ScheduleResponse> departures = scheduleTemplateService.departures("bangalore", "CHENNAI",
+                nextMonday.atStartOfDay(), nextMonday.plusDays(13).atTime(23, 59));
+
+        // Assert
+        assertEquals(List.of(nextMonday, nextMonday.plusDays(2), nextMonday.plusDays(7), nextMonday.plusDays(9)),
+                departures.stream().map(departure -> departure.getDepartureTime().toLocalDate()).toList());
+        ScheduleResponse first = departures.get(0);
+        assertNull(first.getId());
+        assertEquals(5L, first.getTemplateId());
+        assertEquals(nextMonday.atTime(12, 30), first.getArrivalTime());
+        assertEquals(40, first.getAvailableSeats());
+        assertEquals("BUS001", first.getBusNumber());
+    }
+
+    @Test
+    void departures_StopsAtValidUntil() {
+        // Arrange
+        template.setValidUntil(nextMonday.plusDays(3));
+        when(templateRepository.findAllByOrderByIdAsc()).thenReturn(List.of(template));
+        scheduleTemplateService.reload();
+
+        // Act
+        List<ScheduleResponse> departures = scheduleTemplateService.departures("Bangalore", "Chennai",
+                nextMonday.atStartOfDay(), null);
+
+        // Assert
+        assertEquals(2, departures.size());
+    }
+
+    @Test
+    void createTemplate_NormalizesDays() {
+        // Arrange
+        template.setDaysOfWeek("friday, mon");
+        when(busRepository.findById(1L)).thenReturn(Optional.of(bus));
+        when(templateRepository.save(any(ScheduleTemplate.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ScheduleTemplate saved = scheduleTemplateService.createTemplate(template);
+
+        // Assert
+        assertEquals("MON,FRI", saved.getDaysOfWeek());
+        verify(templateRepository).findAllByOrderByIdAsc();
+    }
+
+    @Test
+    void createTemplate_UnknownDay_ThrowsException() {
+        // Arrange
+        template.setDaysOfWeek("MON,XYZ");
+        when(busRepository.findById(1L)).thenReturn(Optional.of(bus));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> scheduleTemplateService.createTemplate(template));
+        assertEquals("Unknown day of the week: XYZ", exception.getMessage());
+        verify(templateRepository, never()).save(any());
+    }
+
+    @Test
+    void materialize_FirstBookingCreatesSchedule() {
+        // Arrange
+        LocalDateTime departure = nextMonday.atTime(6, 30);
+        when(templateRepository.findById(5L)).thenReturn(Optional.of(template));
+        when(scheduleRepository.findByTemplateIdAndDepartureTime(5L, departure)).thenReturn(Optional.empty());
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(scheduleRepository.save(any(Schedule.class))).thenAnswer(invocation -> {
+            Schedule saved = invocation.getArgument(0);
+            saved.setId(100L);
+            return saved;
+        });
+
+        // Act
+        Schedule schedule = scheduleTemplateService.materialize(5L, nextMonday);
+
+        // Assert
+        assertEquals(100L, schedule.getId());
+        assertEquals(5L, schedule.getTemplateId());
+        assertEquals(departure, schedule.getDepartureTime());
+        assertEquals(departure.plusMinutes(360), schedule.getArrivalTime());
+        assertEquals(40, schedule.getAvailableSeats());
+        verify(eventPublisher).publishEvent(any(ScheduleChangedEvent.class));
+    }
+
+    @Test
+    void materialize_AlreadyMaterialized_ReturnsExistingSchedule() {
+        // Arrange
+        Schedule existing = new Schedule();
+        existing.setId(100L);
+        when(templateRepository.findById(5L)).thenReturn(Optional.of(template));
+        when(scheduleRepository.findByTemplateIdAndDepartureTime(5L, nextMonday.atTime(6, 30)))
+                .thenReturn(Optional.of(existing));
+
+        // Act
+        Schedule schedule = scheduleTemplateService.materialize(5L, nextMonday);
+
+        // Assert
+        assertSame(existing, schedule);
+        verify(scheduleRepository, never()).save(any());
+    }
+
+    @Test
+    void materialize_LosesRace_ReturnsWinnersSchedule() {
+        // Arrange
+        Schedule winner = new Schedule();
+        winner.setId(101L);
+        LocalDateTime departure = nextMonday.atTime(6, 30);
+        when(templateRepository.findById(5L)).thenReturn(Optional.of(template));
+        when(scheduleRepository.findByTemplateIdAndDepartureTime(5L, departure))
+                .thenReturn(Optional.empty(), Optional.of(winner));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(scheduleRepository.save(any(Schedule.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        // Act
+        Schedule schedule = scheduleTemplateService.materialize(5L, nextMonday);
+
+        // Assert
+        assertSame(winner, schedule);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void materialize_DayNotRun_ThrowsException() {
+        // Arrange
+        when(templateRepository.findById(5L)).thenReturn(Optional.of(template));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduleTemplateService.materialize(5L, nextMonday.plusDays(1)));
+        verify(scheduleRepository, never()).findByTemplateIdAndDepartureTime(any(), any());
+    }
+}
@@ -0,0 +1,99 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduleViewRefresherTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @InjectMocks
+    private ScheduleViewRefresher scheduleViewRefresher;
+
+    private final ScheduleIndex scheduleIndex = new ScheduleIndex();
+    private final BusAllocationIndex busAllocationIndex = new BusAllocationIndex();
+    private Bus bus;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduleViewRefresher, "views", List.of(scheduleIndex, busAllocationIndex));
+        bus = new Bus();
+        bus.setId(1L);
+        bus.setBusNumber("BUS001");
+        base = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    @Test
+    void refresh_LoadsEveryViewFromOneQuery() {
+        // Arrange
+        when(scheduleRepository.findUpcomingResponses(any())).thenReturn(Arrays.asList(
+            ScheduleIndex.toSummary(schedule(1L, base)), ScheduleIndex.toSummary(schedule(2L, base.plusHours(8)))));
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        scheduleViewRefresher.refresh();
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(scheduleRepository, times(1)).findUpcomingResponses(since.capture());
+        // Far enough back for the bus allocation index's turnaround
+        assertFalse(since.getValue().isAfter(before.minusMinutes(30).plusSeconds(1)));
+        assertFalse(since.getValue().isBefore(before.minusMinutes(31)));
+        assertEquals(2, scheduleIndex.search("Bangalore", "Chennai", null, null, null, "departure", 0, 20).size());
+        assertFalse(busAllocationIndex.isFree(1L, base.plusHours(1), base.plusHours(2)));
+    }
+
+    @Test
+    void refresh_KeepsChangesCommittedDuringTheQuery() {
+        // Arrange
+        scheduleIndex.put(schedule(1L, base));
+        when(scheduleRepository.findUpcomingResponses(any())).thenAnswer(invocation -> {
+            List<ScheduleResponse> rows = List.of(ScheduleIndex.toSummary(schedule(1L, base)));
+            // A withdrawal commits after the rows were read
+            scheduleIndex.remove(1L);
+            busAllocationIndex.remove(1L);
+            return rows;
+        });
+
+        // Act
+        scheduleViewRefresher.refresh();
+
+        // Assert
+        assertTrue(scheduleIndex.search("Bangalore", "Chennai", null, null, null, "departure", 0, 20).isEmpty());
+        assertTrue(busAllocationIndex.isFree(1L, base, base.plusHours(4)));
+    }
+
+    private Schedule schedule(Long id, LocalDateTime departure) {
+        Schedule schedule = new Schedule();
+        schedule.setId(id);
+        schedule.setBus(bus);
+        schedule.setSource("Bangalore");
+        schedule.setDestination("Chennai");
+        schedule.setDepartureTime(departure);
+        schedule.setArrivalTime(departure.plusHours(6));
+        schedule.setFare(500.0);
+        schedule.setAvailableSeats(40);
+        return schedule;
+    }
+}
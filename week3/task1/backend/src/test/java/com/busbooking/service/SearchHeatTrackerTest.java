@@ -0,0 +1,187 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.HotSearchResponse;
+import com.busbooking.dto.ScheduleResponse;
+import com.busbooking.entity.Schedule;
+import com.busbooking.repository.ScheduleRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchHeatTrackerTest {
+
+    @Mock
+    private ScheduleService scheduleService;
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private SeatInventory seatInventory;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private SearchHeatTracker searchHeatTracker;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(3);
+
+    @Test
+    void topRoutes_MostSearchedFirst() {
+        // Arrange
+        search("Bangalore", "Chennai", 3);
+        search("Mumbai", "Pune", 1);
+        search("Delhi", "Jaipur", 2);
+        // Counted as the same route
+        searchHeatTracker.record(" bangalore ", "CHENNAI", travelDate.atTime(18, 0));
+
+        // Act
+        List<HotSearchResponse> top = searchHeatTracker.topRoutes(2);
+
+        // Assert
+        assertEquals(List.of(new HotSearchResponse("Bangalore", "Chennai", travelDate, 4),
+                new HotSearchResponse("Delhi", "Jaipur", travelDate, 2)), top);
+        assertThrows(IllegalArgumentException.class, () -> searchHeatTracker.topRoutes(0));
+    }
+
+    @Test
+    void record_NewcomerReplacesTheLowestOnceItPassesIt() {
+        // Arrange
+        ReflectionTestUtils.setField(searchHeatTracker, "topK", 2);
+        search("Bangalore", "Chennai", 3);
+        search("Mumbai", "Pune", 1);
+
+        // Act
+        search("Delhi", "Jaipur", 1);
+        List<HotSearchResponse> tied = searchHeatTracker.topRoutes(2);
+        search("Delhi", "Jaipur", 1);
+        List<HotSearchResponse> passed = searchHeatTracker.topRoutes(2);
+
+        // Assert
+        assertEquals("Pune", tied.get(1).getDestination());
+        assertEquals("Jaipur", passed.get(1).getDestination());
+        assertEquals(2, passed.get(1).getEstimatedCount());
+    }
+
+    @Test
+    void record_ConcurrentSearchesAreAllCounted() throws InterruptedException {
+        // Arrange
+        int numberOfThreads = 16;
+        int searchesPerThread = 500;
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(numberOfThreads);
+
+        // Act
+        for (int i = 0; i < numberOfThreads; i++) {
+            String destination = i % 2 == 0 ? "Chennai" : "Mysore";
+            executorService.submit(() -> {
+                try {
+                    startLatch.await();
+                    search("Bangalore", destination, searchesPerThread);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        startLatch.countDown();
+        latch.await();
+        executorService.shutdown();
+
+        // Assert
+        List<HotSearchResponse> top = searchHeatTracker.topRoutes(10);
+        assertEquals(2, top.size());
+        assertEquals(numberOfThreads / 2 * searchesPerThread, top.get(0).getEstimatedCount());
+        assertEquals(numberOfThreads / 2 * searchesPerThread, top.get(1).getEstimatedCount());
+    }
+
+    @Test
+    void decay_HalvesCountsAndDropsPassedDates() {
+        // Arrange
+        for (int i = 0; i < 2; i++) {
+            searchHeatTracker.record("Bangalore", "Chennai", LocalDateTime.now().minusDays(1));
+        }
+        search("Bangalore", "Chennai", 5);
+
+        // Act
+        searchHeatTracker.decay();
+
+        // Assert
+        assertEquals(List.of(new HotSearchResponse("Bangalore", "Chennai", travelDate, 2)),
+                searchHeatTracker.topRoutes(10));
+    }
+
+    @Test
+    void loadSnapshot_RestoresTheSavedTopRoutes(@TempDir Path directory) {
+        // Arrange
+        String snapshotFile = directory.resolve("search-heat.json").toString();
+        ReflectionTestUtils.setField(searchHeatTracker, "snapshotFile", snapshotFile);
+        search("Bangalore", "Chennai", 3);
+        search("Mumbai", "Pune", 1);
+        searchHeatTracker.saveSnapshot();
+        SearchHeatTracker restarted = new SearchHeatTracker();
+        ReflectionTestUtils.setField(restarted, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(restarted, "snapshotFile", snapshotFile);
+
+        // Act
+        restarted.loadSnapshot();
+
+        // Assert
+        assertEquals(searchHeatTracker.topRoutes(10), restarted.topRoutes(10));
+    }
+
+    @Test
+    void prewarm_LoadsTheSeatCountersOfHotRoutes() {
+        // Arrange
+        search("Bangalore", "Chennai", 2);
+        ScheduleResponse booked = new ScheduleResponse();
+        booked.setId(7L);
+        ScheduleResponse planned = new ScheduleResponse();
+        planned.setTemplateId(3L);
+        when(scheduleService.searchSchedules("Bangalore", "Chennai", travelDate.atStartOfDay(),
+                travelDate.plusDays(1).atStartOfDay().minusNanos(1), null, "departure", 0, 20))
+                .thenReturn(Arrays.asList(booked, planned));
+        Schedule schedule = new Schedule();
+        schedule.setId(7L);
+        schedule.setAvailableSeats(12);
+        when(scheduleRepository.findAllById(Set.of(7L))).thenReturn(List.of(schedule));
+
+        // Act
+        int loaded = searchHeatTracker.prewarm();
+
+        // Assert
+        assertEquals(1, loaded);
+        verify(seatInventory).getAvailableSeats(eq(7L), any());
+    }
+
+    private void search(String source, String destination, int times) {
+        for (int i = 0; i < times; i++) {
+            searchHeatTracker.record(source, destination, travelDate.atTime(9, 0));
+        }
+    }
+}
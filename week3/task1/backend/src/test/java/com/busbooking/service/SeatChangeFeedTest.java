@@ -0,0 +1,115 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.SeatChangeFeedResponse;
+import com.busbooking.dto.SeatChangeResponse;
+import com.busbooking.entity.Schedule;
+import com.busbooking.event.SeatsChangedEvent;
+import com.busbooking.repository.ScheduleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeatChangeFeedTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @InjectMocks
+    private SeatChangeFeed seatChangeFeed;
+
+    @Test
+    void changesSince_KeepsOnlyTheLatestCountOfEachSchedule() {
+        // Arrange
+        long start = seatChangeFeed.changesSince(0).getVersion();
+
+        // Act
+        seatChangeFeed.record(1L, 39);
+        seatChangeFeed.record(2L, 20);
+        seatChangeFeed.record(1L, 37);
+        SeatChangeFeedResponse response = seatChangeFeed.changesSince(start);
+
+        // Assert
+        assertFalse(response.isReset());
+        assertEquals(start + 3, response.getVersion());
+        assertEquals(List.of(2L, 1L), response.getChanges().stream().map(SeatChangeResponse::getScheduleId).toList());
+        assertEquals(37, response.getChanges().get(1).getAvailableSeats());
+        assertTrue(seatChangeFeed.changesSince(response.getVersion()).getChanges().isEmpty());
+    }
+
+    @Test
+    void changesSince_ResetsWhenTheVersionIsUnknown() {
+        // Act
+        SeatChangeFeedResponse first = seatChangeFeed.changesSince(0);
+        SeatChangeFeedResponse future = seatChangeFeed.changesSince(first.getVersion() + 1);
+
+        // Assert
+        assertTrue(first.isReset());
+        assertTrue(future.isReset());
+        assertTrue(future.getChanges().isEmpty());
+    }
+
+    @Test
+    void onSeatsChanged_LoadsTheCountWhenTheEventHasNone() {
+        // Arrange
+        long start = seatChangeFeed.changesSince(0).getVersion();
+        Schedule schedule = new Schedule();
+        schedule.setId(1L);
+        schedule.setAvailableSeats(12);
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.of(schedule));
+
+        // Act
+        seatChangeFeed.onSeatsChanged(new SeatsChangedEvent(1L, null));
+
+        // Assert
+        assertEquals(12, seatChangeFeed.changesSince(start).getChanges().get(0).getAvailableSeats());
+    }
+
+    @Test
+    void flush_PushesMatchingChangesOncePerBatch() {
+        // Arrange
+        List<List<SeatChangeResponse>> received = new ArrayList<>();
+        seatChangeFeed.subscribe(Set.of(1L), null, received::add);
+
+        // Act
+        seatChangeFeed.record(1L, 39);
+        seatChangeFeed.record(2L, 20);
+        seatChangeFeed.record(1L, 38);
+        seatChangeFeed.flush();
+        seatChangeFeed.flush();
+
+        // Assert
+        assertEquals(1, received.size());
+        assertEquals(1, received.get(0).size());
+        assertEquals(38, received.get(0).get(0).getAvailableSeats());
+    }
+
+    @Test
+    void subscribe_SendsMissedChangesAndStopsAfterCancel() {
+        // Arrange
+        long start = seatChangeFeed.changesSince(0).getVersion();
+        seatChangeFeed.record(1L, 39);
+        seatChangeFeed.flush();
+        List<List<SeatChangeResponse>> received = new ArrayList<>();
+
+        // Act
+        SeatChangeFeed.Subscription subscription = seatChangeFeed.subscribe(null, start, received::add);
+        subscription.cancel();
+        seatChangeFeed.record(2L, 20);
+        seatChangeFeed.flush();
+
+        // Assert
+        assertEquals(1, received.size());
+        assertEquals(1L, received.get(0).get(0).getScheduleId());
+    }
+}
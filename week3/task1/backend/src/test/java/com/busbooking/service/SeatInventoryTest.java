@@ -0,0 +1,97 @@
+package com.busbooking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatInventoryTest {
+
+    private SeatInventory seatInventory;
+
+    @BeforeEach
+    void setUp() {
+        seatInventory = new SeatInventory();
+    }
+
+    @Test
+    void tryReserve_LoadsCounterOnce() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertTrue(seatInventory.tryReserve(1L, 3, () -> { loads.incrementAndGet(); return 10; }));
+        assertTrue(seatInventory.tryReserve(1L, 3, () -> { loads.incrementAndGet(); return 10; }));
+
+        assertEquals(1, loads.get());
+        assertEquals(4, seatInventory.getAvailableSeats(1L, () -> 10));
+    }
+
+    @Test
+    void tryReserve_NotEnoughSeats() {
+        assertFalse(seatInventory.tryReserve(1L, 5, () -> 4));
+        assertEquals(4, seatInventory.getAvailableSeats(1L, () -> 4));
+    }
+
+    @Test
+    void tryReserve_ConcurrentReservationsNeverOversell() throws InterruptedException {
+        int numberOfThreads = 64;
+        int capacity = 40;
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(numberOfThreads);
+        AtomicInteger successfulReservations = new AtomicInteger();
+
+        for (int i = 0; i < numberOfThreads; i++) {
+            executorService.submit(() -> {
+                try {
+                    startLatch.await();
+                    if (seatInventory.tryReserve(1L, 1, () -> capacity)) {
+                        successfulReservations.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        startLatch.countDown();
+        latch.await();
+        executorService.shutdown();
+
+        assertEquals(capacity, successfulReservations.get());
+        assertEquals(0, seatInventory.getAvailableSeats(1L, () -> capacity));
+    }
+
+    @Test
+    void refreshIfStale_SkipsFreshCounter() {
+        seatInventory.tryReserve(1L, 2, () -> 10);
+
+        assertFalse(seatInventory.refreshIfStale(1L, () -> 3));
+        assertEquals(8, seatInventory.getAvailableSeats(1L, () -> 3));
+    }
+
+    @Test
+    void refreshIfStale_ReloadsAfterInterval() {
+        ReflectionTestUtils.setField(seatInventory, "refreshIntervalMs", 0L);
+        seatInventory.tryReserve(1L, 10, () -> 10);
+
+        // Another instance released seats in the database
+        assertTrue(seatInventory.refreshIfStale(1L, () -> 3));
+        assertEquals(3, seatInventory.getAvailableSeats(1L, () -> 0));
+    }
+
+    @Test
+    void evict_NextAccessReloads() {
+        seatInventory.tryReserve(1L, 2, () -> 10);
+
+        seatInventory.evict(1L);
+
+        assertEquals(5, seatInventory.getAvailableSeats(1L, () -> 5));
+    }
+}
@@ -0,0 +1,132 @@
+package com.busbooking.service;
+
+import com.busbooking.BusBookingApplication;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.User;
+import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecondLevelCacheTest {
+
+    private ConfigurableApplicationContext context;
+    private Cache cache;
+    private Long busId;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        context = new SpringApplicationBuilder(BusBookingApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--app.data-loader.enabled=false");
+        cache = context.getBean(EntityManagerFactory.class).getCache();
+
+        Bus bus = new Bus();
+        bus.setBusNumber("KA-01-1234");
+        bus.setBusName("Express");
+        bus.setTotalSeats(40);
+        bus.setBusType("AC");
+        busId = context.getBean(BusRepository.class).save(bus).getId();
+
+        User user = new User();
+        user.setEmail("user@example.com");
+        user.setPassword("password");
+        user.setFullName("User");
+        user.setPhoneNumber("9000000000");
+        userId = context.getBean(UserRepository.class).save(user).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void getBusById_SecondReadIsACacheHit() {
+        // Arrange
+        BusService busService = context.getBean(BusService.class);
+        cache.evictAll();
+
+        // Act
+        busService.getBusById(busId);
+        busService.getBusById(busId);
+
+        // Assert
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        assertEquals(1, registry.get("cache.l2.requests").tags("region", "bus", "result", "hit").functionCounter().count());
+        assertEquals(0.5, registry.get("cache.l2.hit.ratio").tag("region", "bus").gauge().value());
+    }
+
+    @Test
+    void booking_EvictsOnlyItsSchedule() {
+        // Arrange
+        Long booked = schedule("Bangalore", "Chennai");
+        Long other = schedule("Chennai", "Bangalore");
+        ScheduleService scheduleService = context.getBean(ScheduleService.class);
+        scheduleService.getScheduleById(booked);
+        scheduleService.getScheduleById(other);
+        assertTrue(cache.contains(Schedule.class, booked));
+
+        // Act
+        context.getBean(BookingService.class).createBooking(booked, userId, 3);
+
+        // Assert
+        assertFalse(cache.contains(Schedule.class, booked));
+        assertTrue(cache.contains(Schedule.class, other));
+        assertEquals(37, scheduleService.getScheduleById(booked).getAvailableSeats());
+        assertEquals(37, scheduleService.getSeatMap(booked).getAvailableSeats());
+    }
+
+    @Test
+    void importBuses_EvictsCachedBusLists() throws Exception {
+        // Arrange
+        BusService busService = context.getBean(BusService.class);
+        assertEquals(1, busService.getAllBuses().size());
+
+        // Act
+        context.getBean(BulkImportService.class).importBuses(new ByteArrayInputStream(
+                "busNumber,busName,totalSeats,busType\nKA-01-0002,City Link,36,Non-AC\n"
+                        .getBytes(StandardCharsets.UTF_8)), "text/csv");
+
+        // Assert
+        assertEquals(2, busService.getAllBuses().size());
+    }
+
+    private Long schedule(String source, String destination) {
+        Schedule schedule = new Schedule();
+        schedule.setBus(context.getBean(BusRepository.class).findById(busId).orElseThrow());
+        schedule.setSource(source);
+        schedule.setDestination(destination);
+        schedule.setDepartureTime(LocalDateTime.now().plusDays(1));
+        schedule.setArrivalTime(LocalDateTime.now().plusDays(1).plusHours(6));
+        schedule.setFare(500.0);
+        schedule.setAvailableSeats(40);
+        return context.getBean(ScheduleRepository.class).save(schedule).getId();
+    }
+}
@@ -7,12 +7,16 @@ import com.busbooking.entity.User;
 import com.busbooking.repository.BookingRepository;
 import com.busbooking.repository.ScheduleRepository;
 import com.busbooking.repository.UserRepository;
+import com.busbooking.repository.WaitlistRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -32,9 +36,24 @@ class UserBookingEdgeCasesTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
     @Mock
     private ScheduleRepository scheduleRepository;
 
+    @Spy
+    private SeatInventory seatInventory = new SeatInventory();
+
+    @Spy
+    private UserBookingIndex userBookingIndex = new UserBookingIndex();
+
+    @Spy
+    private BookingMetrics bookingMetrics = new BookingMetrics(new SimpleMeterRegistry(), 3, 60);
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookingService bookingService;
 
@@ -84,8 +103,8 @@ class UserBookingEdgeCasesTest {
     void createBooking_UserWithMultipleBookings() {
         // Arrange
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(
             Arrays.asList(booking, booking, booking, booking, booking)
         );
 
@@ -100,12 +119,12 @@ class UserBookingEdgeCasesTest {
         Booking cancelledBooking = new Booking();
         cancelledBooking.setStatus("CANCELLED");
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(
             Arrays.asList(cancelledBooking, cancelledBooking)
         );
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
 
         // Act
         Booking result = bookingService.createBooking(1L, 1L, 1);
@@ -121,12 +140,12 @@ class UserBookingEdgeCasesTest {
         Booking expiredBooking = new Booking();
         expiredBooking.setStatus("EXPIRED");
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(
             Arrays.asList(expiredBooking, expiredBooking)
         );
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
 
         // Act
         Booking result = bookingService.createBooking(1L, 1L, 1);
@@ -150,8 +169,8 @@ class UserBookingEdgeCasesTest {
         overlappingBooking.setStatus("CONFIRMED");
 
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(
             Arrays.asList(overlappingBooking)
         );
 
@@ -174,12 +193,12 @@ class UserBookingEdgeCasesTest {
         pastBooking.setStatus("COMPLETED");
 
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(
             Arrays.asList(pastBooking)
         );
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
 
         // Act
         Booking result = bookingService.createBooking(1L, 1L, 1);
@@ -203,12 +222,12 @@ class UserBookingEdgeCasesTest {
         futureBooking.setStatus("CONFIRMED");
 
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(scheduleRepository.findById(anyLong())).thenReturn(Optional.of(schedule));
-        when(bookingRepository.findByUserId(anyLong())).thenReturn(
+        when(scheduleRepository.findCurrentById(anyLong())).thenReturn(Optional.of(schedule));
+        when(bookingRepository.findActiveByUserId(anyLong(), any(LocalDateTime.class))).thenReturn(
             Arrays.asList(futureBooking)
         );
+        when(scheduleRepository.updateSeatMap(anyLong(), any(), anyInt())).thenReturn(1);
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
-        when(scheduleRepository.save(any(Schedule.class))).thenReturn(schedule);
 
         // Act
         Booking result = bookingService.createBooking(1L, 1L, 1);
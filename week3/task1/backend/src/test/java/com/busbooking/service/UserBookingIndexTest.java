@@ -0,0 +1,184 @@
+package com.busbooking.service;
+
+import com.busbooking.entity.Booking;
+import com.busbooking.entity.Schedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserBookingIndexTest {
+
+    private UserBookingIndex userBookingIndex;
+    private LocalDateTime tomorrow;
+    private AtomicInteger loads;
+    private List<Booking> stored;
+    private Supplier<List<Booking>> loader;
+
+    @BeforeEach
+    void setUp() {
+        userBookingIndex = new UserBookingIndex();
+        tomorrow = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0);
+        loads = new AtomicInteger();
+        stored = new ArrayList<>();
+        loader = () -> {
+            loads.incrementAndGet();
+            return stored;
+        };
+    }
+
+    @Test
+    void reserve_LimitCountsOnlyActiveBookings() {
+        // Arrange: four confirmed trips on different days, plus cancelled and expired ones
+        for (int day = 0; day < 4; day++) {
+            stored.add(booking(day + 1L, "CONFIRMED", schedule(day + 1L, tomorrow.plusDays(day))));
+        }
+        stored.add(booking(10L, "CANCELLED", schedule(10L, tomorrow.plusDays(10))));
+        stored.add(booking(11L, "EXPIRED", schedule(11L, tomorrow.plusDays(11))));
+
+        // Act
+        userBookingIndex.reserve(1L, schedule(20L, tomorrow.plusDays(20)), false, loader).commit();
+
+        // Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+            userBookingIndex.reserve(1L, schedule(21L, tomorrow.plusDays(21)), false, loader));
+        assertEquals("User has reached maximum number of active bookings", exception.getMessage());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void reserve_RejectsOverlappingTrip() {
+        // Arrange
+        stored.add(booking(1L, "CONFIRMED", schedule(1L, tomorrow)));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+            userBookingIndex.reserve(1L, schedule(2L, tomorrow.plusHours(1)), false, loader));
+        assertEquals("User has an overlapping booking", exception.getMessage());
+        assertNotNull(userBookingIndex.reserve(1L, schedule(3L, tomorrow.plusHours(3)), false, loader));
+    }
+
+    @Test
+    void remove_FreesTheWindow() {
+        // Arrange
+        UserBookingIndex.Reservation reservation = userBookingIndex.reserve(1L, schedule(1L, tomorrow), false, loader);
+        reservation.assign(7L, null);
+        reservation.commit();
+
+        // Act
+        userBookingIndex.remove(1L, 7L);
+
+        // Assert
+        assertNotNull(userBookingIndex.reserve(1L, schedule(2L, tomorrow), false, loader));
+    }
+
+    @Test
+    void cancel_RolledBackReservationIsForgotten() {
+        // Arrange
+        UserBookingIndex.Reservation reservation = userBookingIndex.reserve(1L, schedule(1L, tomorrow), false, loader);
+
+        // Act
+        reservation.cancel();
+
+        // Assert
+        assertNotNull(userBookingIndex.reserve(1L, schedule(2L, tomorrow), false, loader));
+    }
+
+    @Test
+    void reserve_FinishedTripsDoNotCount() {
+        // Arrange: five trips that have already arrived
+        for (long id = 1; id <= 5; id++) {
+            stored.add(booking(id, "CONFIRMED", schedule(id, LocalDateTime.now().minusDays(id))));
+        }
+
+        // Act & Assert
+        assertNotNull(userBookingIndex.reserve(1L, schedule(9L, tomorrow), false, loader));
+    }
+
+    @Test
+    void findLiveHold_OnlyUnexpiredPendingHoldOnSchedule() {
+        // Arrange
+        UserBookingIndex.Reservation reservation = userBookingIndex.reserve(1L, schedule(1L, tomorrow), true, loader);
+        reservation.assign(7L, LocalDateTime.now().plusMinutes(10));
+        reservation.commit();
+
+        // Act & Assert
+        assertEquals(7L, userBookingIndex.findLiveHold(1L, 1L, loader));
+        assertNull(userBookingIndex.findLiveHold(1L, 2L, loader));
+
+        userBookingIndex.confirm(1L, 7L);
+        assertNull(userBookingIndex.findLiveHold(1L, 1L, loader));
+    }
+
+    @Test
+    void evict_ReloadsFromDatabase() {
+        // Arrange
+        userBookingIndex.reserve(1L, schedule(1L, tomorrow.plusDays(1)), false, loader).commit();
+        stored.addAll(Arrays.asList(booking(5L, "CONFIRMED", schedule(5L, tomorrow))));
+
+        // Act
+        userBookingIndex.evict(1L);
+
+        // Assert: a booking made through another instance is now visible
+        assertThrows(IllegalStateException.class, () ->
+            userBookingIndex.reserve(1L, schedule(2L, tomorrow), false, loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void load_KeepsAtMostMaxUsers() {
+        // Arrange
+        ReflectionTestUtils.setField(userBookingIndex, "maxUsers", 3);
+        userBookingIndex.reserve(1L, schedule(1L, tomorrow), false, loader).commit();
+        userBookingIndex.reserve(2L, schedule(1L, tomorrow), false, loader).commit();
+        // Still in flight, so it survives making room
+        UserBookingIndex.Reservation inFlight = userBookingIndex.reserve(3L, schedule(1L, tomorrow), false, loader);
+
+        // Act
+        userBookingIndex.reserve(4L, schedule(1L, tomorrow), false, loader).commit();
+        userBookingIndex.reserve(5L, schedule(1L, tomorrow), false, loader).commit();
+
+        // Assert
+        assertTrue(userBookingIndex.size() <= 3);
+        assertThrows(IllegalStateException.class, () ->
+            userBookingIndex.reserve(3L, schedule(2L, tomorrow), false, loader));
+        inFlight.cancel();
+    }
+
+    @Test
+    void load_DropsUsersUnloadedForTheTtl() {
+        // Arrange
+        ReflectionTestUtils.setField(userBookingIndex, "ttlSeconds", 0L);
+        userBookingIndex.reserve(1L, schedule(1L, tomorrow), false, loader).commit();
+
+        // Act
+        userBookingIndex.findLiveHold(2L, 1L, loader);
+
+        // Assert
+        assertEquals(1, userBookingIndex.size());
+    }
+
+    private Schedule schedule(Long id, LocalDateTime departure) {
+        Schedule schedule = new Schedule();
+        schedule.setId(id);
+        schedule.setDepartureTime(departure);
+        schedule.setArrivalTime(departure.plusHours(2));
+        return schedule;
+    }
+
+    private Booking booking(Long id, String status, Schedule schedule) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStatus(status);
+        booking.setSchedule(schedule);
+        return booking;
+    }
+}
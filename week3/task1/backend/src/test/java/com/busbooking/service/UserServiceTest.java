@@ -2,6 +2,7 @@ package com.busbooking.service;
 
 import com.busbooking.dto.UserProfileDTO;
 import com.busbooking.entity.User;
+import com.busbooking.event.UserChangedEvent;
 import com.busbooking.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
@@ -22,6 +24,9 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -85,6 +90,7 @@ class UserServiceTest {
 
         verify(userRepository).findById(1L);
         verify(userRepository).save(any(User.class));
+        verify(eventPublisher).publishEvent(any(UserChangedEvent.class));
     }
 
     @Test
@@ -96,5 +102,6 @@ class UserServiceTest {
         assertThrows(RuntimeException.class, () -> userService.updateUserProfile(1L, userProfileDTO));
         verify(userRepository).findById(1L);
         verify(userRepository, never()).save(any(User.class));
+        verifyNoInteractions(eventPublisher);
     }
 } 
\ No newline at end of file
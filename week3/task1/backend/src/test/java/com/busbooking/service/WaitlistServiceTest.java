@@ -0,0 +1,155 @@
+package com.busbooking.service;
+
+import com.busbooking.dto.WaitlistResponse;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.User;
+import com.busbooking.entity.WaitlistEntry;
+import com.busbooking.exception.BookingRejectedException;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.UserRepository;
+import com.busbooking.repository.WaitlistRepository;
+import com.busbooking.util.SeatMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WaitlistServiceTest {
+
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private WaitlistService waitlistService;
+
+    private User user;
+    private Schedule schedule;
+    private SeatMap soldOut;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(1L);
+
+        Bus bus = new Bus();
+        bus.setId(1L);
+        bus.setTotalSeats(40);
+
+        schedule = new Schedule();
+        schedule.setId(1L);
+        schedule.setBus(bus);
+        schedule.setDepartureTime(LocalDateTime.now().plusDays(1));
+        schedule.setArrivalTime(LocalDateTime.now().plusDays(1).plusHours(6));
+        schedule.setAvailableSeats(0);
+
+        soldOut = new SeatMap(40);
+        soldOut.take(soldOut.findFree(40));
+    }
+
+    @Test
+    void join_SoldOut_QueuesUser() {
+        // Arrange
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(soldOut.toBytes());
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.of(schedule));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(waitlistRepository.findFirstByScheduleIdAndUserIdAndStatus(1L, 1L, "WAITING")).thenReturn(Optional.empty());
+        when(waitlistRepository.save(any(WaitlistEntry.class))).thenAnswer(invocation -> {
+            WaitlistEntry saved = invocation.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
+        when(waitlistRepository.countByScheduleIdAndStatusAndIdLessThan(1L, "WAITING", 7L)).thenReturn(2L);
+
+        // Act
+        WaitlistResponse response = waitlistService.join(1L, 1L, 2);
+
+        // Assert
+        assertEquals(7L, response.getId());
+        assertEquals("WAITING", response.getStatus());
+        assertEquals(3L, response.getPosition());
+        assertEquals(2, response.getNumberOfSeats());
+    }
+
+    @Test
+    void join_AlreadyWaiting_ReturnsExistingEntry() {
+        // Arrange
+        WaitlistEntry existing = new WaitlistEntry();
+        existing.setId(5L);
+        existing.setSchedule(schedule);
+        existing.setUser(user);
+        existing.setNumberOfSeats(1);
+        existing.setStatus("WAITING");
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(soldOut.toBytes());
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.of(schedule));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(waitlistRepository.findFirstByScheduleIdAndUserIdAndStatus(1L, 1L, "WAITING")).thenReturn(Optional.of(existing));
+        when(waitlistRepository.countByScheduleIdAndStatusAndIdLessThan(1L, "WAITING", 5L)).thenReturn(0L);
+
+        // Act
+        WaitlistResponse response = waitlistService.join(1L, 1L, 1);
+
+        // Assert
+        assertEquals(5L, response.getId());
+        assertEquals(1L, response.getPosition());
+        verify(waitlistRepository, never()).save(any());
+    }
+
+    @Test
+    void join_SeatsAvailable_ThrowsException() {
+        // Arrange
+        SeatMap seatMap = new SeatMap(40);
+        seatMap.take(seatMap.findFree(38));
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(seatMap.toBytes());
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.of(schedule));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(waitlistRepository.findFirstByScheduleIdAndUserIdAndStatus(1L, 1L, "WAITING")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> waitlistService.join(1L, 1L, 2));
+        assertEquals("Seats are available; book them directly", exception.getMessage());
+        verify(waitlistRepository, never()).save(any());
+    }
+
+    @Test
+    void join_AboutToDepart_ThrowsException() {
+        // Arrange
+        schedule.setDepartureTime(LocalDateTime.now().plusMinutes(10));
+        when(scheduleRepository.findSeatMapForUpdate(1L)).thenReturn(soldOut.toBytes());
+        when(scheduleRepository.findCurrentById(1L)).thenReturn(Optional.of(schedule));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        // Act & Assert
+        assertThrows(BookingRejectedException.class, () -> waitlistService.join(1L, 1L, 1));
+    }
+
+    @Test
+    void leave_NoLongerWaiting_ThrowsException() {
+        // Arrange
+        WaitlistEntry fulfilled = new WaitlistEntry();
+        fulfilled.setId(5L);
+        fulfilled.setStatus("FULFILLED");
+        when(waitlistRepository.findById(5L)).thenReturn(Optional.of(fulfilled));
+        when(waitlistRepository.cancelIfWaiting(5L)).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> waitlistService.leave(5L));
+    }
+}
@@ -0,0 +1,205 @@
+package com.busbooking.service;
+
+import com.busbooking.BusBookingApplication;
+import com.busbooking.dto.WithdrawalJobResponse;
+import com.busbooking.entity.Booking;
+import com.busbooking.entity.Bus;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.User;
+import com.busbooking.entity.WithdrawalJob;
+import com.busbooking.exception.BookingRejectedException;
+import com.busbooking.exception.BookingRejectedException.Reason;
+import com.busbooking.repository.BookingRepository;
+import com.busbooking.repository.BusRepository;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.UserRepository;
+import com.busbooking.repository.WithdrawalJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WithdrawalServiceTest {
+
+    private ConfigurableApplicationContext context;
+    private WithdrawalService withdrawalService;
+    private BookingService bookingService;
+    private BookingRepository bookingRepository;
+    private ScheduleRepository scheduleRepository;
+    private Long busId;
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        context = new SpringApplicationBuilder(BusBookingApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--app.data-loader.enabled=false",
+                        "--app.withdrawal.batch-size=2");
+        withdrawalService = context.getBean(WithdrawalService.class);
+        bookingService = context.getBean(BookingService.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        scheduleRepository = context.getBean(ScheduleRepository.class);
+
+        Bus bus = new Bus();
+        bus.setBusNumber("KA-01-1234");
+        bus.setBusName("Express");
+        bus.setTotalSeats(10);
+        bus.setBusType("AC");
+        busId = context.getBean(BusRepository.class).save(bus).getId();
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("password");
+            user.setFullName("User " + i);
+            user.setPhoneNumber("900000000" + i);
+            userIds.add(userRepository.save(user).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void withdrawBus_CancelsAndRefundsEveryUpcomingBooking() throws InterruptedException {
+        // Arrange
+        Long fullRefund = schedule(LocalDateTime.now().plusDays(2));
+        Long halfRefund = schedule(LocalDateTime.now().plusHours(18));
+        for (int i = 0; i < 3; i++) {
+            bookingService.createBooking(fullRefund, userIds.get(i), 2);
+        }
+        bookingService.createBooking(halfRefund, userIds.get(3), List.of(4));
+        bookingService.createBooking(halfRefund, userIds.get(4), List.of(5));
+        ScheduleService scheduleService = context.getBean(ScheduleService.class);
+        context.getBean(ScheduleViewRefresher.class).refresh();
+        assertEquals(2, scheduleService.searchSchedules("Bangalore", "Chennai", null, null, null, "departure", 0, 10).size());
+
+        // Act
+        WithdrawalJobResponse job = awaitDone(withdrawalService.withdrawBus(busId).getId());
+
+        // Assert
+        assertEquals(WithdrawalService.COMPLETED, job.getStatus());
+        assertEquals(2, job.getSchedulesDone());
+        assertEquals(5, job.getBookingsTotal());
+        assertEquals(5, job.getBookingsCancelled());
+        assertEquals(8, job.getSeatsReleased());
+        assertEquals(3500.0, job.getRefundTotal(), 0.001);
+        for (Booking booking : bookingRepository.findAll()) {
+            assertEquals("CANCELLED", booking.getStatus());
+            assertEquals(booking.getSchedule().getId().equals(fullRefund) ? 1000.0 : 250.0, booking.getTotalAmount(), 0.001);
+        }
+        assertEquals(10, scheduleRepository.findCurrentById(fullRefund).orElseThrow().getAvailableSeats());
+        assertEquals(10, scheduleRepository.findCurrentById(halfRefund).orElseThrow().getAvailableSeats());
+        assertTrue(scheduleService.searchSchedules("Bangalore", "Chennai", null, null, null, "departure", 0, 10).isEmpty());
+        BookingRejectedException exception = assertThrows(BookingRejectedException.class,
+                () -> bookingService.createBooking(fullRefund, userIds.get(0), 1));
+        assertEquals(Reason.WITHDRAWN, exception.getReason());
+    }
+
+    @Test
+    void run_ResumesFromTheSavedCursor() {
+        // Arrange
+        Long scheduleId = schedule(LocalDateTime.now().plusDays(2));
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            bookingIds.add(bookingService.createBooking(scheduleId, userIds.get(i), 1).getId());
+        }
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+                .executeWithoutResult(status -> scheduleRepository.markWithdrawn(scheduleId));
+        // As left by an instance that stopped after committing the first booking's batch
+        WithdrawalJob interrupted = new WithdrawalJob();
+        interrupted.setScheduleId(scheduleId);
+        interrupted.setCurrentScheduleId(scheduleId);
+        interrupted.setStatus(WithdrawalService.RUNNING);
+        interrupted.setLastBookingId(bookingIds.get(0));
+        interrupted.setSchedulesDone(0);
+        interrupted.setBookingsTotal(3L);
+        interrupted.setBookingsCancelled(1L);
+        interrupted.setSeatsReleased(1L);
+        interrupted.setRefundTotal(500.0);
+        interrupted.setCreatedAt(LocalDateTime.now());
+        interrupted.setUpdatedAt(LocalDateTime.now());
+        Long jobId = context.getBean(WithdrawalJobRepository.class).save(interrupted).getId();
+
+        // Act
+        withdrawalService.run(jobId);
+
+        // Assert
+        WithdrawalJobResponse job = withdrawalService.getJob(jobId);
+        assertEquals(WithdrawalService.COMPLETED, job.getStatus());
+        assertEquals(3, job.getBookingsCancelled());
+        assertEquals(1500.0, job.getRefundTotal(), 0.001);
+        // Bookings before the cursor are taken as done and not touched again
+        assertEquals("CONFIRMED", bookingRepository.findById(bookingIds.get(0)).orElseThrow().getStatus());
+        assertEquals("CANCELLED", bookingRepository.findById(bookingIds.get(1)).orElseThrow().getStatus());
+        assertEquals("CANCELLED", bookingRepository.findById(bookingIds.get(2)).orElseThrow().getStatus());
+    }
+
+    @Test
+    void withdrawSchedule_RejectsADepartedSchedule() {
+        // Arrange
+        Long scheduleId = schedule(LocalDateTime.now().minusHours(1));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> withdrawalService.withdrawSchedule(scheduleId));
+        assertFalse(scheduleRepository.findCurrentById(scheduleId).orElseThrow().isWithdrawn());
+    }
+
+    @Test
+    void failureMessage_FitsTheMessageColumn() {
+        // Arrange
+        RuntimeException error = new RuntimeException("could not execute statement [" + "x".repeat(1000) + "]");
+
+        // Act
+        String message = WithdrawalService.failureMessage(error);
+
+        // Assert
+        assertEquals(255, message.length());
+        assertTrue(message.startsWith("RuntimeException: could not execute statement"));
+    }
+
+    private WithdrawalJobResponse awaitDone(Long jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        WithdrawalJobResponse job = withdrawalService.getJob(jobId);
+        while (WithdrawalService.RUNNING.equals(job.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            job = withdrawalService.getJob(jobId);
+        }
+        return job;
+    }
+
+    private Long schedule(LocalDateTime departure) {
+        Schedule schedule = new Schedule();
+        schedule.setBus(context.getBean(BusRepository.class).findById(busId).orElseThrow());
+        schedule.setSource("Bangalore");
+        schedule.setDestination("Chennai");
+        schedule.setDepartureTime(departure);
+        schedule.setArrivalTime(departure.plusHours(6));
+        schedule.setFare(500.0);
+        schedule.setAvailableSeats(10);
+        return context.getBean(ScheduleRepository.class).save(schedule).getId();
+    }
+}
@@ -0,0 +1,58 @@
+package com.busbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchTest {
+
+    @Test
+    void estimate_NeverBelowTheTrueCountAndCloseAboveIt() {
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+        Map<String, Long> counts = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // Skewed so a few keys are far more common than the rest
+            String key = "route-" + (int) Math.pow(random.nextInt(1000), 2) / 1000;
+            sketch.add(key, 1);
+            counts.merge(key, 1L, Long::sum);
+        }
+
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), entry.getKey());
+            assertTrue(estimate - entry.getValue() <= 10000 * 2 / 64, entry.getKey());
+        }
+    }
+
+    @Test
+    void add_ReturnsTheNewEstimate() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+
+        assertEquals(1, sketch.add("bangalore-chennai", 1));
+        assertEquals(6, sketch.add("bangalore-chennai", 5));
+        assertEquals(0, sketch.estimate("chennai-bangalore"));
+    }
+
+    @Test
+    void halve_HalvesEveryCount() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        sketch.add("a", 9);
+        sketch.add("b", 1);
+
+        sketch.halve();
+
+        assertEquals(4, sketch.estimate("a"));
+        assertEquals(0, sketch.estimate("b"));
+    }
+
+    @Test
+    void constructor_RejectsEmptySketches() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(64, 0));
+    }
+}
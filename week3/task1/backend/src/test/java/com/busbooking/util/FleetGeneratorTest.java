@@ -0,0 +1,104 @@
+package com.busbooking.util;
+
+import com.busbooking.BusBookingApplication;
+import com.busbooking.entity.Booking;
+import com.busbooking.entity.Schedule;
+import com.busbooking.entity.User;
+import com.busbooking.repository.ScheduleRepository;
+import com.busbooking.repository.UserRepository;
+import com.busbooking.service.BookingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetGeneratorTest {
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        context = new SpringApplicationBuilder(BusBookingApplication.class)
+                .run(
+                        "--spring.profiles.active=generator",
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--app.generator.buses=6",
+                        "--app.generator.routes=3",
+                        "--app.generator.days=3",
+                        "--app.generator.users=25",
+                        "--app.generator.batch-size=7",
+                        "--app.generator.threads=2");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void generate_OnStartupWritesConsistentFleet() {
+        // Assert
+        assertEquals(6, count("SELECT COUNT(*) FROM buses"));
+        assertEquals(25, count("SELECT COUNT(*) FROM users"));
+        assertTrue(count("SELECT COUNT(*) FROM schedules") >= 6 * 3);
+        assertTrue(count("SELECT COUNT(*) FROM bookings") > 0);
+
+        // Every schedule's free count agrees with its seat map and with its confirmed bookings
+        assertEquals(0, count("SELECT COUNT(*) FROM schedules s JOIN buses b ON b.id = s.bus_id "
+                + "WHERE s.available_seats <> b.total_seats - COALESCE((SELECT SUM(k.number_of_seats) FROM bookings k "
+                + "WHERE k.schedule_id = s.id AND k.status = 'CONFIRMED'), 0)"));
+        for (Schedule schedule : context.getBean(ScheduleRepository.class).findAll()) {
+            SeatMap seatMap = SeatMap.fromBytes(schedule.getSeatMap(), schedule.getBus().getTotalSeats());
+            assertEquals(schedule.getAvailableSeats(), seatMap.getFreeCount());
+        }
+    }
+
+    @Test
+    void generate_RepeatedRunAppendsAndApplicationKeepsWorking() throws Exception {
+        // Arrange
+        long schedules = count("SELECT COUNT(*) FROM schedules");
+        long bookings = count("SELECT COUNT(*) FROM bookings");
+
+        // Act
+        long[] written = context.getBean(FleetGenerator.class).generate();
+
+        // Assert
+        assertEquals(schedules + written[0], count("SELECT COUNT(*) FROM schedules"));
+        assertEquals(bookings + written[1], count("SELECT COUNT(*) FROM bookings"));
+
+        User user = new User();
+        user.setEmail("fresh@example.com");
+        user.setPassword("password");
+        user.setFullName("Fresh User");
+        user.setPhoneNumber("9999999999");
+        user = context.getBean(UserRepository.class).save(user);
+        List<Long> bookable = jdbcTemplate.queryForList(
+                "SELECT id FROM schedules WHERE departure_time > ? AND available_seats > 0 ORDER BY departure_time",
+                Long.class, Timestamp.valueOf(LocalDateTime.now().plusHours(1)));
+        Booking booking = context.getBean(BookingService.class).createBooking(bookable.get(0), user.getId(), 1);
+        assertNotNull(booking.getId());
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
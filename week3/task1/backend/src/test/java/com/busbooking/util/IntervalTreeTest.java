@@ -0,0 +1,67 @@
+package com.busbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    @Test
+    void findOverlapping_ClosedIntervals() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(10, 20, 1);
+        tree.insert(30, 40, 2);
+
+        assertEquals(1L, tree.findOverlapping(20, 25));
+        assertEquals(2L, tree.findOverlapping(25, 30));
+        assertNull(tree.findOverlapping(21, 29));
+        assertNull(tree.findOverlapping(41, 50));
+    }
+
+    @Test
+    void remove_OnlyMatchingInterval() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(10, 20, 1);
+        tree.insert(10, 15, 2);
+
+        assertFalse(tree.remove(10, 99, 1));
+        assertTrue(tree.remove(10, 20, 1));
+        assertEquals(1, tree.size());
+        assertNull(tree.findOverlapping(16, 20));
+        assertEquals(2L, tree.findOverlapping(0, 10));
+    }
+
+    @Test
+    void insert_EndBeforeStart() {
+        assertThrows(IllegalArgumentException.class, () -> new IntervalTree().insert(5, 4, 1));
+    }
+
+    @Test
+    void findOverlapping_MatchesLinearScan() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<long[]> intervals = new ArrayList<>();
+
+        for (long id = 0; id < 5000; id++) {
+            if (!intervals.isEmpty() && random.nextInt(3) == 0) {
+                long[] removed = intervals.remove(random.nextInt(intervals.size()));
+                assertTrue(tree.remove(removed[0], removed[1], removed[2]));
+            } else {
+                long start = random.nextInt(10_000);
+                long[] interval = {start, start + random.nextInt(100), id};
+                tree.insert(interval[0], interval[1], interval[2]);
+                intervals.add(interval);
+            }
+
+            long start = random.nextInt(10_000);
+            long end = start + random.nextInt(50);
+            boolean expected = intervals.stream().anyMatch(interval -> interval[0] <= end && interval[1] >= start);
+            assertEquals(expected, tree.overlaps(start, end));
+        }
+        assertEquals(intervals.size(), tree.size());
+    }
+}
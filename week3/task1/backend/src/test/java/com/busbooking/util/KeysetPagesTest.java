@@ -0,0 +1,61 @@
+package com.busbooking.util;
+
+import com.busbooking.dto.CursorPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPagesTest {
+
+    // Stands in for findResponsesAfter over ids 1..25
+    private final List<Long> queriedAfter = new ArrayList<>();
+    private final BiFunction<Long, Pageable, List<Long>> query = (afterId, pageable) -> {
+        queriedAfter.add(afterId);
+        return LongStream.rangeClosed(afterId + 1, 25).limit(pageable.getPageSize()).boxed().toList();
+    };
+
+    @Test
+    void page_FollowsCursorToLastPage() {
+        CursorPage<String> first = KeysetPages.page(query, Function.identity(), Object::toString, null, 10);
+        CursorPage<String> last = KeysetPages.page(query, Function.identity(), Object::toString, 20L, 10);
+
+        assertEquals(10, first.getItems().size());
+        assertEquals("1", first.getItems().get(0));
+        assertEquals(10L, first.getNextCursor());
+        assertEquals(List.of("21", "22", "23", "24", "25"), last.getItems());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void page_ExactlyFullLastPageHasNoCursor() {
+        CursorPage<String> page = KeysetPages.page(query, Function.identity(), Object::toString, 15L, 10);
+
+        assertEquals(10, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void page_InvalidLimit() {
+        assertThrows(IllegalArgumentException.class,
+            () -> KeysetPages.page(query, Function.identity(), Object::toString, null, 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> KeysetPages.page(query, Function.identity(), Object::toString, null, KeysetPages.MAX_LIMIT + 1));
+    }
+
+    @Test
+    void forEachPage_SeeksFromLastIdOfEachPage() {
+        List<Integer> pageSizes = new ArrayList<>();
+
+        KeysetPages.forEachPage(query, Function.identity(), 10, page -> pageSizes.add(page.size()));
+
+        assertEquals(List.of(10, 10, 5), pageSizes);
+        assertEquals(List.of(0L, 10L, 20L), queriedAfter);
+    }
+}
@@ -0,0 +1,96 @@
+package com.busbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatMapTest {
+
+    @Test
+    void takeAndRelease_UpdatesCounts() {
+        SeatMap seatMap = new SeatMap(40);
+
+        seatMap.take(new int[] {1, 40});
+        assertTrue(seatMap.isTaken(1));
+        assertTrue(seatMap.isTaken(40));
+        assertEquals(38, seatMap.getFreeCount());
+
+        seatMap.release(new int[] {1});
+        assertFalse(seatMap.isTaken(1));
+        assertEquals(39, seatMap.getFreeCount());
+    }
+
+    @Test
+    void take_SeatOutsideBus() {
+        SeatMap seatMap = new SeatMap(40);
+
+        assertThrows(IllegalArgumentException.class, () -> seatMap.take(new int[] {0}));
+        assertThrows(IllegalArgumentException.class, () -> seatMap.take(new int[] {41}));
+    }
+
+    @Test
+    void toBytes_RoundTrip() {
+        SeatMap seatMap = new SeatMap(70);
+        seatMap.take(new int[] {1, 9, 64, 65, 70});
+
+        byte[] bytes = seatMap.toBytes();
+        SeatMap restored = SeatMap.fromBytes(bytes, 70);
+
+        assertEquals(9, bytes.length);
+        assertEquals(0x01, bytes[0]);
+        assertEquals(0x01, bytes[1]);
+        assertEquals(5, restored.getTakenCount());
+        assertTrue(restored.isTaken(64));
+        assertTrue(restored.isTaken(65));
+        assertTrue(restored.isTaken(70));
+        assertFalse(restored.isTaken(66));
+    }
+
+    @Test
+    void fromBytes_IgnoresSeatsBeyondCapacity() {
+        SeatMap seatMap = SeatMap.fromBytes(new byte[] {(byte) 0xFF}, 4);
+
+        assertEquals(4, seatMap.getTakenCount());
+        assertEquals(0, seatMap.getFreeCount());
+    }
+
+    @Test
+    void findAdjacentFree_SkipsShortGaps() {
+        SeatMap seatMap = new SeatMap(40);
+        seatMap.take(new int[] {1, 4, 7});
+
+        assertArrayEquals(new int[] {2, 3}, seatMap.findAdjacentFree(2));
+        assertArrayEquals(new int[] {8, 9, 10}, seatMap.findAdjacentFree(3));
+    }
+
+    @Test
+    void findAdjacentFree_RunAcrossWordBoundary() {
+        SeatMap seatMap = SeatMap.withFirstSeatsTaken(100, 62);
+
+        assertArrayEquals(new int[] {63, 64, 65, 66}, seatMap.findAdjacentFree(4));
+    }
+
+    @Test
+    void findAdjacentFree_NoRunLongEnough() {
+        SeatMap seatMap = new SeatMap(6);
+        seatMap.take(new int[] {3, 5});
+
+        assertNull(seatMap.findAdjacentFree(3));
+        assertArrayEquals(new int[] {1, 2, 4}, seatMap.findFree(3));
+    }
+
+    @Test
+    void findFree_NotEnoughSeats() {
+        SeatMap seatMap = SeatMap.withFirstSeatsTaken(10, 8);
+
+        assertArrayEquals(new int[] {9, 10}, seatMap.findFree(2));
+        assertNull(seatMap.findFree(3));
+    }
+
+    @Test
+    void parseSeats_RoundTrip() {
+        assertEquals("3,4,12", SeatMap.formatSeats(new int[] {3, 4, 12}));
+        assertArrayEquals(new int[] {3, 4, 12}, SeatMap.parseSeats("3, 4,12"));
+        assertArrayEquals(new int[0], SeatMap.parseSeats(null));
+    }
+}
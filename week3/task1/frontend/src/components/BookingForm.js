@@ -126,7 +126,7 @@ function BookingForm() {
                     <Grid item xs={12}>
                         <Typography variant="h6">Journey Details</Typography>
                         <Typography>
-                            Bus: {schedule.bus?.busName || 'N/A'} ({schedule.bus?.busNumber || 'N/A'})
+                            Bus: {schedule.busName || 'N/A'} ({schedule.busNumber || 'N/A'})
                         </Typography>
                         <Typography>
                             From: {schedule.source} To: {schedule.destination}
@@ -112,17 +112,17 @@ function MyBookings() {
                             {bookings.map((booking) => (
                                 <TableRow key={booking.id}>
                                     <TableCell>{booking.id}</TableCell>
-                                    <TableCell>{booking.user?.email || 'N/A'}</TableCell>
-                                    <TableCell>{booking.user?.fullName || 'N/A'}</TableCell>
-                                    <TableCell>{booking.schedule?.source || 'N/A'}</TableCell>
-                                    <TableCell>{booking.schedule?.destination || 'N/A'}</TableCell>
+                                    <TableCell>{booking.passengerEmail || 'N/A'}</TableCell>
+                                    <TableCell>{booking.passengerName || 'N/A'}</TableCell>
+                                    <TableCell>{booking.source || 'N/A'}</TableCell>
+                                    <TableCell>{booking.destination || 'N/A'}</TableCell>
                                     <TableCell>
-                                        {booking.schedule?.departureTime ? new Date(
-                                            booking.schedule.departureTime
+                                        {booking.departureTime ? new Date(
+                                            booking.departureTime
                                         ).toLocaleString() : 'N/A'}
                                     </TableCell>
                                     <TableCell>{booking.numberOfSeats}</TableCell>
-                                    <TableCell>${booking.totalAmount}</TableCell>
+                                    <TableCell>${booking.fare}</TableCell>
                                     <TableCell>{booking.status}</TableCell>
                                     <TableCell>
                                         {booking.status === 'CONFIRMED' && (
@@ -102,8 +102,8 @@ function ScheduleList() {
                     <TableBody>
                         {schedules.map((schedule) => (
                             <TableRow key={schedule.id}>
-                                <TableCell>{schedule.bus.busName}</TableCell>
-                                <TableCell>{schedule.bus.busType}</TableCell>
+                                <TableCell>{schedule.busName}</TableCell>
+                                <TableCell>{schedule.busType}</TableCell>
                                 <TableCell>{schedule.source}</TableCell>
                                 <TableCell>{schedule.destination}</TableCell>
                                 <TableCell>
@@ -113,7 +113,7 @@ function ScheduleList() {
                                     {new Date(schedule.arrivalTime).toLocaleString()}
                                 </TableCell>
                                 <TableCell>{schedule.availableSeats}</TableCell>
-                                <TableCell>${schedule.bus.farePerSeat}</TableCell>
+                                <TableCell>${schedule.fare}</TableCell>
                                 <TableCell>
                                     <Button
                                         variant="contained"
@@ -88,8 +88,8 @@ const ScheduleSearch = () => {
             <TableBody>
               {schedules.map((schedule) => (
                 <TableRow key={schedule.id}>
-                  <TableCell>{schedule.bus?.busName || 'N/A'}</TableCell>
-                  <TableCell>{schedule.bus?.busNumber || 'N/A'}</TableCell>
+                  <TableCell>{schedule.busName || 'N/A'}</TableCell>
+                  <TableCell>{schedule.busNumber || 'N/A'}</TableCell>
                   <TableCell>{schedule.source}</TableCell>
                   <TableCell>{schedule.destination}</TableCell>
                   <TableCell>{new Date(schedule.departureTime).toLocaleString()}</TableCell>